@@ -0,0 +1,38 @@
+package com.bank.configurer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Com {@code bank.threads.virtuais=true} (perfil {@code virtual-threads}) cada requisição HTTP roda numa thread
+ * virtual em vez do pool de threads de plataforma do Tomcat, e as chamadas ao repositório, feitas na thread da
+ * requisição, também.
+ *
+ * <p>Threads virtuais exigem Java 21: esta classe fica em {@code src/java21} e só entra no build com
+ * {@code mvn -Pjava21}. Nenhum ganho sobre o pool do Tomcat foi medido ainda; a comparação é o
+ * {@code ThreadsVirtuaisBenchmark}.</p>
+ */
+@Slf4j
+@Configuration
+public class ThreadsVirtuaisConfigurer {
+    private final boolean ativo;
+
+    public ThreadsVirtuaisConfigurer(@Value("${bank.threads.virtuais:false}") boolean ativo) {
+        this.ativo = ativo;
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> executorDeRequisicoes() {
+        return protocolHandler -> {
+            if (!ativo)
+                return;
+            protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            log.info("Requisições HTTP atendidas em threads virtuais");
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package com.bank.benchmark;
+
+import com.bank.BankingSystemApplication;
+import com.bank.domain.Conta;
+import com.bank.request.OperacaoRequest;
+import com.bank.service.ContaService;
+import com.bank.service.OperacaoService;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+
+/**
+ * Contexto Spring completo (H2 em memória, motor de saldos, group commit) compartilhado pelos benchmarks de um fork.
+ */
+@State(Scope.Benchmark)
+public class Aplicacao {
+    private ConfigurableApplicationContext contexto;
+
+    @Setup
+    public void iniciar() {
+        contexto = new SpringApplicationBuilder(BankingSystemApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.main.banner-mode=off",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN",
+                        "logging.level.org.hibernate.SQL=WARN",
+                        "logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF")
+                .run();
+    }
+
+    @TearDown
+    public void encerrar() {
+        contexto.close();
+    }
+
+    public <T> T bean(Class<T> tipo) {
+        return contexto.getBean(tipo);
+    }
+
+    public Conta novaConta(BigDecimal saldoInicial) {
+        Conta conta = bean(ContaService.class).save();
+        if (saldoInicial.signum() > 0) {
+            bean(OperacaoService.class).deposito(OperacaoRequest.builder()
+                    .identificador(conta.getIdentificadorConta())
+                    .valor(saldoInicial)
+                    .build());
+        }
+        return conta;
+    }
+}
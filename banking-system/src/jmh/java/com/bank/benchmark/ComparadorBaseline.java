@@ -0,0 +1,152 @@
+package com.bank.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compara o resultado JSON do JMH com o baseline versionado e termina com código 1 se algum benchmark perdeu
+ * throughput (ops/s) ou passou a alocar mais bytes por operação além da tolerância. Só conta como regressão quando
+ * o intervalo de erro reportado pelo JMH inteiro fica além do limite, para que ruído da máquina não quebre o build.
+ *
+ * <p>Argumentos: baseline, resultado, tolerância de score, tolerância de alocação e se o baseline deve ser
+ * substituído pelo resultado.</p>
+ */
+public class ComparadorBaseline {
+    private static final String ALOCACAO = "gc.alloc.rate.norm";
+    // Benchmarks que quase não alocam oscilam alguns bytes por operação; abaixo disso não é regressão.
+    private static final double FOLGA_ALOCACAO_BYTES = 64;
+
+    public static void main(String[] args) throws IOException {
+        Path baseline = Path.of(args[0]);
+        Path resultado = Path.of(args[1]);
+        double toleranciaScore = Double.parseDouble(args[2]);
+        double toleranciaAlocacao = Double.parseDouble(args[3]);
+        boolean atualizar = Boolean.parseBoolean(args[4]);
+
+        if (atualizar || !Files.exists(baseline)) {
+            gravarBaseline(resultado, baseline);
+            System.out.println("Baseline gravado em " + baseline);
+            return;
+        }
+
+        List<String> regressoes = comparar(ler(baseline), ler(resultado), toleranciaScore, toleranciaAlocacao);
+        if (!regressoes.isEmpty()) {
+            System.err.println("Regressões em relação ao baseline:");
+            regressoes.forEach(regressao -> System.err.println("  " + regressao));
+            System.exit(1);
+        }
+        System.out.println("Nenhuma regressão em relação ao baseline.");
+    }
+
+    static List<String> comparar(Map<String, Medicao> baseline, Map<String, Medicao> atual,
+                                 double toleranciaScore, double toleranciaAlocacao) {
+        List<String> regressoes = new ArrayList<>();
+        for (Map.Entry<String, Medicao> entrada : atual.entrySet()) {
+            Medicao anterior = baseline.get(entrada.getKey());
+            Medicao medicao = entrada.getValue();
+            if (anterior == null) {
+                System.out.println("Sem baseline: " + entrada.getKey());
+                continue;
+            }
+            if (medicao.score() + medicao.erro() < anterior.score() * (1 - toleranciaScore)) {
+                regressoes.add(String.format("%s: %.1f -> %.1f %s", entrada.getKey(),
+                        anterior.score(), medicao.score(), medicao.unidade()));
+            }
+            if (anterior.alocacao() != null && medicao.alocacao() != null
+                    && medicao.alocacao() - medicao.erroAlocacao() > anterior.alocacao() * (1 + toleranciaAlocacao)
+                    && medicao.alocacao() - anterior.alocacao() > FOLGA_ALOCACAO_BYTES) {
+                regressoes.add(String.format("%s: %.0f -> %.0f B/op", entrada.getKey(),
+                        anterior.alocacao(), medicao.alocacao()));
+            }
+        }
+        baseline.keySet().stream()
+                .filter(chave -> !atual.containsKey(chave))
+                .forEach(chave -> System.out.println("Não executado: " + chave));
+        return regressoes;
+    }
+
+    static Map<String, Medicao> ler(Path arquivo) throws IOException {
+        Map<String, Medicao> medicoes = new LinkedHashMap<>();
+        for (JsonNode benchmark : new ObjectMapper().readTree(arquivo.toFile())) {
+            JsonNode primaria = benchmark.path("primaryMetric");
+            JsonNode alocacao = alocacao(benchmark.path("secondaryMetrics"));
+            medicoes.put(chave(benchmark), new Medicao(
+                    primaria.path("score").asDouble(),
+                    erro(primaria),
+                    primaria.path("scoreUnit").asText(),
+                    alocacao == null ? null : alocacao.path("score").asDouble(),
+                    alocacao == null ? 0 : erro(alocacao)));
+        }
+        return medicoes;
+    }
+
+    // Mantém no baseline só o que a comparação usa, sem as amostras brutas de cada iteração.
+    private static void gravarBaseline(Path resultado, Path baseline) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        ArrayNode compacto = mapper.createArrayNode();
+        for (JsonNode benchmark : mapper.readTree(resultado.toFile())) {
+            ObjectNode entrada = compacto.addObject();
+            entrada.set("benchmark", benchmark.path("benchmark"));
+            entrada.set("mode", benchmark.path("mode"));
+            if (benchmark.has("params")) {
+                entrada.set("params", benchmark.path("params"));
+            }
+            entrada.set("primaryMetric", metrica(mapper, benchmark.path("primaryMetric")));
+            JsonNode alocacao = alocacao(benchmark.path("secondaryMetrics"));
+            if (alocacao != null) {
+                entrada.putObject("secondaryMetrics").set(ALOCACAO, metrica(mapper, alocacao));
+            }
+        }
+        Files.createDirectories(baseline.getParent());
+        mapper.writerWithDefaultPrettyPrinter().writeValue(baseline.toFile(), compacto);
+    }
+
+    private static ObjectNode metrica(ObjectMapper mapper, JsonNode metrica) {
+        ObjectNode compacta = mapper.createObjectNode();
+        compacta.set("score", metrica.path("score"));
+        compacta.put("scoreError", erro(metrica));
+        compacta.set("scoreUnit", metrica.path("scoreUnit"));
+        return compacta;
+    }
+
+    // Com poucas iterações o JMH grava "NaN" como erro.
+    private static double erro(JsonNode metrica) {
+        double erro = metrica.path("scoreError").asDouble();
+        return Double.isNaN(erro) ? 0 : erro;
+    }
+
+    private static String chave(JsonNode benchmark) {
+        Map<String, String> parametros = new TreeMap<>();
+        Iterator<Map.Entry<String, JsonNode>> campos = benchmark.path("params").fields();
+        campos.forEachRemaining(campo -> parametros.put(campo.getKey(), campo.getValue().asText()));
+        String nome = benchmark.path("benchmark").asText() + ":" + benchmark.path("mode").asText();
+        return parametros.isEmpty() ? nome : nome + parametros;
+    }
+
+    // Versões antigas do JMH prefixam as métricas do profiler com "·".
+    private static JsonNode alocacao(JsonNode secundarias) {
+        Iterator<Map.Entry<String, JsonNode>> metricas = secundarias.fields();
+        while (metricas.hasNext()) {
+            Map.Entry<String, JsonNode> metrica = metricas.next();
+            if (metrica.getKey().replace("·", "").equals(ALOCACAO)) {
+                return metrica.getValue();
+            }
+        }
+        return null;
+    }
+
+    record Medicao(double score, double erro, String unidade, Double alocacao, double erroAlocacao) {
+    }
+}
@@ -0,0 +1,62 @@
+package com.bank.benchmark;
+
+import com.bank.domain.Conta;
+import com.bank.service.ContaService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Abertura de contas por ContaService.save, incluindo a geração do identificador.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContaBenchmark {
+
+    // Identificadores repetidos violam a unique key; contar as colisões deixa visível quando a geração degrada.
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Colisoes {
+        public long colisoes;
+
+        @Setup(Level.Iteration)
+        public void zerar() {
+            colisoes = 0;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Servico {
+        ContaService service;
+
+        @Setup
+        public void preparar(Aplicacao aplicacao) {
+            service = aplicacao.bean(ContaService.class);
+        }
+    }
+
+    @Benchmark
+    public Conta save(Servico servico, Colisoes colisoes) {
+        try {
+            return servico.service.save();
+        } catch (DataIntegrityViolationException e) {
+            colisoes.colisoes++;
+            return null;
+        }
+    }
+}
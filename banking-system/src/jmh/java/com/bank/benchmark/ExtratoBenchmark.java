@@ -0,0 +1,82 @@
+package com.bank.benchmark;
+
+import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
+import com.bank.domain.Operacao;
+import com.bank.enums.NaturezaEnum;
+import com.bank.enums.OperacaoEnum;
+import com.bank.repository.ContaRepository;
+import com.bank.repository.OperacaoRepository;
+import com.bank.response.ExtratoPagina;
+import com.bank.service.ContaService;
+import com.bank.service.OperacaoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extrato completo e primeira página do extrato paginado para contas com históricos de tamanhos diferentes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExtratoBenchmark {
+    private static final int TAMANHO_PAGINA = 100;
+
+    @Param({"100", "1000", "10000"})
+    public int operacoes;
+
+    private OperacaoService service;
+    private String identificador;
+
+    // O histórico é gravado direto no repositório: passar pelo group commit tornaria o setup de 10 mil operações lento.
+    @Setup
+    public void preparar(Aplicacao aplicacao) {
+        service = aplicacao.bean(OperacaoService.class);
+        identificador = aplicacao.bean(ContaService.class).save().getIdentificadorConta();
+
+        ContaRepository contaRepository = aplicacao.bean(ContaRepository.class);
+        OperacaoRepository operacaoRepository = aplicacao.bean(OperacaoRepository.class);
+        aplicacao.bean(TransactionTemplate.class).executeWithoutResult(status -> {
+            Conta conta = contaRepository.findByIdentificadorConta(identificador).orElseThrow();
+            List<Operacao> historico = new ArrayList<>(operacoes);
+            for (int i = 0; i < operacoes; i++) {
+                historico.add(Operacao.builder()
+                        .tipo(OperacaoEnum.DEPOSITO)
+                        .natureza(NaturezaEnum.CREDITO)
+                        .valor(BigDecimal.ONE)
+                        .conta(conta)
+                        .build());
+            }
+            conta.setSaldo(Dinheiro.ofCentavos(operacoes * 100L));
+            operacaoRepository.saveAll(historico);
+        });
+    }
+
+    @Benchmark
+    public List<Operacao> extratoCompleto() {
+        return service.extrato(identificador);
+    }
+
+    @Benchmark
+    public ExtratoPagina extratoPaginado() {
+        return service.extrato(identificador, null, TAMANHO_PAGINA, null, null);
+    }
+}
@@ -0,0 +1,26 @@
+package com.bank.benchmark;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Simula um banco lento: cada comando SQL preparado pelo Hibernate espera {@link #definir(long)} milissegundos
+ * segurando a conexão, como uma ida e volta de rede até um banco remoto.
+ */
+public class LatenciaBanco implements StatementInspector {
+    private static volatile long nanos;
+
+    public static void definir(long millis) {
+        nanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        long espera = nanos;
+        if (espera > 0)
+            LockSupport.parkNanos(espera);
+        return sql;
+    }
+}
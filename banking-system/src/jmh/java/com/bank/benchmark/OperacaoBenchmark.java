@@ -0,0 +1,115 @@
+package com.bank.benchmark;
+
+import com.bank.domain.Conta;
+import com.bank.request.OperacaoRequest;
+import com.bank.request.TransferenciaRequest;
+import com.bank.service.OperacaoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Depósito, saque e transferência passando pelo motor de saldos e pelo group commit, com uma conta por thread
+ * e com todas as threads disputando as mesmas contas.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OperacaoBenchmark {
+    private static final BigDecimal SALDO_INICIAL = new BigDecimal("1000000000.00");
+    private static final BigDecimal VALOR = new BigDecimal("0.01");
+    private static final int THREADS_CONTENDIDAS = 4;
+
+    @State(Scope.Thread)
+    public static class ContasDaThread {
+        OperacaoService service;
+        OperacaoRequest operacao;
+        TransferenciaRequest ida;
+        TransferenciaRequest volta;
+        boolean sentido;
+
+        @Setup
+        public void preparar(Aplicacao aplicacao) {
+            service = aplicacao.bean(OperacaoService.class);
+            Conta origem = aplicacao.novaConta(SALDO_INICIAL);
+            Conta destino = aplicacao.novaConta(SALDO_INICIAL);
+            operacao = OperacaoRequest.builder().identificador(origem.getIdentificadorConta()).valor(VALOR).build();
+            ida = transferencia(origem, destino);
+            volta = transferencia(destino, origem);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ContasCompartilhadas {
+        OperacaoRequest operacao;
+        TransferenciaRequest ida;
+        TransferenciaRequest volta;
+
+        @Setup
+        public void preparar(Aplicacao aplicacao) {
+            Conta origem = aplicacao.novaConta(SALDO_INICIAL);
+            Conta destino = aplicacao.novaConta(SALDO_INICIAL);
+            operacao = OperacaoRequest.builder().identificador(origem.getIdentificadorConta()).valor(VALOR).build();
+            ida = transferencia(origem, destino);
+            volta = transferencia(destino, origem);
+        }
+    }
+
+    @Benchmark
+    public void deposito(ContasDaThread contas, Blackhole blackhole) {
+        blackhole.consume(contas.service.deposito(contas.operacao));
+    }
+
+    @Benchmark
+    public void saque(ContasDaThread contas, Blackhole blackhole) {
+        blackhole.consume(contas.service.saque(contas.operacao));
+    }
+
+    @Benchmark
+    public void transferencia(ContasDaThread contas) {
+        contas.sentido = !contas.sentido;
+        contas.service.transferencia(contas.sentido ? contas.ida : contas.volta);
+    }
+
+    @Benchmark
+    @Threads(THREADS_CONTENDIDAS)
+    public void depositoContendido(ContasDaThread contas, ContasCompartilhadas compartilhadas, Blackhole blackhole) {
+        blackhole.consume(contas.service.deposito(compartilhadas.operacao));
+    }
+
+    @Benchmark
+    @Threads(THREADS_CONTENDIDAS)
+    public void saqueContendido(ContasDaThread contas, ContasCompartilhadas compartilhadas, Blackhole blackhole) {
+        blackhole.consume(contas.service.saque(compartilhadas.operacao));
+    }
+
+    // As threads alternam o sentido de forma independente, então há transferências cruzadas A->B e B->A simultâneas.
+    @Benchmark
+    @Threads(THREADS_CONTENDIDAS)
+    public void transferenciaContendida(ContasDaThread contas, ContasCompartilhadas compartilhadas) {
+        contas.sentido = !contas.sentido;
+        contas.service.transferencia(contas.sentido ? compartilhadas.ida : compartilhadas.volta);
+    }
+
+    private static TransferenciaRequest transferencia(Conta origem, Conta destino) {
+        return TransferenciaRequest.builder()
+                .origem(origem.getIdentificadorConta())
+                .destino(destino.getIdentificadorConta())
+                .valor(VALOR)
+                .build();
+    }
+}
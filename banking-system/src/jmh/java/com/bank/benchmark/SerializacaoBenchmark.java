@@ -0,0 +1,89 @@
+package com.bank.benchmark;
+
+import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
+import com.bank.domain.Operacao;
+import com.bank.enums.NaturezaEnum;
+import com.bank.enums.OperacaoEnum;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialização JSON de Conta e Operacao com o ObjectMapper configurado pelo Spring, o mesmo usado pelos controllers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializacaoBenchmark {
+    private static final int TAMANHO_EXTRATO = 100;
+
+    private ObjectMapper mapper;
+    private Conta conta;
+    private Operacao operacao;
+    private List<Operacao> extrato;
+
+    @Setup
+    public void preparar(Aplicacao aplicacao) {
+        mapper = aplicacao.bean(ObjectMapper.class);
+        LocalDateTime agora = LocalDateTime.now();
+        conta = Conta.builder()
+                .id(1L)
+                .identificadorConta("12345-6")
+                .saldo(Dinheiro.of(new BigDecimal("1500.75")))
+                .createdAt(agora)
+                .updatedAt(agora)
+                .version(3L)
+                .build();
+        operacao = novaOperacao(1L, agora);
+        extrato = new ArrayList<>(TAMANHO_EXTRATO);
+        for (long id = 1; id <= TAMANHO_EXTRATO; id++) {
+            extrato.add(novaOperacao(id, agora));
+        }
+    }
+
+    @Benchmark
+    public byte[] conta() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(conta);
+    }
+
+    @Benchmark
+    public byte[] operacao() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(operacao);
+    }
+
+    @Benchmark
+    public byte[] extrato() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(extrato);
+    }
+
+    private Operacao novaOperacao(long id, LocalDateTime agora) {
+        return Operacao.builder()
+                .id(id)
+                .tipo(OperacaoEnum.DEPOSITO)
+                .natureza(NaturezaEnum.CREDITO)
+                .valor(new BigDecimal("250.00"))
+                .createdAt(agora)
+                .updatedAt(agora)
+                .conta(conta)
+                .build();
+    }
+}
@@ -0,0 +1,115 @@
+package com.bank.benchmark;
+
+import com.bank.BankingSystemApplication;
+import com.bank.service.ContaService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Teste de carga HTTP do perfil virtual-threads contra o pool de threads de plataforma do Tomcat, com o banco lento
+ * ({@link LatenciaBanco}). {@value #CLIENTES} clientes pedem a primeira página do extrato ao mesmo tempo; {@code vazao}
+ * mede requisições por segundo e {@code latencia} a distribuição do tempo de resposta (p99 no resultado do JMH).
+ *
+ * <p>O pool do Hikari tem o mesmo tamanho nos dois modos e comporta todos os clientes, então a diferença medida é só
+ * o limite de 200 threads de plataforma. Exige Java 21, porque o modo {@code virtuais} depende do
+ * ThreadsVirtuaisConfigurer de src/java21: {@code mvn -Pbenchmark,java21 verify -Dbenchmark.filtro=ThreadsVirtuaisBenchmark}.</p>
+ */
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(ThreadsVirtuaisBenchmark.CLIENTES)
+@State(Scope.Benchmark)
+public class ThreadsVirtuaisBenchmark {
+    static final int CLIENTES = 400;
+
+    @Param({"plataforma", "virtuais"})
+    public String modo;
+
+    @Param({"0", "20"})
+    public long latenciaMs;
+
+    private ConfigurableApplicationContext contexto;
+    private HttpClient cliente;
+    private HttpRequest extrato;
+
+    @Setup
+    public void iniciar() {
+        SpringApplicationBuilder aplicacao = new SpringApplicationBuilder(BankingSystemApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .properties(
+                        "server.port=0",
+                        "spring.main.banner-mode=off",
+                        "spring.datasource.url=jdbc:h2:mem:carga;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" + LatenciaBanco.class.getName());
+        if (modo.equals("virtuais"))
+            aplicacao.profiles("virtual-threads");
+        // Argumentos de linha de comando vencem o application.properties, que liga o log de SQL: sem log por
+        // requisição e com o pool igual nos dois modos.
+        contexto = aplicacao.run(
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--spring.datasource.hikari.maximum-pool-size=" + CLIENTES,
+                "--spring.datasource.hikari.minimum-idle=" + CLIENTES);
+
+        // Sem -Pjava21 o perfil virtual-threads não tem o configurer e o modo virtuais mediria threads de plataforma.
+        if (modo.equals("virtuais") && !contexto.containsBean("executorDeRequisicoes")) {
+            contexto.close();
+            throw new IllegalStateException("O modo virtuais exige o build com -Pjava21");
+        }
+        String identificador = contexto.getBean(ContaService.class).save().getIdentificadorConta();
+        String porta = contexto.getEnvironment().getProperty("local.server.port");
+        cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        extrato = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + "/operacao/" + identificador + "/pagina?limite=20"))
+                .GET()
+                .build();
+        LatenciaBanco.definir(latenciaMs);
+    }
+
+    @TearDown
+    public void encerrar() {
+        LatenciaBanco.definir(0);
+        contexto.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int vazao() throws IOException, InterruptedException {
+        return requisitar();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int latencia() throws IOException, InterruptedException {
+        return requisitar();
+    }
+
+    private int requisitar() throws IOException, InterruptedException {
+        HttpResponse<Void> resposta = cliente.send(extrato, HttpResponse.BodyHandlers.discarding());
+        if (resposta.statusCode() != 200)
+            throw new IllegalStateException("Resposta inesperada: " + resposta.statusCode());
+        return resposta.statusCode();
+    }
+}
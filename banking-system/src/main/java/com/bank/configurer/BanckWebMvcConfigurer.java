@@ -10,6 +10,12 @@ import java.util.List;
 
 @Configuration
 public class BanckWebMvcConfigurer implements WebMvcConfigurer {
+    /**
+     * Perfil Spring em que os controllers MVC dão lugar aos WebFlux. Estes só existem no build com o perfil Maven
+     * {@code reactive} ({@code src/reactive}), que é o que põe o WebFlux no classpath.
+     */
+    public static final String PERFIL_REATIVO = "reactive";
+
     @Override
     public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
         PageableHandlerMethodArgumentResolver pageableHandlerMethodArgumentResolver = new PageableHandlerMethodArgumentResolver();
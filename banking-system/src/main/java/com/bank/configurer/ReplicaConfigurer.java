@@ -0,0 +1,67 @@
+package com.bank.configurer;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Perfil {@code replica}: as leituras só-leitura ({@code @Transactional(readOnly = true)}) vão para as réplicas de
+ * {@code bank.replica.urls} e as escritas para o primário de {@code spring.datasource.*}. Cada destino tem o seu pool
+ * Hikari, com a configuração de {@code spring.datasource.hikari.*} e métricas por pool ({@code hikaricp_*{pool=...}}).
+ *
+ * <p>A replicação é do banco; a aplicação só escolhe para onde mandar cada transação. Para não ler uma escrita
+ * própria ainda não replicada, as leituras de uma conta ou cliente escritos há pouco voltam ao primário (ver
+ * {@link com.bank.service.ConsistenciaLeitura}). O saldo não passa por aqui: vem do motor de saldos em memória.</p>
+ */
+@Slf4j
+@Profile(ReplicaConfigurer.PERFIL)
+@Configuration
+public class ReplicaConfigurer {
+    public static final String PERFIL = "replica";
+    // Os pools não são beans (só o DataSource roteado é), então são fechados aqui.
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, Environment environment, MeterRegistry registry,
+                                 @Value("${bank.replica.urls}") List<String> urls) {
+        HikariDataSource primario = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primario));
+        primario.setPoolName(RoteamentoDataSource.PRIMARIO);
+        primario.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+
+        List<HikariDataSource> replicas = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            HikariConfig config = new HikariConfig();
+            primario.copyStateTo(config);
+            config.setJdbcUrl(url);
+            config.setPoolName(RoteamentoDataSource.REPLICA + replicas.size());
+            config.setReadOnly(true);
+            replicas.add(new HikariDataSource(config));
+        }
+        pools.add(primario);
+        pools.addAll(replicas);
+        log.info("Leituras só-leitura roteadas para {} réplica(s): {}", replicas.size(), urls);
+        return new LazyConnectionDataSourceProxy(new RoteamentoDataSource(primario, replicas));
+    }
+
+    @PreDestroy
+    void fechar() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
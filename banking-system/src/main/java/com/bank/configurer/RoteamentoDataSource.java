@@ -0,0 +1,45 @@
+package com.bank.configurer;
+
+import com.bank.service.ConsistenciaLeitura;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Envia as transações só-leitura às réplicas, em rodízio, e todo o resto ao primário. A chave é decidida quando a
+ * conexão física é pedida; por isso este DataSource fica atrás de um
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, que adia a conexão até o primeiro
+ * comando, quando a transação já está marcada como só-leitura.
+ */
+class RoteamentoDataSource extends AbstractRoutingDataSource {
+    static final String PRIMARIO = "primario";
+    static final String REPLICA = "replica-";
+    private final List<String> replicas = new ArrayList<>();
+    private final AtomicInteger proxima = new AtomicInteger();
+
+    RoteamentoDataSource(DataSource primario, List<? extends DataSource> replicas) {
+        Map<Object, Object> destinos = new HashMap<>();
+        destinos.put(PRIMARIO, primario);
+        for (int i = 0; i < replicas.size(); i++) {
+            destinos.put(REPLICA + i, replicas.get(i));
+            this.replicas.add(REPLICA + i);
+        }
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primario);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicas.isEmpty() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || ConsistenciaLeitura.primarioObrigatorio())
+            return PRIMARIO;
+        return replicas.get(Math.floorMod(proxima.getAndIncrement(), replicas.size()));
+    }
+}
@@ -0,0 +1,31 @@
+package com.bank.configurer;
+
+import com.bank.service.Shards;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Envia cada conexão ao shard marcado na thread por {@link Shards#executar}; sem marca, ao shard 0. Como em
+ * {@link RoteamentoDataSource}, fica atrás de um {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}
+ * para que a escolha aconteça no primeiro comando da transação e não no seu início.
+ */
+class ShardDataSource extends AbstractRoutingDataSource {
+
+    ShardDataSource(List<? extends DataSource> shards) {
+        Map<Object, Object> destinos = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++)
+            destinos.put(i, shards.get(i));
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(shards.get(0));
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return Shards.atual();
+    }
+}
@@ -0,0 +1,112 @@
+package com.bank.configurer;
+
+import com.bank.service.Shards;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.relational.SchemaManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Perfil {@code shards}: um pool Hikari por URL de {@code bank.shards.urls}, com a configuração de
+ * {@code spring.datasource.*}, atrás de um DataSource que segue o shard marcado por {@link Shards}.
+ *
+ * <p>O Hibernate cria o esquema só no shard 0, durante a inicialização; os demais recebem o mesmo esquema logo em
+ * seguida, antes de qualquer componente usá-los, se ainda não têm tabelas. Cada shard tem as suas sequências, então
+ * as do shard {@code k} começam em {@code k << 40}, e uma sequência já além desse ponto não é tocada: ids continuam
+ * únicos entre shards e entre reinícios, o que o cache de contas e as buscas por
+ * id pressupõem. O journal e o ledger event-sourced supõem um único banco e não podem ser ligados com shards; o perfil
+ * também não combina com {@code replica}, que define o seu próprio DataSource.</p>
+ */
+@Slf4j
+@Profile(ShardsConfigurer.PERFIL)
+@Configuration
+public class ShardsConfigurer {
+    public static final String PERFIL = "shards";
+    static final int BITS_POR_SHARD = 40;
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, Environment environment, MeterRegistry registry,
+                                 @Value("${bank.shards.urls}") List<String> urls,
+                                 @Value("${bank.journal.ativo:false}") boolean journal,
+                                 @Value("${bank.ledger.event-sourced:false}") boolean eventSourced) {
+        if (journal || eventSourced)
+            throw new IllegalStateException("O perfil shards não suporta bank.journal.ativo nem bank.ledger.event-sourced");
+        HikariDataSource base = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(base));
+        base.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+
+        for (String url : urls) {
+            HikariConfig config = new HikariConfig();
+            base.copyStateTo(config);
+            config.setJdbcUrl(url);
+            config.setPoolName("shard-" + pools.size());
+            pools.add(new HikariDataSource(config));
+        }
+        log.info("Contas distribuídas em {} shard(s): {}", pools.size(), urls);
+        return new LazyConnectionDataSourceProxy(new ShardDataSource(pools));
+    }
+
+    // O esquema é criado quando o bean Shards fica pronto, antes de qualquer bean que dependa dele (o OperacaoWriter
+    // consulta os shards já na inicialização). Nesse ponto o EntityManagerFactory, de que Shards depende, já existe.
+    @Bean
+    public static BeanPostProcessor esquemaDosShards(ObjectProvider<EntityManagerFactory> entityManagerFactory,
+                                                     ObjectProvider<DataSource> dataSource) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof Shards shards)
+                    criarEsquemas(shards, entityManagerFactory.getObject(), dataSource.getObject());
+                return bean;
+            }
+        };
+    }
+
+    private static void criarEsquemas(Shards shards, EntityManagerFactory entityManagerFactory, DataSource dataSource) {
+        SchemaManager esquema = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getSchemaManager();
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        for (int shard = 1; shard < shards.quantidade(); shard++) {
+            long inicio = (long) shard << BITS_POR_SHARD;
+            int atual = shard;
+            shards.executar(shard, () -> {
+                Integer tabelas = jdbc.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES " +
+                        "WHERE TABLE_SCHEMA = CURRENT_SCHEMA AND TABLE_TYPE = 'BASE TABLE'", Integer.class);
+                if (tabelas == null || tabelas == 0) {
+                    esquema.exportMappedObjects(true);
+                    log.info("Esquema criado no shard {}", atual);
+                }
+                // Só as sequências que ainda não chegaram ao início do shard: as de um banco persistente continuam de
+                // onde pararam, e os próximos ids não repetem os já gravados.
+                List<String> sequencias = jdbc.queryForList("SELECT SEQUENCE_NAME FROM INFORMATION_SCHEMA.SEQUENCES " +
+                        "WHERE SEQUENCE_SCHEMA = CURRENT_SCHEMA AND BASE_VALUE < ?", String.class, inicio);
+                sequencias.forEach(sequencia -> jdbc.execute("ALTER SEQUENCE " + sequencia + " RESTART WITH " + inicio));
+            });
+        }
+    }
+
+    @PreDestroy
+    void fechar() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
@@ -1,13 +1,24 @@
 package com.bank.controller;
 
+import com.bank.configurer.BanckWebMvcConfigurer;
 import com.bank.domain.Cliente;
 import com.bank.domain.Conta;
+import com.bank.exception.BadRequestException;
+import com.bank.request.ClienteLoteRequest;
 import com.bank.request.ClienteRequest;
 import com.bank.request.ClienteRequestUpdate;
+import com.bank.response.ClienteResumo;
+import com.bank.response.ResultadoLote;
+import com.bank.service.CadastroLoteService;
 import com.bank.service.ClienteService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,16 +29,21 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
+@Profile("!" + BanckWebMvcConfigurer.PERFIL_REATIVO)
 @RequiredArgsConstructor
 @RequestMapping("clientes")
 @RestController
 public class ClienteController {
     private final ClienteService service;
+    private final CadastroLoteService cadastroLote;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/all")
-    public ResponseEntity<List<Cliente>> listAllNoPageable() {
+    public ResponseEntity<List<ClienteResumo>> listAllNoPageable() {
         return ResponseEntity.ok(service.listAllNoPageable());
     }
 
@@ -37,8 +53,8 @@ public class ClienteController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Cliente> findById(@PathVariable long id) {
-        return ResponseEntity.ok(service.findByIdOrThrowBadRequestException(id));
+    public ResponseEntity<ClienteResumo> findById(@PathVariable long id) {
+        return ResponseEntity.ok(service.consultar(id));
     }
 
     @PostMapping
@@ -46,6 +62,16 @@ public class ClienteController {
         return ResponseEntity.status(HttpStatus.CREATED).body(service.save(clienteRequest));
     }
 
+    // Aceita um array JSON ou NDJSON (um cliente por linha); as linhas são lidas do corpo conforme chegam.
+    @PostMapping(value = "/lote", consumes = {MediaType.APPLICATION_JSON_VALUE, OperacaoController.APPLICATION_NDJSON})
+    public ResponseEntity<ResultadoLote> saveAll(InputStream corpo) throws IOException {
+        try (MappingIterator<ClienteLoteRequest> linhas = objectMapper.readerFor(ClienteLoteRequest.class).readValues(corpo)) {
+            return ResponseEntity.ok(cadastroLote.cadastrarClientes(linhas));
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException(e.getOriginalMessage());
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Void> update(@PathVariable long id, @RequestBody @Valid ClienteRequestUpdate request) {
         service.update(id, request);
@@ -1,10 +1,14 @@
 package com.bank.controller;
 
+import com.bank.configurer.BanckWebMvcConfigurer;
 import com.bank.domain.Conta;
 import com.bank.request.ContaRequest;
+import com.bank.response.ResultadoLote;
+import com.bank.service.CadastroLoteService;
 import com.bank.service.ContaService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
@@ -16,15 +20,18 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
 
+@Profile("!" + BanckWebMvcConfigurer.PERFIL_REATIVO)
 @RequiredArgsConstructor
 @RequestMapping("contas")
 @RestController
 public class ContaController {
     private final ContaService service;
+    private final CadastroLoteService cadastroLote;
 
     @GetMapping("/all")
     public ResponseEntity<List<Conta>> listAllNoPageable() {
@@ -46,6 +53,11 @@ public class ContaController {
         return new ResponseEntity<>(service.save(), HttpStatus.CREATED);
     }
 
+    @PostMapping("/lote")
+    public ResponseEntity<ResultadoLote> saveAll(@RequestParam int quantidade) {
+        return new ResponseEntity<>(cadastroLote.abrirContas(quantidade), HttpStatus.CREATED);
+    }
+
     // TODO: Nesse cenário, modificar o nome no ContaRequest para ver o erro de ConstraintViolationException
     @PutMapping("/{id}")
     public ResponseEntity<Void> update(@PathVariable long id, @RequestBody @Valid ContaRequest request) {
@@ -1,52 +1,149 @@
 package com.bank.controller;
 
+import com.bank.configurer.BanckWebMvcConfigurer;
 import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
 import com.bank.domain.Operacao;
+import com.bank.domain.ResumoDiario;
+import com.bank.exception.BadRequestException;
 import com.bank.request.OperacaoRequest;
 import com.bank.request.TransferenciaRequest;
+import com.bank.response.ExtratoPagina;
+import com.bank.response.ResultadoTransferenciaLote;
+import com.bank.service.IdempotenciaService;
 import com.bank.service.OperacaoService;
+import com.bank.service.TransferenciaLoteService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
+@Profile("!" + BanckWebMvcConfigurer.PERFIL_REATIVO)
 @RequiredArgsConstructor
 @RequestMapping("operacao")
 @RestController
 public class OperacaoController {
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
     private final OperacaoService service;
+    private final IdempotenciaService idempotencia;
+    private final TransferenciaLoteService transferenciaLote;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/{identificador}")
     public ResponseEntity<List<Operacao>> extrato(@PathVariable String identificador) {
         return ResponseEntity.ok(service.extrato(identificador));
     }
 
+    @GetMapping("/{identificador}/pagina")
+    public ResponseEntity<ExtratoPagina> extrato(@PathVariable String identificador,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(defaultValue = "50") int limite,
+                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate) {
+        return ResponseEntity.ok(service.extrato(identificador, cursor, limite, de, ate));
+    }
+
+    @GetMapping(value = "/{identificador}/stream", produces = APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> extratoStream(@PathVariable String identificador,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate) {
+        StreamingResponseBody body = out -> service.extrato(identificador, de, ate, operacao -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(operacao));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON)).body(body);
+    }
+
+    @GetMapping("/{identificador}/resumo-diario")
+    public ResponseEntity<List<ResumoDiario>> resumoDiario(@PathVariable String identificador,
+                                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+                                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate) {
+        return ResponseEntity.ok(service.resumoDiario(identificador, de, ate));
+    }
+
     @GetMapping("/consulta-saldo/{identificador}")
-    public ResponseEntity<BigDecimal> saldo(@PathVariable String identificador) {
+    public ResponseEntity<Dinheiro> saldo(@PathVariable String identificador) {
         return ResponseEntity.ok(service.saldo(identificador));
     }
 
+    @GetMapping("/consulta-saldo/{identificador}/em")
+    public ResponseEntity<BigDecimal> saldoEm(@PathVariable String identificador,
+                                              @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime data) {
+        return ResponseEntity.ok(service.saldoEm(identificador, data));
+    }
+
     @PostMapping("/deposito")
-    public ResponseEntity<Conta> deposito(@RequestBody OperacaoRequest request) {
-        return ResponseEntity.ok(service.deposito(request));
+    public ResponseEntity<Conta> deposito(@RequestBody OperacaoRequest request,
+                                          @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String chave) {
+        if (chave == null)
+            return ResponseEntity.ok(service.deposito(request));
+        return ResponseEntity.ok(idempotencia.executar("deposito", chave, request, Conta.class, () -> service.deposito(request)));
     }
 
     @PostMapping("/saque")
-    public ResponseEntity<Conta> saque(@RequestBody OperacaoRequest request) {
-        return ResponseEntity.ok(service.saque(request));
+    public ResponseEntity<Conta> saque(@RequestBody OperacaoRequest request,
+                                       @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String chave) {
+        if (chave == null)
+            return ResponseEntity.ok(service.saque(request));
+        return ResponseEntity.ok(idempotencia.executar("saque", chave, request, Conta.class, () -> service.saque(request)));
     }
 
     @PostMapping("/transferencia")
-    public ResponseEntity<Void> transferencia(@RequestBody TransferenciaRequest request) {
-        service.transferencia(request);
+    public ResponseEntity<Void> transferencia(@RequestBody TransferenciaRequest request,
+                                              @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String chave) {
+        if (chave == null) {
+            service.transferencia(request);
+        } else {
+            idempotencia.executar("transferencia", chave, request, Void.class, () -> {
+                service.transferencia(request);
+                return null;
+            });
+        }
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
+
+    // Aceita um array JSON ou NDJSON (uma transferência por linha) e responde com o id do lote antes de processá-lo.
+    // Com compensar=true o lote é liquidado pelo saldo líquido de cada conta. Com os lotes em processamento no limite
+    // responde 503 sem ler as linhas; um id de lote desconhecido na consulta responde 404.
+    @PostMapping(value = "/transferencia/lote", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON})
+    public ResponseEntity<ResultadoTransferenciaLote> transferenciaLote(InputStream corpo,
+                                                                        @RequestParam(defaultValue = "false") boolean compensar) throws IOException {
+        try (MappingIterator<TransferenciaRequest> linhas = objectMapper.readerFor(TransferenciaRequest.class).readValues(corpo)) {
+            return ResponseEntity.accepted().body(transferenciaLote.submeter(linhas, compensar));
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException(e.getOriginalMessage());
+        }
+    }
+
+    @GetMapping("/transferencia/lote/{id}")
+    public ResponseEntity<ResultadoTransferenciaLote> transferenciaLote(@PathVariable String id) {
+        return ResponseEntity.ok(transferenciaLote.consultar(id));
+    }
 }
@@ -1,10 +1,13 @@
 package com.bank.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -12,28 +15,32 @@ import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @Data
 @Entity
 public class Conta {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "conta_seq")
+    @SequenceGenerator(name = "conta_seq", sequenceName = "conta_seq", allocationSize = 50)
     private Long id;
 
-    @Column(length = 7, unique = true, nullable = false)
+    @Column(length = 11, unique = true, nullable = false)
     private String identificadorConta;
 
     @Column(columnDefinition = "DECIMAL(12,2) DEFAULT 0.0")
-    private BigDecimal saldo;
+    private Dinheiro saldo;
 
     @CreationTimestamp
     private LocalDateTime createdAt;
 
     @UpdateTimestamp
     private LocalDateTime updatedAt;
+
+    @JsonIgnore
+    @Version
+    private Long version;
 }
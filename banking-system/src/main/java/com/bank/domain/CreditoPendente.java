@@ -0,0 +1,52 @@
+package com.bank.domain;
+
+import com.bank.enums.OperacaoEnum;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Version;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Crédito de uma transferência entre shards, gravado no shard do débito na mesma transação que ele. Existe até o
+ * crédito ser aplicado no shard de destino, onde o {@link CreditoAplicado} de mesmo id impede que seja aplicado duas
+ * vezes.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+@Entity
+public class CreditoPendente {
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(nullable = false)
+    private Long contaId;
+
+    // A conta do débito, no shard de origem, para onde o valor volta se o destino recusar o crédito.
+    private Long contaOrigemId;
+
+    private int shard;
+
+    @Enumerated(EnumType.STRING)
+    private OperacaoEnum tipo;
+
+    // Em centavos, como no Lancamento.
+    private long valor;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // Com o id atribuído pela aplicação, é a versão nula que faz o Spring Data usar persist (INSERT) e não merge.
+    @Version
+    private Long version;
+}
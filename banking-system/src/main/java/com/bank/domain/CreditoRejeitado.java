@@ -0,0 +1,61 @@
+package com.bank.domain;
+
+import com.bank.enums.OperacaoEnum;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Version;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Crédito entre shards que o destino recusou, gravado no shard do débito no lugar do {@link CreditoPendente} de mesmo
+ * id e na mesma transação que estorna o valor na conta do débito. Fica como registro da recusa; só um pendente sem a
+ * conta do débito fica sem estorno, e esse a conciliação resolve à mão.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+@Entity
+public class CreditoRejeitado {
+    private static final int TAMANHO_MOTIVO = 255;
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(nullable = false)
+    private Long contaId;
+
+    // A conta do débito, no shard de origem, para onde o valor volta se o destino recusar o crédito.
+    private Long contaOrigemId;
+
+    private int shard;
+
+    @Enumerated(EnumType.STRING)
+    private OperacaoEnum tipo;
+
+    // Em centavos, como no Lancamento.
+    private long valor;
+
+    @Column(length = TAMANHO_MOTIVO)
+    private String motivo;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Version
+    private Long version;
+
+    public static String motivo(Throwable erro) {
+        String motivo = erro.getClass().getSimpleName() + ": " + erro.getMessage();
+        return motivo.length() > TAMANHO_MOTIVO ? motivo.substring(0, TAMANHO_MOTIVO) : motivo;
+    }
+}
@@ -0,0 +1,78 @@
+package com.bank.domain;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+
+/**
+ * Valor monetário em centavos.
+ *
+ * <p>A aritmética é feita sobre o {@code long} e falha com {@link ArithmeticException} em vez de estourar: o limite é
+ * o da coluna DECIMAL(12,2), ±{@value #LIMITE_CENTAVOS} centavos. No banco é gravado como DECIMAL(12,2) pelo
+ * {@link DinheiroConverter} e no JSON aparece como número decimal ({@code 70.00}), igual ao BigDecimal de antes.</p>
+ */
+public record Dinheiro(long centavos) implements Comparable<Dinheiro> {
+    public static final long LIMITE_CENTAVOS = 999_999_999_999L;
+    public static final Dinheiro ZERO = new Dinheiro(0);
+    public static final String CASAS_DECIMAIS_EXCEDIDAS = "O valor deve ter no máximo duas casas decimais";
+    public static final String LIMITE_EXCEDIDO = "O valor excede o limite de R$ 9999999999.99";
+
+    public Dinheiro {
+        verificarLimite(centavos);
+    }
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static Dinheiro of(BigDecimal valor) {
+        return ofCentavos(centavos(valor));
+    }
+
+    public static Dinheiro ofCentavos(long centavos) {
+        return centavos == 0 ? ZERO : new Dinheiro(centavos);
+    }
+
+    /**
+     * Centavos de um valor com até duas casas decimais.
+     */
+    public static long centavos(BigDecimal valor) {
+        if (valor.scale() > 2 && valor.stripTrailingZeros().scale() > 2)
+            throw new ArithmeticException(CASAS_DECIMAIS_EXCEDIDAS);
+        BigDecimal emCentavos = valor.movePointRight(2);
+        if (emCentavos.abs().compareTo(BigDecimal.valueOf(LIMITE_CENTAVOS)) > 0)
+            throw new ArithmeticException(LIMITE_EXCEDIDO);
+        return emCentavos.longValueExact();
+    }
+
+    public static long somar(long centavos, long outros) {
+        return verificarLimite(Math.addExact(centavos, outros));
+    }
+
+    public Dinheiro mais(long outros) {
+        return ofCentavos(somar(centavos, outros));
+    }
+
+    public Dinheiro menos(long outros) {
+        return ofCentavos(somar(centavos, Math.negateExact(outros)));
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    @Override
+    public int compareTo(Dinheiro outro) {
+        return Long.compare(centavos, outro.centavos);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    private static long verificarLimite(long centavos) {
+        if (centavos > LIMITE_CENTAVOS || centavos < -LIMITE_CENTAVOS)
+            throw new ArithmeticException(LIMITE_EXCEDIDO);
+        return centavos;
+    }
+}
@@ -0,0 +1,43 @@
+package com.bank.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Registro durável de uma Idempotency-Key. Sem resposta, a requisição ainda está em execução em algum nó.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+@Entity
+@Table(indexes = @Index(name = "idx_idempotencia_created_at", columnList = "createdAt"))
+public class Idempotencia {
+    @Id
+    @Column(length = 300)
+    private String chave;
+
+    @Column(length = 64, nullable = false)
+    private String impressao;
+
+    @Lob
+    private String resposta;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // Com a chave atribuída pela aplicação, é a versão nula que faz o Spring Data usar persist (INSERT) e não merge.
+    @Version
+    private Long version;
+}
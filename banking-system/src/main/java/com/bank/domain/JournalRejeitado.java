@@ -0,0 +1,56 @@
+package com.bank.domain;
+
+import com.bank.enums.OperacaoEnum;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Perna de um registro do journal que o banco recusou de vez depois de o cliente já ter recebido a confirmação (conta
+ * excluída, saldo fora dos limites). Gravada no lugar da Operacao, com a sequência do registro: a sequência deixa de
+ * segurar a confirmação do journal, a recuperação não a regrava e a conciliação decide como compensar o cliente.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+@Entity
+@Table(indexes = @Index(name = "idx_journal_rejeitado_journal_seq", columnList = "journalSeq"))
+public class JournalRejeitado {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "journal_rejeitado_seq")
+    @SequenceGenerator(name = "journal_rejeitado_seq", sequenceName = "journal_rejeitado_seq")
+    private Long id;
+
+    @Column(nullable = false)
+    private Long journalSeq;
+
+    @Column(nullable = false)
+    private Long contaId;
+
+    @Enumerated(EnumType.STRING)
+    private OperacaoEnum tipo;
+
+    // Em centavos, como no Lancamento.
+    private long valor;
+    private long delta;
+
+    @Column(length = 255)
+    private String motivo;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -1,5 +1,6 @@
 package com.bank.domain;
 
+import com.bank.enums.NaturezaEnum;
 import com.bank.enums.OperacaoEnum;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.CascadeType;
@@ -9,13 +10,16 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
@@ -26,23 +30,48 @@ import java.time.LocalDateTime;
 @Builder
 @Data
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_operacao_conta_created_at", columnList = "id_Conta, createdAt, id"),
+        @Index(name = "idx_operacao_journal_seq", columnList = "journalSeq"),
+        // Recorte por mês do ArquivadorOperacoes.
+        @Index(name = "idx_operacao_created_at", columnList = "createdAt")
+})
 public class Operacao {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "operacao_seq")
+    @SequenceGenerator(name = "operacao_seq", sequenceName = "operacao_seq", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
     private OperacaoEnum tipo;
 
+    @Enumerated(EnumType.STRING)
+    private NaturezaEnum natureza;
+
     private BigDecimal valor;
 
-    @CreationTimestamp
+    // Preenchido antes do INSERT só se vier vazio: a regravação do journal guarda o instante do registro original.
     private LocalDateTime createdAt;
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 
+    // Sequência do registro no OperacaoJournal; a maior gravada indica até onde o journal já chegou às tabelas.
+    @JsonIgnore
+    private Long journalSeq;
+
     @JsonIgnore
     @ManyToOne(cascade = CascadeType.ALL)
     @JoinColumn(name = "id_Conta", nullable = false)
     private Conta conta;
+
+    @PrePersist
+    void preencherCreatedAt() {
+        if (createdAt == null)
+            createdAt = LocalDateTime.now();
+    }
+
+    @JsonIgnore
+    public BigDecimal getValorComSinal() {
+        return natureza == NaturezaEnum.DEBITO ? valor.negate() : valor;
+    }
 }
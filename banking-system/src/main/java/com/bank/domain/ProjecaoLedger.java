@@ -0,0 +1,31 @@
+package com.bank.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Posição de uma projeção no ledger: todas as operações com id até {@code ultimaOperacao} já foram aplicadas.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+@Entity
+public class ProjecaoLedger {
+    @Id
+    @Column(length = 50)
+    private String nome;
+
+    @Column(nullable = false)
+    private Long ultimaOperacao;
+
+    @Column(nullable = false)
+    private LocalDateTime atualizadaEm;
+}
@@ -0,0 +1,52 @@
+package com.bank.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Totais de uma conta em um dia, projetados a partir do ledger de operações.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_resumo_diario_conta_dia", columnNames = {"id_Conta", "dia"}))
+public class ResumoDiario {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "resumo_diario_seq")
+    @SequenceGenerator(name = "resumo_diario_seq", sequenceName = "resumo_diario_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate dia;
+
+    @Column(columnDefinition = "DECIMAL(14,2)", nullable = false)
+    private BigDecimal creditos;
+
+    @Column(columnDefinition = "DECIMAL(14,2)", nullable = false)
+    private BigDecimal debitos;
+
+    private long quantidade;
+
+    @JsonIgnore
+    @ManyToOne
+    @JoinColumn(name = "id_Conta", nullable = false)
+    private Conta conta;
+}
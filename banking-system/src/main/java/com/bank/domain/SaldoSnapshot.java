@@ -0,0 +1,47 @@
+package com.bank.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Saldo de uma conta considerando todas as operações criadas antes de {@code referencia}.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+@Entity
+@Table(indexes = @Index(name = "idx_saldo_snapshot_conta_referencia", columnList = "id_Conta, referencia"))
+public class SaldoSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "saldo_snapshot_seq")
+    @SequenceGenerator(name = "saldo_snapshot_seq", sequenceName = "saldo_snapshot_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(columnDefinition = "DECIMAL(12,2)", nullable = false)
+    private BigDecimal saldo;
+
+    @Column(nullable = false)
+    private LocalDateTime referencia;
+
+    @JsonIgnore
+    @ManyToOne
+    @JoinColumn(name = "id_Conta", nullable = false)
+    private Conta conta;
+}
@@ -0,0 +1,5 @@
+package com.bank.enums;
+
+public enum NaturezaEnum {
+    CREDITO, DEBITO
+}
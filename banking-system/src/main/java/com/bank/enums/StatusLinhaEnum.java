@@ -0,0 +1,5 @@
+package com.bank.enums;
+
+public enum StatusLinhaEnum {
+    CRIADO, REJEITADO
+}
@@ -1,8 +1,16 @@
 package com.bank.handler;
 
+import com.bank.configurer.BanckWebMvcConfigurer;
 import com.bank.exception.BadRequestException;
+import com.bank.exception.ConflictException;
 import com.bank.exception.ExceptionDetails;
+import com.bank.exception.NotFoundException;
+import com.bank.exception.ServiceUnavailableException;
 import com.bank.exception.ValidationExceptionDetails;
+import com.bank.service.Metricas;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
@@ -19,14 +27,21 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
+@Profile("!" + BanckWebMvcConfigurer.PERFIL_REATIVO)
+@RequiredArgsConstructor
 @ControllerAdvice
 public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
     public static final String BAD_REQUEST_EXCEPTION_CHECK_THE_DOCUMENTATION = "Bad Request Exception, Check the Documentation";
     public static final String BAD_REQUEST_EXCEPTION_INVALID_FIELDS = "Bad Request Exception, Invalid Fields";
     public static final String CHECK_THE_FIELD_S_ERROR = "Check the field(s) error";
+    public static final String CONFLICT_EXCEPTION_TRY_AGAIN = "Conflict Exception, Try Again";
+    public static final String NOT_FOUND_EXCEPTION_CHECK_THE_IDENTIFIER = "Not Found Exception, Check the Identifier";
+    public static final String SERVICE_UNAVAILABLE_EXCEPTION_TRY_AGAIN_LATER = "Service Unavailable Exception, Try Again Later";
+    private final Metricas metricas;
 
     @ExceptionHandler(BadRequestException.class)
     public ResponseEntity<ExceptionDetails> handleBadRequestException(BadRequestException ex) {
+        metricas.erro(ex, HttpStatus.BAD_REQUEST.value());
         return new ResponseEntity<>(
                 ExceptionDetails.builder()
                         .timestamp(LocalDateTime.now())
@@ -38,8 +53,51 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         );
     }
 
+    @ExceptionHandler(NotFoundException.class)
+    public ResponseEntity<ExceptionDetails> handleNotFoundException(NotFoundException ex) {
+        metricas.erro(ex, HttpStatus.NOT_FOUND.value());
+        return new ResponseEntity<>(
+                ExceptionDetails.builder()
+                        .timestamp(LocalDateTime.now())
+                        .status(HttpStatus.NOT_FOUND.value())
+                        .title(NOT_FOUND_EXCEPTION_CHECK_THE_IDENTIFIER)
+                        .details(ex.getMessage())
+                        .developerMessage(ex.getClass().getName())
+                        .build(), HttpStatus.NOT_FOUND
+        );
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ExceptionDetails> handleServiceUnavailableException(ServiceUnavailableException ex) {
+        metricas.erro(ex, HttpStatus.SERVICE_UNAVAILABLE.value());
+        return new ResponseEntity<>(
+                ExceptionDetails.builder()
+                        .timestamp(LocalDateTime.now())
+                        .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                        .title(SERVICE_UNAVAILABLE_EXCEPTION_TRY_AGAIN_LATER)
+                        .details(ex.getMessage())
+                        .developerMessage(ex.getClass().getName())
+                        .build(), HttpStatus.SERVICE_UNAVAILABLE
+        );
+    }
+
+    @ExceptionHandler({ConflictException.class, OptimisticLockingFailureException.class})
+    public ResponseEntity<ExceptionDetails> handleConflictException(RuntimeException ex) {
+        metricas.erro(ex, HttpStatus.CONFLICT.value());
+        return new ResponseEntity<>(
+                ExceptionDetails.builder()
+                        .timestamp(LocalDateTime.now())
+                        .status(HttpStatus.CONFLICT.value())
+                        .title(CONFLICT_EXCEPTION_TRY_AGAIN)
+                        .details(ex.getMessage())
+                        .developerMessage(ex.getClass().getName())
+                        .build(), HttpStatus.CONFLICT
+        );
+    }
+
     @Override
     protected ResponseEntity<Object> handleMethodArgumentNotValid(MethodArgumentNotValidException ex, HttpHeaders headers, HttpStatusCode status, WebRequest request) {
+        metricas.erro(ex, HttpStatus.BAD_REQUEST.value());
         List<FieldError> fieldErrors = ex.getBindingResult().getFieldErrors();
 
         String fieldsError = fieldErrors.stream().map(FieldError::getField).collect(Collectors.joining(", "));
@@ -60,6 +118,7 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 
     @Override
     protected ResponseEntity<Object> handleExceptionInternal(Exception ex, @Nullable Object body, HttpHeaders headers, HttpStatusCode statusCode, WebRequest request) {
+        metricas.erro(ex, statusCode.value());
 
         ExceptionDetails exceptionDetails = ExceptionDetails.builder()
                 .timestamp(LocalDateTime.now())
@@ -1,10 +1,30 @@
 package com.bank.repository;
 
 import com.bank.domain.Cliente;
+import com.bank.response.ClienteResumo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ClienteRepository extends JpaRepository<Cliente, Long> {
+    // A conta vem no mesmo SELECT, por join: ler Cliente como entidade busca a conta (um-para-um) com um SELECT por cliente.
+    String RESUMO = "select new com.bank.response.ClienteResumo(cl.id, cl.nome, cl.documento, cl.createdAt, cl.updatedAt, " +
+            "c.id, c.identificadorConta, c.saldo, c.createdAt, c.updatedAt) from Cliente cl join cl.conta c";
+
     List<Cliente> findByNome(String nome);
+
+    @Query(RESUMO + " order by cl.id")
+    List<ClienteResumo> findAllResumos();
+
+    @Query(RESUMO + " where cl.id = :id")
+    Optional<ClienteResumo> findResumoById(long id);
+
+    @Query("select c.documento from Cliente c where c.documento in :documentos")
+    List<String> findDocumentosExistentes(Collection<String> documentos);
+
+    @Query("select c.conta.id from Cliente c where c.conta.id in :idsConta")
+    List<Long> findContasVinculadas(Collection<Long> idsConta);
 }
@@ -1,10 +1,43 @@
 package com.bank.repository;
 
 import com.bank.domain.Conta;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 public interface ContaRepository extends JpaRepository<Conta, Long> {
+    String COPIA = "select new com.bank.domain.Conta(c.id, c.identificadorConta, c.saldo, c.createdAt, c.updatedAt, c.version) from Conta c";
+
     Optional<Conta> findByIdentificadorConta(String identificador);
+
+    // As cópias saem de uma expressão de construtor: a Conta não entra no contexto de persistência, então a leitura
+    // não guarda snapshot para dirty checking. Servem às consultas e ao ContaCache, nunca a quem vai alterar a conta.
+    @Query(COPIA + " where c.identificadorConta = :identificador")
+    Optional<Conta> findCopiaByIdentificadorConta(String identificador);
+
+    @Query(COPIA + " where c.id = :id")
+    Optional<Conta> findCopiaById(long id);
+
+    @Query(COPIA + " order by c.id")
+    List<Conta> findAllCopias();
+
+    @Query(value = COPIA, countQuery = "select count(c) from Conta c")
+    Page<Conta> findAllCopias(Pageable pageable);
+
+    // SQL nativo porque o HQL tipa :delta com o columnDefinition de saldo (que inclui o DEFAULT) e gera um CAST inválido.
+    // Incrementar version faz uma edição concorrente da conta falhar em vez de sobrescrever o saldo projetado.
+    @Modifying
+    @Query(value = "update conta set saldo = saldo + :delta, version = version + 1, updated_at = current_timestamp where id = :id",
+            nativeQuery = true)
+    int somarSaldo(Long id, BigDecimal delta);
+
+    @Modifying
+    @Query(value = "update conta set saldo = 0, version = version + 1, updated_at = current_timestamp", nativeQuery = true)
+    int zerarSaldos();
 }
@@ -0,0 +1,14 @@
+package com.bank.repository;
+
+import com.bank.domain.CreditoAplicado;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface CreditoAplicadoRepository extends JpaRepository<CreditoAplicado, String> {
+    @Query("select c.id from CreditoAplicado c where c.createdAt < :limite order by c.createdAt")
+    List<String> findIdsCriadosAntesDe(LocalDateTime limite, Pageable pagina);
+}
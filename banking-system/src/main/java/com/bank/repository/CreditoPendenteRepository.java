@@ -0,0 +1,7 @@
+package com.bank.repository;
+
+import com.bank.domain.CreditoPendente;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CreditoPendenteRepository extends JpaRepository<CreditoPendente, String> {
+}
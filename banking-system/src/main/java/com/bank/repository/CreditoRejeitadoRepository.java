@@ -0,0 +1,7 @@
+package com.bank.repository;
+
+import com.bank.domain.CreditoRejeitado;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CreditoRejeitadoRepository extends JpaRepository<CreditoRejeitado, String> {
+}
@@ -0,0 +1,16 @@
+package com.bank.repository;
+
+import com.bank.domain.Idempotencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface IdempotenciaRepository extends JpaRepository<Idempotencia, String> {
+    @Transactional
+    @Modifying
+    @Query("delete from Idempotencia i where i.createdAt < :limite")
+    int deleteCriadasAntesDe(LocalDateTime limite);
+}
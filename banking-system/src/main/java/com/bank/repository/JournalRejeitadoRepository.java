@@ -0,0 +1,13 @@
+package com.bank.repository;
+
+import com.bank.domain.JournalRejeitado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface JournalRejeitadoRepository extends JpaRepository<JournalRejeitado, Long> {
+    @Query("select distinct j.journalSeq from JournalRejeitado j where j.journalSeq in :sequencias")
+    List<Long> findJournalSeqsIn(Collection<Long> sequencias);
+}
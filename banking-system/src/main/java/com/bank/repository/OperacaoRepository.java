@@ -2,11 +2,78 @@ package com.bank.repository;
 
 import com.bank.domain.Conta;
 import com.bank.domain.Operacao;
+import com.bank.service.EventoLedger;
+import com.bank.service.MovimentoConta;
+import com.bank.service.OperacaoArquivada;
+import com.bank.service.OperacaoExtrato;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface OperacaoRepository extends JpaRepository<Operacao, Long> {
-    List<Operacao> findAllByConta(Conta conta);
+    // O extrato lê projeções: sem a conta (eager em Operacao) e sem entidades no contexto de persistência.
+    String EXTRATO = "select new com.bank.service.OperacaoExtrato(o.id, o.tipo, o.natureza, o.valor, o.createdAt, o.updatedAt) " +
+            "from Operacao o where o.conta = :conta";
+
+    @Query(EXTRATO + " order by o.createdAt, o.id")
+    List<OperacaoExtrato> findExtrato(Conta conta);
+
+    @Query(EXTRATO + " and o.createdAt >= :de and o.createdAt < :ate " +
+            "and (o.createdAt > :depoisDeCreatedAt or (o.createdAt = :depoisDeCreatedAt and o.id > :depoisDeId)) " +
+            "order by o.createdAt, o.id")
+    List<OperacaoExtrato> findPaginaExtrato(Conta conta, LocalDateTime de, LocalDateTime ate,
+                                     LocalDateTime depoisDeCreatedAt, long depoisDeId, Pageable pageable);
+
+    @Query("select coalesce(sum(case when o.natureza = com.bank.enums.NaturezaEnum.DEBITO then -o.valor else o.valor end), 0) " +
+            "from Operacao o where o.conta = :conta and o.createdAt >= :de and o.createdAt < :ate")
+    BigDecimal somarMovimento(Conta conta, LocalDateTime de, LocalDateTime ate);
+
+    @Query("select coalesce(sum(case when o.natureza = com.bank.enums.NaturezaEnum.DEBITO then -o.valor else o.valor end), 0) " +
+            "from Operacao o where o.conta = :conta and o.createdAt >= :de " +
+            "and (o.createdAt < :antesDeCreatedAt or (o.createdAt = :antesDeCreatedAt and o.id < :antesDeId))")
+    BigDecimal somarMovimentoAntes(Conta conta, LocalDateTime de, LocalDateTime antesDeCreatedAt, long antesDeId);
+
+    @Query("select new com.bank.service.MovimentoConta(o.conta.id, " +
+            "sum(case when o.natureza = com.bank.enums.NaturezaEnum.DEBITO then -o.valor else o.valor end)) " +
+            "from Operacao o where o.conta.id in :contas and o.createdAt >= :de and o.createdAt < :ate group by o.conta.id")
+    List<MovimentoConta> somarMovimentoDasContas(Collection<Long> contas, LocalDateTime de, LocalDateTime ate);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(EXTRATO + " and o.createdAt >= :de and o.createdAt < :ate order by o.createdAt, o.id")
+    Stream<OperacaoExtrato> streamExtrato(Conta conta, LocalDateTime de, LocalDateTime ate);
+
+    @Query("select min(o.createdAt) from Operacao o")
+    LocalDateTime findMinCreatedAt();
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select new com.bank.service.OperacaoArquivada(o.id, o.conta.id, o.tipo, o.natureza, o.valor, o.createdAt, o.journalSeq) " +
+            "from Operacao o where o.createdAt >= :de and o.createdAt < :ate order by o.conta.id, o.createdAt, o.id")
+    Stream<OperacaoArquivada> streamArquivo(LocalDateTime de, LocalDateTime ate);
+
+    @Modifying
+    @Query("delete from Operacao o where o.createdAt >= :de and o.createdAt < :ate")
+    int deleteCriadasEntre(LocalDateTime de, LocalDateTime ate);
+
+    @Query("select max(o.journalSeq) from Operacao o")
+    Long findMaxJournalSeq();
+
+    @Query("select distinct o.journalSeq from Operacao o where o.journalSeq in :sequencias")
+    List<Long> findJournalSeqsIn(Collection<Long> sequencias);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select new com.bank.service.EventoLedger(o.id, o.conta.id, o.natureza, o.valor, o.createdAt) from Operacao o " +
+            "where o.id > :depoisDe and mod(o.conta.id, :particoes) = :particao order by o.id")
+    Stream<EventoLedger> streamLedger(long depoisDe, long particoes, long particao);
 }
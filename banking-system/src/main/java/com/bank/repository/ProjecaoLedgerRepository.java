@@ -0,0 +1,7 @@
+package com.bank.repository;
+
+import com.bank.domain.ProjecaoLedger;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ProjecaoLedgerRepository extends JpaRepository<ProjecaoLedger, String> {
+}
@@ -0,0 +1,17 @@
+package com.bank.repository;
+
+import com.bank.domain.Conta;
+import com.bank.domain.ResumoDiario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface ResumoDiarioRepository extends JpaRepository<ResumoDiario, Long> {
+    List<ResumoDiario> findAllByContaAndDiaBetweenOrderByDia(Conta conta, LocalDate de, LocalDate ate);
+
+    @Query("select r from ResumoDiario r where r.conta.id in :contas and r.dia between :de and :ate")
+    List<ResumoDiario> findAllDasContas(Collection<Long> contas, LocalDate de, LocalDate ate);
+}
@@ -0,0 +1,25 @@
+package com.bank.repository;
+
+import com.bank.domain.Conta;
+import com.bank.domain.SaldoSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface SaldoSnapshotRepository extends JpaRepository<SaldoSnapshot, Long> {
+    Optional<SaldoSnapshot> findFirstByContaAndReferenciaLessThanEqualOrderByReferenciaDesc(Conta conta, LocalDateTime referencia);
+
+    // O snapshot mais recente até a referência de cada conta da lista, numa consulta só.
+    @Query("select s from SaldoSnapshot s join fetch s.conta where s.conta.id in :contas and s.referencia = " +
+            "(select max(r.referencia) from SaldoSnapshot r where r.conta = s.conta and r.referencia <= :referencia)")
+    List<SaldoSnapshot> findUltimosDasContas(Collection<Long> contas, LocalDateTime referencia);
+
+    @Modifying
+    @Query("delete from SaldoSnapshot s where s.conta.id in :contas and s.referencia > :depoisDe")
+    int deleteDasContasPosteriores(Collection<Long> contas, LocalDateTime depoisDe);
+}
@@ -0,0 +1,34 @@
+package com.bank.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Linha do cadastro em lote. Sem idConta, uma conta nova é aberta para o cliente.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Builder
+public class ClienteLoteRequest {
+    public static final String REGEX = "^\\d{11}$";
+    public static final String NOME_BRANCO_OU_NULO = "O nome não pode estar em branco ou ser nulo";
+    public static final String DOCUMENTO_BRANCO_OU_NULO = "O documento não pode estar em branco ou ser nulo";
+    public static final String ONZE_DIGITOS = "O documento (CPF) deve ter exatamente 11 dígitos numéricos";
+    public static final String ID_POSITIVO = "O ID da conta deve ser um número positivo";
+
+    @NotBlank(message = NOME_BRANCO_OU_NULO)
+    private String nome;
+
+    @NotBlank(message = DOCUMENTO_BRANCO_OU_NULO)
+    @Pattern(regexp = REGEX, message = ONZE_DIGITOS)
+    private String documento;
+
+    @Positive(message = ID_POSITIVO)
+    private Long idConta;
+}
@@ -0,0 +1,38 @@
+package com.bank.response;
+
+import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cliente como as consultas o devolvem: mesmos campos do JSON da entidade, lidos numa projeção sem passar pelo
+ * contexto de persistência.
+ */
+@AllArgsConstructor
+@Getter
+@Builder
+public class ClienteResumo {
+    private Long id;
+    private String nome;
+    private String documento;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private Conta conta;
+
+    // Usado pela expressão de construtor de ClienteRepository.RESUMO.
+    public ClienteResumo(Long id, String nome, String documento, LocalDateTime createdAt, LocalDateTime updatedAt,
+                         Long contaId, String identificadorConta, Dinheiro saldo, LocalDateTime contaCreatedAt,
+                         LocalDateTime contaUpdatedAt) {
+        this(id, nome, documento, createdAt, updatedAt, Conta.builder()
+                .id(contaId)
+                .identificadorConta(identificadorConta)
+                .saldo(saldo)
+                .createdAt(contaCreatedAt)
+                .updatedAt(contaUpdatedAt)
+                .build());
+    }
+}
@@ -0,0 +1,34 @@
+package com.bank.response;
+
+import com.bank.domain.Operacao;
+import com.bank.enums.NaturezaEnum;
+import com.bank.enums.OperacaoEnum;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@AllArgsConstructor
+@Getter
+@Builder
+public class ExtratoLinha {
+    private Long id;
+    private OperacaoEnum tipo;
+    private NaturezaEnum natureza;
+    private BigDecimal valor;
+    private BigDecimal saldo;
+    private LocalDateTime createdAt;
+
+    public static ExtratoLinha of(Operacao operacao, BigDecimal saldo) {
+        return ExtratoLinha.builder()
+                .id(operacao.getId())
+                .tipo(operacao.getTipo())
+                .natureza(operacao.getNatureza())
+                .valor(operacao.getValor())
+                .saldo(saldo)
+                .createdAt(operacao.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,15 @@
+package com.bank.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+@AllArgsConstructor
+@Getter
+@Builder
+public class ExtratoPagina {
+    private List<ExtratoLinha> operacoes;
+    private String proximoCursor;
+}
@@ -0,0 +1,19 @@
+package com.bank.response;
+
+import com.bank.enums.StatusLinhaEnum;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+@AllArgsConstructor
+@Getter
+@Builder
+public class ResultadoLinha {
+    private int linha;
+    private StatusLinhaEnum status;
+    private Long id;
+    private String identificadorConta;
+    private List<String> erros;
+}
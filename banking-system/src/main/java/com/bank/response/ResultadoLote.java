@@ -0,0 +1,17 @@
+package com.bank.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+@AllArgsConstructor
+@Getter
+@Builder
+public class ResultadoLote {
+    private int total;
+    private int criados;
+    private int rejeitados;
+    private List<ResultadoLinha> linhas;
+}
@@ -0,0 +1,27 @@
+package com.bank.response;
+
+import com.bank.enums.StatusLoteEnum;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Progresso de um lote de transferências. Só as linhas rejeitadas são listadas, com o motivo.
+ */
+@AllArgsConstructor
+@Getter
+@Builder
+public class ResultadoTransferenciaLote {
+    private String id;
+    private StatusLoteEnum status;
+    private int total;
+    private int processadas;
+    private int efetivadas;
+    private int rejeitadas;
+    private LocalDateTime criadoEm;
+    private LocalDateTime concluidoEm;
+    private List<ResultadoLinha> rejeicoes;
+}
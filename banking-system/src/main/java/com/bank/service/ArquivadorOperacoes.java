@@ -0,0 +1,82 @@
+package com.bank.service;
+
+import com.bank.repository.OperacaoRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.stream.Stream;
+
+/**
+ * Particiona Operacao por mês: a tabela guarda só os {@code bank.arquivo.meses-quentes} meses mais recentes e os
+ * anteriores vão para o {@link ArquivoOperacoes}, o que mantém a tabela e seus índices do tamanho do movimento
+ * corrente. Extrato e saldo histórico juntam as duas camadas.
+ *
+ * <p>Cada mês de cada shard é arquivado numa transação: o segmento é gravado e as linhas do mês são apagadas. Se a
+ * transação falha depois de o segmento estar no disco, o segmento vale e as linhas que sobraram são apagadas na
+ * próxima execução ou na subida, antes de qualquer leitura. Os meses são arquivados em ordem e um mês só sai da
+ * tabela inteiro, então as operações arquivadas de uma conta vêm sempre antes das que estão na tabela.</p>
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class ArquivadorOperacoes {
+    private final OperacaoRepository operacaoRepository;
+    private final ArquivoOperacoes arquivo;
+    private final TransactionTemplate transactionTemplate;
+    private final Shards shards;
+    @Value("${bank.arquivo.meses-quentes:3}")
+    private int mesesQuentes;
+
+    @PostConstruct
+    void concluirArquivamentos() {
+        if (!arquivo.isAtivo())
+            return;
+        for (int shard = 0; shard < shards.quantidade(); shard++)
+            for (YearMonth mes : arquivo.arquivados(shard))
+                arquivarMes(shard, mes);
+    }
+
+    @Scheduled(cron = "${bank.arquivo.cron:0 30 0 * * *}")
+    public void arquivar() {
+        if (arquivo.isAtivo())
+            // O mês corrente ainda recebe operações e nunca é arquivado.
+            arquivar(YearMonth.now().minusMonths(Math.max(1, mesesQuentes) - 1L));
+    }
+
+    /**
+     * Arquiva os meses anteriores a {@code primeiroQuente} em todos os shards.
+     */
+    void arquivar(YearMonth primeiroQuente) {
+        for (int shard = 0; shard < shards.quantidade(); shard++) {
+            int alvo = shard;
+            LocalDateTime maisAntiga = shards.executar(alvo, () -> operacaoRepository.findMinCreatedAt());
+            if (maisAntiga == null)
+                continue;
+            for (YearMonth mes = YearMonth.from(maisAntiga); mes.isBefore(primeiroQuente); mes = mes.plusMonths(1))
+                arquivarMes(alvo, mes);
+        }
+    }
+
+    private void arquivarMes(int shard, YearMonth mes) {
+        LocalDateTime de = mes.atDay(1).atStartOfDay();
+        LocalDateTime ate = mes.plusMonths(1).atDay(1).atStartOfDay();
+        boolean existia = arquivo.contem(mes, shard);
+        Integer removidas = shards.executar(shard, () -> transactionTemplate.execute(status -> {
+            if (!existia)
+                try (Stream<OperacaoArquivada> operacoes = operacaoRepository.streamArquivo(de, ate)) {
+                    arquivo.gravar(mes, shard, operacoes.iterator());
+                }
+            return operacaoRepository.deleteCriadasEntre(de, ate);
+        }));
+        if (removidas != null && removidas > 0)
+            log.info("{} operações de {} do shard {} {}", removidas, mes, shard,
+                    existia ? "já estavam arquivadas e foram removidas da tabela" : "arquivadas");
+    }
+}
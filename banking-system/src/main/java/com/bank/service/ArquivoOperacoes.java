@@ -0,0 +1,350 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import com.bank.domain.Operacao;
+import com.bank.enums.NaturezaEnum;
+import com.bank.enums.OperacaoEnum;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Camada fria de Operacao ({@code bank.arquivo.ativo=true}): os meses que o {@link ArquivadorOperacoes} tira da
+ * tabela ficam em segmentos imutáveis em {@code bank.arquivo.diretorio}, um por mês e shard.
+ *
+ * <p>Num segmento, as operações de cada conta formam um bloco comprimido com Deflate, na ordem (createdAt, id) do
+ * extrato. O índice das contas (conta, posição, tamanho e quantidade de cada bloco) fica no fim do arquivo, junto com
+ * o mês e um CRC do índice, e é carregado na memória na abertura; uma consulta lê só os blocos da conta nos meses do
+ * intervalo pedido. O segmento é escrito num arquivo temporário, forçado para o disco, renomeado e marcado como
+ * somente-leitura. Como Conta e Operacao, o diretório pertence ao banco: só faz sentido com um banco persistente.</p>
+ */
+@Slf4j
+@Component
+public class ArquivoOperacoes {
+    static final String EXTENSAO = ".seg";
+    private static final int MAGICO = 0x4F505341;
+    // id, segundos, nanos, tipo, natureza, centavos
+    private static final int TAMANHO_OPERACAO = Long.BYTES + Long.BYTES + Integer.BYTES + Byte.BYTES + Byte.BYTES + Long.BYTES;
+    // conta, posição, tamanho comprimido, quantidade
+    private static final int TAMANHO_ENTRADA = Long.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES;
+    // posição do índice, contas, maior journalSeq, mês, shard, crc, mágico
+    private static final int TAMANHO_RODAPE = Long.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES + Integer.BYTES + Integer.BYTES;
+    private static final OperacaoEnum[] TIPOS = OperacaoEnum.values();
+    private static final NaturezaEnum[] NATUREZAS = NaturezaEnum.values();
+
+    private final boolean ativo;
+    private final Path diretorio;
+    private final List<Segmento> segmentos = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public ArquivoOperacoes(@Value("${bank.arquivo.ativo:false}") boolean ativo,
+                            @Value("${bank.arquivo.diretorio:arquivo}") String diretorio,
+                            @Value("${bank.ledger.event-sourced:false}") boolean eventSourced) {
+        this(ativo, Path.of(diretorio));
+        // O ledger event-sourced reconstrói as projeções relendo a tabela inteira.
+        if (ativo && eventSourced)
+            throw new IllegalStateException("bank.arquivo.ativo não pode ser usado com bank.ledger.event-sourced");
+    }
+
+    ArquivoOperacoes(boolean ativo, Path diretorio) {
+        this.ativo = ativo;
+        this.diretorio = diretorio;
+    }
+
+    public boolean isAtivo() {
+        return ativo;
+    }
+
+    /**
+     * Carrega o índice dos segmentos existentes. Arquivos temporários de uma gravação interrompida são descartados.
+     */
+    @PostConstruct
+    public void abrir() {
+        if (!ativo)
+            return;
+        try {
+            Files.createDirectories(diretorio);
+            try (Stream<Path> arquivos = Files.list(diretorio)) {
+                for (Path arquivo : arquivos.sorted().toList()) {
+                    if (arquivo.toString().endsWith(EXTENSAO))
+                        segmentos.add(ler(arquivo));
+                    else if (arquivo.toString().endsWith(EXTENSAO + ".tmp"))
+                        Files.delete(arquivo);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segmentos.sort(Comparator.comparing(Segmento::mes).thenComparingInt(Segmento::shard));
+        log.info("{} segmentos de operações arquivadas em {}", segmentos.size(), diretorio);
+    }
+
+    public boolean contem(YearMonth mes, int shard) {
+        return segmentos.stream().anyMatch(segmento -> segmento.mes().equals(mes) && segmento.shard() == shard);
+    }
+
+    /**
+     * Meses já arquivados do shard, em ordem.
+     */
+    public List<YearMonth> arquivados(int shard) {
+        return segmentos.stream().filter(segmento -> segmento.shard() == shard).map(Segmento::mes).toList();
+    }
+
+    /**
+     * Maior sequência do journal entre as operações arquivadas, ou 0.
+     */
+    public long maiorJournalSeq() {
+        return segmentos.stream().mapToLong(Segmento::maiorJournalSeq).max().orElse(0);
+    }
+
+    /**
+     * Grava o segmento do mês. As operações devem vir ordenadas por conta, createdAt e id; sem operações nada é gravado.
+     */
+    public void gravar(YearMonth mes, int shard, Iterator<OperacaoArquivada> operacoes) {
+        if (!operacoes.hasNext())
+            return;
+        Path arquivo = diretorio.resolve("operacoes-%s-s%d%s".formatted(mes, shard, EXTENSAO));
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        Map<Long, Bloco> blocos = new HashMap<>();
+        ByteArrayOutputStream indice = new ByteArrayOutputStream();
+        long maiorJournalSeq = 0;
+        try (FileChannel channel = FileChannel.open(temporario, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream saida = new BufferedOutputStream(Channels.newOutputStream(channel));
+            DataOutputStream entradas = new DataOutputStream(indice);
+            long posicao = 0;
+            OperacaoArquivada operacao = operacoes.next();
+            while (operacao != null) {
+                long contaId = operacao.contaId();
+                ByteBuffer registros = ByteBuffer.allocate(TAMANHO_OPERACAO * 64);
+                int quantidade = 0;
+                while (operacao != null && operacao.contaId() == contaId) {
+                    if (registros.remaining() < TAMANHO_OPERACAO)
+                        registros = ByteBuffer.allocate(registros.capacity() * 2).put(registros.flip());
+                    escrever(registros, operacao);
+                    quantidade++;
+                    maiorJournalSeq = Math.max(maiorJournalSeq, operacao.journalSeq() == null ? 0 : operacao.journalSeq());
+                    operacao = operacoes.hasNext() ? operacoes.next() : null;
+                }
+                byte[] comprimido = comprimir(registros.array(), registros.position());
+                saida.write(comprimido);
+                entradas.writeLong(contaId);
+                entradas.writeLong(posicao);
+                entradas.writeInt(comprimido.length);
+                entradas.writeInt(quantidade);
+                blocos.put(contaId, new Bloco(posicao, comprimido.length, quantidade));
+                posicao += comprimido.length;
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(indice.toByteArray());
+            saida.write(indice.toByteArray());
+            DataOutputStream rodape = new DataOutputStream(saida);
+            rodape.writeLong(posicao);
+            rodape.writeInt(blocos.size());
+            rodape.writeLong(maiorJournalSeq);
+            rodape.writeInt(mes.getYear() * 100 + mes.getMonthValue());
+            rodape.writeInt(shard);
+            rodape.writeInt((int) crc.getValue());
+            rodape.writeInt(MAGICO);
+            rodape.flush();
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        arquivo.toFile().setReadOnly();
+        segmentos.add(new Segmento(mes, shard, arquivo, blocos, maiorJournalSeq));
+        segmentos.sort(Comparator.comparing(Segmento::mes).thenComparingInt(Segmento::shard));
+    }
+
+    /**
+     * Operações arquivadas da conta criadas em [de, ate), na ordem (createdAt, id).
+     */
+    public List<Operacao> operacoes(Conta conta, LocalDateTime de, LocalDateTime ate) {
+        return ler(conta, de, ate).map(operacao -> operacao.paraOperacao(conta)).toList();
+    }
+
+    /**
+     * Até {@code limite} operações arquivadas da conta em [de, ate) posteriores à posição (createdAt, id) dada.
+     */
+    public List<Operacao> pagina(Conta conta, LocalDateTime de, LocalDateTime ate,
+                                 LocalDateTime depoisDeCreatedAt, long depoisDeId, int limite) {
+        return ler(conta, de, ate)
+                .filter(operacao -> operacao.createdAt().isAfter(depoisDeCreatedAt)
+                        || operacao.createdAt().equals(depoisDeCreatedAt) && operacao.id() > depoisDeId)
+                .limit(limite)
+                .map(operacao -> operacao.paraOperacao(conta))
+                .toList();
+    }
+
+    public BigDecimal somar(Conta conta, LocalDateTime de, LocalDateTime ate) {
+        return ler(conta, de, ate).map(OperacaoArquivada::delta).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    /**
+     * Soma das operações arquivadas da conta desde {@code de} e anteriores à posição (createdAt, id) dada.
+     */
+    public BigDecimal somarAntes(Conta conta, LocalDateTime de, LocalDateTime antesDeCreatedAt, long antesDeId) {
+        return ler(conta, de, antesDeCreatedAt.plusNanos(1))
+                .filter(operacao -> operacao.antesDe(antesDeCreatedAt, antesDeId))
+                .map(OperacaoArquivada::delta)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private Stream<OperacaoArquivada> ler(Conta conta, LocalDateTime de, LocalDateTime ate) {
+        if (segmentos.isEmpty() || !de.isBefore(ate))
+            return Stream.empty();
+        YearMonth primeiro = YearMonth.from(de);
+        YearMonth ultimo = YearMonth.from(ate.minusNanos(1));
+        List<OperacaoArquivada> lidas = new ArrayList<>();
+        for (Segmento segmento : segmentos) {
+            Bloco bloco = segmento.blocos().get(conta.getId());
+            if (bloco != null && !segmento.mes().isBefore(primeiro) && !segmento.mes().isAfter(ultimo))
+                lidas.addAll(ler(segmento, conta.getId(), bloco));
+        }
+        return lidas.stream()
+                .filter(operacao -> !operacao.createdAt().isBefore(de) && operacao.createdAt().isBefore(ate))
+                .sorted(Comparator.comparing(OperacaoArquivada::createdAt).thenComparing(OperacaoArquivada::id));
+    }
+
+    private static List<OperacaoArquivada> ler(Segmento segmento, long contaId, Bloco bloco) {
+        ByteBuffer comprimido = ByteBuffer.allocate(bloco.tamanho());
+        try (FileChannel channel = FileChannel.open(segmento.arquivo(), StandardOpenOption.READ)) {
+            while (comprimido.hasRemaining())
+                if (channel.read(comprimido, bloco.posicao() + comprimido.position()) < 0)
+                    throw new IOException("Segmento truncado: " + segmento.arquivo());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ByteBuffer registros = ByteBuffer.wrap(descomprimir(comprimido.array(), bloco.quantidade() * TAMANHO_OPERACAO, segmento.arquivo()));
+        List<OperacaoArquivada> operacoes = new ArrayList<>(bloco.quantidade());
+        for (int i = 0; i < bloco.quantidade(); i++) {
+            long id = registros.getLong();
+            LocalDateTime createdAt = LocalDateTime.ofEpochSecond(registros.getLong(), registros.getInt(), ZoneOffset.UTC);
+            OperacaoEnum tipo = TIPOS[registros.get()];
+            NaturezaEnum natureza = NATUREZAS[registros.get()];
+            operacoes.add(new OperacaoArquivada(id, contaId, tipo, natureza, BigDecimal.valueOf(registros.getLong(), 2), createdAt, null));
+        }
+        return operacoes;
+    }
+
+    private static Segmento ler(Path arquivo) throws IOException {
+        try (FileChannel channel = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            if (channel.size() < TAMANHO_RODAPE)
+                throw new IOException("Segmento truncado: " + arquivo);
+            ByteBuffer rodape = ByteBuffer.allocate(TAMANHO_RODAPE);
+            channel.read(rodape, channel.size() - TAMANHO_RODAPE);
+            rodape.flip();
+            long posicaoIndice = rodape.getLong();
+            int contas = rodape.getInt();
+            long maiorJournalSeq = rodape.getLong();
+            int mes = rodape.getInt();
+            int shard = rodape.getInt();
+            int crcEsperado = rodape.getInt();
+            if (rodape.getInt() != MAGICO)
+                throw new IOException("Arquivo não é um segmento de operações: " + arquivo);
+
+            ByteBuffer indice = ByteBuffer.allocate(contas * TAMANHO_ENTRADA);
+            channel.read(indice, posicaoIndice);
+            CRC32C crc = new CRC32C();
+            crc.update(indice.array());
+            if ((int) crc.getValue() != crcEsperado)
+                throw new IOException("Índice corrompido no segmento " + arquivo);
+            indice.flip();
+            Map<Long, Bloco> blocos = new HashMap<>(contas * 2);
+            for (int i = 0; i < contas; i++)
+                blocos.put(indice.getLong(), new Bloco(indice.getLong(), indice.getInt(), indice.getInt()));
+            return new Segmento(YearMonth.of(mes / 100, mes % 100), shard, arquivo, blocos, maiorJournalSeq);
+        }
+    }
+
+    private static void escrever(ByteBuffer registros, OperacaoArquivada operacao) {
+        registros.putLong(operacao.id());
+        registros.putLong(operacao.createdAt().toEpochSecond(ZoneOffset.UTC));
+        registros.putInt(operacao.createdAt().getNano());
+        registros.put((byte) operacao.tipo().ordinal());
+        registros.put((byte) operacao.natureza().ordinal());
+        registros.putLong(operacao.valor().movePointRight(2).longValueExact());
+    }
+
+    private static byte[] comprimir(byte[] dados, int tamanho) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(dados, 0, tamanho);
+            deflater.finish();
+            ByteArrayOutputStream saida = new ByteArrayOutputStream(tamanho / 2);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished())
+                saida.write(buffer, 0, deflater.deflate(buffer));
+            return saida.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // O formato zlib traz um Adler-32 dos dados, então um bloco corrompido falha aqui.
+    private static byte[] descomprimir(byte[] comprimido, int tamanho, Path arquivo) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(comprimido);
+            // Um byte a mais para que um bloco maior que o esperado não passe despercebido.
+            byte[] dados = new byte[tamanho + 1];
+            int lidos = 0;
+            while (!inflater.finished() && lidos < dados.length) {
+                int n = inflater.inflate(dados, lidos, dados.length - lidos);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                lidos += n;
+            }
+            if (lidos != tamanho || !inflater.finished())
+                throw new IllegalStateException("Bloco corrompido no segmento " + arquivo);
+            return Arrays.copyOf(dados, tamanho);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Bloco corrompido no segmento " + arquivo, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private record Bloco(long posicao, int tamanho, int quantidade) {
+    }
+
+    private record Segmento(YearMonth mes, int shard, Path arquivo, Map<Long, Bloco> blocos, long maiorJournalSeq) {
+    }
+}
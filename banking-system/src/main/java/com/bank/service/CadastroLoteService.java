@@ -0,0 +1,317 @@
+package com.bank.service;
+
+import com.bank.domain.Cliente;
+import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
+import com.bank.enums.StatusLinhaEnum;
+import com.bank.exception.BadRequestException;
+import com.bank.repository.ClienteRepository;
+import com.bank.repository.ContaRepository;
+import com.bank.request.ClienteLoteRequest;
+import com.bank.response.ResultadoLinha;
+import com.bank.response.ResultadoLote;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Cadastro em lote de clientes e contas para migrações de parceiros.
+ *
+ * <p>As linhas são lidas em blocos de {@code bank.lote.tamanho}: cada bloco é validado em paralelo, checado contra o
+ * banco com uma consulta por bloco (documentos e contas já usados) e gravado numa única transação, com os INSERTs em
+ * batch JDBC. Se a transação do bloco falhar, as linhas do bloco são regravadas uma a uma para que só as linhas
+ * com problema sejam rejeitadas.</p>
+ *
+ * <p>Com {@link Shards}, cada cliente é gravado no shard da sua conta: o bloco é checado contra todos os shards,
+ * as contas novas recebem o identificador antes da gravação e cada shard grava a sua parte numa transação.</p>
+ */
+@Service
+public class CadastroLoteService {
+    public static final String DOCUMENTO_REPETIDO_NO_LOTE = "Documento repetido no lote";
+    public static final String DOCUMENTO_JA_CADASTRADO = "Já existe cliente com este documento";
+    public static final String CONTA_JA_VINCULADA = "A conta informada já pertence a outro cliente";
+    public static final String LINHA_ILEGIVEL = "Linha ilegível, o restante do lote não foi processado: ";
+    public static final String QUANTIDADE_INVALIDA = "A quantidade de contas deve estar entre 1 e ";
+    private final ClienteRepository clienteRepository;
+    private final ContaRepository contaRepository;
+    private final IdentificadorContaAllocator allocator;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final Shards shards;
+    private final int tamanhoLote;
+    private final int maximoContas;
+
+    public CadastroLoteService(ClienteRepository clienteRepository,
+                               ContaRepository contaRepository,
+                               IdentificadorContaAllocator allocator,
+                               TransactionTemplate transactionTemplate,
+                               Validator validator,
+                               Shards shards,
+                               @Value("${bank.lote.tamanho:500}") int tamanhoLote,
+                               @Value("${bank.lote.maximo-contas:10000}") int maximoContas) {
+        this.clienteRepository = clienteRepository;
+        this.contaRepository = contaRepository;
+        this.allocator = allocator;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.shards = shards;
+        this.tamanhoLote = tamanhoLote;
+        this.maximoContas = maximoContas;
+    }
+
+    public ResultadoLote cadastrarClientes(Iterator<ClienteLoteRequest> linhas) {
+        List<ResultadoLinha> resultados = new ArrayList<>();
+        Set<String> documentosVistos = new HashSet<>();
+        List<Linha> bloco = new ArrayList<>(tamanhoLote);
+        int numero = 0;
+        while (true) {
+            ClienteLoteRequest request;
+            // O iterador vem do parser JSON/NDJSON: um erro de sintaxe aparece aqui e encerra a leitura.
+            try {
+                if (!linhas.hasNext()) {
+                    break;
+                }
+                request = linhas.next();
+            } catch (RuntimeException e) {
+                resultados.add(rejeitada(numero + 1, List.of(LINHA_ILEGIVEL + e.getMessage())));
+                break;
+            }
+            bloco.add(new Linha(++numero, request));
+            if (bloco.size() == tamanhoLote) {
+                resultados.addAll(processar(bloco, documentosVistos));
+                bloco = new ArrayList<>(tamanhoLote);
+            }
+        }
+        if (!bloco.isEmpty()) {
+            resultados.addAll(processar(bloco, documentosVistos));
+        }
+        resultados.sort(Comparator.comparingInt(ResultadoLinha::getLinha));
+        return resumir(resultados);
+    }
+
+    public ResultadoLote abrirContas(int quantidade) {
+        if (quantidade < 1 || quantidade > maximoContas) {
+            throw new BadRequestException(QUANTIDADE_INVALIDA + maximoContas);
+        }
+        List<ResultadoLinha> resultados = new ArrayList<>(quantidade);
+        for (int inicio = 0; inicio < quantidade; inicio += tamanhoLote) {
+            int tamanho = Math.min(tamanhoLote, quantidade - inicio);
+            List<String> identificadores = allocator.proximos(tamanho);
+            Map<Integer, List<Integer>> porShard = new TreeMap<>();
+            for (int i = 0; i < tamanho; i++)
+                porShard.computeIfAbsent(shards.de(identificadores.get(i)), shard -> new ArrayList<>()).add(i);
+            int primeira = inicio + 1;
+            porShard.forEach((shard, indices) -> {
+                List<Conta> contas = indices.stream().map(i -> novaConta(identificadores.get(i))).toList();
+                try {
+                    List<Conta> salvas = shards.executar(shard, () -> transactionTemplate.execute(status -> contaRepository.saveAll(contas)));
+                    for (int i = 0; i < salvas.size(); i++) {
+                        resultados.add(criada(primeira + indices.get(i), salvas.get(i)));
+                    }
+                } catch (DataAccessException e) {
+                    for (Integer i : indices) {
+                        resultados.add(rejeitada(primeira + i, List.of(e.getMostSpecificCause().getMessage())));
+                    }
+                }
+            });
+        }
+        resultados.sort(Comparator.comparingInt(ResultadoLinha::getLinha));
+        return resumir(resultados);
+    }
+
+    private List<ResultadoLinha> processar(List<Linha> bloco, Set<String> documentosVistos) {
+        Map<Integer, List<String>> erros = bloco.parallelStream()
+                .collect(Collectors.toMap(Linha::numero, linha -> validar(linha.request())));
+
+        List<ResultadoLinha> resultados = new ArrayList<>(bloco.size());
+        List<Linha> validas = new ArrayList<>(bloco.size());
+        for (Linha linha : bloco) {
+            List<String> errosDaLinha = erros.get(linha.numero());
+            if (errosDaLinha.isEmpty() && !documentosVistos.add(linha.request().getDocumento())) {
+                errosDaLinha = List.of(DOCUMENTO_REPETIDO_NO_LOTE);
+            }
+            if (errosDaLinha.isEmpty()) {
+                validas.add(linha);
+            } else {
+                resultados.add(rejeitada(linha.numero(), errosDaLinha));
+            }
+        }
+        if (validas.isEmpty()) {
+            return resultados;
+        }
+        if (shards.ativo()) {
+            resultados.addAll(gravarEmShards(validas));
+        } else {
+            resultados.addAll(gravarBloco(validas));
+        }
+        return resultados;
+    }
+
+    private List<ResultadoLinha> gravarBloco(List<Linha> linhas) {
+        try {
+            return transactionTemplate.execute(status -> gravar(linhas));
+        } catch (DataAccessException e) {
+            List<ResultadoLinha> resultados = new ArrayList<>(linhas.size());
+            for (Linha linha : linhas) {
+                resultados.add(gravarSozinha(linha));
+            }
+            return resultados;
+        }
+    }
+
+    // O documento único e a conta existente só são checados no próprio shard dentro de gravar; a checagem em todos os
+    // shards vem antes, fora da transação, e não impede que um cadastro concorrente use o documento em outro shard.
+    private List<ResultadoLinha> gravarEmShards(List<Linha> linhas) {
+        List<String> documentos = linhas.stream().map(linha -> linha.request().getDocumento()).toList();
+        Set<String> documentosExistentes = new HashSet<>();
+        shards.emTodos(() -> clienteRepository.findDocumentosExistentes(documentos)).forEach(documentosExistentes::addAll);
+        List<Long> idsConta = linhas.stream().map(linha -> linha.request().getIdConta()).filter(Objects::nonNull).toList();
+        Map<Long, Conta> contas = new HashMap<>();
+        if (!idsConta.isEmpty())
+            shards.emTodos(() -> contaRepository.findAllById(idsConta)).forEach(encontradas -> encontradas.forEach(conta -> contas.put(conta.getId(), conta)));
+
+        List<ResultadoLinha> resultados = new ArrayList<>(linhas.size());
+        List<Linha> aceitas = new ArrayList<>(linhas.size());
+        for (Linha linha : linhas) {
+            if (documentosExistentes.contains(linha.request().getDocumento()))
+                resultados.add(rejeitada(linha.numero(), List.of(DOCUMENTO_JA_CADASTRADO)));
+            else
+                aceitas.add(linha);
+        }
+        long novasContas = aceitas.stream().filter(linha -> linha.request().getIdConta() == null).count();
+        Iterator<String> identificadores = allocator.proximos((int) novasContas).iterator();
+        Map<Integer, List<Linha>> porShard = new TreeMap<>();
+        for (Linha linha : aceitas) {
+            Long idConta = linha.request().getIdConta();
+            int shard;
+            if (idConta == null) {
+                linha = new Linha(linha.numero(), linha.request(), identificadores.next());
+                shard = shards.de(linha.identificador());
+            } else {
+                // Uma conta que não existe em nenhum shard é rejeitada pelo próprio gravar, no shard 0.
+                Conta conta = contas.get(idConta);
+                shard = conta == null ? 0 : shards.de(conta.getIdentificadorConta());
+            }
+            porShard.computeIfAbsent(shard, chave -> new ArrayList<>()).add(linha);
+        }
+        porShard.forEach((shard, doShard) -> resultados.addAll(shards.executar(shard, () -> gravarBloco(doShard))));
+        return resultados;
+    }
+
+    private ResultadoLinha gravarSozinha(Linha linha) {
+        try {
+            return transactionTemplate.execute(status -> gravar(List.of(linha))).get(0);
+        } catch (DataAccessException e) {
+            return rejeitada(linha.numero(), List.of(e.getMostSpecificCause().getMessage()));
+        }
+    }
+
+    private List<ResultadoLinha> gravar(List<Linha> linhas) {
+        Set<String> documentosExistentes = new HashSet<>(clienteRepository.findDocumentosExistentes(
+                linhas.stream().map(linha -> linha.request().getDocumento()).toList()));
+        List<Long> idsConta = linhas.stream().map(linha -> linha.request().getIdConta()).filter(Objects::nonNull).toList();
+        Map<Long, Conta> contasExistentes = contaRepository.findAllById(idsConta).stream()
+                .collect(Collectors.toMap(Conta::getId, Function.identity()));
+        Set<Long> contasVinculadas = idsConta.isEmpty() ? Set.of() : new HashSet<>(clienteRepository.findContasVinculadas(idsConta));
+
+        List<ResultadoLinha> resultados = new ArrayList<>(linhas.size());
+        List<Linha> aceitas = new ArrayList<>(linhas.size());
+        for (Linha linha : linhas) {
+            Long idConta = linha.request().getIdConta();
+            if (documentosExistentes.contains(linha.request().getDocumento())) {
+                resultados.add(rejeitada(linha.numero(), List.of(DOCUMENTO_JA_CADASTRADO)));
+            } else if (idConta != null && !contasExistentes.containsKey(idConta)) {
+                resultados.add(rejeitada(linha.numero(), List.of("Not Found id " + idConta)));
+            } else if (idConta != null && contasVinculadas.contains(idConta)) {
+                resultados.add(rejeitada(linha.numero(), List.of(CONTA_JA_VINCULADA)));
+            } else {
+                aceitas.add(linha);
+            }
+        }
+
+        long novasContas = aceitas.stream().filter(linha -> linha.request().getIdConta() == null && linha.identificador() == null).count();
+        Iterator<String> identificadores = allocator.proximos((int) novasContas).iterator();
+        List<Cliente> clientes = new ArrayList<>(aceitas.size());
+        for (Linha linha : aceitas) {
+            Long idConta = linha.request().getIdConta();
+            String identificador = linha.identificador() != null ? linha.identificador() : idConta == null ? identificadores.next() : null;
+            clientes.add(Cliente.builder()
+                    .nome(linha.request().getNome())
+                    .documento(linha.request().getDocumento())
+                    .conta(idConta == null ? novaConta(identificador) : contasExistentes.get(idConta))
+                    .build());
+        }
+        List<Cliente> salvos = clienteRepository.saveAll(clientes);
+        clienteRepository.flush();
+
+        for (int i = 0; i < aceitas.size(); i++) {
+            Cliente cliente = salvos.get(i);
+            resultados.add(ResultadoLinha.builder()
+                    .linha(aceitas.get(i).numero())
+                    .status(StatusLinhaEnum.CRIADO)
+                    .id(cliente.getId())
+                    .identificadorConta(cliente.getConta().getIdentificadorConta())
+                    .erros(List.of())
+                    .build());
+        }
+        return resultados;
+    }
+
+    private List<String> validar(ClienteLoteRequest request) {
+        return validator.validate(request).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .toList();
+    }
+
+    private static Conta novaConta(String identificador) {
+        return Conta.builder().identificadorConta(identificador).saldo(Dinheiro.ZERO).build();
+    }
+
+    private static ResultadoLinha criada(int numero, Conta conta) {
+        return ResultadoLinha.builder()
+                .linha(numero)
+                .status(StatusLinhaEnum.CRIADO)
+                .id(conta.getId())
+                .identificadorConta(conta.getIdentificadorConta())
+                .erros(List.of())
+                .build();
+    }
+
+    private static ResultadoLinha rejeitada(int numero, List<String> erros) {
+        return ResultadoLinha.builder().linha(numero).status(StatusLinhaEnum.REJEITADO).erros(erros).build();
+    }
+
+    private static ResultadoLote resumir(List<ResultadoLinha> resultados) {
+        int criados = (int) resultados.stream().filter(resultado -> resultado.getStatus() == StatusLinhaEnum.CRIADO).count();
+        return ResultadoLote.builder()
+                .total(resultados.size())
+                .criados(criados)
+                .rejeitados(resultados.size() - criados)
+                .linhas(resultados)
+                .build();
+    }
+
+    // Com shards, a conta nova recebe o identificador antes da gravação, para que a linha vá ao shard dele.
+    private record Linha(int numero, ClienteLoteRequest request, String identificador) {
+        Linha(int numero, ClienteLoteRequest request) {
+            this(numero, request, null);
+        }
+    }
+}
@@ -6,37 +6,60 @@ import com.bank.exception.BadRequestException;
 import com.bank.repository.ClienteRepository;
 import com.bank.request.ClienteRequest;
 import com.bank.request.ClienteRequestUpdate;
+import com.bank.response.ClienteResumo;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Comparator;
 import java.util.List;
 
 @RequiredArgsConstructor
 @Service
 public class ClienteService {
+    private static final String CHAVE = "cliente:";
+    private static final Comparator<ClienteResumo> POR_ID = Comparator.comparing(ClienteResumo::getId);
     private final ClienteRepository repository;
     private final ContaService contaService;
+    private final ConsistenciaLeitura consistencia;
+    private final Shards shards;
 
-    public List<Cliente> listAllNoPageable() {
-        return repository.findAll();
+    @Transactional(readOnly = true)
+    public List<ClienteResumo> listAllNoPageable() {
+        return shards.listar(repository::findAllResumos, POR_ID);
     }
 
     public Conta getAccountById(long id) {
         return contaService.findByIdOrThrowBadRequestException(id);
     }
 
+    @Transactional(readOnly = true)
+    public ClienteResumo consultar(long id) {
+        return consistencia.ler(CHAVE + id,
+                () -> shards.primeiro(() -> repository.findResumoById(id)).orElseThrow(() -> new BadRequestException("Not Found id " + id)));
+    }
+
+    // Para alterar ou remover o cliente; as consultas usam consultar.
+    @Transactional(readOnly = true)
     public Cliente findByIdOrThrowBadRequestException(long id) {
-        return repository.findById(id).orElseThrow(() -> new BadRequestException("Not Found id " + id));
+        return consistencia.ler(CHAVE + id,
+                () -> shards.primeiro(() -> repository.findById(id)).orElseThrow(() -> new BadRequestException("Not Found id " + id)));
     }
 
+    // O cliente fica no shard da sua conta; a busca da conta é o primeiro comando da transação e a leva para lá.
     @Transactional
     public Cliente save(ClienteRequest clienteRequest) {
+        // Com shards, o índice único de documento vale só dentro de cada shard.
+        if (shards.ativo() && shards.emTodos(() -> repository.findDocumentosExistentes(List.of(clienteRequest.getDocumento())))
+                .stream().anyMatch(existentes -> !existentes.isEmpty()))
+            throw new BadRequestException(CadastroLoteService.DOCUMENTO_JA_CADASTRADO);
         Cliente cliente = Cliente.builder()
                 .nome(clienteRequest.getNome())
                 .documento(clienteRequest.getDocumento())
                 .conta(contaService.findByIdOrThrowBadRequestException(clienteRequest.getIdConta())).build();
-        return repository.save(cliente);
+        Cliente salvo = repository.save(cliente);
+        consistencia.registrarEscrita(CHAVE + salvo.getId());
+        return salvo;
     }
 
     public void update(long id, ClienteRequestUpdate request) {
@@ -48,11 +71,14 @@ public class ClienteService {
                 .createdAt(savedCliente.getCreatedAt())
                 .conta(savedCliente.getConta())
                 .build();
-        repository.save(clienteUpdated);
+        shards.naConta(savedCliente.getConta().getIdentificadorConta(), () -> repository.save(clienteUpdated));
+        consistencia.registrarEscrita(CHAVE + id);
     }
 
     public void delete(long id) {
-        repository.delete(findByIdOrThrowBadRequestException(id));
+        Cliente cliente = findByIdOrThrowBadRequestException(id);
+        shards.executar(shards.de(cliente.getConta().getIdentificadorConta()), () -> repository.delete(cliente));
+        consistencia.registrarEscrita(CHAVE + id);
     }
 
 }
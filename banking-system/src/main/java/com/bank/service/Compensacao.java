@@ -0,0 +1,11 @@
+package com.bank.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Resultado de {@link OperacaoService#transferenciaCompensada}: as linhas rejeitadas (índice na lista → motivo), a
+ * quantidade de linhas aceitas e a gravação das pernas aceitas, que completa quando o lote inteiro foi commitado.
+ */
+public record Compensacao(Map<Integer, String> rejeicoes, int aceitas, CompletableFuture<Void> gravacao) {
+}
@@ -0,0 +1,211 @@
+package com.bank.service;
+
+import com.bank.domain.CreditoRejeitado;
+import com.bank.domain.JournalRejeitado;
+import com.bank.exception.BadRequestException;
+import com.bank.repository.JournalRejeitadoRepository;
+import com.bank.repository.OperacaoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * O que o {@link OperacaoWriter} controla do {@link OperacaoJournal}: as sequências já confirmadas ao cliente que ainda
+ * não chegaram às tabelas e até onde o journal pode ser confirmado. O journal só é confirmado até antes da menor
+ * sequência ainda não gravada, mesmo que sequências maiores já tenham sido gravadas. Um pedido do journal que falha por
+ * acesso ao banco é regravado a cada {@value #INTERVALO_REGRAVACAO_MS} ms em vez de descartado; um que o banco recusa de
+ * vez (conta excluída, saldo fora dos limites) vai para {@link JournalRejeitado}, para a conciliação, e libera a sua
+ * sequência. Fora a inclusão das sequências, feita sob o lock do journal, só a thread do writer usa esta classe.
+ */
+@Slf4j
+@Component
+public class ConfirmacaoJournal {
+    static final long INTERVALO_REGRAVACAO_MS = 1_000;
+    private static final int SEQUENCIAS_POR_CONSULTA = 1_000;
+    private final OperacaoJournal journal;
+    private final OperacaoRepository operacaoRepository;
+    private final JournalRejeitadoRepository journalRejeitadoRepository;
+    private final ArquivoOperacoes arquivo;
+    private final SaldoHistoricoService historico;
+    private final TransactionTemplate transactionTemplate;
+    private final Metricas metricas;
+    // Sequências do journal enfileiradas e ainda não gravadas nas tabelas.
+    private final NavigableSet<Long> naoGravado = new ConcurrentSkipListSet<>();
+    // Pedidos do journal cuja gravação falhou e a maior sequência já gravada.
+    private final List<Pedido> aRegravar = new ArrayList<>();
+    private long maiorGravado;
+    private long proximaRegravacao;
+
+    public ConfirmacaoJournal(OperacaoJournal journal,
+                              OperacaoRepository operacaoRepository,
+                              JournalRejeitadoRepository journalRejeitadoRepository,
+                              ArquivoOperacoes arquivo,
+                              SaldoHistoricoService historico,
+                              TransactionTemplate transactionTemplate,
+                              Metricas metricas) {
+        this.journal = journal;
+        this.operacaoRepository = operacaoRepository;
+        this.journalRejeitadoRepository = journalRejeitadoRepository;
+        this.arquivo = arquivo;
+        this.historico = historico;
+        this.transactionTemplate = transactionTemplate;
+        this.metricas = metricas;
+    }
+
+    boolean isAtivo() {
+        return journal.isAtivo();
+    }
+
+    // O pedido chega a quem grava já com a sua sequência; o chamador é liberado pela durabilidade no journal.
+    CompletableFuture<Void> registrar(List<Lancamento> lancamentos, Consumer<Pedido> enfileirar) {
+        return journal.registrar(lancamentos, sequencia -> {
+            naoGravado.add(sequencia);
+            enfileirar.accept(new Pedido(lancamentos, sequencia, null, new CompletableFuture<>()));
+        });
+    }
+
+    void gravados(List<Pedido> pedidos) {
+        pedidos.forEach(pedido -> {
+            naoGravado.remove(pedido.journalSeq());
+            maiorGravado = Math.max(maiorGravado, pedido.journalSeq());
+        });
+        confirmar();
+    }
+
+    // Já confirmado ao cliente: uma falha de acesso deixa o pedido no journal, que não passa da sua sequência, até ele
+    // ser gravado; uma recusa definitiva o manda para a conciliação.
+    void falhou(Pedido pedido, RuntimeException erro) {
+        if (definitiva(erro)) {
+            rejeitar(pedido, erro);
+            return;
+        }
+        aRegravar.add(pedido);
+        log.error("O registro {} do journal já foi confirmado ao cliente mas não pôde ser gravado, nova tentativa em {} ms",
+                pedido.journalSeq(), INTERVALO_REGRAVACAO_MS, erro);
+    }
+
+    // Os pedidos que falharam, a cada INTERVALO_REGRAVACAO_MS; quem grava devolve os que falharem de novo por falhou.
+    List<Pedido> aRegravar() {
+        if (aRegravar.isEmpty() || System.nanoTime() < proximaRegravacao)
+            return List.of();
+        proximaRegravacao = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(INTERVALO_REGRAVACAO_MS);
+        List<Pedido> pedidos = List.copyOf(aRegravar);
+        aRegravar.clear();
+        return pedidos;
+    }
+
+    int pendentes() {
+        return aRegravar.size();
+    }
+
+    // Pedidos confirmados pelo journal que não chegaram às tabelas antes da queda, entregues em lotes a quem grava
+    // antes de o writer aceitar pedidos novos, para que o SaldoEngine não parta de um saldo sem eles. Um registro que
+    // falhou pode ter sequência menor que outros já gravados, então os registros até a maior sequência da tabela são
+    // conferidos um a um; os enviados para conciliação contam como gravados. Cada Operacao leva o instante do registro.
+    void recuperar(int maxLote, Consumer<List<Pedido>> gravar) {
+        // Com o arquivo ativo, as operações mais antigas podem já ter saído da tabela.
+        long arquivada = arquivo.maiorJournalSeq();
+        long naTabela = Optional.ofNullable(operacaoRepository.findMaxJournalSeq()).orElse(0L);
+        List<OperacaoJournal.Registro> registros = journal.recuperar(arquivada);
+        maiorGravado = Math.max(Math.max(arquivada, naTabela),
+                registros.stream().mapToLong(OperacaoJournal.Registro::sequencia).max().orElse(0));
+        Set<Long> gravadas = gravadas(registros.stream()
+                .map(OperacaoJournal.Registro::sequencia)
+                .filter(sequencia -> sequencia <= naTabela)
+                .toList());
+        List<Pedido> pendentes = registros.stream()
+                .filter(registro -> !gravadas.contains(registro.sequencia()))
+                .map(registro -> new Pedido(registro.lancamentos(), registro.sequencia(),
+                        LocalDateTime.ofInstant(Instant.ofEpochMilli(registro.instante()), ZoneId.systemDefault()),
+                        new CompletableFuture<>()))
+                .toList();
+        pendentes.forEach(pedido -> naoGravado.add(pedido.journalSeq()));
+        invalidarSnapshots(pendentes);
+        for (int inicio = 0; inicio < pendentes.size(); inicio += maxLote)
+            gravar.accept(pendentes.subList(inicio, Math.min(inicio + maxLote, pendentes.size())));
+        if (!pendentes.isEmpty())
+            log.info("{} registros do journal ausentes das tabelas regravados", pendentes.size());
+        confirmar();
+    }
+
+    // As operações regravadas levam o instante do registro, que pode ser anterior a um snapshot registrado enquanto
+    // elas estavam só no journal: os snapshots das contas delas posteriores ao registro mais antigo são apagados.
+    private void invalidarSnapshots(List<Pedido> pendentes) {
+        if (pendentes.isEmpty())
+            return;
+        Set<Long> contas = pendentes.stream()
+                .flatMap(pedido -> pedido.lancamentos().stream())
+                .map(Lancamento::getContaId)
+                .collect(Collectors.toSet());
+        historico.invalidarSnapshots(contas, pendentes.stream().map(Pedido::instante).min(Comparator.naturalOrder()).orElseThrow());
+    }
+
+    // Só a thread do writer remove do conjunto, então ele não esvazia entre o isEmpty e o first.
+    private void confirmar() {
+        long ate = naoGravado.isEmpty()
+                ? maiorGravado
+                : Math.min(maiorGravado, naoGravado.first() - 1);
+        journal.confirmar(ate);
+    }
+
+    // Uma recusa do banco não muda com outra tentativa: conta inexistente ou excluída, saldo fora dos limites.
+    private static boolean definitiva(RuntimeException erro) {
+        return erro instanceof SaldoRecusado || erro instanceof BadRequestException || erro instanceof DataIntegrityViolationException;
+    }
+
+    // As pernas do registro vão para JournalRejeitado e a sequência é liberada como se tivesse sido gravada. Se nem o
+    // JournalRejeitado puder ser gravado, o registro volta para a regravação e é classificado de novo na próxima vez.
+    private void rejeitar(Pedido pedido, RuntimeException erro) {
+        LocalDateTime agora = LocalDateTime.now();
+        String motivo = CreditoRejeitado.motivo(erro);
+        try {
+            transactionTemplate.executeWithoutResult(status -> journalRejeitadoRepository.saveAll(pedido.lancamentos().stream()
+                    .map(lancamento -> JournalRejeitado.builder()
+                            .journalSeq(pedido.journalSeq())
+                            .contaId(lancamento.getContaId())
+                            .tipo(lancamento.getTipo())
+                            .valor(lancamento.getValor())
+                            .delta(lancamento.getDelta())
+                            .motivo(motivo)
+                            .createdAt(agora)
+                            .build())
+                    .toList()));
+        } catch (RuntimeException e) {
+            aRegravar.add(pedido);
+            log.error("O registro {} do journal recusado pelo banco não pôde ir para conciliação, nova tentativa em {} ms",
+                    pedido.journalSeq(), INTERVALO_REGRAVACAO_MS, e);
+            return;
+        }
+        metricas.journalRejeitado();
+        log.error("O registro {} do journal, já confirmado ao cliente, foi recusado pelo banco e enviado para conciliação: {}",
+                pedido.journalSeq(), motivo);
+        gravados(List.of(pedido));
+    }
+
+    private Set<Long> gravadas(List<Long> sequencias) {
+        Set<Long> gravadas = new HashSet<>();
+        for (int inicio = 0; inicio < sequencias.size(); inicio += SEQUENCIAS_POR_CONSULTA) {
+            List<Long> parte = sequencias.subList(inicio, Math.min(inicio + SEQUENCIAS_POR_CONSULTA, sequencias.size()));
+            gravadas.addAll(operacaoRepository.findJournalSeqsIn(parte));
+            gravadas.addAll(journalRejeitadoRepository.findJournalSeqsIn(parte));
+        }
+        return gravadas;
+    }
+}
@@ -0,0 +1,73 @@
+package com.bank.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Leitura das próprias escritas com réplicas (perfil {@code replica}): as leituras só-leitura vão para as réplicas,
+ * que podem estar atrasadas em relação ao primário. Uma chave (conta ou cliente) escrita há menos de
+ * {@code bank.replica.leitura-propria-ms} é lida do primário, então quem acabou de fazer um depósito vê o depósito
+ * no extrato. A janela deve cobrir o atraso máximo aceito das réplicas; com 0 (o padrão, sem réplicas) nada é
+ * registrado.
+ */
+@Component
+public class ConsistenciaLeitura {
+    private static final ThreadLocal<Boolean> PRIMARIO = new ThreadLocal<>();
+    private final long janelaNanos;
+    private final Map<String, Long> escritas = new ConcurrentHashMap<>();
+
+    public ConsistenciaLeitura(@Value("${bank.replica.leitura-propria-ms:0}") long janelaMs) {
+        this.janelaNanos = TimeUnit.MILLISECONDS.toNanos(janelaMs);
+    }
+
+    /**
+     * Indica se a thread atual está numa leitura que precisa do primário. Consultado pelo roteamento do DataSource
+     * quando a transação pega a conexão, ou seja, no primeiro comando SQL.
+     */
+    public static boolean primarioObrigatorio() {
+        return Boolean.TRUE.equals(PRIMARIO.get());
+    }
+
+    public void registrarEscrita(String chave) {
+        if (janelaNanos > 0)
+            escritas.put(chave, System.nanoTime());
+    }
+
+    /**
+     * Executa a leitura no primário se a chave foi escrita dentro da janela; senão deixa o roteamento escolher.
+     */
+    public <T> T ler(String chave, Supplier<T> leitura) {
+        if (primarioObrigatorio() || !recente(chave))
+            return leitura.get();
+        PRIMARIO.set(Boolean.TRUE);
+        try {
+            return leitura.get();
+        } finally {
+            PRIMARIO.remove();
+        }
+    }
+
+    public void ler(String chave, Runnable leitura) {
+        ler(chave, () -> {
+            leitura.run();
+            return null;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${bank.replica.limpeza-ms:10000}")
+    void limpar() {
+        long agora = System.nanoTime();
+        escritas.values().removeIf(escrita -> agora - escrita >= janelaNanos);
+    }
+
+    private boolean recente(String chave) {
+        Long escrita = escritas.get(chave);
+        return escrita != null && System.nanoTime() - escrita < janelaNanos;
+    }
+}
@@ -0,0 +1,86 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Cache read-through de {@link Conta} por identificadorConta e por id, limitado em tamanho e com TTL.
+ * As entradas são cópias: quem recebe uma conta do cache pode alterá-la sem afetar outras requisições.
+ * O {@link OperacaoWriter} atualiza o cache após cada commit, por isso o saldo em cache nunca fica para trás do banco.
+ *
+ * <p>Numa falta, a conta é lida fora do Caffeine e só então gravada. {@code Cache.get(chave, loader)} rodaria o loader
+ * dentro de {@code ConcurrentHashMap.compute}, sob o monitor do bin, e com threads virtuais a consulta JDBC (ou a busca
+ * em todos os shards) prenderia a thread carregadora. Duas faltas simultâneas da mesma conta leem o banco duas vezes;
+ * a gravação mantém a versão mais nova, então uma leitura lenta não sobrescreve o que o writer gravou depois dela.</p>
+ */
+@Component
+public class ContaCache {
+    private final Cache<String, Conta> porIdentificador;
+    private final Cache<Long, Conta> porId;
+
+    public ContaCache(@Value("${bank.cache.conta.tamanho-maximo:10000}") long tamanhoMaximo,
+                      @Value("${bank.cache.conta.ttl-segundos:60}") long ttlSegundos,
+                      MeterRegistry registry) {
+        this.porIdentificador = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .recordStats()
+                .build();
+        this.porId = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, porIdentificador, "conta.identificador");
+        CaffeineCacheMetrics.monitor(registry, porId, "conta.id");
+    }
+
+    public Optional<Conta> porIdentificador(String identificador, Function<String, Optional<Conta>> carregar) {
+        return buscar(porIdentificador, identificador, carregar);
+    }
+
+    public Optional<Conta> porId(long id, Function<Long, Optional<Conta>> carregar) {
+        return buscar(porId, id, carregar);
+    }
+
+    public void atualizar(Conta conta) {
+        Conta copia = copia(conta);
+        porIdentificador.put(conta.getIdentificadorConta(), copia);
+        porId.put(conta.getId(), copia);
+    }
+
+    public void invalidar(Conta conta) {
+        porIdentificador.invalidate(conta.getIdentificadorConta());
+        porId.invalidate(conta.getId());
+    }
+
+    private static <K> Optional<Conta> buscar(Cache<K, Conta> cache, K chave, Function<K, Optional<Conta>> carregar) {
+        Conta conta = cache.getIfPresent(chave);
+        if (conta == null) {
+            Optional<Conta> carregada = carregar.apply(chave);
+            if (carregada.isEmpty())
+                return Optional.empty();
+            conta = cache.asMap().merge(chave, copia(carregada.get()), ContaCache::maisRecente);
+        }
+        return Optional.of(copia(conta));
+    }
+
+    private static Conta maisRecente(Conta atual, Conta carregada) {
+        if (atual.getVersion() != null && carregada.getVersion() != null && atual.getVersion() > carregada.getVersion())
+            return atual;
+        return carregada;
+    }
+
+    private static Conta copia(Conta conta) {
+        return conta.toBuilder().build();
+    }
+}
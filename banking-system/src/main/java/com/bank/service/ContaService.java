@@ -1,6 +1,7 @@
 package com.bank.service;
 
 import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
 import com.bank.exception.BadRequestException;
 import com.bank.repository.ContaRepository;
 import com.bank.request.ContaRequest;
@@ -8,55 +9,106 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.Comparator;
 import java.util.List;
-import java.util.Random;
-
-import static java.math.BigDecimal.ZERO;
+import java.util.Optional;
 
 @RequiredArgsConstructor
 @Service
 public class ContaService {
+    public static final String IDENTIFICADOR_EM_OUTRO_SHARD = "O novo identificador pertence a outro shard";
+    private static final Comparator<Conta> POR_ID = Comparator.comparing(Conta::getId);
     private final ContaRepository repository;
-    private static final Random random = new Random();
+    private final SaldoEngine engine;
+    private final OptimisticRetry retry;
+    private final ContaCache cache;
+    private final IdentificadorContaAllocator allocator;
+    private final Metricas metricas;
+    private final Shards shards;
 
+    @Transactional(readOnly = true)
     public List<Conta> listAllNoPageable() {
-        return repository.findAll();
+        return shards.listar(repository::findAllCopias, POR_ID);
     }
 
+    @Transactional(readOnly = true)
     public Page<Conta> list(Pageable pageable) {
-        return repository.findAll(pageable);
+        return shards.paginar(pageable, repository::findAllCopias, POR_ID);
     }
 
+    // Dentro de uma transação o chamador precisa da entidade gerenciada, então o cache (que entrega cópias) é ignorado.
+    // Com shards, o id não diz o shard: a cópia do cache (ou a busca em todos os shards, feita fora desta transação)
+    // dá o identificador, e só então a transação lê a entidade, já no shard certo.
     public Conta findByIdOrThrowBadRequestException(long id) {
-        return repository.findById(id).orElseThrow(() -> new BadRequestException("Not Found id " + id));
+        return metricas.buscarConta("id", () -> {
+            Optional<Conta> conta;
+            if (!TransactionSynchronizationManager.isActualTransactionActive())
+                conta = cache.porId(id, this::buscarEmTodos);
+            else if (shards.ativo())
+                conta = cache.porId(id, this::buscarEmTodos)
+                        .flatMap(copia -> shards.naConta(copia.getIdentificadorConta(), () -> repository.findById(id)));
+            else
+                conta = repository.findById(id);
+            return conta.orElseThrow(() -> new BadRequestException("Not Found id " + id));
+        });
     }
 
     public Conta save() {
-        return repository.save(Conta.builder().identificadorConta(identificadorConta()).saldo(ZERO).build());
+        String identificador = allocator.proximo();
+        return shards.naConta(identificador,
+                () -> repository.save(Conta.builder().identificadorConta(identificador).saldo(Dinheiro.ZERO).build()));
     }
 
     public void update(long id, ContaRequest request) {
-        Conta savedConta = findByIdOrThrowBadRequestException(id);
-        Conta contaUpdated = Conta.builder()
-                .id(savedConta.getId())
-                .identificadorConta(request.getIdentificadorConta())
-                .saldo(savedConta.getSaldo())
-                .createdAt(savedConta.getCreatedAt())
-                .build();
-        repository.save(contaUpdated);
+        int shard = shardDaConta(id);
+        // Mudar de shard exigiria mover a conta com todo o histórico; com shards o identificador fica no mesmo shard.
+        if (shards.ativo() && shards.de(request.getIdentificadorConta()) != shard)
+            throw new BadRequestException(IDENTIFICADOR_EM_OUTRO_SHARD);
+        shards.executar(shard, () -> retry.executar(() -> {
+            Conta savedConta = repository.findById(id).orElseThrow(() -> new BadRequestException("Not Found id " + id));
+            Conta contaUpdated = Conta.builder()
+                    .id(savedConta.getId())
+                    .identificadorConta(request.getIdentificadorConta())
+                    .saldo(savedConta.getSaldo())
+                    .createdAt(savedConta.getCreatedAt())
+                    .version(savedConta.getVersion())
+                    .build();
+            repository.save(contaUpdated);
+            cache.invalidar(savedConta);
+            // O saldo em memória tem as mutações ainda na fila do writer: muda de chave em vez de ser recarregado.
+            engine.renomear(savedConta, request.getIdentificadorConta());
+        }));
     }
 
     public void delete(long id) {
-        repository.delete(findByIdOrThrowBadRequestException(id));
+        Conta conta = shards.executar(shardDaConta(id), () -> {
+            Conta salva = repository.findById(id).orElseThrow(() -> new BadRequestException("Not Found id " + id));
+            repository.delete(salva);
+            return salva;
+        });
+        cache.invalidar(conta);
+        engine.remover(conta);
     }
 
-    public Conta findByIdentificadorContaOrThrowBadRequestException(String identificador) {
-        return repository.findByIdentificadorConta(identificador).orElseThrow(() -> new BadRequestException("Not Found identificador " + identificador));
+    private Optional<Conta> buscarEmTodos(long id) {
+        return shards.primeiro(() -> repository.findCopiaById(id));
     }
 
-    private static String identificadorConta() {
-        String numero = String.valueOf(random.nextInt(900000) + 100000);
-        return numero.substring(0, 5) + "-" + numero.substring(5);
+    private int shardDaConta(long id) {
+        return shards.ativo() ? shards.de(findByIdOrThrowBadRequestException(id).getIdentificadorConta()) : 0;
+    }
+
+    // Só leituras chamam esta busca dentro de uma transação, então ela sempre devolve uma cópia; a consulta vai direto ao
+    // banco para ser o primeiro comando da transação e levá-la ao shard da conta.
+    public Conta findByIdentificadorContaOrThrowBadRequestException(String identificador) {
+        return metricas.buscarConta("identificador", () -> {
+            Optional<Conta> conta = TransactionSynchronizationManager.isActualTransactionActive()
+                    ? shards.naConta(identificador, () -> repository.findCopiaByIdentificadorConta(identificador))
+                    : cache.porIdentificador(identificador, chave -> shards.naConta(chave, () -> repository.findCopiaByIdentificadorConta(chave)));
+            return conta.orElseThrow(() -> new BadRequestException("Not Found identificador " + identificador));
+        });
     }
 }
@@ -0,0 +1,267 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Detecta as contas que concentram as escritas (lojistas, fontes de folha de pagamento) e serializa as operações
+ * delas numa fila por conta com um único escritor.
+ *
+ * <p>Cada operação de saldo é contada num count-min sketch de {@code bank.hotspot.profundidade} linhas por
+ * {@code bank.hotspot.largura} contadores: a memória é fixa, qualquer que seja o número de contas, e a estimativa
+ * nunca fica abaixo da contagem real, porque colisões só a aumentam. A cada {@code bank.hotspot.janela-ms} os
+ * contadores caem pela metade, então a estimativa acompanha a taxa recente. Uma conta cuja estimativa alcança
+ * {@code bank.hotspot.limiar} fica quente; volta a ser fria quando a estimativa cai abaixo da metade do limiar com a
+ * fila vazia.</p>
+ *
+ * <p>As operações de uma conta quente não disputam o lock da faixa no {@link SaldoEngine}: entram na fila da conta e
+ * uma única tarefa por vez a drena em lotes de até {@code bank.hotspot.lote-maximo}, entregues ao aplicador do
+ * {@link OperacaoService}. Contas frias seguem o caminho direto.</p>
+ *
+ * <p>Métricas: {@value #CONTAS} (contas quentes agora), {@value #FILA} (operações na fila de todas as contas),
+ * {@value #FILA_MAXIMA} (a maior fila entre as contas quentes), {@value #LOTE} (operações por lote drenado) e
+ * {@value #PROMOCOES} (contas que ficaram quentes). Nenhuma leva a conta como tag, para que o número de séries não
+ * cresça com as contas que passam pelo caminho.</p>
+ *
+ * <p>Desligado por padrão ({@code bank.hotspot.ativo=false}) enquanto um benchmark não mostrar ganho sobre o lock
+ * da faixa.</p>
+ */
+@Slf4j
+@Component
+public class ContasQuentes {
+    public static final String CONTAS = "bank.hotspot.contas";
+    public static final String FILA = "bank.hotspot.fila";
+    public static final String FILA_MAXIMA = "bank.hotspot.fila.maxima";
+    public static final String LOTE = "bank.hotspot.lote";
+    public static final String PROMOCOES = "bank.hotspot.promocoes";
+    private static final long[] SEMENTES = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x27D4EB2F165667C5L, 0x94D049BB133111EBL};
+    private final boolean ativo;
+    private final long limiar;
+    private final int loteMaximo;
+    private final int largura;
+    private final int profundidade;
+    private final AtomicLongArray contadores;
+    private final Map<String, Fila> filas = new ConcurrentHashMap<>();
+    private final AtomicInteger operacoesNaFila = new AtomicInteger();
+    private final ExecutorService executor;
+    private final MeterRegistry registry;
+    private final DistributionSummary tamanhoDoLote;
+
+    public ContasQuentes(@Value("${bank.hotspot.ativo:false}") boolean ativo,
+                         @Value("${bank.hotspot.limiar:500}") long limiar,
+                         @Value("${bank.hotspot.largura:4096}") int largura,
+                         @Value("${bank.hotspot.profundidade:4}") int profundidade,
+                         @Value("${bank.hotspot.lote-maximo:256}") int loteMaximo,
+                         @Value("${bank.hotspot.threads:2}") int threads,
+                         MeterRegistry registry) {
+        this.ativo = ativo;
+        this.limiar = Math.max(1, limiar);
+        this.largura = Integer.highestOneBit(Math.max(1, largura));
+        this.profundidade = Math.max(1, Math.min(profundidade, SEMENTES.length));
+        this.contadores = new AtomicLongArray(this.largura * this.profundidade);
+        this.loteMaximo = Math.max(1, loteMaximo);
+        AtomicInteger numero = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, tarefa -> {
+            Thread thread = new Thread(tarefa, "conta-quente-" + numero.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.registry = registry;
+        this.tamanhoDoLote = DistributionSummary.builder(LOTE).register(registry);
+        Gauge.builder(CONTAS, filas, Map::size).register(registry);
+        Gauge.builder(FILA, operacoesNaFila, AtomicInteger::get).register(registry);
+        Gauge.builder(FILA_MAXIMA, filas, ContasQuentes::maiorFila).register(registry);
+    }
+
+    /**
+     * Conta uma operação na conta e diz se ela está quente, ou seja, se a operação deve ir para {@link #enfileirar}.
+     */
+    public boolean registrar(Conta conta) {
+        if (!ativo)
+            return false;
+        String identificador = conta.getIdentificadorConta();
+        long estimativa = incrementar(identificador);
+        if (filas.containsKey(identificador))
+            return true;
+        if (estimativa < limiar)
+            return false;
+        filas.computeIfAbsent(identificador, this::promover);
+        return true;
+    }
+
+    public boolean quente(String identificador) {
+        return filas.containsKey(identificador);
+    }
+
+    /**
+     * Põe a mutação na fila da conta. O aplicador recebe os lotes da conta um de cada vez, na ordem de chegada, e deve
+     * completar a gravação de cada mutação; se ele lançar, o lote inteiro falha com o erro.
+     */
+    public CompletableFuture<Void> enfileirar(Conta conta, Function<Conta, Lancamento> mutacao,
+                                              Consumer<List<MutacaoPendente>> aplicador) {
+        MutacaoPendente pendente = new MutacaoPendente(conta, mutacao, new CompletableFuture<>());
+        Fila fila = filas.computeIfAbsent(conta.getIdentificadorConta(), this::promover);
+        // Uma fila aposentada pelo envelhecer pode ter saído do mapa depois do computeIfAbsent: a mutação vai para a
+        // fila que a substituir, para que a conta nunca tenha duas filas drenando ao mesmo tempo.
+        while (!fila.receber(pendente, aplicador)) {
+            Thread.onSpinWait();
+            fila = filas.computeIfAbsent(conta.getIdentificadorConta(), this::promover);
+        }
+        agendar(fila);
+        return pendente.gravacao();
+    }
+
+    private void agendar(Fila fila) {
+        if (fila.agendada.compareAndSet(false, true))
+            executor.execute(() -> drenar(fila));
+    }
+
+    /**
+     * Fecha a janela: divide os contadores pela metade e devolve ao caminho direto as contas que esfriaram.
+     */
+    @Scheduled(fixedDelayString = "${bank.hotspot.janela-ms:1000}")
+    void envelhecer() {
+        for (int i = 0; i < contadores.length(); i++) {
+            if (contadores.get(i) != 0)
+                contadores.getAndUpdate(i, contador -> contador >>> 1);
+        }
+        filas.forEach((identificador, fila) -> {
+            if (estimar(identificador) < limiar / 2 && fila.aposentar()) {
+                filas.remove(identificador, fila);
+                log.info("Conta {} voltou ao caminho direto", identificador);
+            }
+        });
+    }
+
+    @PreDestroy
+    void parar() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private Fila promover(String identificador) {
+        registry.counter(PROMOCOES).increment();
+        log.info("Conta {} quente: operações passam pela fila de escritor único", identificador);
+        return new Fila();
+    }
+
+    // Um lote por tarefa: com a fila ainda cheia, a conta volta para o fim do executor e as outras contas quentes
+    // não esperam ela esvaziar. A marca de agendada só é solta com a fila vazia e é conferida de novo, para não
+    // perder uma operação que chegou entre o último poll e a liberação.
+    private void drenar(Fila fila) {
+        List<MutacaoPendente> lote = new ArrayList<>(Math.min(loteMaximo, fila.tamanho.get()));
+        MutacaoPendente pendente;
+        while (lote.size() < loteMaximo && (pendente = fila.pendentes.poll()) != null)
+            lote.add(pendente);
+        fila.tamanho.addAndGet(-lote.size());
+        operacoesNaFila.addAndGet(-lote.size());
+        if (!lote.isEmpty()) {
+            tamanhoDoLote.record(lote.size());
+            try {
+                fila.aplicador.get().accept(lote);
+            } catch (RuntimeException e) {
+                lote.forEach(falhou -> falhou.gravacao().completeExceptionally(e));
+            }
+        }
+        if (!fila.pendentes.isEmpty()) {
+            executor.execute(() -> drenar(fila));
+            return;
+        }
+        fila.agendada.set(false);
+        if (!fila.pendentes.isEmpty() && fila.agendada.compareAndSet(false, true))
+            executor.execute(() -> drenar(fila));
+    }
+
+    // Percorre só as contas quentes, poucas por construção, e só quando o gauge é lido.
+    private static double maiorFila(Map<String, Fila> filas) {
+        return filas.values().stream().mapToInt(fila -> fila.tamanho.get()).max().orElse(0);
+    }
+
+    // Incrementa uma célula por linha e devolve o menor valor entre elas: a estimativa do count-min.
+    private long incrementar(String identificador) {
+        long estimativa = Long.MAX_VALUE;
+        for (int linha = 0; linha < profundidade; linha++)
+            estimativa = Math.min(estimativa, contadores.incrementAndGet(celula(identificador, linha)));
+        return estimativa;
+    }
+
+    private long estimar(String identificador) {
+        long estimativa = Long.MAX_VALUE;
+        for (int linha = 0; linha < profundidade; linha++)
+            estimativa = Math.min(estimativa, contadores.get(celula(identificador, linha)));
+        return estimativa;
+    }
+
+    private int celula(String identificador, int linha) {
+        long hash = (identificador.hashCode() + SEMENTES[linha]) * 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return linha * largura + ((int) hash & (largura - 1));
+    }
+
+    private final class Fila {
+        private final Queue<MutacaoPendente> pendentes = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger tamanho = new AtomicInteger();
+        private final AtomicBoolean agendada = new AtomicBoolean();
+        private final AtomicReference<Consumer<List<MutacaoPendente>>> aplicador = new AtomicReference<>();
+        // Guarda a entrada de mutações contra a aposentadoria: uma fila fechada não recebe mais nada.
+        private final ReentrantLock lock = new ReentrantLock();
+        private boolean fechada;
+
+        private boolean receber(MutacaoPendente pendente, Consumer<List<MutacaoPendente>> aplicador) {
+            lock.lock();
+            try {
+                if (fechada)
+                    return false;
+                this.aplicador.compareAndSet(null, aplicador);
+                tamanho.incrementAndGet();
+                operacoesNaFila.incrementAndGet();
+                pendentes.add(pendente);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Fecha a fila se ela está vazia e sem drenagem agendada; quem já a tinha em mãos procura a próxima.
+        private boolean aposentar() {
+            lock.lock();
+            try {
+                if (tamanho.get() != 0 || agendada.get())
+                    return false;
+                fechada = true;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
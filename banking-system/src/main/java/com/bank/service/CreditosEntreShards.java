@@ -0,0 +1,287 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import com.bank.domain.CreditoAplicado;
+import com.bank.domain.CreditoPendente;
+import com.bank.domain.CreditoRejeitado;
+import com.bank.domain.Dinheiro;
+import com.bank.exception.BadRequestException;
+import com.bank.repository.ContaRepository;
+import com.bank.repository.CreditoAplicadoRepository;
+import com.bank.repository.CreditoPendenteRepository;
+import com.bank.repository.CreditoRejeitadoRepository;
+import com.bank.repository.OperacaoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * As transferências entre {@link Shards} do {@link OperacaoWriter}, em duas fases. O débito é gravado no shard de origem
+ * junto com um {@link CreditoPendente}; o crédito segue como {@link Remessa} para o escritor do shard de destino, que o
+ * aplica com um {@link CreditoAplicado} que torna a reaplicação inofensiva e depois apaga o pendente na origem. Os
+ * créditos de um destino são aplicados juntos e, se a transação falhar, um a um. Um crédito que o destino recusa
+ * (conta inexistente, limite de saldo) é estornado na conta do débito, na mesma transação do shard de origem que apaga
+ * o pendente e grava o {@link CreditoRejeitado}, e o pedido falha com a recusa: nenhum valor fica debitado sem destino.
+ * Uma falha de acesso ao destino nunca falha o pedido: o crédito é refeito até ser aplicado, e depois de
+ * {@code bank.writer.credito.prazo-segundos} o chamador é liberado, porque o pendente já garante o crédito. As marcas
+ * de CreditoAplicado são apagadas depois de {@code bank.writer.creditos-aplicados.retencao-horas}, se nenhum shard
+ * tiver mais o pendente.
+ */
+@Slf4j
+@Component
+public class CreditosEntreShards {
+    private static final int PAGINA_LIMPEZA = 1_000;
+    private final ContaRepository contaRepository;
+    private final OperacaoRepository operacaoRepository;
+    private final CreditoPendenteRepository creditoPendenteRepository;
+    private final CreditoAplicadoRepository creditoAplicadoRepository;
+    private final CreditoRejeitadoRepository creditoRejeitadoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final OptimisticRetry retry;
+    private final ContaCache cache;
+    private final MovimentacaoSaldos movimentacao;
+    private final Metricas metricas;
+    private final Shards shards;
+    private final long prazoCreditoNanos;
+    private final Duration retencaoCreditosAplicados;
+
+    public CreditosEntreShards(ContaRepository contaRepository,
+                               OperacaoRepository operacaoRepository,
+                               CreditoPendenteRepository creditoPendenteRepository,
+                               CreditoAplicadoRepository creditoAplicadoRepository,
+                               CreditoRejeitadoRepository creditoRejeitadoRepository,
+                               TransactionTemplate transactionTemplate,
+                               OptimisticRetry retry,
+                               ContaCache cache,
+                               MovimentacaoSaldos movimentacao,
+                               Metricas metricas,
+                               Shards shards,
+                               @Value("${bank.writer.credito.prazo-segundos:60}") long prazoCreditoSegundos,
+                               @Value("${bank.writer.creditos-aplicados.retencao-horas:24}") long retencaoHoras) {
+        this.contaRepository = contaRepository;
+        this.operacaoRepository = operacaoRepository;
+        this.creditoPendenteRepository = creditoPendenteRepository;
+        this.creditoAplicadoRepository = creditoAplicadoRepository;
+        this.creditoRejeitadoRepository = creditoRejeitadoRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.retry = retry;
+        this.cache = cache;
+        this.movimentacao = movimentacao;
+        this.metricas = metricas;
+        this.shards = shards;
+        this.prazoCreditoNanos = TimeUnit.SECONDS.toNanos(prazoCreditoSegundos);
+        this.retencaoCreditosAplicados = Duration.ofHours(retencaoHoras);
+    }
+
+    // Primeira fase, na transação do shard de origem: o pendente que garante a perna de crédito em outro shard. As
+    // pernas de uma transferência vêm em pares, débito e crédito: o estorno volta à conta do débito.
+    Remessa remessa(Pedido pedido, int origem, Lancamento credito, Long contaOrigemId) {
+        return new Remessa(pedido, origem, CreditoPendente.builder()
+                .id(UUID.randomUUID().toString())
+                .contaId(credito.getContaId())
+                .contaOrigemId(contaOrigemId)
+                .shard(credito.getShard())
+                .tipo(credito.getTipo())
+                .valor(credito.getValor())
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    void registrar(List<Remessa> remessas) {
+        if (!remessas.isEmpty())
+            creditoPendenteRepository.saveAll(remessas.stream().map(Remessa::credito).toList());
+    }
+
+    // Segunda fase, pela thread do escritor do destino: os créditos recebidos numa transação no shard; depois os
+    // pendentes são apagados nos shards de origem e os pedidos liberados. As listas são do escritor: as remessas ainda
+    // não aplicadas e as aplicadas cujo pendente ainda não foi apagado. Se a remoção falhar, é refeita na volta
+    // seguinte, e a recuperação apaga sem reaplicar os que uma queda deixar para trás.
+    void aplicar(int destino, List<Remessa> remessas, List<Remessa> aplicadas) {
+        List<Remessa> novas = remessas.isEmpty() ? List.of() : creditarIsolando(destino, List.copyOf(remessas), remessas);
+        remessas.removeAll(novas);
+        aplicadas.addAll(novas);
+        apagarPendentes(aplicadas);
+        novas.forEach(remessa -> remessa.aplicacao().complete(null));
+    }
+
+    // Créditos que uma queda deixou pendentes em todos os shards, para os escritores de destino aplicarem.
+    List<Remessa> recuperar() {
+        List<Remessa> remessas = new ArrayList<>();
+        for (int shard = 0; shard < shards.quantidade(); shard++) {
+            int origem = shard;
+            shards.executar(origem, () -> creditoPendenteRepository.findAll())
+                    .forEach(credito -> remessas.add(new Remessa(null, origem, credito)));
+        }
+        return remessas;
+    }
+
+    // Um CreditoAplicado só é consultado enquanto o CreditoPendente de mesmo id pode ser reaplicado. Passada a retenção,
+    // as marcas cujo pendente já não existe em nenhum shard são apagadas, uma página por vez.
+    @Scheduled(fixedDelayString = "${bank.writer.creditos-aplicados.limpeza-ms:3600000}")
+    public void limparCreditosAplicados() {
+        if (!shards.ativo())
+            return;
+        LocalDateTime limite = LocalDateTime.now().minus(retencaoCreditosAplicados);
+        int apagados = 0;
+        for (int shard = 0; shard < shards.quantidade(); shard++) {
+            int destino = shard;
+            while (true) {
+                List<String> ids = shards.executar(destino,
+                        () -> creditoAplicadoRepository.findIdsCriadosAntesDe(limite, PageRequest.of(0, PAGINA_LIMPEZA)));
+                Set<String> pendentes = shards.emTodos(() -> creditoPendenteRepository.findAllById(ids)).stream()
+                        .flatMap(List::stream)
+                        .map(CreditoPendente::getId)
+                        .collect(Collectors.toSet());
+                List<String> semPendente = ids.stream().filter(id -> !pendentes.contains(id)).toList();
+                if (!semPendente.isEmpty()) {
+                    shards.executar(destino, () -> transactionTemplate.executeWithoutResult(
+                            status -> creditoAplicadoRepository.deleteAllByIdInBatch(semPendente)));
+                    apagados += semPendente.size();
+                }
+                if (ids.size() < PAGINA_LIMPEZA || semPendente.isEmpty())
+                    break;
+            }
+        }
+        if (apagados > 0)
+            log.info("{} marcas de créditos aplicados anteriores a {} apagadas", apagados, limite);
+    }
+
+    // Como no gravarLote do writer: se o lote falha, cada crédito é refeito sozinho, e um crédito inválido não segura
+    // os outros.
+    private List<Remessa> creditarIsolando(int destino, List<Remessa> lote, List<Remessa> remessas) {
+        long inicio = System.nanoTime();
+        try {
+            Collection<Conta> contas = retry.executar(() -> shards.executar(destino, () -> transactionTemplate.execute(
+                    status -> creditar(lote.stream().map(Remessa::credito).toList()))));
+            metricas.loteGravado(System.nanoTime() - inicio, lote.size(), true);
+            contas.forEach(cache::atualizar);
+            return lote;
+        } catch (RuntimeException e) {
+            metricas.loteGravado(System.nanoTime() - inicio, lote.size(), false);
+            if (lote.size() == 1) {
+                falhou(destino, lote.get(0), e, remessas);
+                return List.of();
+            }
+            List<Remessa> aplicados = new ArrayList<>();
+            lote.forEach(remessa -> aplicados.addAll(creditarIsolando(destino, List.of(remessa), remessas)));
+            return aplicados;
+        }
+    }
+
+    private Collection<Conta> creditar(List<CreditoPendente> creditos) {
+        Set<String> aplicados = creditoAplicadoRepository.findAllById(creditos.stream().map(CreditoPendente::getId).toList())
+                .stream().map(CreditoAplicado::getId).collect(Collectors.toSet());
+        List<Lancamento> lancamentos = creditos.stream()
+                .filter(credito -> !aplicados.contains(credito.getId()))
+                .map(credito -> Lancamento.builder().contaId(credito.getContaId()).tipo(credito.getTipo())
+                        .valor(credito.getValor()).delta(credito.getValor()).shard(credito.getShard()).build())
+                .toList();
+        Map<Long, Conta> contas = movimentacao.movimentar(lancamentos);
+        operacaoRepository.saveAll(lancamentos.stream()
+                .map(lancamento -> lancamento.operacao(movimentacao.referencia(contas, lancamento), null, null))
+                .toList());
+        creditoAplicadoRepository.saveAll(creditos.stream()
+                .filter(credito -> !aplicados.contains(credito.getId()))
+                .map(credito -> CreditoAplicado.builder().id(credito.getId()).createdAt(LocalDateTime.now()).build())
+                .toList());
+        return contas.values();
+    }
+
+    // A recusa do banco (conta inexistente, saldo acima do limite) não muda com outra tentativa e é estornada; uma
+    // falha de acesso ao shard é refeita nas voltas seguintes, sem prazo. Um estorno que falha também é refeito:
+    // o crédito continua em remessas, é recusado de novo na próxima volta e o estorno é tentado outra vez.
+    private void falhou(int destino, Remessa remessa, RuntimeException erro, List<Remessa> remessas) {
+        if (erro instanceof SaldoRecusado || erro instanceof BadRequestException) {
+            if (estornar(remessa, recusa(destino, remessa.credito(), erro)))
+                remessas.remove(remessa);
+            return;
+        }
+        log.warn("Crédito pendente {} não aplicado no shard {}, nova tentativa na próxima volta do writer",
+                remessa.credito().getId(), destino, erro);
+        if (System.nanoTime() - remessa.criada() >= prazoCreditoNanos && !remessa.aplicacao().isDone()) {
+            log.warn("Crédito pendente {} liberado sem aplicação depois do prazo; o pendente garante o crédito", remessa.credito().getId());
+            remessa.aplicacao().complete(null);
+        }
+    }
+
+    // A mesma mensagem que a validação em memória daria se soubesse do destino.
+    private BadRequestException recusa(int destino, CreditoPendente credito, RuntimeException erro) {
+        if (erro instanceof BadRequestException recusa)
+            return recusa;
+        boolean existe = shards.executar(destino, () -> contaRepository.findCopiaById(credito.getContaId())).isPresent();
+        return new BadRequestException(existe ? Dinheiro.LIMITE_EXCEDIDO : "Not Found id " + credito.getContaId());
+    }
+
+    // Devolve o valor à conta do débito, na mesma transação do shard de origem que grava o CreditoRejeitado e apaga o
+    // pendente: o crédito nunca é aplicado depois do estorno, nem pela recuperação. O pedido falha com a recusa, e o
+    // SaldoEngine desfaz em memória as pernas do pedido.
+    private boolean estornar(Remessa remessa, BadRequestException recusa) {
+        CreditoPendente credito = remessa.credito();
+        // Um pendente gravado antes de a conta do débito ser guardada nele não tem onde estornar: fica só o rejeitado.
+        List<Lancamento> estorno = credito.getContaOrigemId() == null ? List.of() : List.of(Lancamento.builder()
+                .contaId(credito.getContaOrigemId()).tipo(credito.getTipo()).valor(credito.getValor())
+                .delta(credito.getValor()).shard(remessa.origem()).build());
+        try {
+            Collection<Conta> contas = shards.executar(remessa.origem(), () -> transactionTemplate.execute(status -> {
+                Map<Long, Conta> estornadas = movimentacao.movimentar(estorno);
+                operacaoRepository.saveAll(estorno.stream()
+                        .map(lancamento -> lancamento.operacao(movimentacao.referencia(estornadas, lancamento), null, null))
+                        .toList());
+                creditoRejeitadoRepository.save(CreditoRejeitado.builder()
+                        .id(credito.getId())
+                        .contaId(credito.getContaId())
+                        .contaOrigemId(credito.getContaOrigemId())
+                        .shard(credito.getShard())
+                        .tipo(credito.getTipo())
+                        .valor(credito.getValor())
+                        .motivo(CreditoRejeitado.motivo(recusa))
+                        .createdAt(LocalDateTime.now())
+                        .build());
+                creditoPendenteRepository.deleteAllByIdInBatch(List.of(credito.getId()));
+                return estornadas.values();
+            }));
+            // A conta do débito é do escritor de outro shard: a cópia no cache é descartada, não sobrescrita.
+            contas.forEach(cache::invalidar);
+        } catch (RuntimeException e) {
+            log.error("Estorno do crédito {} na conta {} do shard {} falhou, nova tentativa na próxima volta do writer",
+                    credito.getId(), credito.getContaOrigemId(), remessa.origem(), e);
+            return false;
+        }
+        metricas.creditoRejeitado();
+        log.warn("Crédito {} de {} centavos para a conta {} recusado pelo shard {} e estornado na conta {}: {}",
+                credito.getId(), credito.getValor(), credito.getContaId(), credito.getShard(), credito.getContaOrigemId(), recusa.getMessage());
+        remessa.aplicacao().completeExceptionally(recusa);
+        return true;
+    }
+
+    private void apagarPendentes(List<Remessa> aplicadas) {
+        if (aplicadas.isEmpty())
+            return;
+        Map<Integer, List<Remessa>> porOrigem = aplicadas.stream()
+                .collect(Collectors.groupingBy(Remessa::origem, LinkedHashMap::new, Collectors.toList()));
+        porOrigem.forEach((origem, apagar) -> {
+            try {
+                shards.executar(origem, () -> transactionTemplate.executeWithoutResult(status -> creditoPendenteRepository
+                        .deleteAllByIdInBatch(apagar.stream().map(remessa -> remessa.credito().getId()).toList())));
+                aplicadas.removeAll(apagar);
+            } catch (RuntimeException e) {
+                log.warn("Créditos já aplicados continuam pendentes no shard {}, nova remoção na próxima volta do writer", origem, e);
+            }
+        });
+    }
+}
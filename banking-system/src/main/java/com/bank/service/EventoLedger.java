@@ -0,0 +1,27 @@
+package com.bank.service;
+
+import com.bank.domain.Operacao;
+import com.bank.enums.NaturezaEnum;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Uma linha de Operacao reduzida ao que as projeções do ledger usam.
+ */
+public record EventoLedger(Long id, Long contaId, NaturezaEnum natureza, BigDecimal valor, LocalDateTime createdAt) {
+
+    public static EventoLedger of(Operacao operacao) {
+        return new EventoLedger(operacao.getId(), operacao.getConta().getId(), operacao.getNatureza(),
+                operacao.getValor(), operacao.getCreatedAt());
+    }
+
+    public BigDecimal delta() {
+        return natureza == NaturezaEnum.DEBITO ? valor.negate() : valor;
+    }
+
+    public LocalDate dia() {
+        return createdAt.toLocalDate();
+    }
+}
@@ -0,0 +1,40 @@
+package com.bank.service;
+
+import com.bank.domain.Operacao;
+import com.bank.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posição de uma página do extrato: a chave (createdAt, id) da última operação entregue, codificada de forma opaca.
+ */
+record ExtratoCursor(LocalDateTime createdAt, long id) {
+    static final String CURSOR_INVALIDO = "Cursor de extrato inválido";
+    private static final char SEPARADOR = '|';
+
+    static ExtratoCursor inicio(LocalDateTime de) {
+        return new ExtratoCursor(de, 0L);
+    }
+
+    static ExtratoCursor depoisDe(Operacao operacao) {
+        return new ExtratoCursor(operacao.getCreatedAt(), operacao.getId());
+    }
+
+    static ExtratoCursor decodificar(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = valor.indexOf(SEPARADOR);
+            return new ExtratoCursor(LocalDateTime.parse(valor.substring(0, separador)), Long.parseLong(valor.substring(separador + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new BadRequestException(CURSOR_INVALIDO);
+        }
+    }
+
+    String codificar() {
+        String valor = createdAt.toString() + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+}
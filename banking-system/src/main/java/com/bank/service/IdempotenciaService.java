@@ -0,0 +1,205 @@
+package com.bank.service;
+
+import com.bank.domain.Idempotencia;
+import com.bank.exception.BadRequestException;
+import com.bank.exception.ConflictException;
+import com.bank.repository.IdempotenciaRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Deduplica POSTs que chegam com o header Idempotency-Key.
+ *
+ * <p>A primeira requisição de uma chave executa a operação; duplicatas concorrentes esperam o mesmo
+ * {@link CompletableFuture} e as posteriores recebem a resposta gravada, sem passar de novo pelo
+ * {@link OperacaoService}. As respostas ficam num mapa em memória por {@code bank.idempotencia.ttl-segundos}.
+ * Com {@code bank.idempotencia.persistir=true} a chave também é reivindicada na tabela Idempotencia antes da execução,
+ * o que cobre reinícios e duplicatas entregues a outro nó. Falhas não são guardadas: a chave fica livre para nova
+ * tentativa.</p>
+ */
+@Slf4j
+@Service
+public class IdempotenciaService {
+    public static final String CHAVE_INVALIDA = "O Idempotency-Key deve ter entre 1 e 255 caracteres";
+    public static final String CHAVE_REUTILIZADA = "O Idempotency-Key já foi usado com uma requisição diferente";
+    public static final String EM_PROCESSAMENTO = "Uma requisição com este Idempotency-Key ainda está em processamento. Tente novamente";
+    private static final int TAMANHO_MAXIMO_CHAVE = 255;
+    private final IdempotenciaRepository repository;
+    private final ObjectMapper objectMapper;
+    private final long ttlMillis;
+    private final boolean persistir;
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+
+    public IdempotenciaService(IdempotenciaRepository repository,
+                               ObjectMapper objectMapper,
+                               @Value("${bank.idempotencia.ttl-segundos:86400}") long ttlSegundos,
+                               @Value("${bank.idempotencia.persistir:false}") boolean persistir) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttlMillis = ttlSegundos * 1000;
+        this.persistir = persistir;
+    }
+
+    public <T> T executar(String operacao, String chave, Object requisicao, Class<T> tipoResposta, Supplier<T> execucao) {
+        if (chave.isEmpty() || chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new BadRequestException(CHAVE_INVALIDA);
+        }
+        String id = operacao + ":" + chave;
+        String impressao = impressao(requisicao);
+
+        Entrada nova = new Entrada(impressao);
+        Entrada existente;
+        while ((existente = entradas.putIfAbsent(id, nova)) != null && existente.expirada(System.currentTimeMillis())) {
+            entradas.remove(id, existente);
+        }
+        if (existente != null) {
+            conferir(existente.impressao, impressao);
+            return ler(aguardar(existente), tipoResposta);
+        }
+
+        boolean reivindicada = false;
+        String resposta;
+        T resultado;
+        try {
+            if (persistir) {
+                Optional<String> gravada = reivindicar(id, impressao);
+                if (gravada.isPresent()) {
+                    concluir(nova, gravada.get());
+                    return ler(gravada.get(), tipoResposta);
+                }
+                reivindicada = true;
+            }
+            resultado = execucao.get();
+            resposta = escrever(resultado);
+        } catch (RuntimeException e) {
+            entradas.remove(id, nova);
+            nova.resposta.completeExceptionally(e);
+            if (reivindicada) {
+                repository.deleteById(id);
+            }
+            throw e;
+        }
+
+        concluir(nova, resposta);
+        if (persistir) {
+            registrar(id, resposta);
+        }
+        return resultado;
+    }
+
+    @Scheduled(fixedDelayString = "${bank.idempotencia.limpeza-ms:60000}")
+    public void limpar() {
+        long agora = System.currentTimeMillis();
+        entradas.values().removeIf(entrada -> entrada.expirada(agora));
+        if (persistir) {
+            repository.deleteCriadasAntesDe(LocalDateTime.now().minus(Duration.ofMillis(ttlMillis)));
+        }
+    }
+
+    // Outro nó já inseriu a chave: devolve a resposta dele ou, se ainda não terminou, pede para o cliente tentar de novo.
+    private Optional<String> reivindicar(String id, String impressao) {
+        try {
+            repository.saveAndFlush(Idempotencia.builder().chave(id).impressao(impressao).createdAt(LocalDateTime.now()).build());
+            return Optional.empty();
+        } catch (DataIntegrityViolationException e) {
+            Idempotencia registro = repository.findById(id).orElseThrow(() -> new ConflictException(EM_PROCESSAMENTO, e));
+            conferir(registro.getImpressao(), impressao);
+            if (registro.getResposta() == null) {
+                throw new ConflictException(EM_PROCESSAMENTO, e);
+            }
+            return Optional.of(registro.getResposta());
+        }
+    }
+
+    // A operação já foi aplicada: se a resposta não puder ser gravada, a chave continua reivindicada (outros nós
+    // recebem 409 até a limpeza) em vez de ser liberada para uma segunda execução.
+    private void registrar(String id, String resposta) {
+        try {
+            repository.findById(id).ifPresent(registro -> {
+                registro.setResposta(resposta);
+                repository.save(registro);
+            });
+        } catch (DataAccessException e) {
+            log.warn("Não foi possível gravar a resposta do Idempotency-Key {}", id, e);
+        }
+    }
+
+    private void concluir(Entrada entrada, String resposta) {
+        entrada.expiraEm = System.currentTimeMillis() + ttlMillis;
+        entrada.resposta.complete(resposta);
+    }
+
+    private static void conferir(String impressaoGravada, String impressao) {
+        if (!impressaoGravada.equals(impressao)) {
+            throw new BadRequestException(CHAVE_REUTILIZADA);
+        }
+    }
+
+    private static String aguardar(Entrada entrada) {
+        try {
+            return entrada.resposta.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    private String impressao(Object requisicao) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(requisicao));
+            return HexFormat.of().formatHex(hash);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String escrever(Object resposta) {
+        try {
+            return objectMapper.writeValueAsString(resposta);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> T ler(String resposta, Class<T> tipo) {
+        try {
+            return objectMapper.readValue(resposta, tipo);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Entrada {
+        private final String impressao;
+        private final CompletableFuture<String> resposta = new CompletableFuture<>();
+        private volatile long expiraEm = Long.MAX_VALUE;
+
+        private Entrada(String impressao) {
+            this.impressao = impressao;
+        }
+
+        private boolean expirada(long agora) {
+            return agora >= expiraEm;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.bank.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Gera identificadores de conta únicos sem ida ao banco por conta aberta.
+ *
+ * <p>Cada nó reserva na sequence {@value #SEQUENCE} blocos de ordinais consecutivos e os consome localmente com
+ * CAS, então nós diferentes nunca recebem o mesmo ordinal. A sequence anda de {@code bank.identificador.bloco} em
+ * {@code bank.identificador.bloco} e cada valor é o início de um bloco; um nó configurado com outro tamanho de bloco
+ * não inicia, porque os seus intervalos se sobreporiam aos já entregues. O ordinal passa por uma permutação afim (bijetora)
+ * para que contas abertas em sequência não tenham números vizinhos e recebe um dígito verificador módulo 11.
+ * Os primeiros {@value #ESPACO_CURTO} ordinais usam o formato {@code NNNNN-N}; esgotado esse espaço, os
+ * seguintes usam {@code NNNNNNNNN-N}.</p>
+ */
+@Component
+public class IdentificadorContaAllocator {
+    static final String SEQUENCE = "conta_identificador_seq";
+    static final long ESPACO_CURTO = 100_000L;
+    static final long ESPACO_LONGO = 1_000_000_000L;
+    private static final Formato CURTO = new Formato(5, ESPACO_CURTO, 38_461L, 52_817L);
+    private static final Formato LONGO = new Formato(9, ESPACO_LONGO, 387_420_489L, 271_828_183L);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long tamanhoBloco;
+    private final AtomicReference<Bloco> atual = new AtomicReference<>(new Bloco(0, 0));
+    private final Queue<Bloco> sobras = new ConcurrentLinkedQueue<>();
+
+    public IdentificadorContaAllocator(JdbcTemplate jdbcTemplate,
+                                       @Value("${bank.identificador.bloco:100}") long tamanhoBloco) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tamanhoBloco = tamanhoBloco;
+    }
+
+    @PostConstruct
+    public void criarSequence() {
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE + " START WITH 0 MINVALUE 0 INCREMENT BY " + tamanhoBloco);
+        Long incremento = jdbcTemplate.queryForObject(
+                "SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = ?", Long.class, SEQUENCE.toUpperCase());
+        if (incremento == null || incremento != tamanhoBloco)
+            throw new IllegalStateException("A sequence " + SEQUENCE + " reserva blocos de " + incremento
+                    + " identificadores, mas bank.identificador.bloco é " + tamanhoBloco);
+    }
+
+    public String proximo() {
+        return formatar(proximoOrdinal());
+    }
+
+    public List<String> proximos(int quantidade) {
+        List<String> identificadores = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            identificadores.add(proximo());
+        }
+        return identificadores;
+    }
+
+    static String formatar(long ordinal) {
+        if (ordinal < ESPACO_CURTO) {
+            return CURTO.formatar(ordinal);
+        }
+        if (ordinal - ESPACO_CURTO < ESPACO_LONGO) {
+            return LONGO.formatar(ordinal - ESPACO_CURTO);
+        }
+        throw new IllegalStateException("Espaço de identificadores de conta esgotado");
+    }
+
+    static int digitoVerificador(String numero) {
+        int soma = 0;
+        int peso = 2;
+        for (int i = numero.length() - 1; i >= 0; i--) {
+            soma += (numero.charAt(i) - '0') * peso;
+            peso = peso == 9 ? 2 : peso + 1;
+        }
+        int digito = 11 - soma % 11;
+        return digito >= 10 ? 0 : digito;
+    }
+
+    // Quem perde o CAS guarda o bloco que reservou em sobras, para que nenhum intervalo da sequence seja descartado.
+    private long proximoOrdinal() {
+        while (true) {
+            Bloco bloco = atual.get();
+            long ordinal = bloco.proximo.getAndIncrement();
+            if (ordinal < bloco.fim) {
+                return ordinal;
+            }
+            Bloco novo = sobras.poll();
+            if (novo == null) {
+                novo = reservar();
+            }
+            if (!atual.compareAndSet(bloco, novo)) {
+                sobras.offer(novo);
+            }
+        }
+    }
+
+    private Bloco reservar() {
+        long inicio = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + SEQUENCE, Long.class);
+        return new Bloco(inicio, inicio + tamanhoBloco);
+    }
+
+    private static final class Bloco {
+        private final long fim;
+        private final AtomicLong proximo;
+
+        private Bloco(long inicio, long fim) {
+            this.fim = fim;
+            this.proximo = new AtomicLong(inicio);
+        }
+    }
+
+    // (multiplicador * n + deslocamento) mod espaco é bijetora porque o multiplicador é primo com 10.
+    private record Formato(int digitos, long espaco, long multiplicador, long deslocamento) {
+        String formatar(long ordinal) {
+            long numero = Math.floorMod(multiplicador * ordinal + deslocamento, espaco);
+            String texto = String.format("%0" + digitos + "d", numero);
+            return texto + "-" + digitoVerificador(texto);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import com.bank.domain.Operacao;
+import com.bank.enums.OperacaoEnum;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static com.bank.enums.NaturezaEnum.CREDITO;
+import static com.bank.enums.NaturezaEnum.DEBITO;
+
+@Getter
+@Builder
+public class Lancamento {
+    private Long contaId;
+    private OperacaoEnum tipo;
+    // Em centavos: valor é sempre positivo e delta é o efeito com sinal no saldo.
+    private long valor;
+    private long delta;
+    // Shard da conta (ver Shards); sempre 0 sem o perfil shards.
+    private int shard;
+
+    // A Operacao que grava o lançamento. A sequência e o instante só existem nos pedidos do journal; sem o instante, o
+    // INSERT preenche o createdAt.
+    Operacao operacao(Conta conta, Long journalSeq, LocalDateTime instante) {
+        return Operacao.builder()
+                .tipo(tipo)
+                .natureza(delta < 0 ? DEBITO : CREDITO)
+                .valor(BigDecimal.valueOf(valor, 2))
+                .conta(conta)
+                .journalSeq(journalSeq)
+                .createdAt(instante)
+                .build();
+    }
+}
@@ -0,0 +1,275 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
+import com.bank.domain.Operacao;
+import com.bank.domain.ProjecaoLedger;
+import com.bank.domain.ResumoDiario;
+import com.bank.repository.ContaRepository;
+import com.bank.repository.OperacaoRepository;
+import com.bank.repository.ProjecaoLedgerRepository;
+import com.bank.repository.ResumoDiarioRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.math.BigDecimal.ZERO;
+
+/**
+ * Modo event-sourced ({@code bank.ledger.event-sourced=true}): as linhas de Operacao são o ledger autoritativo e
+ * Conta.saldo e {@link ResumoDiario} passam a ser projeções dele.
+ *
+ * <p>O {@link OperacaoWriter} só acrescenta operações e publica aqui os eventos de cada lote commitado. A cada
+ * {@code bank.ledger.projecao-ms} os eventos pendentes são aplicados numa única transação, junto com a posição da
+ * projeção ({@link ProjecaoLedger}), então um evento nunca é aplicado duas vezes. Na subida, os eventos posteriores
+ * à posição gravada são relidos em {@code bank.ledger.particoes-replay} partições por conta, em paralelo; sem
+ * posição gravada as projeções são reconstruídas do zero. A posição usa o id da operação, que só cresce enquanto
+ * um único nó grava o ledger.</p>
+ */
+@Slf4j
+@Component
+public class LedgerProjetor {
+    static final String PROJECAO = "ledger";
+    private final OperacaoRepository operacaoRepository;
+    private final ContaRepository contaRepository;
+    private final ResumoDiarioRepository resumoRepository;
+    private final ProjecaoLedgerRepository projecaoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate leitura;
+    private final SaldoEngine engine;
+    private final ContaCache cache;
+    private final boolean ativo;
+    private final int particoes;
+    private final Queue<EventoLedger> fila = new ConcurrentLinkedQueue<>();
+    // Soma, por conta, dos eventos commitados que ainda não chegaram a Conta.saldo.
+    private final Map<Long, BigDecimal> pendentes = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<EventoLedger> naoAplicados = new ArrayList<>();
+
+    public LedgerProjetor(OperacaoRepository operacaoRepository,
+                          ContaRepository contaRepository,
+                          ResumoDiarioRepository resumoRepository,
+                          ProjecaoLedgerRepository projecaoRepository,
+                          TransactionTemplate transactionTemplate,
+                          SaldoEngine engine,
+                          ContaCache cache,
+                          @Value("${bank.ledger.event-sourced:false}") boolean ativo,
+                          @Value("${bank.ledger.particoes-replay:4}") int particoes) {
+        this.operacaoRepository = operacaoRepository;
+        this.contaRepository = contaRepository;
+        this.resumoRepository = resumoRepository;
+        this.projecaoRepository = projecaoRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.leitura = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.leitura.setReadOnly(true);
+        this.engine = engine;
+        this.cache = cache;
+        this.ativo = ativo;
+        this.particoes = Math.max(1, particoes);
+    }
+
+    public boolean isAtivo() {
+        return ativo;
+    }
+
+    @PostConstruct
+    public void reconstruir() {
+        if (!ativo)
+            return;
+        Optional<ProjecaoLedger> posicao = projecaoRepository.findById(PROJECAO);
+        long depoisDe = posicao.map(ProjecaoLedger::getUltimaOperacao).orElse(0L);
+
+        ExecutorService executor = Executors.newFixedThreadPool(particoes);
+        try {
+            List<CompletableFuture<Projecao>> leituras = IntStream.range(0, particoes)
+                    .mapToObj(particao -> CompletableFuture.supplyAsync(() -> lerParticao(depoisDe, particao), executor))
+                    .toList();
+            Projecao projecao = new Projecao(depoisDe);
+            leituras.forEach(parcial -> projecao.juntar(parcial.join()));
+
+            transactionTemplate.executeWithoutResult(status -> {
+                if (posicao.isEmpty()) {
+                    contaRepository.zerarSaldos();
+                    resumoRepository.deleteAllInBatch();
+                }
+                gravar(projecao);
+            });
+            log.info("Ledger reaplicado a partir da operação {}: {} eventos em {} contas",
+                    depoisDe, projecao.eventos, projecao.saldos.size());
+        } finally {
+            executor.shutdown();
+        }
+        engine.definirSaldoInicial(this::saldo);
+    }
+
+    /**
+     * Recebe as operações de um lote já commitado, na ordem do commit.
+     */
+    public void publicar(List<Operacao> operacoes) {
+        for (Operacao operacao : operacoes) {
+            EventoLedger evento = EventoLedger.of(operacao);
+            // pendentes antes da fila: um evento retirado da fila por projetar() sempre já foi somado aqui.
+            pendentes.merge(evento.contaId(), evento.delta(), BigDecimal::add);
+            fila.add(evento);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bank.ledger.projecao-ms:1000}")
+    public void projetar() {
+        if (!ativo)
+            return;
+        lock.lock();
+        try {
+            EventoLedger evento;
+            while ((evento = fila.poll()) != null)
+                naoAplicados.add(evento);
+            if (naoAplicados.isEmpty())
+                return;
+
+            Projecao projecao = new Projecao(0);
+            naoAplicados.forEach(projecao::aplicar);
+            List<Conta> contas = transactionTemplate.execute(status -> {
+                gravar(projecao);
+                return contaRepository.findAllById(projecao.saldos.keySet());
+            });
+            naoAplicados.clear();
+            contas.forEach(cache::atualizar);
+            projecao.saldos.forEach((contaId, delta) -> pendentes.computeIfPresent(contaId, (id, pendente) -> {
+                BigDecimal restante = pendente.subtract(delta);
+                return restante.signum() == 0 ? null : restante;
+            }));
+        } catch (RuntimeException e) {
+            log.warn("Falha ao projetar {} eventos do ledger; nova tentativa na próxima execução", naoAplicados.size(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Saldo da conta no ledger: o saldo já projetado no banco mais os eventos commitados ainda não projetados.
+     * É a fonte do {@link SaldoEngine} para contas que ainda não estão em memória.
+     */
+    public Dinheiro saldo(Conta conta) {
+        lock.lock();
+        try {
+            Dinheiro projetado = contaRepository.findById(conta.getId()).map(Conta::getSaldo).orElse(conta.getSaldo());
+            return projetado.mais(Dinheiro.centavos(pendentes.getOrDefault(conta.getId(), ZERO)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Projecao lerParticao(long depoisDe, int particao) {
+        return leitura.execute(status -> {
+            Projecao projecao = new Projecao(depoisDe);
+            try (Stream<EventoLedger> eventos = operacaoRepository.streamLedger(depoisDe, particoes, particao)) {
+                eventos.forEach(projecao::aplicar);
+            }
+            return projecao;
+        });
+    }
+
+    private void gravar(Projecao projecao) {
+        projecao.saldos.forEach(contaRepository::somarSaldo);
+
+        if (!projecao.resumos.isEmpty()) {
+            LocalDate de = projecao.resumos.keySet().stream().map(ChaveResumo::dia).min(LocalDate::compareTo).orElseThrow();
+            LocalDate ate = projecao.resumos.keySet().stream().map(ChaveResumo::dia).max(LocalDate::compareTo).orElseThrow();
+            Map<ChaveResumo, ResumoDiario> existentes = resumoRepository.findAllDasContas(projecao.saldos.keySet(), de, ate).stream()
+                    .collect(Collectors.toMap(resumo -> new ChaveResumo(resumo.getConta().getId(), resumo.getDia()), Function.identity()));
+
+            List<ResumoDiario> alterados = new ArrayList<>(projecao.resumos.size());
+            projecao.resumos.forEach((chave, acumulado) -> {
+                ResumoDiario resumo = existentes.get(chave);
+                if (resumo == null) {
+                    resumo = ResumoDiario.builder()
+                            .conta(contaRepository.getReferenceById(chave.contaId()))
+                            .dia(chave.dia())
+                            .creditos(ZERO)
+                            .debitos(ZERO)
+                            .build();
+                }
+                resumo.setCreditos(resumo.getCreditos().add(acumulado.creditos));
+                resumo.setDebitos(resumo.getDebitos().add(acumulado.debitos));
+                resumo.setQuantidade(resumo.getQuantidade() + acumulado.quantidade);
+                alterados.add(resumo);
+            });
+            resumoRepository.saveAll(alterados);
+        }
+
+        projecaoRepository.save(ProjecaoLedger.builder()
+                .nome(PROJECAO)
+                .ultimaOperacao(projecao.ultimaOperacao)
+                .atualizadaEm(LocalDateTime.now())
+                .build());
+    }
+
+    private record ChaveResumo(Long contaId, LocalDate dia) {
+    }
+
+    private static final class Acumulado {
+        private BigDecimal creditos = ZERO;
+        private BigDecimal debitos = ZERO;
+        private long quantidade;
+
+        private void juntar(Acumulado outro) {
+            creditos = creditos.add(outro.creditos);
+            debitos = debitos.add(outro.debitos);
+            quantidade += outro.quantidade;
+        }
+    }
+
+    // Efeito de um conjunto de eventos nas projeções: delta de saldo por conta e totais por conta e dia.
+    private static final class Projecao {
+        private final Map<Long, BigDecimal> saldos = new HashMap<>();
+        private final Map<ChaveResumo, Acumulado> resumos = new HashMap<>();
+        private long ultimaOperacao;
+        private long eventos;
+
+        private Projecao(long ultimaOperacao) {
+            this.ultimaOperacao = ultimaOperacao;
+        }
+
+        private void aplicar(EventoLedger evento) {
+            saldos.merge(evento.contaId(), evento.delta(), BigDecimal::add);
+            Acumulado acumulado = resumos.computeIfAbsent(new ChaveResumo(evento.contaId(), evento.dia()), chave -> new Acumulado());
+            if (evento.delta().signum() < 0)
+                acumulado.debitos = acumulado.debitos.add(evento.valor());
+            else
+                acumulado.creditos = acumulado.creditos.add(evento.valor());
+            acumulado.quantidade++;
+            ultimaOperacao = Math.max(ultimaOperacao, evento.id());
+            eventos++;
+        }
+
+        private void juntar(Projecao outra) {
+            outra.saldos.forEach((contaId, delta) -> saldos.merge(contaId, delta, BigDecimal::add));
+            outra.resumos.forEach((chave, acumulado) -> resumos.computeIfAbsent(chave, c -> new Acumulado()).juntar(acumulado));
+            ultimaOperacao = Math.max(ultimaOperacao, outra.ultimaOperacao);
+            eventos += outra.eventos;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.bank.service;
+
+import com.bank.enums.OperacaoEnum;
+import com.bank.exception.BadRequestException;
+import com.bank.exception.ConflictException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Métricas dos caminhos quentes, expostas em {@code /actuator/prometheus}:
+ * <ul>
+ *     <li>{@value #OPERACAO}: cada método do {@link OperacaoService}, por método, tipo, resultado e exceção. Nas
+ *     operações que gravam, o tempo vai até o commit do group commit;</li>
+ *     <li>{@value #VALOR}: distribuição dos valores que passaram pelas validações, em reais, por tipo;</li>
+ *     <li>{@value #CONTA_BUSCA}: buscas de conta do {@link ContaService}, por chave e resultado;</li>
+ *     <li>{@value #WRITER_LOTE} e {@value #WRITER_PEDIDOS}: a transação de cada lote do {@link OperacaoWriter} e
+ *     quantos pedidos ela levou, ou seja, o tempo de banco das operações;</li>
+ *     <li>{@value #WRITER_CREDITOS_REJEITADOS}: créditos entre shards recusados pelo destino e estornados na conta do
+ *     débito;</li>
+ *     <li>{@value #WRITER_JOURNAL_REJEITADOS}: registros do journal, já confirmados ao cliente, que o banco recusou e
+ *     que foram para conciliação. Qualquer incremento pede alerta;</li>
+ *     <li>{@value #ERROS}: respostas de erro dos exception handlers, por exceção e status.</li>
+ * </ul>
+ * As contas quentes e as suas filas são medidas por {@link ContasQuentes}. Os repositórios são medidos pelo próprio Spring Boot ({@code spring.data.repository.invocations}) e a requisição
+ * inteira por {@code http.server.requests}; a diferença entre ela e {@value #OPERACAO} é validação e serialização.
+ *
+ * <p>Os histogramas de percentis são ligados por {@code management.metrics.distribution.*}: os buckets são
+ * agregados no Prometheus, sem calcular quantis no processo. Cada combinação de tags é resolvida uma vez e guardada,
+ * então uma medição não monta Meter.Id nem consulta o registry.</p>
+ */
+@Component
+public class Metricas {
+    public static final String OPERACAO = "bank.operacao";
+    public static final String VALOR = "bank.operacao.valor";
+    public static final String CONTA_BUSCA = "bank.conta.busca";
+    public static final String WRITER_LOTE = "bank.writer.lote";
+    public static final String WRITER_PEDIDOS = "bank.writer.lote.pedidos";
+    public static final String WRITER_CREDITOS_REJEITADOS = "bank.writer.creditos.rejeitados";
+    public static final String WRITER_JOURNAL_REJEITADOS = "bank.writer.journal.rejeitados";
+    public static final String ERROS = "bank.erros";
+    public static final String SUCESSO = "sucesso";
+    public static final String VALIDACAO = "validacao";
+    public static final String CONFLITO = "conflito";
+    public static final String ERRO = "erro";
+    private static final String NENHUMA = "nenhuma";
+    private final MeterRegistry registry;
+    private final Map<List<String>, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<OperacaoEnum, DistributionSummary> valores = new ConcurrentHashMap<>();
+    private final Map<List<String>, Counter> erros = new ConcurrentHashMap<>();
+    private final DistributionSummary pedidosPorLote;
+    private final Counter creditosRejeitados;
+    private final Counter journalRejeitados;
+
+    public Metricas(MeterRegistry registry) {
+        this.registry = registry;
+        this.pedidosPorLote = DistributionSummary.builder(WRITER_PEDIDOS).register(registry);
+        this.creditosRejeitados = registry.counter(WRITER_CREDITOS_REJEITADOS);
+        this.journalRejeitados = registry.counter(WRITER_JOURNAL_REJEITADOS);
+    }
+
+    public <T> T medir(String metodo, OperacaoEnum tipo, Supplier<T> chamada) {
+        long inicio = System.nanoTime();
+        try {
+            T resultado = chamada.get();
+            registrar(metodo, tipo, inicio, null);
+            return resultado;
+        } catch (RuntimeException e) {
+            registrar(metodo, tipo, inicio, e);
+            throw e;
+        }
+    }
+
+    public void medir(String metodo, OperacaoEnum tipo, Runnable chamada) {
+        medir(metodo, tipo, () -> {
+            chamada.run();
+            return null;
+        });
+    }
+
+    /**
+     * Mede uma operação que devolve a gravação: o tempo e o resultado são os do future, não os da chamada.
+     */
+    public <T> CompletableFuture<T> medirAssincrono(String metodo, OperacaoEnum tipo, Supplier<CompletableFuture<T>> chamada) {
+        long inicio = System.nanoTime();
+        CompletableFuture<T> gravacao;
+        try {
+            gravacao = chamada.get();
+        } catch (RuntimeException e) {
+            registrar(metodo, tipo, inicio, e);
+            throw e;
+        }
+        return gravacao.whenComplete((resultado, erro) -> registrar(metodo, tipo, inicio, erro));
+    }
+
+    public void valor(OperacaoEnum tipo, long centavos) {
+        valores.computeIfAbsent(tipo, chave -> DistributionSummary.builder(VALOR)
+                        .baseUnit("reais")
+                        .tag("tipo", chave.name())
+                        .register(registry))
+                .record(centavos / 100.0);
+    }
+
+    public <T> T buscarConta(String chave, Supplier<T> busca) {
+        long inicio = System.nanoTime();
+        String resultado = SUCESSO;
+        try {
+            return busca.get();
+        } catch (RuntimeException e) {
+            resultado = resultado(e);
+            throw e;
+        } finally {
+            timer(CONTA_BUSCA, "chave", chave, "resultado", resultado).record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void loteGravado(long nanos, int pedidos, boolean sucesso) {
+        timer(WRITER_LOTE, "resultado", sucesso ? SUCESSO : ERRO).record(nanos, TimeUnit.NANOSECONDS);
+        pedidosPorLote.record(pedidos);
+    }
+
+    public void creditoRejeitado() {
+        creditosRejeitados.increment();
+    }
+
+    public void journalRejeitado() {
+        journalRejeitados.increment();
+    }
+
+    public void erro(Throwable erro, int status) {
+        List<String> tags = List.of(erro.getClass().getSimpleName(), String.valueOf(status));
+        erros.computeIfAbsent(tags, chave -> Counter.builder(ERROS)
+                        .tag("excecao", chave.get(0))
+                        .tag("status", chave.get(1))
+                        .register(registry))
+                .increment();
+    }
+
+    private void registrar(String metodo, OperacaoEnum tipo, long inicio, Throwable erro) {
+        Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+        timer(OPERACAO,
+                "metodo", metodo,
+                "tipo", tipo.name(),
+                "resultado", causa == null ? SUCESSO : resultado(causa),
+                "excecao", causa == null ? NENHUMA : causa.getClass().getSimpleName())
+                .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(String nome, String... tags) {
+        List<String> chave = new ArrayList<>(tags.length + 1);
+        chave.add(nome);
+        Collections.addAll(chave, tags);
+        Timer timer = timers.get(chave);
+        if (timer == null)
+            timer = timers.computeIfAbsent(chave, ignorada -> Timer.builder(nome).tags(tags).register(registry));
+        return timer;
+    }
+
+    private static String resultado(Throwable erro) {
+        if (erro instanceof BadRequestException || erro instanceof IllegalArgumentException)
+            return VALIDACAO;
+        if (erro instanceof ConflictException || erro instanceof OptimisticLockingFailureException)
+            return CONFLITO;
+        return ERRO;
+    }
+}
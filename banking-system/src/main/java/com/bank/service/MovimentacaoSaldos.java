@@ -0,0 +1,168 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
+import com.bank.exception.BadRequestException;
+import com.bank.repository.ContaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Aplica os lançamentos de um lote do {@link OperacaoWriter} ao saldo das contas, dentro da transação (e no shard) de
+ * quem chama. Com o UPDATE condicional ({@code bank.writer.update-condicional}) o banco soma o movimento líquido de cada
+ * conta, {@value #CONTAS_POR_UPDATE} contas por comando, e recusa a linha cujo saldo sairia dos limites de Dinheiro
+ * mesmo que o saldo em memória esteja errado; nada é lido antes da escrita, então não há janela entre a leitura e o
+ * UPDATE nem conflito de versão a repetir, e as contas recusadas desfazem a transação com {@link SaldoRecusado}.
+ * O UPDATE que devolve as linhas é exclusivo do H2; nos outros bancos cada conta tem o seu UPDATE condicional num batch
+ * JDBC, seguido de um SELECT. Desligado, as contas são lidas, alteradas e regravadas com a versão otimista.
+ */
+@Slf4j
+@Component
+public class MovimentacaoSaldos {
+    // SQL nativo e JdbcTemplate, porque o HQL não soma em saldo (ver ContaRepository.somarSaldo). Só o H2 tem o
+    // FINAL TABLE, que devolve as linhas como ficaram depois do UPDATE: o saldo gravado chega ao cache sem outro SELECT,
+    // e a conta que não voltou é a que o banco recusou. %1$s é o CASE com o delta de cada conta e %2$s a lista de ids,
+    // ambos só com marcadores; ids e deltas vão como parâmetros.
+    private static final String MOVIMENTAR_SALDOS_H2 = "select id, identificador_conta, saldo, created_at, updated_at, version " +
+            "from final table (update conta set saldo = saldo + %1$s, version = version + 1, updated_at = current_timestamp " +
+            "where id in (%2$s) and saldo + %1$s between 0 and ?)";
+    // Nos outros bancos, um UPDATE condicional por conta num batch JDBC, que diz pela contagem qual conta foi recusada,
+    // e um SELECT das contas gravadas.
+    private static final String MOVIMENTAR_SALDO = "update conta set saldo = saldo + ?, version = version + 1, " +
+            "updated_at = current_timestamp where id = ? and saldo + ? between 0 and ?";
+    private static final String CONTAS_GRAVADAS = "select id, identificador_conta, saldo, created_at, updated_at, version " +
+            "from conta where id in (%s)";
+    // Contas por comando: limita a lista do IN e o número de parâmetros, que os drivers restringem.
+    static final int CONTAS_POR_UPDATE = 100;
+    private static final BigDecimal LIMITE_SALDO = BigDecimal.valueOf(Dinheiro.LIMITE_CENTAVOS, 2);
+    private static final RowMapper<Conta> CONTA_GRAVADA = (resultado, linha) -> Conta.builder()
+            .id(resultado.getLong("id"))
+            .identificadorConta(resultado.getString("identificador_conta"))
+            .saldo(Dinheiro.of(resultado.getBigDecimal("saldo")))
+            .createdAt(resultado.getObject("created_at", LocalDateTime.class))
+            .updatedAt(resultado.getObject("updated_at", LocalDateTime.class))
+            .version(resultado.getLong("version"))
+            .build();
+    private final ContaRepository contaRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean updateCondicional;
+    // Decidido no primeiro movimento, pelo banco do DataSource: o UPDATE com FINAL TABLE só roda no H2.
+    private volatile Boolean finalTable;
+
+    public MovimentacaoSaldos(ContaRepository contaRepository,
+                              JdbcTemplate jdbcTemplate,
+                              @Value("${bank.writer.update-condicional:true}") boolean updateCondicional) {
+        this.contaRepository = contaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.updateCondicional = updateCondicional;
+    }
+
+    // Aplica os lançamentos e devolve as contas, já com o saldo gravado, por id.
+    Map<Long, Conta> movimentar(Collection<Lancamento> lancamentos) {
+        if (!updateCondicional) {
+            Map<Long, Conta> contas = carregarContas(lancamentos);
+            lancamentos.forEach(lancamento -> movimentar(contas, lancamento));
+            return contas;
+        }
+        if (lancamentos.isEmpty())
+            return Map.of();
+        Map<Long, Long> deltas = new LinkedHashMap<>();
+        lancamentos.forEach(lancamento -> deltas.merge(lancamento.getContaId(), lancamento.getDelta(), Long::sum));
+        boolean comFinalTable = finalTable();
+        Map<Long, Conta> contas = new HashMap<>();
+        List<Map.Entry<Long, Long>> movimentos = List.copyOf(deltas.entrySet());
+        for (int inicio = 0; inicio < movimentos.size(); inicio += CONTAS_POR_UPDATE) {
+            List<Map.Entry<Long, Long>> parte = movimentos.subList(inicio, Math.min(inicio + CONTAS_POR_UPDATE, movimentos.size()));
+            (comFinalTable ? movimentarComFinalTable(parte) : movimentarEmBatch(parte))
+                    .forEach(conta -> contas.put(conta.getId(), conta));
+        }
+        if (contas.size() < deltas.size())
+            throw new SaldoRecusado(deltas.keySet().stream().filter(id -> !contas.containsKey(id)).collect(Collectors.toSet()));
+        return contas;
+    }
+
+    // A conta da Operacao: com o UPDATE condicional, uma referência que não vai ao banco; sem ele, a entidade já lida.
+    Conta referencia(Map<Long, Conta> contas, Lancamento lancamento) {
+        return updateCondicional ? contaRepository.getReferenceById(lancamento.getContaId()) : contas.get(lancamento.getContaId());
+    }
+
+    private boolean finalTable() {
+        if (finalTable == null) {
+            finalTable = "H2".equals(jdbcTemplate.execute(
+                    (ConnectionCallback<String>) conexao -> conexao.getMetaData().getDatabaseProductName()));
+            if (!finalTable)
+                log.info("UPDATE condicional em batch JDBC: o banco não tem o FINAL TABLE do H2");
+        }
+        return finalTable;
+    }
+
+    private List<Conta> movimentarComFinalTable(List<Map.Entry<Long, Long>> movimentos) {
+        List<Object> casos = new ArrayList<>();
+        movimentos.forEach(movimento -> {
+            casos.add(movimento.getKey());
+            casos.add(BigDecimal.valueOf(movimento.getValue(), 2));
+        });
+        List<Object> parametros = new ArrayList<>(casos);
+        movimentos.forEach(movimento -> parametros.add(movimento.getKey()));
+        parametros.addAll(casos);
+        parametros.add(LIMITE_SALDO);
+        String sql = MOVIMENTAR_SALDOS_H2.formatted(
+                "case id" + " when ? then cast(? as decimal(12,2))".repeat(movimentos.size()) + " end",
+                marcadores(movimentos.size()));
+        return jdbcTemplate.query(sql, CONTA_GRAVADA, parametros.toArray());
+    }
+
+    // Uma contagem zero é a conta recusada; SUCCESS_NO_INFO, de drivers que não contam linhas num batch, vale como gravada.
+    private List<Conta> movimentarEmBatch(List<Map.Entry<Long, Long>> movimentos) {
+        List<Object[]> parametros = movimentos.stream().map(movimento -> {
+            BigDecimal delta = BigDecimal.valueOf(movimento.getValue(), 2);
+            return new Object[]{delta, movimento.getKey(), delta, LIMITE_SALDO};
+        }).toList();
+        int[] contagens = jdbcTemplate.batchUpdate(MOVIMENTAR_SALDO, parametros);
+        List<Long> gravadas = new ArrayList<>();
+        for (int i = 0; i < contagens.length; i++) {
+            if (contagens[i] != 0)
+                gravadas.add(movimentos.get(i).getKey());
+        }
+        if (gravadas.isEmpty())
+            return List.of();
+        return jdbcTemplate.query(CONTAS_GRAVADAS.formatted(marcadores(gravadas.size())), CONTA_GRAVADA, gravadas.toArray());
+    }
+
+    private static String marcadores(int quantidade) {
+        return String.join(", ", Collections.nCopies(quantidade, "?"));
+    }
+
+    private Map<Long, Conta> carregarContas(Collection<Lancamento> lancamentos) {
+        List<Long> ids = lancamentos.stream()
+                .map(Lancamento::getContaId)
+                .distinct()
+                .toList();
+        return contaRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Conta::getId, Function.identity()));
+    }
+
+    private static Conta movimentar(Map<Long, Conta> contas, Lancamento lancamento) {
+        Conta conta = contas.get(lancamento.getContaId());
+        if (conta == null)
+            throw new BadRequestException("Not Found id " + lancamento.getContaId());
+        conta.setSaldo(conta.getSaldo().mais(lancamento.getDelta()));
+        return conta;
+    }
+}
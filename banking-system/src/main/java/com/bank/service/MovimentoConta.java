@@ -0,0 +1,9 @@
+package com.bank.service;
+
+import java.math.BigDecimal;
+
+/**
+ * O movimento líquido de uma conta num intervalo, somado pelo banco numa consulta agrupada por conta.
+ */
+public record MovimentoConta(Long contaId, BigDecimal movimento) {
+}
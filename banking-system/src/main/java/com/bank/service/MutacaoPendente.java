@@ -0,0 +1,14 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Operação de uma conta quente à espera na fila de {@link ContasQuentes}: a conta do chamador, a mutação a aplicar
+ * sobre o saldo da conta (que devolve o lançamento ou lança o erro de validação) e a gravação, que completa quando o
+ * lançamento foi commitado.
+ */
+public record MutacaoPendente(Conta conta, Function<Conta, Lancamento> mutacao, CompletableFuture<Void> gravacao) {
+}
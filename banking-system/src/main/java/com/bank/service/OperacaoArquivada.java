@@ -0,0 +1,44 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import com.bank.domain.Operacao;
+import com.bank.enums.NaturezaEnum;
+import com.bank.enums.OperacaoEnum;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Uma linha de Operacao como fica guardada nos segmentos do {@link ArquivoOperacoes}.
+ */
+public record OperacaoArquivada(Long id, Long contaId, OperacaoEnum tipo, NaturezaEnum natureza, BigDecimal valor,
+                                LocalDateTime createdAt, Long journalSeq) {
+
+    public static OperacaoArquivada of(Operacao operacao) {
+        return new OperacaoArquivada(operacao.getId(), operacao.getConta().getId(), operacao.getTipo(),
+                operacao.getNatureza(), operacao.getValor(), operacao.getCreatedAt(), operacao.getJournalSeq());
+    }
+
+    public BigDecimal delta() {
+        return natureza == NaturezaEnum.DEBITO ? valor.negate() : valor;
+    }
+
+    /**
+     * Ordem do extrato: (createdAt, id).
+     */
+    public boolean antesDe(LocalDateTime outroCreatedAt, long outroId) {
+        return createdAt.isBefore(outroCreatedAt) || createdAt.equals(outroCreatedAt) && id < outroId;
+    }
+
+    public Operacao paraOperacao(Conta conta) {
+        return Operacao.builder()
+                .id(id)
+                .tipo(tipo)
+                .natureza(natureza)
+                .valor(valor)
+                .createdAt(createdAt)
+                .updatedAt(createdAt)
+                .conta(conta)
+                .build();
+    }
+}
@@ -0,0 +1,28 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import com.bank.domain.Operacao;
+import com.bank.enums.NaturezaEnum;
+import com.bank.enums.OperacaoEnum;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Uma linha de Operacao como o extrato a lê do banco, sem a conta e sem passar pelo contexto de persistência.
+ */
+public record OperacaoExtrato(Long id, OperacaoEnum tipo, NaturezaEnum natureza, BigDecimal valor,
+                              LocalDateTime createdAt, LocalDateTime updatedAt) {
+
+    public Operacao paraOperacao(Conta conta) {
+        return Operacao.builder()
+                .id(id)
+                .tipo(tipo)
+                .natureza(natureza)
+                .valor(valor)
+                .createdAt(createdAt)
+                .updatedAt(updatedAt)
+                .conta(conta)
+                .build();
+    }
+}
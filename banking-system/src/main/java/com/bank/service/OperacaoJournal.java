@@ -0,0 +1,349 @@
+package com.bank.service;
+
+import com.bank.enums.NaturezaEnum;
+import com.bank.enums.OperacaoEnum;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Write-ahead log local das operações ({@code bank.journal.ativo=true}).
+ *
+ * <p>Cada pedido do {@link OperacaoWriter} vira um registro binário num segmento de tamanho fixo
+ * ({@code bank.journal.tamanho-segmento-mb}) mapeado em memória: sequência, instante e, por lançamento, conta,
+ * {@link OperacaoEnum}, natureza e valor em centavos. Uma thread força os segmentos para o disco a cada
+ * {@code bank.journal.fsync-micros} e só então confirma todos os registros escritos até ali (fsync em grupo).
+ * Registros sem CRC válido marcam o fim do segmento, o que descarta uma escrita interrompida no meio.
+ * Segmentos cujos registros já foram commitados nas tabelas são apagados em {@link #confirmar(long)}.
+ * O estado é protegido por um {@link ReentrantLock}, e não por {@code synchronized}, porque {@link #registrar}
+ * roda na thread da requisição e pode forçar um segmento cheio para o disco; com threads virtuais um monitor
+ * prenderia a thread de plataforma durante esse I/O.</p>
+ */
+@Slf4j
+@Component
+public class OperacaoJournal {
+    static final String EXTENSAO = ".journal";
+    private static final int MAGICO = 0x4A524E4C;
+    private static final int CABECALHO_SEGMENTO = 16;
+    // tamanho, sequência, instante, quantidade ... crc
+    private static final int CABECALHO_REGISTRO = Integer.BYTES + Long.BYTES + Long.BYTES + Short.BYTES;
+    private static final int TAMANHO_LANCAMENTO = Long.BYTES + Byte.BYTES + Byte.BYTES + Long.BYTES;
+    private static final OperacaoEnum[] TIPOS = OperacaoEnum.values();
+
+    private final boolean ativo;
+    private final Path diretorio;
+    private final int tamanhoSegmento;
+    private final long intervaloNanos;
+    private final Deque<Segmento> segmentos = new ArrayDeque<>();
+    private final Deque<Espera> esperas = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Thread sincronizador = new Thread(this::sincronizar, "operacao-journal-fsync");
+    private List<Registro> recuperados = List.of();
+    private Segmento atual;
+    private long ultimaSequencia;
+    private volatile long duravel;
+    private volatile boolean aberto;
+
+    @Autowired
+    public OperacaoJournal(@Value("${bank.journal.ativo:false}") boolean ativo,
+                           @Value("${bank.journal.diretorio:journal}") String diretorio,
+                           @Value("${bank.journal.tamanho-segmento-mb:64}") int tamanhoSegmentoMb,
+                           @Value("${bank.journal.fsync-micros:200}") long fsyncMicros) {
+        this(ativo, Path.of(diretorio), tamanhoSegmentoMb * 1024 * 1024, fsyncMicros);
+    }
+
+    OperacaoJournal(boolean ativo, Path diretorio, int tamanhoSegmento, long fsyncMicros) {
+        this.ativo = ativo;
+        this.diretorio = diretorio;
+        this.tamanhoSegmento = tamanhoSegmento;
+        this.intervaloNanos = TimeUnit.MICROSECONDS.toNanos(fsyncMicros);
+    }
+
+    public boolean isAtivo() {
+        return ativo;
+    }
+
+    /**
+     * Lê os segmentos existentes, guarda os registros para {@link #recuperar(long)} e abre um segmento novo.
+     */
+    @PostConstruct
+    public void abrir() {
+        if (!ativo)
+            return;
+        lock.lock();
+        try {
+            Files.createDirectories(diretorio);
+            List<Registro> lidos = new ArrayList<>();
+            long ultimoNumero = 0;
+            try (Stream<Path> arquivos = Files.list(diretorio)) {
+                for (Path arquivo : arquivos.filter(a -> a.toString().endsWith(EXTENSAO)).sorted().toList()) {
+                    Segmento segmento = ler(arquivo, lidos);
+                    segmentos.addLast(segmento);
+                    ultimoNumero = Math.max(ultimoNumero, segmento.numero);
+                }
+            }
+            recuperados = lidos;
+            ultimaSequencia = lidos.stream().mapToLong(Registro::sequencia).max().orElse(0);
+            duravel = ultimaSequencia;
+            atual = criar(ultimoNumero + 1);
+            segmentos.addLast(atual);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+        aberto = true;
+        sincronizador.setDaemon(true);
+        sincronizador.start();
+    }
+
+    /**
+     * Registros lidos na abertura com sequência maior que {@code confirmada}, na ordem em que foram escritos.
+     */
+    public List<Registro> recuperar(long confirmada) {
+        lock.lock();
+        try {
+            List<Registro> pendentes = recuperados.stream().filter(registro -> registro.sequencia() > confirmada).toList();
+            recuperados = List.of();
+            return pendentes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Escreve o pedido no segmento atual. {@code aposRegistro} recebe a sequência ainda sob o lock do journal, então
+     * quem enfileira ali enfileira na ordem das sequências. O future é completado quando o registro está no disco.
+     */
+    public CompletableFuture<Void> registrar(List<Lancamento> lancamentos, LongConsumer aposRegistro) {
+        int tamanho = CABECALHO_REGISTRO + lancamentos.size() * TAMANHO_LANCAMENTO + Integer.BYTES;
+        if (tamanho > tamanhoSegmento - CABECALHO_SEGMENTO)
+            throw new IllegalArgumentException("Pedido maior que um segmento do journal");
+        CompletableFuture<Void> duravelFuture = new CompletableFuture<>();
+        lock.lock();
+        try {
+            if (!aberto)
+                throw new IllegalStateException("Journal de operações fechado");
+            if (atual.buffer.remaining() < tamanho)
+                rotacionar();
+            long sequencia = ++ultimaSequencia;
+            escrever(atual.buffer, sequencia, lancamentos);
+            atual.ultimaSequencia = sequencia;
+            esperas.addLast(new Espera(sequencia, duravelFuture));
+            aposRegistro.accept(sequencia);
+        } finally {
+            lock.unlock();
+        }
+        return duravelFuture;
+    }
+
+    /**
+     * Os registros até {@code sequencia} já estão nas tabelas: apaga os segmentos antigos que só contêm esses registros.
+     */
+    public void confirmar(long sequencia) {
+        List<Segmento> apagar = new ArrayList<>();
+        lock.lock();
+        try {
+            while (segmentos.size() > 1 && segmentos.peekFirst().ultimaSequencia <= sequencia)
+                apagar.add(segmentos.pollFirst());
+        } finally {
+            lock.unlock();
+        }
+        for (Segmento segmento : apagar) {
+            try {
+                Files.deleteIfExists(segmento.arquivo);
+            } catch (IOException e) {
+                log.warn("Não foi possível apagar o segmento {} do journal", segmento.arquivo, e);
+            }
+        }
+    }
+
+    @PreDestroy
+    void fechar() throws InterruptedException {
+        if (!ativo)
+            return;
+        aberto = false;
+        sincronizador.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    private void sincronizar() {
+        while (aberto || duravel < ultimaSequenciaEscrita()) {
+            LockSupport.parkNanos(intervaloNanos);
+            long alvo;
+            MappedByteBuffer buffer;
+            lock.lock();
+            try {
+                alvo = ultimaSequencia;
+                buffer = atual.buffer;
+            } finally {
+                lock.unlock();
+            }
+            if (alvo == duravel)
+                continue;
+            RuntimeException falha = null;
+            try {
+                buffer.force();
+                duravel = alvo;
+            } catch (RuntimeException e) {
+                log.error("Falha ao forçar o journal de operações para o disco", e);
+                falha = e;
+            }
+            for (Espera espera : retirarEsperas(alvo)) {
+                if (falha == null)
+                    espera.future().complete(null);
+                else
+                    espera.future().completeExceptionally(falha);
+            }
+        }
+    }
+
+    private long ultimaSequenciaEscrita() {
+        lock.lock();
+        try {
+            return ultimaSequencia;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<Espera> retirarEsperas(long ate) {
+        lock.lock();
+        try {
+            List<Espera> prontas = new ArrayList<>();
+            while (!esperas.isEmpty() && esperas.peekFirst().sequencia() <= ate)
+                prontas.add(esperas.pollFirst());
+            return prontas;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Chamado com o lock: o segmento cheio é forçado aqui, então o sincronizador só precisa cuidar do segmento atual.
+    private void rotacionar() {
+        atual.buffer.force();
+        try {
+            atual = criar(atual.numero + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segmentos.addLast(atual);
+    }
+
+    private Segmento criar(long numero) throws IOException {
+        Path arquivo = diretorio.resolve(String.format("%020d%s", numero, EXTENSAO));
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanhoSegmento);
+            buffer.putInt(MAGICO).putInt(1).putLong(numero);
+            return new Segmento(numero, arquivo, buffer);
+        }
+    }
+
+    private Segmento ler(Path arquivo, List<Registro> registros) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            if (buffer.remaining() < CABECALHO_SEGMENTO || buffer.getInt() != MAGICO)
+                throw new IllegalStateException("Segmento de journal inválido: " + arquivo);
+            buffer.getInt();
+            Segmento segmento = new Segmento(buffer.getLong(), arquivo, null);
+            Registro registro;
+            while ((registro = lerRegistro(buffer)) != null) {
+                registros.add(registro);
+                segmento.ultimaSequencia = registro.sequencia();
+            }
+            return segmento;
+        }
+    }
+
+    private static void escrever(ByteBuffer buffer, long sequencia, List<Lancamento> lancamentos) {
+        int inicio = buffer.position();
+        buffer.putInt(0);
+        buffer.putLong(sequencia);
+        buffer.putLong(System.currentTimeMillis());
+        buffer.putShort((short) lancamentos.size());
+        for (Lancamento lancamento : lancamentos) {
+            buffer.putLong(lancamento.getContaId());
+            // O ordinal é o formato em disco: novos tipos só podem ser acrescentados ao fim de OperacaoEnum.
+            buffer.put((byte) lancamento.getTipo().ordinal());
+            buffer.put((byte) (lancamento.getDelta() < 0 ? NaturezaEnum.DEBITO : NaturezaEnum.CREDITO).ordinal());
+            buffer.putLong(lancamento.getValor());
+        }
+        int fim = buffer.position();
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(inicio + Integer.BYTES, fim - inicio - Integer.BYTES));
+        buffer.putInt((int) crc.getValue());
+        // O tamanho vai por último: até aqui, um leitor enxerga 0 e trata o registro como fim do segmento.
+        buffer.putInt(inicio, fim - inicio - Integer.BYTES);
+    }
+
+    private static Registro lerRegistro(ByteBuffer buffer) {
+        if (buffer.remaining() < Integer.BYTES)
+            return null;
+        int inicio = buffer.position();
+        int tamanho = buffer.getInt();
+        if (tamanho < CABECALHO_REGISTRO - Integer.BYTES || tamanho + Integer.BYTES > buffer.remaining())
+            return null;
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(inicio + Integer.BYTES, tamanho));
+        if ((int) crc.getValue() != buffer.getInt(inicio + Integer.BYTES + tamanho))
+            return null;
+
+        long sequencia = buffer.getLong();
+        long instante = buffer.getLong();
+        int quantidade = buffer.getShort();
+        List<Lancamento> lancamentos = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            long contaId = buffer.getLong();
+            OperacaoEnum tipo = TIPOS[buffer.get()];
+            boolean debito = buffer.get() == NaturezaEnum.DEBITO.ordinal();
+            long valor = buffer.getLong();
+            lancamentos.add(Lancamento.builder().contaId(contaId).tipo(tipo).valor(valor).delta(debito ? -valor : valor).build());
+        }
+        buffer.position(inicio + Integer.BYTES + tamanho + Integer.BYTES);
+        return new Registro(sequencia, instante, lancamentos);
+    }
+
+    /**
+     * Um pedido lido do journal. {@code instante} é o epoch em milissegundos do momento do registro.
+     */
+    public record Registro(long sequencia, long instante, List<Lancamento> lancamentos) {
+    }
+
+    private record Espera(long sequencia, CompletableFuture<Void> future) {
+    }
+
+    private static final class Segmento {
+        private final long numero;
+        private final Path arquivo;
+        private final MappedByteBuffer buffer;
+        private long ultimaSequencia;
+
+        private Segmento(long numero, Path arquivo, MappedByteBuffer buffer) {
+            this.numero = numero;
+            this.arquivo = arquivo;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -1,18 +1,39 @@
 package com.bank.service;
 
 import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
 import com.bank.domain.Operacao;
+import com.bank.domain.ResumoDiario;
+import com.bank.enums.OperacaoEnum;
 import com.bank.exception.BadRequestException;
 import com.bank.repository.OperacaoRepository;
+import com.bank.repository.ResumoDiarioRepository;
 import com.bank.request.OperacaoRequest;
 import com.bank.request.TransferenciaRequest;
+import com.bank.response.ExtratoLinha;
+import com.bank.response.ExtratoPagina;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static com.bank.enums.OperacaoEnum.DEPOSITO;
+import static com.bank.enums.OperacaoEnum.EXTRATO;
+import static com.bank.enums.OperacaoEnum.SALDO;
 import static com.bank.enums.OperacaoEnum.SAQUE;
 import static com.bank.enums.OperacaoEnum.TRANSFERENCIA;
 
@@ -24,87 +45,406 @@ public class OperacaoService {
     public static final String VALOR_SAQUE_EXCEDIDO = "O valor solicitado para saque excede o saldo disponível na conta. Saldo atual: R$ ";
     public static final String O_VALOR_DA_TRANSFERENCIA_DEVE_SER_MAIOR_QUE_ZERO = "O valor da transferência deve ser maior que zero";
     public static final String VALOR_TRANSFERENCIA_EXCEDIDO = "O valor solicitado para transferência excede o saldo disponível na conta de origem. Saldo atual: R$ ";
+    public static final String CONTAS_IGUAIS = "As contas de origem e destino não podem ser iguais";
+    public static final String RESUMO_DIARIO_INDISPONIVEL = "O resumo diário só está disponível com bank.ledger.event-sourced=true";
+    public static final int LIMITE_MAXIMO_EXTRATO = 500;
+    private static final LocalDateTime FIM_EXTRATO = LocalDateTime.of(9999, 12, 31, 0, 0);
     private final OperacaoRepository repository;
     private final ContaService service;
+    private final SaldoEngine engine;
+    private final OperacaoWriter writer;
+    private final SaldoHistoricoService historico;
+    private final LedgerProjetor projetor;
+    private final ResumoDiarioRepository resumoDiarioRepository;
+    private final Metricas metricas;
+    private final ContasQuentes contasQuentes;
+    private final ConsistenciaLeitura consistencia;
+    private final Shards shards;
+    private final ArquivoOperacoes arquivo;
 
-    public BigDecimal saldo(String identificador) {
-        return service.findByIdentificadorContaOrThrowBadRequestException(identificador).getSaldo();
+    public Dinheiro saldo(String identificador) {
+        return metricas.medir("saldo", SALDO,
+                () -> engine.saldo(service.findByIdentificadorContaOrThrowBadRequestException(identificador)));
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal saldoEm(String identificador, LocalDateTime instante) {
+        return metricas.medir("saldoEm", SALDO, () -> consistencia.ler(identificador,
+                () -> historico.saldoEm(service.findByIdentificadorContaOrThrowBadRequestException(identificador), instante)));
     }
 
     public Conta deposito(OperacaoRequest request) {
-        Conta conta = service.findByIdentificadorContaOrThrowBadRequestException(request.getIdentificador());
+        return aguardar(depositoAssincrono(request));
+    }
 
-        if (request.getValor().compareTo(BigDecimal.ZERO) <= 0)
-            throw new IllegalArgumentException("O valor do depósito deve ser maior que zero");
+    /**
+     * Valida e aplica o depósito no motor de saldos e devolve sem esperar o group commit; o future completa com a
+     * conta quando a operação está gravada. Erros de validação são lançados na chamada, ou pelo future quando a conta
+     * está quente e a operação passa pela fila de {@link ContasQuentes}.
+     */
+    public CompletableFuture<Conta> depositoAssincrono(OperacaoRequest request) {
+        return metricas.medirAssincrono("deposito", DEPOSITO, () -> depositar(request));
+    }
 
-        conta.setSaldo(conta.getSaldo().add(request.getValor()));
+    private CompletableFuture<Conta> depositar(OperacaoRequest request) {
+        Conta conta = service.findByIdentificadorContaOrThrowBadRequestException(request.getIdentificador());
+        long valor = centavos(request.getValor());
+
+        CompletableFuture<Void> gravacao = aplicar(conta, alvo -> {
+            if (valor <= 0)
+                throw new IllegalArgumentException("O valor do depósito deve ser maior que zero");
 
-        repository.save(
-                Operacao.builder()
-                        .tipo(DEPOSITO)
-                        .valor(request.getValor())
-                        .conta(conta)
-                        .build()
-        );
+            creditar(alvo, valor);
+            metricas.valor(DEPOSITO, valor);
 
-        return conta;
+            return lancamento(alvo, DEPOSITO, valor, valor);
+        });
+        return concluir(gravacao, conta).thenApply(gravada -> conta);
     }
 
     public Conta saque(OperacaoRequest request) {
+        return aguardar(saqueAssincrono(request));
+    }
+
+    public CompletableFuture<Conta> saqueAssincrono(OperacaoRequest request) {
+        return metricas.medirAssincrono("saque", SAQUE, () -> sacar(request));
+    }
+
+    private CompletableFuture<Conta> sacar(OperacaoRequest request) {
         Conta conta = service.findByIdentificadorContaOrThrowBadRequestException(request.getIdentificador());
+        long valor = centavos(request.getValor());
 
-        validarOperacao(request.getValor(), conta, O_VALOR_DO_SAQUE_DEVE_SER_MAIOR_QUE_ZERO, VALOR_SAQUE_EXCEDIDO);
+        CompletableFuture<Void> gravacao = aplicar(conta, alvo -> {
+            validarOperacao(valor, alvo, O_VALOR_DO_SAQUE_DEVE_SER_MAIOR_QUE_ZERO, VALOR_SAQUE_EXCEDIDO);
 
-        conta.setSaldo(conta.getSaldo().subtract(request.getValor()));
-        repository.save(
-                Operacao.builder()
-                        .tipo(SAQUE)
-                        .valor(request.getValor())
-                        .conta(conta)
-                        .build()
-        );
+            alvo.setSaldo(alvo.getSaldo().menos(valor));
+            metricas.valor(SAQUE, valor);
 
-        return conta;
+            return lancamento(alvo, SAQUE, valor, -valor);
+        });
+        return concluir(gravacao, conta).thenApply(gravada -> conta);
     }
 
+    @Transactional(readOnly = true)
     public List<Operacao> extrato(String identificador) {
+        return metricas.medir("extrato", EXTRATO, () -> consistencia.ler(identificador, () -> {
+            Conta conta = service.findByIdentificadorContaOrThrowBadRequestException(identificador);
+            List<Operacao> operacoes = new ArrayList<>(arquivo.operacoes(conta, SaldoHistoricoService.INICIO, FIM_EXTRATO));
+            repository.findExtrato(conta).forEach(operacao -> operacoes.add(operacao.paraOperacao(conta)));
+            return operacoes;
+        }));
+    }
+
+    @Transactional(readOnly = true)
+    public ExtratoPagina extrato(String identificador, String cursor, int limite, LocalDate de, LocalDate ate) {
+        return metricas.medir("extratoPagina", EXTRATO,
+                () -> consistencia.ler(identificador, () -> paginaExtrato(identificador, cursor, limite, de, ate)));
+    }
+
+    private ExtratoPagina paginaExtrato(String identificador, String cursor, int limite, LocalDate de, LocalDate ate) {
+        Conta conta = service.findByIdentificadorContaOrThrowBadRequestException(identificador);
+        LocalDateTime inicio = inicio(de);
+        ExtratoCursor posicao = cursor == null ? ExtratoCursor.inicio(inicio) : ExtratoCursor.decodificar(cursor);
+        int tamanho = Math.max(1, Math.min(limite, LIMITE_MAXIMO_EXTRATO));
+
+        // As operações arquivadas de uma conta vêm antes das da tabela (ver ArquivadorOperacoes).
+        List<Operacao> operacoes = new ArrayList<>(arquivo.pagina(conta, inicio, fim(ate), posicao.createdAt(), posicao.id(), tamanho));
+        if (operacoes.size() < tamanho)
+            repository.findPaginaExtrato(conta, inicio, fim(ate), posicao.createdAt(), posicao.id(), PageRequest.of(0, tamanho - operacoes.size()))
+                    .forEach(operacao -> operacoes.add(operacao.paraOperacao(conta)));
+
+        List<ExtratoLinha> linhas = new ArrayList<>(operacoes.size());
+        if (!operacoes.isEmpty()) {
+            BigDecimal saldo = historico.saldoAntes(conta, operacoes.get(0));
+            for (Operacao operacao : operacoes) {
+                saldo = saldo.add(operacao.getValorComSinal());
+                linhas.add(ExtratoLinha.of(operacao, saldo));
+            }
+        }
+
+        String proximoCursor = operacoes.size() < tamanho ? null : ExtratoCursor.depoisDe(operacoes.get(operacoes.size() - 1)).codificar();
+        return ExtratoPagina.builder().operacoes(linhas).proximoCursor(proximoCursor).build();
+    }
+
+    @Transactional(readOnly = true)
+    public void extrato(String identificador, LocalDate de, LocalDate ate, Consumer<ExtratoLinha> consumidor) {
+        metricas.medir("extratoStream", EXTRATO,
+                () -> consistencia.ler(identificador, () -> percorrerExtrato(identificador, de, ate, consumidor)));
+    }
+
+    private void percorrerExtrato(String identificador, LocalDate de, LocalDate ate, Consumer<ExtratoLinha> consumidor) {
         Conta conta = service.findByIdentificadorContaOrThrowBadRequestException(identificador);
-        return repository.findAllByConta(conta);
+        BigDecimal saldo = historico.saldoEm(conta, inicio(de));
+        for (Operacao operacao : arquivo.operacoes(conta, inicio(de), fim(ate))) {
+            saldo = saldo.add(operacao.getValorComSinal());
+            consumidor.accept(ExtratoLinha.of(operacao, saldo));
+        }
+        try (Stream<OperacaoExtrato> operacoes = repository.streamExtrato(conta, inicio(de), fim(ate))) {
+            Iterator<OperacaoExtrato> iterator = operacoes.iterator();
+            while (iterator.hasNext()) {
+                Operacao operacao = iterator.next().paraOperacao(conta);
+                saldo = saldo.add(operacao.getValorComSinal());
+                consumidor.accept(ExtratoLinha.of(operacao, saldo));
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<ResumoDiario> resumoDiario(String identificador, LocalDate de, LocalDate ate) {
+        return metricas.medir("resumoDiario", EXTRATO, () -> {
+            if (!projetor.isAtivo())
+                throw new BadRequestException(RESUMO_DIARIO_INDISPONIVEL);
+            return consistencia.ler(identificador, () -> {
+                Conta conta = service.findByIdentificadorContaOrThrowBadRequestException(identificador);
+                return resumoDiarioRepository.findAllByContaAndDiaBetweenOrderByDia(conta, inicio(de).toLocalDate(), fim(ate).toLocalDate().minusDays(1));
+            });
+        });
     }
 
     public void transferencia(TransferenciaRequest request) {
+        aguardar(transferenciaAssincrona(request));
+    }
+
+    public CompletableFuture<Void> transferenciaAssincrona(TransferenciaRequest request) {
+        return metricas.medirAssincrono("transferencia", TRANSFERENCIA, () -> transferir(request));
+    }
+
+    private CompletableFuture<Void> transferir(TransferenciaRequest request) {
         Conta origem = service.findByIdentificadorContaOrThrowBadRequestException(request.getOrigem());
         Conta destino = service.findByIdentificadorContaOrThrowBadRequestException(request.getDestino());
 
         if (origem.equals(destino))
-            throw new BadRequestException("As contas de origem e destino não podem ser iguais");
-
-        validarOperacao(request.getValor(), origem, O_VALOR_DA_TRANSFERENCIA_DEVE_SER_MAIOR_QUE_ZERO, VALOR_TRANSFERENCIA_EXCEDIDO);
-
-        origem.setSaldo(origem.getSaldo().subtract(request.getValor()));
-        destino.setSaldo(destino.getSaldo().add(request.getValor()));
-
-        repository.save(
-                Operacao.builder()
-                        .tipo(TRANSFERENCIA)
-                        .valor(request.getValor())
-                        .conta(origem)
-                        .build()
-        );
-        repository.save(
-                Operacao.builder()
-                        .tipo(TRANSFERENCIA)
-                        .valor(request.getValor())
-                        .conta(destino)
-                        .build()
-        );
-    }
-
-    private static void validarOperacao(BigDecimal valor, Conta conta, String mensagemValorZero, String mensagemSaldoInsuficiente) {
-        if (valor.compareTo(BigDecimal.ZERO) <= 0)
+            throw new BadRequestException(CONTAS_IGUAIS);
+        long valor = centavos(request.getValor());
+        // Transferências só alimentam a detecção: o lote de transferências conta com o saldo já aplicado quando a
+        // chamada retorna, então elas seguem o caminho direto com os locks das duas contas.
+        contasQuentes.registrar(origem);
+        contasQuentes.registrar(destino);
+
+        CompletableFuture<Void> gravacao = engine.executar(origem, destino, () -> {
+            validarOperacao(valor, origem, O_VALOR_DA_TRANSFERENCIA_DEVE_SER_MAIOR_QUE_ZERO, VALOR_TRANSFERENCIA_EXCEDIDO);
+
+            creditar(destino, valor);
+            origem.setSaldo(origem.getSaldo().menos(valor));
+            metricas.valor(TRANSFERENCIA, valor);
+
+            return gravar(List.of(
+                    lancamento(origem, TRANSFERENCIA, valor, -valor),
+                    lancamento(destino, TRANSFERENCIA, valor, valor)
+            ), origem, destino);
+        });
+        return concluir(gravacao, origem, destino);
+    }
+
+    /**
+     * Liquida um lote de transferências pelo saldo líquido de cada conta (netting). Cada linha passa pelas mesmas
+     * validações da transferência avulsa, mas o saldo insuficiente é verificado sobre a posição líquida da conta no
+     * lote, com todas as contas travadas juntas no motor de saldos: idas e voltas entre as mesmas contas se anulam.
+     * As pernas aceitas vão ao writer num único pedido, gravado numa transação com os INSERTs de Operacao em batch e
+     * um UPDATE por conta.
+     */
+    public Compensacao transferenciaCompensada(List<TransferenciaRequest> requests) {
+        return metricas.medir("transferenciaCompensada", TRANSFERENCIA, () -> compensar(requests));
+    }
+
+    private Compensacao compensar(List<TransferenciaRequest> requests) {
+        Map<Integer, String> rejeicoes = new HashMap<>();
+        Map<String, Conta> contas = new HashMap<>();
+        List<TransferenciaLiquida> aceitas = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            TransferenciaRequest request = requests.get(i);
+            try {
+                Conta origem = contas.computeIfAbsent(request.getOrigem(), service::findByIdentificadorContaOrThrowBadRequestException);
+                Conta destino = contas.computeIfAbsent(request.getDestino(), service::findByIdentificadorContaOrThrowBadRequestException);
+                if (origem.getIdentificadorConta().equals(destino.getIdentificadorConta()))
+                    throw new BadRequestException(CONTAS_IGUAIS);
+                long valor = centavos(request.getValor());
+                if (valor <= 0)
+                    throw new IllegalArgumentException(O_VALOR_DA_TRANSFERENCIA_DEVE_SER_MAIOR_QUE_ZERO);
+                aceitas.add(new TransferenciaLiquida(i, origem, destino, valor));
+            } catch (RuntimeException e) {
+                rejeicoes.put(i, e.getMessage());
+            }
+        }
+        if (aceitas.isEmpty())
+            return new Compensacao(rejeicoes, 0, CompletableFuture.completedFuture(null));
+
+        CompletableFuture<Void> gravacao = engine.executar(contas.values(), () -> {
+            Map<String, Long> liquido = liquidar(aceitas, rejeicoes);
+            for (Conta conta : contas.values())
+                conta.setSaldo(conta.getSaldo().mais(liquido.getOrDefault(conta.getIdentificadorConta(), 0L)));
+
+            List<Lancamento> lancamentos = new ArrayList<>(aceitas.size() * 2);
+            for (TransferenciaLiquida transferencia : aceitas) {
+                metricas.valor(TRANSFERENCIA, transferencia.valor());
+                lancamentos.add(lancamento(transferencia.origem(), TRANSFERENCIA, transferencia.valor(), -transferencia.valor()));
+                lancamentos.add(lancamento(transferencia.destino(), TRANSFERENCIA, transferencia.valor(), transferencia.valor()));
+            }
+            return gravarCompensadas(lancamentos, contas.values().toArray(Conta[]::new));
+        });
+        return new Compensacao(rejeicoes, aceitas.size(), concluir(gravacao, contas.values().toArray(Conta[]::new)));
+    }
+
+    // Com shards, o writer só aceita pedidos com os débitos num único shard: o lote compensado vai então como um pedido
+    // por transferência, e gravar tudo numa só transação vale apenas sem shards.
+    private CompletableFuture<Void> gravarCompensadas(List<Lancamento> lancamentos, Conta... contas) {
+        if (lancamentos.isEmpty())
+            return CompletableFuture.completedFuture(null);
+        if (!shards.ativo())
+            return gravar(lancamentos, contas);
+        List<CompletableFuture<Void>> transferencias = new ArrayList<>(lancamentos.size() / 2);
+        for (int i = 0; i < lancamentos.size(); i += 2)
+            transferencias.add(gravar(lancamentos.subList(i, i + 2), contas));
+        return CompletableFuture.allOf(transferencias.toArray(CompletableFuture[]::new));
+    }
+
+    // Enquanto alguma conta terminar o lote negativa, rejeita as transferências que saem dela, da última para a
+    // primeira, só até a posição caber no saldo (acima do limite, o mesmo com as que entram). A rejeição muda o líquido
+    // das contas do outro lado, então as posições são recalculadas até nenhuma conta estourar.
+    private static Map<String, Long> liquidar(List<TransferenciaLiquida> aceitas, Map<Integer, String> rejeicoes) {
+        while (true) {
+            Map<String, Long> liquido = new HashMap<>();
+            for (TransferenciaLiquida transferencia : aceitas) {
+                liquido.merge(transferencia.origem().getIdentificadorConta(), -transferencia.valor(), Long::sum);
+                liquido.merge(transferencia.destino().getIdentificadorConta(), transferencia.valor(), Long::sum);
+            }
+
+            Map<String, Long> ajuste = new HashMap<>(liquido);
+            boolean rejeitou = false;
+            for (int i = aceitas.size() - 1; i >= 0; i--) {
+                TransferenciaLiquida transferencia = aceitas.get(i);
+                String motivo = saldoInsuficiente(transferencia.origem(), ajuste);
+                if (motivo == null)
+                    motivo = limiteExcedido(transferencia.destino(), ajuste);
+                if (motivo == null)
+                    continue;
+                ajuste.merge(transferencia.origem().getIdentificadorConta(), transferencia.valor(), Long::sum);
+                ajuste.merge(transferencia.destino().getIdentificadorConta(), -transferencia.valor(), Long::sum);
+                rejeicoes.put(transferencia.indice(), motivo);
+                aceitas.remove(i);
+                rejeitou = true;
+            }
+            if (!rejeitou)
+                return liquido;
+        }
+    }
+
+    private static String saldoInsuficiente(Conta conta, Map<String, Long> liquido) {
+        long valor = liquido.getOrDefault(conta.getIdentificadorConta(), 0L);
+        return valor < 0 && -valor > conta.getSaldo().centavos() ? VALOR_TRANSFERENCIA_EXCEDIDO + conta.getSaldo() : null;
+    }
+
+    private static String limiteExcedido(Conta conta, Map<String, Long> liquido) {
+        long valor = liquido.getOrDefault(conta.getIdentificadorConta(), 0L);
+        try {
+            conta.getSaldo().mais(valor);
+            return null;
+        } catch (ArithmeticException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static LocalDateTime inicio(LocalDate de) {
+        return de == null ? SaldoHistoricoService.INICIO : de.atStartOfDay();
+    }
+
+    private static LocalDateTime fim(LocalDate ate) {
+        return ate == null ? FIM_EXTRATO : ate.plusDays(1).atStartOfDay();
+    }
+
+    // A conversão para centavos acontece uma vez, na entrada; daqui em diante a aritmética é sobre long.
+    private static long centavos(BigDecimal valor) {
+        try {
+            return Dinheiro.centavos(valor);
+        } catch (ArithmeticException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+
+    private static void creditar(Conta conta, long valor) {
+        try {
+            conta.setSaldo(conta.getSaldo().mais(valor));
+        } catch (ArithmeticException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+
+    private Lancamento lancamento(Conta conta, OperacaoEnum tipo, long valor, long delta) {
+        return Lancamento.builder().contaId(conta.getId()).tipo(tipo).valor(valor).delta(delta)
+                .shard(shards.de(conta.getIdentificadorConta())).build();
+    }
+
+    // Contas quentes passam pela fila de escritor único; as demais aplicam a mutação direto, com o lock da conta.
+    private CompletableFuture<Void> aplicar(Conta conta, Function<Conta, Lancamento> mutacao) {
+        if (contasQuentes.registrar(conta))
+            return contasQuentes.enfileirar(conta, mutacao, this::aplicarLote);
+        return engine.executar(conta, () -> gravar(List.of(mutacao.apply(conta)), conta));
+    }
+
+    // Aplica um lote da fila de uma conta quente com uma única aquisição do lock: cada mutação valida sobre o saldo
+    // deixado pela anterior e as rejeitadas falham sozinhas. As aceitas vão ao writer num único pedido.
+    private void aplicarLote(List<MutacaoPendente> lote) {
+        Conta conta = lote.get(0).conta();
+        List<MutacaoPendente> aceitas = new ArrayList<>(lote.size());
+        CompletableFuture<Void> gravacao = engine.executar(conta, () -> {
+            List<Lancamento> lancamentos = new ArrayList<>(lote.size());
+            for (MutacaoPendente pendente : lote) {
+                try {
+                    lancamentos.add(pendente.mutacao().apply(conta));
+                } catch (RuntimeException e) {
+                    pendente.gravacao().completeExceptionally(e);
+                    continue;
+                }
+                pendente.conta().setSaldo(conta.getSaldo());
+                aceitas.add(pendente);
+            }
+            return lancamentos.isEmpty() ? CompletableFuture.<Void>completedFuture(null) : gravar(lancamentos, conta);
+        });
+        gravacao.whenComplete((gravada, erro) -> {
+            for (MutacaoPendente pendente : aceitas) {
+                if (erro == null)
+                    pendente.gravacao().complete(null);
+                else
+                    pendente.gravacao().completeExceptionally(erro);
+            }
+        });
+    }
+
+    // Se a gravação falhar, nenhuma perna do pedido ficou no banco (entre shards, o débito é estornado) e o motor de
+    // saldos desfaz os deltas já aplicados em memória, sem recarregar a conta: o banco ainda não tem as outras
+    // mutações dela na fila do writer.
+    private CompletableFuture<Void> gravar(List<Lancamento> lancamentos, Conta... contas) {
+        return engine.acompanhar(writer.gravar(lancamentos), lancamentos, contas);
+    }
+
+    // Se der certo, as próximas leituras das contas vão ao primário até as réplicas alcançarem a escrita.
+    private CompletableFuture<Void> concluir(CompletableFuture<Void> gravacao, Conta... contas) {
+        return gravacao.whenComplete((gravada, erro) -> {
+            if (erro == null) {
+                for (Conta conta : contas)
+                    consistencia.registrarEscrita(conta.getIdentificadorConta());
+            }
+        });
+    }
+
+    private static <T> T aguardar(CompletableFuture<T> resultado) {
+        try {
+            return resultado.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa)
+                throw causa;
+            throw e;
+        }
+    }
+
+    private static void validarOperacao(long valor, Conta conta, String mensagemValorZero, String mensagemSaldoInsuficiente) {
+        if (valor <= 0)
             throw new IllegalArgumentException(mensagemValorZero);
 
-        if (valor.compareTo(conta.getSaldo()) > 0)
+        if (valor > conta.getSaldo().centavos())
             throw new BadRequestException(mensagemSaldoInsuficiente + conta.getSaldo());
     }
+
+    private record TransferenciaLiquida(int indice, Conta origem, Conta destino, long valor) {
+    }
 }
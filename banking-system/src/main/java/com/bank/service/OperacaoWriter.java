@@ -0,0 +1,366 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
+import com.bank.domain.Operacao;
+import com.bank.enums.OperacaoEnum;
+import com.bank.exception.BadRequestException;
+import com.bank.repository.ContaRepository;
+import com.bank.repository.OperacaoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Grava os lançamentos aplicados pelo {@link SaldoEngine} nas tabelas JPA, fora do lock da conta.
+ * Os pedidos entram numa fila; uma única thread de escrita (que preserva a ordem em que foram aplicados em memória)
+ * drena a fila a cada {@code bank.writer.intervalo-micros} ou {@code bank.writer.max-lote} pedidos e grava o lote
+ * inteiro numa só transação, com os INSERTs de Operacao num único batch JDBC (group commit).
+ * Cada chamador só é liberado depois do commit do lote que contém o seu pedido, e só então as contas gravadas
+ * substituem as entradas do {@link ContaCache}.
+ * O saldo é gravado pela {@link MovimentacaoSaldos}; quando o banco recusa contas do lote, só os pedidos das contas
+ * recusadas são regravados um a um.
+ * No modo event-sourced o lote só acrescenta operações ao ledger, sem ler nem atualizar Conta, e as operações
+ * commitadas seguem para o {@link LedgerProjetor}.
+ * Com o {@link OperacaoJournal} ativo, o chamador é liberado assim que o pedido está durável no journal e a gravação
+ * nas tabelas acontece depois; cada Operacao guarda a sequência do journal para a recuperação após uma queda, e a
+ * {@link ConfirmacaoJournal} decide até onde o journal é confirmado e o que fazer com um pedido do journal que falha.
+ * Com {@link Shards}, cada shard tem a sua fila e a sua thread de escrita, e um pedido vai para a do shard dos seus
+ * débitos. Uma transferência entre shards segue o protocolo de {@link CreditosEntreShards}: o chamador é liberado
+ * quando as duas pernas estão gravadas, ou falha com a recusa do destino, e os pendentes que sobrarem de uma queda são
+ * aplicados na inicialização.
+ */
+@Slf4j
+@Component
+public class OperacaoWriter {
+    private final ContaRepository contaRepository;
+    private final OperacaoRepository operacaoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final OptimisticRetry retry;
+    private final ContaCache cache;
+    private final LedgerProjetor projetor;
+    private final ConfirmacaoJournal confirmacao;
+    private final CreditosEntreShards creditos;
+    private final MovimentacaoSaldos movimentacao;
+    private final Metricas metricas;
+    private final Shards shards;
+    private final long intervaloNanos;
+    private final int maxLote;
+    // Um por shard, no índice do shard; sem shards, um só.
+    private final List<Escritor> escritores;
+    private volatile boolean ativo = true;
+
+    public OperacaoWriter(ContaRepository contaRepository,
+                          OperacaoRepository operacaoRepository,
+                          TransactionTemplate transactionTemplate,
+                          OptimisticRetry retry,
+                          ContaCache cache,
+                          LedgerProjetor projetor,
+                          ConfirmacaoJournal confirmacao,
+                          CreditosEntreShards creditos,
+                          MovimentacaoSaldos movimentacao,
+                          Metricas metricas,
+                          Shards shards,
+                          @Value("${bank.writer.intervalo-micros:500}") long intervaloMicros,
+                          @Value("${bank.writer.max-lote:256}") int maxLote) {
+        this.contaRepository = contaRepository;
+        this.operacaoRepository = operacaoRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.retry = retry;
+        this.cache = cache;
+        this.projetor = projetor;
+        this.confirmacao = confirmacao;
+        this.creditos = creditos;
+        this.movimentacao = movimentacao;
+        this.metricas = metricas;
+        this.shards = shards;
+        this.intervaloNanos = TimeUnit.MICROSECONDS.toNanos(intervaloMicros);
+        this.maxLote = maxLote;
+        this.escritores = IntStream.range(0, shards.quantidade()).mapToObj(Escritor::new).toList();
+    }
+
+    @PostConstruct
+    void iniciar() {
+        if (confirmacao.isAtivo())
+            confirmacao.recuperar(maxLote, this::gravarLote);
+        if (shards.ativo())
+            recuperarCreditos();
+        escritores.forEach(escritor -> escritor.thread.start());
+    }
+
+    public CompletableFuture<Void> gravar(List<Lancamento> lancamentos) {
+        if (shards.ativo() && lancamentos.stream().filter(lancamento -> lancamento.getDelta() < 0).map(Lancamento::getShard).distinct().count() > 1)
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Os débitos de um pedido devem estar num único shard"));
+        if (confirmacao.isAtivo())
+            return confirmacao.registrar(lancamentos, this::enfileirar);
+        Pedido pedido = new Pedido(lancamentos, null, null, new CompletableFuture<>());
+        enfileirar(pedido);
+        return pedido.gravacao();
+    }
+
+    private void enfileirar(Pedido pedido) {
+        escritores.get(pedido.shard()).fila.add(pedido);
+    }
+
+    private void gravarLote(List<Pedido> lote) {
+        if (lote.isEmpty())
+            return;
+        long inicio = System.nanoTime();
+        try {
+            Gravacao gravacao = retry.executar(() -> transactionTemplate.execute(status -> aplicar(lote)));
+            metricas.loteGravado(System.nanoTime() - inicio, lote.size(), true);
+            if (projetor.isAtivo())
+                projetor.publicar(gravacao.operacoes());
+            else
+                gravacao.contas().forEach(cache::atualizar);
+            lote.forEach(pedido -> pedido.gravacao().complete(null));
+            if (confirmacao.isAtivo())
+                confirmacao.gravados(lote);
+        } catch (RuntimeException e) {
+            metricas.loteGravado(System.nanoTime() - inicio, lote.size(), false);
+            if (lote.size() == 1) {
+                Pedido pedido = lote.get(0);
+                if (pedido.journalSeq() != null)
+                    confirmacao.falhou(pedido, e);
+                else
+                    pedido.gravacao().completeExceptionally(e instanceof SaldoRecusado recusa ? recusa(pedido, recusa) : e);
+                return;
+            }
+            if (e instanceof SaldoRecusado recusa) {
+                separar(lote, recusa, this::gravarLote);
+                return;
+            }
+            // Um pedido inválido não pode derrubar o lote inteiro: regrava cada pedido isoladamente.
+            lote.forEach(pedido -> gravarLote(List.of(pedido)));
+        }
+    }
+
+    // Os pedidos que não tocam as contas recusadas voltam a ser um lote; só os das contas recusadas são regravados um a
+    // um, na ordem em que chegaram, para que cada um seja aceito ou recusado pelo próprio movimento.
+    private static void separar(List<Pedido> lote, SaldoRecusado recusa, Consumer<List<Pedido>> gravar) {
+        List<Pedido> afetados = lote.stream().filter(pedido -> pedido.movimenta(recusa.contas())).toList();
+        List<Pedido> restantes = lote.stream().filter(pedido -> !pedido.movimenta(recusa.contas())).toList();
+        if (!restantes.isEmpty())
+            gravar.accept(restantes);
+        afetados.forEach(pedido -> gravar.accept(List.of(pedido)));
+    }
+
+    // A mesma mensagem da validação em memória do OperacaoService, com o saldo lido só agora, no caminho da recusa.
+    private BadRequestException recusa(Pedido pedido, SaldoRecusado recusa) {
+        long contaId = recusa.contas().iterator().next();
+        List<Lancamento> lancamentos = pedido.lancamentos().stream()
+                .filter(lancamento -> lancamento.getContaId() == contaId)
+                .toList();
+        Optional<Conta> conta = shards.executar(lancamentos.get(0).getShard(), () -> contaRepository.findCopiaById(contaId));
+        if (conta.isEmpty())
+            return new BadRequestException("Not Found id " + contaId);
+        if (lancamentos.stream().mapToLong(Lancamento::getDelta).sum() > 0)
+            return new BadRequestException(Dinheiro.LIMITE_EXCEDIDO);
+        String mensagem = lancamentos.stream().anyMatch(lancamento -> lancamento.getTipo() == OperacaoEnum.SAQUE)
+                ? OperacaoService.VALOR_SAQUE_EXCEDIDO
+                : OperacaoService.VALOR_TRANSFERENCIA_EXCEDIDO;
+        return new BadRequestException(mensagem + conta.get().getSaldo());
+    }
+
+    private Gravacao aplicar(List<Pedido> lote) {
+        boolean eventSourced = projetor.isAtivo();
+        Map<Long, Conta> contas = eventSourced
+                ? new HashMap<>()
+                : movimentacao.movimentar(lote.stream().flatMap(pedido -> pedido.lancamentos().stream()).toList());
+
+        List<Operacao> operacoes = new ArrayList<>();
+        for (Pedido pedido : lote) {
+            for (Lancamento lancamento : pedido.lancamentos()) {
+                // Referência sem SELECT no modo event-sourced: uma conta inexistente aparece como violação da FK no flush.
+                Conta conta = eventSourced
+                        ? contas.computeIfAbsent(lancamento.getContaId(), contaRepository::getReferenceById)
+                        : movimentacao.referencia(contas, lancamento);
+                operacoes.add(lancamento.operacao(conta, pedido.journalSeq(), pedido.instante()));
+            }
+        }
+        operacaoRepository.saveAll(operacoes);
+        return new Gravacao(contas.values(), operacoes, List.of());
+    }
+
+    private void gravarNoShard(int shard, List<Pedido> lote) {
+        if (lote.isEmpty())
+            return;
+        long inicio = System.nanoTime();
+        try {
+            Gravacao gravacao = retry.executar(() -> shards.executar(shard, () -> transactionTemplate.execute(status -> aplicarNoShard(shard, lote))));
+            metricas.loteGravado(System.nanoTime() - inicio, lote.size(), true);
+            gravacao.contas().forEach(cache::atualizar);
+            Map<Pedido, List<Remessa>> remessas = gravacao.remessas().stream()
+                    .collect(Collectors.groupingBy(Remessa::pedido, HashMap::new, Collectors.toList()));
+            for (Pedido pedido : lote) {
+                List<Remessa> doPedido = remessas.get(pedido);
+                if (doPedido == null) {
+                    pedido.gravacao().complete(null);
+                    continue;
+                }
+                // O pedido é liberado quando todos os seus créditos forem aplicados, ou falha com o primeiro estornado.
+                CompletableFuture.allOf(doPedido.stream().map(Remessa::aplicacao).toArray(CompletableFuture[]::new))
+                        .whenComplete((aplicados, erro) -> {
+                            if (erro == null)
+                                pedido.gravacao().complete(null);
+                            else
+                                pedido.gravacao().completeExceptionally(erro instanceof CompletionException ? erro.getCause() : erro);
+                        });
+                doPedido.forEach(remessa -> escritores.get(remessa.credito().getShard()).fila.add(remessa));
+            }
+        } catch (RuntimeException e) {
+            metricas.loteGravado(System.nanoTime() - inicio, lote.size(), false);
+            if (lote.size() == 1) {
+                lote.get(0).gravacao().completeExceptionally(e instanceof SaldoRecusado recusa ? recusa(lote.get(0), recusa) : e);
+                return;
+            }
+            if (e instanceof SaldoRecusado recusa) {
+                separar(lote, recusa, pedidos -> gravarNoShard(shard, pedidos));
+                return;
+            }
+            lote.forEach(pedido -> gravarNoShard(shard, List.of(pedido)));
+        }
+    }
+
+    // Primeira fase: as pernas do shard e, para cada crédito em outro shard, o CreditoPendente que o garante.
+    private Gravacao aplicarNoShard(int shard, List<Pedido> lote) {
+        List<Lancamento> locais = lote.stream()
+                .flatMap(pedido -> pedido.lancamentos().stream())
+                .filter(lancamento -> lancamento.getShard() == shard)
+                .toList();
+        Map<Long, Conta> contas = movimentacao.movimentar(locais);
+        List<Operacao> operacoes = new ArrayList<>();
+        List<Remessa> novas = new ArrayList<>();
+        for (Pedido pedido : lote) {
+            Long debito = null;
+            for (Lancamento lancamento : pedido.lancamentos()) {
+                if (lancamento.getDelta() < 0)
+                    debito = lancamento.getContaId();
+                if (lancamento.getShard() == shard)
+                    operacoes.add(lancamento.operacao(movimentacao.referencia(contas, lancamento), pedido.journalSeq(), pedido.instante()));
+                else
+                    novas.add(creditos.remessa(pedido, shard, lancamento, debito));
+            }
+        }
+        operacaoRepository.saveAll(operacoes);
+        creditos.registrar(novas);
+        return new Gravacao(contas.values(), operacoes, novas);
+    }
+
+    // Créditos entre shards que uma queda deixou pendentes; aplicados antes de o SaldoEngine carregar qualquer saldo.
+    // Os que falharem ficam com o escritor do destino, que os refaz quando a sua thread começar.
+    private void recuperarCreditos() {
+        List<Remessa> pendentes = creditos.recuperar();
+        pendentes.forEach(remessa -> escritores.get(remessa.credito().getShard()).remessas.add(remessa));
+        escritores.forEach(Escritor::aplicarCreditos);
+        if (!pendentes.isEmpty())
+            log.info("{} créditos entre shards pendentes da última execução reaplicados", pendentes.size());
+    }
+
+    @PreDestroy
+    void encerrar() throws InterruptedException {
+        ativo = false;
+        for (Escritor escritor : escritores)
+            escritor.thread.join(TimeUnit.SECONDS.toMillis(30));
+        escritores.forEach(Escritor::abandonar);
+        if (confirmacao.pendentes() > 0)
+            log.error("{} registros do journal não gravados nas tabelas ficam para a próxima inicialização", confirmacao.pendentes());
+    }
+
+    /**
+     * A fila e a thread de escrita de um shard. Recebe os pedidos cujos débitos estão no shard, gravados em lote como
+     * sem shards, e as remessas de crédito que os outros escritores mandam para ele, aplicadas ao fim de cada volta.
+     * Só um escritor grava as contas de um shard, então as atualizações do cache de uma conta chegam na ordem do commit.
+     */
+    private class Escritor {
+        private final int shard;
+        private final BlockingQueue<Trabalho> fila = new LinkedBlockingQueue<>();
+        private final Thread thread;
+        // Créditos recebidos e ainda não aplicados, e os aplicados cujo pendente ainda não foi apagado na origem. Só a
+        // thread do escritor os acessa, exceto na recuperação, antes de ela começar.
+        private final List<Remessa> remessas = new ArrayList<>();
+        private final List<Remessa> aplicadas = new ArrayList<>();
+
+        Escritor(int shard) {
+            this.shard = shard;
+            this.thread = new Thread(this::escrever, shards.ativo() ? "operacao-writer-" + shard : "operacao-writer");
+        }
+
+        private void escrever() {
+            List<Pedido> lote = new ArrayList<>(maxLote);
+            while (ativo || !fila.isEmpty()) {
+                try {
+                    Trabalho primeiro = fila.poll(100, TimeUnit.MILLISECONDS);
+                    if (primeiro != null) {
+                        receber(primeiro, lote);
+                        long prazo = System.nanoTime() + intervaloNanos;
+                        while (lote.size() < maxLote) {
+                            Trabalho proximo = fila.poll(prazo - System.nanoTime(), TimeUnit.NANOSECONDS);
+                            if (proximo == null)
+                                break;
+                            receber(proximo, lote);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    List<Trabalho> restantes = new ArrayList<>();
+                    fila.drainTo(restantes);
+                    restantes.forEach(trabalho -> receber(trabalho, lote));
+                }
+                if (shards.ativo()) {
+                    gravarNoShard(shard, lote);
+                } else {
+                    gravarLote(lote);
+                    confirmacao.aRegravar().forEach(pedido -> gravarLote(List.of(pedido)));
+                }
+                lote.clear();
+                aplicarCreditos();
+            }
+        }
+
+        private void receber(Trabalho trabalho, List<Pedido> lote) {
+            if (trabalho instanceof Remessa remessa)
+                remessas.add(remessa);
+            else
+                lote.add((Pedido) trabalho);
+        }
+
+        private void aplicarCreditos() {
+            creditos.aplicar(shard, remessas, aplicadas);
+        }
+
+        // Depois de a thread parar: os créditos que não chegaram a ser aplicados continuam pendentes no banco e são
+        // aplicados na próxima inicialização, mas quem espera por eles é liberado agora.
+        private void abandonar() {
+            List<Trabalho> restantes = new ArrayList<>(remessas);
+            fila.drainTo(restantes);
+            restantes.forEach(trabalho -> {
+                IllegalStateException erro = new IllegalStateException("O writer foi encerrado antes de aplicar o crédito");
+                if (trabalho instanceof Remessa remessa)
+                    remessa.aplicacao().completeExceptionally(erro);
+                else
+                    ((Pedido) trabalho).gravacao().completeExceptionally(erro);
+            });
+        }
+    }
+
+    private record Gravacao(Collection<Conta> contas, List<Operacao> operacoes, List<Remessa> remessas) {
+    }
+}
@@ -0,0 +1,72 @@
+package com.bank.service;
+
+import com.bank.exception.ConflictException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Repete operações que falharam por conflito de versão (@Version), com backoff exponencial e jitter.
+ * Só quando as tentativas se esgotam o conflito é propagado como {@link ConflictException}.
+ */
+@Component
+public class OptimisticRetry {
+    public static final String CONFLITO_DE_CONCORRENCIA = "A conta foi alterada por outra operação. Tente novamente";
+    private final int maxTentativas;
+    private final long backoffMicros;
+    private final Counter tentativas;
+    private final Counter repeticoes;
+    private final Counter conflitos;
+    private final Counter esgotadas;
+
+    public OptimisticRetry(@Value("${bank.retry.max-tentativas:5}") int maxTentativas,
+                           @Value("${bank.retry.backoff-micros:500}") long backoffMicros,
+                           MeterRegistry registry) {
+        this.maxTentativas = maxTentativas;
+        this.backoffMicros = backoffMicros;
+        this.tentativas = registry.counter("bank.optimistic.tentativas");
+        this.repeticoes = registry.counter("bank.optimistic.repeticoes");
+        this.conflitos = registry.counter("bank.optimistic.conflitos");
+        this.esgotadas = registry.counter("bank.optimistic.esgotadas");
+    }
+
+    public <T> T executar(Supplier<T> operacao) {
+        for (int tentativa = 1; ; tentativa++) {
+            tentativas.increment();
+            try {
+                return operacao.get();
+            } catch (OptimisticLockingFailureException e) {
+                conflitos.increment();
+                if (tentativa >= maxTentativas) {
+                    esgotadas.increment();
+                    throw new ConflictException(CONFLITO_DE_CONCORRENCIA, e);
+                }
+                repeticoes.increment();
+                aguardar(tentativa);
+            }
+        }
+    }
+
+    public void executar(Runnable operacao) {
+        executar(() -> {
+            operacao.run();
+            return null;
+        });
+    }
+
+    private void aguardar(int tentativa) {
+        long teto = backoffMicros << Math.min(tentativa - 1, 10);
+        try {
+            TimeUnit.MICROSECONDS.sleep(ThreadLocalRandom.current().nextLong(teto + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException(CONFLITO_DE_CONCORRENCIA, e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.bank.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Os lançamentos de uma operação à espera do {@link OperacaoWriter}, com a gravação que completa no commit. A sequência
+ * só existe com o {@link OperacaoJournal} ativo, e o instante só nos pedidos recuperados do journal; nos demais, o
+ * INSERT preenche o createdAt.
+ */
+record Pedido(List<Lancamento> lancamentos, Long journalSeq, LocalDateTime instante,
+              CompletableFuture<Void> gravacao) implements Trabalho {
+    boolean movimenta(Set<Long> contas) {
+        return lancamentos.stream().anyMatch(lancamento -> contas.contains(lancamento.getContaId()));
+    }
+
+    // O shard dos débitos, onde o pedido é gravado primeiro; sem débito, o da primeira perna.
+    int shard() {
+        return lancamentos.stream()
+                .filter(lancamento -> lancamento.getDelta() < 0)
+                .findFirst()
+                .orElse(lancamentos.get(0))
+                .getShard();
+    }
+}
@@ -0,0 +1,17 @@
+package com.bank.service;
+
+import com.bank.domain.CreditoPendente;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Um crédito entre shards a caminho do shard de destino (ver {@link CreditosEntreShards}). A aplicação completa quando
+ * o crédito foi gravado no destino, ou falha com a recusa que o estornou; o pedido é nulo nos pendentes recuperados de
+ * uma queda.
+ */
+record Remessa(Pedido pedido, int origem, CreditoPendente credito, CompletableFuture<Void> aplicacao,
+               long criada) implements Trabalho {
+    Remessa(Pedido pedido, int origem, CreditoPendente credito) {
+        this(pedido, origem, credito, new CompletableFuture<>(), System.nanoTime());
+    }
+}
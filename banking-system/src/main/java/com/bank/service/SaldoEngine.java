@@ -0,0 +1,322 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Mantém em memória o saldo autoritativo de cada conta, indexado por identificadorConta.
+ * Operações sobre a mesma conta são serializadas por um lock de uma faixa (lock striping);
+ * contas em faixas diferentes nunca disputam o mesmo lock. Quando duas contas precisam ser travadas juntas,
+ * as faixas são adquiridas na ordem do seu índice, que deriva de Conta.id, e por isso a ordem é global e livre de deadlock.
+ *
+ * <p>O saldo só é autoritativo num único nó: dois processos com o mesmo banco validariam cada um contra a sua memória.
+ * Com mais de um nó, as contas precisam estar repartidas entre eles (por exemplo, um nó por shard) ou a validação fica
+ * com o UPDATE condicional do {@link OperacaoWriter}.</p>
+ *
+ * <p>Cada gravação é acompanhada por {@link #acompanhar}. Se ela falhar, os seus deltas ficam pendentes de desfazer
+ * e a próxima operação sobre a conta os aplica antes de validar, com o lock da faixa; uma thread própria os aplica
+ * também, e só então o chamador recebe a falha. Uma conta sem uso por {@code bank.engine.ociosidade-ms} e sem gravação
+ * em andamento sai da memória e volta a ser carregada da fonte na próxima operação. Com o journal, a gravação termina
+ * antes de chegar às tabelas, então as contas não saem da memória.</p>
+ */
+@Component
+public class SaldoEngine {
+    private final Map<String, Dinheiro> saldos = new ConcurrentHashMap<>();
+    // Conta.id de cada conta em memória, para achar a faixa na liberação das ociosas.
+    private final Map<String, Long> ids = new ConcurrentHashMap<>();
+    // Gravações em andamento e deltas de gravações que falharam e ainda não foram desfeitos, por conta.
+    private final Map<String, Integer> emAndamento = new ConcurrentHashMap<>();
+    private final Map<String, Long> aDesfazer = new ConcurrentHashMap<>();
+    private volatile Set<String> usadas = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock[] faixas;
+    private final boolean liberarOciosas;
+    private final ExecutorService desfazedor = Executors.newSingleThreadExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "saldo-desfazer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Function<Conta, Dinheiro> saldoInicial = Conta::getSaldo;
+
+    public SaldoEngine(int faixas) {
+        this(faixas, true);
+    }
+
+    @Autowired
+    public SaldoEngine(@Value("${bank.engine.faixas:1024}") int faixas,
+                       @Value("#{!${bank.journal.ativo:false}}") boolean liberarOciosas) {
+        int tamanho = Integer.highestOneBit(Math.max(1, faixas));
+        this.faixas = new ReentrantLock[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            this.faixas[i] = new ReentrantLock();
+        }
+        this.liberarOciosas = liberarOciosas;
+    }
+
+    /**
+     * Define de onde vem o saldo de uma conta que ainda não está em memória. O padrão é o próprio Conta.saldo.
+     */
+    public void definirSaldoInicial(Function<Conta, Dinheiro> saldoInicial) {
+        this.saldoInicial = saldoInicial;
+    }
+
+    /**
+     * Executa a operação com o lock da conta. Antes da operação o saldo da conta é substituído pelo
+     * saldo em memória; ao final, o saldo resultante passa a ser o saldo em memória.
+     */
+    public <T> T executar(Conta conta, Supplier<T> operacao) {
+        ReentrantLock lock = faixa(conta);
+        lock.lock();
+        try {
+            conta.setSaldo(carregar(conta));
+            T resultado = operacao.get();
+            saldos.put(conta.getIdentificadorConta(), conta.getSaldo());
+            return resultado;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Executa a operação com os locks das duas contas, adquiridos na ordem canônica das faixas.
+     */
+    public <T> T executar(Conta primeira, Conta segunda, Supplier<T> operacao) {
+        int indicePrimeira = indice(primeira);
+        int indiceSegunda = indice(segunda);
+        ReentrantLock antes = faixas[Math.min(indicePrimeira, indiceSegunda)];
+        ReentrantLock depois = faixas[Math.max(indicePrimeira, indiceSegunda)];
+        antes.lock();
+        try {
+            if (depois != antes)
+                depois.lock();
+            try {
+                primeira.setSaldo(carregar(primeira));
+                segunda.setSaldo(carregar(segunda));
+                T resultado = operacao.get();
+                saldos.put(primeira.getIdentificadorConta(), primeira.getSaldo());
+                saldos.put(segunda.getIdentificadorConta(), segunda.getSaldo());
+                return resultado;
+            } finally {
+                if (depois != antes)
+                    depois.unlock();
+            }
+        } finally {
+            antes.unlock();
+        }
+    }
+
+    /**
+     * Executa a operação com os locks de todas as contas, adquiridos em ordem crescente de faixa, cada faixa uma vez.
+     */
+    public <T> T executar(Collection<Conta> contas, Supplier<T> operacao) {
+        int[] indices = contas.stream().mapToInt(this::indice).distinct().sorted().toArray();
+        int travadas = 0;
+        try {
+            for (int indice : indices) {
+                faixas[indice].lock();
+                travadas++;
+            }
+            for (Conta conta : contas)
+                conta.setSaldo(carregar(conta));
+            T resultado = operacao.get();
+            for (Conta conta : contas)
+                saldos.put(conta.getIdentificadorConta(), conta.getSaldo());
+            return resultado;
+        } finally {
+            for (int i = travadas - 1; i >= 0; i--)
+                faixas[indices[i]].unlock();
+        }
+    }
+
+    /**
+     * Saldo em memória da conta. Uma conta que ainda não está em memória é carregada por {@link #definirSaldoInicial},
+     * com o lock da faixa, como na primeira operação sobre ela: no modo event-sourced Conta.saldo fica atrás do ledger.
+     */
+    public Dinheiro saldo(Conta conta) {
+        Dinheiro saldo = saldos.get(conta.getIdentificadorConta());
+        if (saldo != null && !aDesfazer.containsKey(conta.getIdentificadorConta())) {
+            usadas.add(conta.getIdentificadorConta());
+            return saldo;
+        }
+        ReentrantLock lock = faixa(conta);
+        lock.lock();
+        try {
+            return carregar(conta);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidar(String identificador) {
+        saldos.remove(identificador);
+        ids.remove(identificador);
+        aDesfazer.remove(identificador);
+    }
+
+    /**
+     * Acompanha a gravação dos lançamentos que a operação acabou de aplicar em memória, chamado com o lock das contas.
+     * Enquanto ela não termina, as contas não saem da memória. Se ela falhar, os deltas ficam pendentes de desfazer
+     * na hora, sem esperar por lock na thread que completou a gravação, e o future devolvido só falha depois de a
+     * thread do desfazer tê-los aplicado.
+     */
+    public CompletableFuture<Void> acompanhar(CompletableFuture<Void> gravacao, List<Lancamento> lancamentos, Conta... contas) {
+        List<Conta> movimentadas = Arrays.stream(contas)
+                .filter(conta -> lancamentos.stream().anyMatch(lancamento -> conta.getId().equals(lancamento.getContaId())))
+                .toList();
+        movimentadas.forEach(conta -> emAndamento.merge(conta.getIdentificadorConta(), 1, Integer::sum));
+        return gravacao.handle((gravada, erro) -> {
+            if (erro == null) {
+                concluir(movimentadas);
+                return CompletableFuture.<Void>completedFuture(null);
+            }
+            for (Lancamento lancamento : lancamentos) {
+                movimentadas.stream().filter(conta -> conta.getId().equals(lancamento.getContaId())).findFirst()
+                        .ifPresent(conta -> aDesfazer.merge(conta.getIdentificadorConta(), lancamento.getDelta(), Long::sum));
+            }
+            return CompletableFuture.runAsync(() -> {
+                movimentadas.forEach(this::desfazer);
+                concluir(movimentadas);
+            }, desfazedor).<Void>thenCompose(desfeita -> CompletableFuture.failedFuture(erro));
+        }).thenCompose(Function.identity());
+    }
+
+    /**
+     * Leva o saldo em memória da conta para o novo identificador, com o lock da conta, sem passar pelo banco.
+     */
+    public void renomear(Conta conta, String novoIdentificador) {
+        if (conta.getIdentificadorConta().equals(novoIdentificador))
+            return;
+        ReentrantLock lock = faixa(conta);
+        lock.lock();
+        try {
+            desfazerPendente(conta.getIdentificadorConta());
+            Dinheiro saldo = saldos.remove(conta.getIdentificadorConta());
+            ids.remove(conta.getIdentificadorConta());
+            if (saldo != null && saldos.putIfAbsent(novoIdentificador, saldo) == null)
+                ids.put(novoIdentificador, conta.getId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tira a conta excluída da memória com o lock da conta, depois de qualquer operação que esteja com ele.
+     */
+    public void remover(Conta conta) {
+        ReentrantLock lock = faixa(conta);
+        lock.lock();
+        try {
+            invalidar(conta.getIdentificadorConta());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tira da memória as contas que ficaram uma janela inteira sem uso e sem gravação em andamento: o banco já tem
+     * tudo o que a memória tem, então a próxima operação as carrega de novo sem perder nada.
+     */
+    @Scheduled(fixedDelayString = "${bank.engine.ociosidade-ms:600000}")
+    public void liberarOciosas() {
+        if (!liberarOciosas)
+            return;
+        Set<String> recentes = usadas;
+        usadas = ConcurrentHashMap.newKeySet();
+        ids.forEach((identificador, id) -> {
+            if (recentes.contains(identificador))
+                return;
+            ReentrantLock lock = faixas[indice(id)];
+            lock.lock();
+            try {
+                if (!usadas.contains(identificador) && !emAndamento.containsKey(identificador) && !aDesfazer.containsKey(identificador)) {
+                    saldos.remove(identificador);
+                    ids.remove(identificador);
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    int emMemoria() {
+        return saldos.size();
+    }
+
+    @PreDestroy
+    void parar() {
+        desfazedor.shutdown();
+    }
+
+    private void desfazer(Conta conta) {
+        ReentrantLock lock = faixa(conta);
+        lock.lock();
+        try {
+            desfazerPendente(conta.getIdentificadorConta());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void concluir(List<Conta> contas) {
+        contas.forEach(conta -> emAndamento.computeIfPresent(conta.getIdentificadorConta(),
+                (identificador, gravacoes) -> gravacoes == 1 ? null : gravacoes - 1));
+    }
+
+    // Chamado com o lock da conta. Um saldo recarregado da fonte não tem o delta que falhou: o pendente é só descartado.
+    private void desfazerPendente(String identificador) {
+        Long delta = aDesfazer.remove(identificador);
+        if (delta == null)
+            return;
+        try {
+            saldos.computeIfPresent(identificador, (chave, saldo) -> saldo.menos(delta));
+        } catch (ArithmeticException e) {
+            saldos.remove(identificador);
+            ids.remove(identificador);
+        }
+    }
+
+    // Chamado com o lock da conta, por isso o get seguido de put não disputa com outra operação na mesma conta. Os
+    // deltas de uma gravação que falhou são desfeitos antes de qualquer validação sobre o saldo.
+    private Dinheiro carregar(Conta conta) {
+        String identificador = conta.getIdentificadorConta();
+        usadas.add(identificador);
+        desfazerPendente(identificador);
+        Dinheiro saldo = saldos.get(identificador);
+        if (saldo == null) {
+            saldo = saldoInicial.apply(conta);
+            saldos.put(identificador, saldo);
+            ids.put(identificador, conta.getId());
+        }
+        return saldo;
+    }
+
+    private ReentrantLock faixa(Conta conta) {
+        return faixas[indice(conta)];
+    }
+
+    private int indice(Conta conta) {
+        return indice(conta.getId());
+    }
+
+    private int indice(long id) {
+        int hash = Long.hashCode(id);
+        return (hash ^ (hash >>> 16)) & (faixas.length - 1);
+    }
+}
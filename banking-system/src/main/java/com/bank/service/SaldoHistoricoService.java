@@ -0,0 +1,148 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import com.bank.domain.Operacao;
+import com.bank.domain.SaldoSnapshot;
+import com.bank.repository.ContaRepository;
+import com.bank.repository.OperacaoRepository;
+import com.bank.repository.SaldoSnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Responde saldos em um instante passado a partir do snapshot mais próximo e das poucas operações posteriores a ele,
+ * estejam elas na tabela ou já no {@link ArquivoOperacoes}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class SaldoHistoricoService {
+    static final LocalDateTime INICIO = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final int TAMANHO_PAGINA_SNAPSHOT = 500;
+    private final SaldoSnapshotRepository snapshotRepository;
+    private final OperacaoRepository operacaoRepository;
+    private final ContaRepository contaRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Shards shards;
+    private final ArquivoOperacoes arquivo;
+    @Value("${bank.snapshot.margem-segundos:60}")
+    private long margemSegundos;
+
+    /**
+     * Saldo considerando todas as operações criadas antes de {@code instante}.
+     */
+    public BigDecimal saldoEm(Conta conta, LocalDateTime instante) {
+        Optional<SaldoSnapshot> snapshot = snapshotRepository.findFirstByContaAndReferenciaLessThanEqualOrderByReferenciaDesc(conta, instante);
+        BigDecimal base = snapshot.map(SaldoSnapshot::getSaldo).orElse(BigDecimal.ZERO);
+        LocalDateTime de = snapshot.map(SaldoSnapshot::getReferencia).orElse(INICIO);
+        return base.add(operacaoRepository.somarMovimento(conta, de, instante)).add(arquivo.somar(conta, de, instante));
+    }
+
+    /**
+     * Saldo imediatamente antes da operação, na ordem (createdAt, id) usada pelo extrato.
+     */
+    public BigDecimal saldoAntes(Conta conta, Operacao operacao) {
+        Optional<SaldoSnapshot> snapshot = snapshotRepository.findFirstByContaAndReferenciaLessThanEqualOrderByReferenciaDesc(conta, operacao.getCreatedAt());
+        BigDecimal base = snapshot.map(SaldoSnapshot::getSaldo).orElse(BigDecimal.ZERO);
+        LocalDateTime de = snapshot.map(SaldoSnapshot::getReferencia).orElse(INICIO);
+        return base.add(operacaoRepository.somarMovimentoAntes(conta, de, operacao.getCreatedAt(), operacao.getId()))
+                .add(arquivo.somarAntes(conta, de, operacao.getCreatedAt(), operacao.getId()));
+    }
+
+    /**
+     * Registra um snapshot por conta. A referência fica alguns segundos no passado para que operações ainda
+     * em gravação não fiquem de fora do snapshot; as gravadas mais tarde com data anterior apagam os snapshots que as
+     * deixaram de fora (ver {@link #invalidarSnapshots}). Com shards, cada shard registra os snapshots das suas contas.
+     */
+    @Scheduled(cron = "${bank.snapshot.cron:0 0 0 * * *}")
+    public void registrarSnapshots() {
+        LocalDateTime referencia = LocalDateTime.now().minusSeconds(margemSegundos);
+        for (int shard = 0; shard < shards.quantidade(); shard++)
+            shards.executar(shard, () -> registrarSnapshots(referencia));
+    }
+
+    private void registrarSnapshots(LocalDateTime referencia) {
+        Pageable pageable = PageRequest.of(0, TAMANHO_PAGINA_SNAPSHOT, Sort.by("id"));
+        while (true) {
+            Page<Conta> contas = contaRepository.findAll(pageable);
+            List<SaldoSnapshot> snapshots = snapshots(contas.getContent(), referencia);
+            // Um saveAll por página: com a sequência em pool, os INSERTs da página vão em batches de jdbc.batch_size.
+            transactionTemplate.executeWithoutResult(status -> snapshotRepository.saveAll(snapshots));
+            if (!contas.hasNext())
+                break;
+            pageable = contas.nextPageable();
+        }
+    }
+
+    // O saldo de uma página inteira com uma consulta pelos snapshots anteriores e uma soma agrupada por conta para cada
+    // ponto de partida distinto, em geral um só: o snapshot da execução anterior (e o INICIO das contas novas). O
+    // ArquivoOperacoes é lido do disco, conta a conta, sem ir ao banco.
+    private List<SaldoSnapshot> snapshots(List<Conta> contas, LocalDateTime referencia) {
+        List<Long> ids = contas.stream().map(Conta::getId).toList();
+        Map<Long, SaldoSnapshot> anteriores = snapshotRepository.findUltimosDasContas(ids, referencia).stream()
+                .collect(Collectors.toMap(snapshot -> snapshot.getConta().getId(), Function.identity(), (um, outro) -> um));
+        Map<LocalDateTime, List<Long>> porInicio = ids.stream().collect(Collectors.groupingBy(
+                id -> Optional.ofNullable(anteriores.get(id)).map(SaldoSnapshot::getReferencia).orElse(INICIO)));
+        Map<Long, BigDecimal> movimentos = new HashMap<>();
+        porInicio.forEach((de, doInicio) -> operacaoRepository.somarMovimentoDasContas(doInicio, de, referencia)
+                .forEach(movimento -> movimentos.put(movimento.contaId(), movimento.movimento())));
+        return contas.stream().map(conta -> {
+            Optional<SaldoSnapshot> anterior = Optional.ofNullable(anteriores.get(conta.getId()));
+            LocalDateTime de = anterior.map(SaldoSnapshot::getReferencia).orElse(INICIO);
+            BigDecimal saldo = anterior.map(SaldoSnapshot::getSaldo).orElse(BigDecimal.ZERO)
+                    .add(movimentos.getOrDefault(conta.getId(), BigDecimal.ZERO))
+                    .add(arquivo.somar(conta, de, referencia));
+            return SaldoSnapshot.builder().conta(conta).saldo(saldo).referencia(referencia).build();
+        }).toList();
+    }
+
+    /**
+     * Apaga os snapshots das contas com referência posterior a {@code depoisDe}: uma operação gravada com a data
+     * anterior à deles, como as que a recuperação do {@link OperacaoJournal} regrava com o instante do registro, não
+     * está na soma deles. As consultas voltam a partir do snapshot anterior, e a próxima execução registra outros.
+     * Com shards, o DELETE vai a todos eles; em cada um só as contas dele têm snapshots.
+     */
+    public void invalidarSnapshots(Collection<Long> contas, LocalDateTime depoisDe) {
+        List<Long> ids = List.copyOf(contas);
+        int apagados = 0;
+        for (int shard = 0; shard < shards.quantidade(); shard++) {
+            for (int inicio = 0; inicio < ids.size(); inicio += TAMANHO_PAGINA_SNAPSHOT) {
+                List<Long> parte = ids.subList(inicio, Math.min(inicio + TAMANHO_PAGINA_SNAPSHOT, ids.size()));
+                apagados += shards.executar(shard, () -> Optional.ofNullable(transactionTemplate.execute(
+                        status -> snapshotRepository.deleteDasContasPosteriores(parte, depoisDe))).orElse(0));
+            }
+        }
+        if (apagados > 0)
+            log.info("{} snapshots de saldo posteriores a {} apagados", apagados, depoisDe);
+    }
+
+    public SaldoSnapshot registrarSnapshot(Conta conta, LocalDateTime referencia) {
+        return snapshotRepository.save(snapshot(conta, referencia));
+    }
+
+    private SaldoSnapshot snapshot(Conta conta, LocalDateTime referencia) {
+        return SaldoSnapshot.builder()
+                .conta(conta)
+                .saldo(saldoEm(conta, referencia))
+                .referencia(referencia)
+                .build();
+    }
+}
@@ -0,0 +1,20 @@
+package com.bank.service;
+
+import java.util.Set;
+
+/**
+ * Contas cujo UPDATE condicional de {@link MovimentacaoSaldos} não encontrou linha: inexistentes ou com o saldo fora
+ * dos limites. Desfaz a transação do lote; sem stack trace, porque é o caminho normal de uma recusa.
+ */
+class SaldoRecusado extends RuntimeException {
+    private final Set<Long> contas;
+
+    SaldoRecusado(Set<Long> contas) {
+        super("Saldo recusado pelo banco nas contas " + contas, null, false, false);
+        this.contas = contas;
+    }
+
+    Set<Long> contas() {
+        return contas;
+    }
+}
@@ -0,0 +1,182 @@
+package com.bank.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Particionamento das contas por hash do identificador (perfil {@code shards}, um banco por URL de
+ * {@code bank.shards.urls}). Conta, Operacao, Cliente e os snapshots de uma conta ficam todos no shard dela; o shard 0
+ * guarda também o que é global (Idempotency-Key e a sequência de identificadores). Sem o perfil há um único shard e
+ * tudo aqui vira uma chamada direta.
+ *
+ * <p>O shard é escolhido pela thread: {@link #executar} marca o shard e o DataSource roteado o lê quando a conexão
+ * física é pedida, ou seja, no primeiro comando SQL da transação. Uma transação fica no shard do seu primeiro
+ * comando. Buscas sem identificador (por id, listagens) consultam todos os shards em paralelo, cada um na sua
+ * transação só-leitura. A quantidade de shards é fixa: mudá-la muda o shard de quase todas as contas.</p>
+ */
+@Component
+public class Shards {
+    private static final ThreadLocal<Integer> ATUAL = new ThreadLocal<>();
+    private final int quantidade;
+    private final TransactionTemplate leitura;
+    private final ExecutorService consultas;
+
+    public Shards(@Value("${bank.shards.urls:}") List<String> urls, PlatformTransactionManager transactionManager) {
+        this.quantidade = Math.max(1, urls.size());
+        this.leitura = new TransactionTemplate(transactionManager);
+        this.leitura.setReadOnly(true);
+        AtomicInteger contador = new AtomicInteger();
+        this.consultas = quantidade == 1 ? null : Executors.newCachedThreadPool(tarefa -> {
+            Thread thread = new Thread(tarefa, "shard-consulta-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Shard marcado na thread atual, ou {@code null} fora de {@link #executar} (o DataSource usa então o shard 0).
+     */
+    public static Integer atual() {
+        return ATUAL.get();
+    }
+
+    public boolean ativo() {
+        return quantidade > 1;
+    }
+
+    public int quantidade() {
+        return quantidade;
+    }
+
+    public int de(String identificadorConta) {
+        // Finalizador do MurmurHash3: identificadores sequenciais diferem só nos últimos dígitos.
+        int hash = identificadorConta.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, quantidade);
+    }
+
+    public <T> T executar(int shard, Supplier<T> trabalho) {
+        if (!ativo())
+            return trabalho.get();
+        Integer anterior = ATUAL.get();
+        ATUAL.set(shard);
+        try {
+            return trabalho.get();
+        } finally {
+            if (anterior == null)
+                ATUAL.remove();
+            else
+                ATUAL.set(anterior);
+        }
+    }
+
+    public void executar(int shard, Runnable trabalho) {
+        executar(shard, () -> {
+            trabalho.run();
+            return null;
+        });
+    }
+
+    public <T> T naConta(String identificadorConta, Supplier<T> trabalho) {
+        return executar(de(identificadorConta), trabalho);
+    }
+
+    /**
+     * Executa a consulta em todos os shards e devolve os resultados na ordem dos shards. Com um único shard a consulta
+     * roda na thread e na transação do chamador.
+     */
+    public <T> List<T> emTodos(Supplier<T> consulta) {
+        if (!ativo())
+            return List.of(consulta.get());
+        List<CompletableFuture<T>> resultados = new ArrayList<>(quantidade);
+        for (int shard = 0; shard < quantidade; shard++) {
+            int alvo = shard;
+            resultados.add(CompletableFuture.supplyAsync(
+                    () -> executar(alvo, () -> leitura.execute(status -> consulta.get())), consultas));
+        }
+        try {
+            return resultados.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException causa ? causa : e;
+        }
+    }
+
+    /**
+     * Primeiro resultado encontrado entre os shards, para buscas por chave sem o identificador da conta.
+     */
+    public <T> Optional<T> primeiro(Supplier<Optional<T>> consulta) {
+        return emTodos(consulta).stream().flatMap(Optional::stream).findFirst();
+    }
+
+    public <T> List<T> listar(Supplier<List<T>> consulta, Comparator<? super T> ordem) {
+        if (!ativo())
+            return consulta.get();
+        return emTodos(consulta).stream().flatMap(List::stream).sorted(ordem).toList();
+    }
+
+    /**
+     * Paginação sobre todos os shards: cada shard devolve as primeiras {@code offset + tamanho} linhas na ordem pedida
+     * e a página sai da junção delas. O custo cresce com o número da página, como num OFFSET comum.
+     */
+    public <T> Page<T> paginar(Pageable pageable, Function<Pageable, Page<T>> consulta, Comparator<? super T> desempate) {
+        if (!ativo())
+            return consulta.apply(pageable);
+        Comparator<T> ordem = ordem(pageable.getSort(), desempate);
+        if (pageable.isUnpaged()) {
+            List<Page<T>> paginas = emTodos(() -> consulta.apply(pageable));
+            return new PageImpl<>(paginas.stream().flatMap(Page::stream).sorted(ordem).toList());
+        }
+        Pageable prefixo = PageRequest.of(0, Math.toIntExact(pageable.getOffset() + pageable.getPageSize()), pageable.getSort());
+        List<Page<T>> paginas = emTodos(() -> consulta.apply(prefixo));
+        List<T> conteudo = paginas.stream()
+                .flatMap(Page::stream)
+                .sorted(ordem)
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .toList();
+        return new PageImpl<>(conteudo, pageable, paginas.stream().mapToLong(Page::getTotalElements).sum());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Comparator<T> ordem(Sort sort, Comparator<? super T> desempate) {
+        Comparator<T> ordem = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Comparator<T> propriedade = Comparator.comparing(
+                    item -> (Comparable) new BeanWrapperImpl(item).getPropertyValue(order.getProperty()),
+                    Comparator.nullsLast(Comparator.naturalOrder()));
+            ordem = ordem.thenComparing(order.isAscending() ? propriedade : propriedade.reversed());
+        }
+        return ordem.thenComparing(desempate);
+    }
+
+    @PreDestroy
+    void encerrar() {
+        if (consultas != null)
+            consultas.shutdownNow();
+    }
+}
@@ -0,0 +1,8 @@
+package com.bank.service;
+
+/**
+ * O que a fila de um escritor do {@link OperacaoWriter} recebe: os pedidos do shard e as remessas de crédito que os
+ * outros escritores mandam para ele.
+ */
+sealed interface Trabalho permits Pedido, Remessa {
+}
@@ -0,0 +1,274 @@
+package com.bank.service;
+
+import com.bank.enums.StatusLinhaEnum;
+import com.bank.enums.StatusLoteEnum;
+import com.bank.exception.BadRequestException;
+import com.bank.exception.NotFoundException;
+import com.bank.exception.ServiceUnavailableException;
+import com.bank.request.TransferenciaRequest;
+import com.bank.response.ResultadoLinha;
+import com.bank.response.ResultadoTransferenciaLote;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transferências em lote (folha de pagamento): o lote é lido inteiro na submissão, recebe um id e é processado em
+ * segundo plano por {@code bank.transferencia-lote.threads} threads, enquanto o cliente consulta o progresso.
+ *
+ * <p>Cada linha passa por {@link OperacaoService#transferenciaAssincrona}, com as mesmas validações e mensagens da
+ * transferência avulsa. Uma linha só é despachada depois que a linha anterior que toca a mesma conta (como origem ou
+ * destino) foi aplicada no saldo, então transferências que compartilham conta seguem a ordem do lote e as de contas
+ * disjuntas correm em paralelo. A espera pelo group commit não ocupa as threads do lote.</p>
+ *
+ * <p>No modo compensado o lote inteiro é liquidado de uma vez por {@link OperacaoService#transferenciaCompensada}:
+ * só as posições líquidas de cada conta alteram saldo, e todas as pernas são gravadas numa única transação.</p>
+ *
+ * <p>No máximo {@code bank.transferencia-lote.lotes-retidos} lotes ficam em processamento ao mesmo tempo: além
+ * disso a submissão é recusada com 503 antes de o corpo ser lido, em vez de acumular lotes na fila do executor.</p>
+ */
+@Slf4j
+@Service
+public class TransferenciaLoteService {
+    public static final String LOTE_VAZIO = "O lote de transferências não tem nenhuma linha";
+    public static final String LOTE_EXCEDIDO = "O lote de transferências deve ter no máximo ";
+    public static final String LOTE_NAO_ENCONTRADO = "Lote de transferências não encontrado: ";
+    public static final String LOTES_EM_PROCESSAMENTO = "Lotes de transferências em processamento no limite de ";
+    private final OperacaoService operacaoService;
+    private final ExecutorService executor;
+    private final int maximoLinhas;
+    private final int lotesRetidos;
+    private final Map<String, Lote> lotes = new ConcurrentHashMap<>();
+    private final Queue<String> ordemDosLotes = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger emProcessamento = new AtomicInteger();
+
+    public TransferenciaLoteService(OperacaoService operacaoService,
+                                    @Value("${bank.transferencia-lote.threads:8}") int threads,
+                                    @Value("${bank.transferencia-lote.maximo-linhas:100000}") int maximoLinhas,
+                                    @Value("${bank.transferencia-lote.lotes-retidos:100}") int lotesRetidos) {
+        this.operacaoService = operacaoService;
+        AtomicInteger numero = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, tarefa -> {
+            Thread thread = new Thread(tarefa, "transferencia-lote-" + numero.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maximoLinhas = maximoLinhas;
+        this.lotesRetidos = lotesRetidos;
+    }
+
+    public ResultadoTransferenciaLote submeter(Iterator<TransferenciaRequest> linhas, boolean compensar) {
+        // A vaga é reservada antes da leitura e devolvida se o lote for recusado; quem a devolve depois é o Lote, ao
+        // concluir.
+        if (emProcessamento.getAndUpdate(emCurso -> emCurso < lotesRetidos ? emCurso + 1 : emCurso) == lotesRetidos)
+            throw new ServiceUnavailableException(LOTES_EM_PROCESSAMENTO + lotesRetidos);
+        List<TransferenciaRequest> requests = new ArrayList<>();
+        String ilegivel = null;
+        // O iterador vem do parser JSON/NDJSON: um erro de sintaxe aparece aqui e encerra a leitura.
+        try {
+            while (linhas.hasNext()) {
+                if (requests.size() == maximoLinhas)
+                    throw new BadRequestException(LOTE_EXCEDIDO + maximoLinhas + " linhas");
+                requests.add(linhas.next());
+            }
+        } catch (BadRequestException e) {
+            emProcessamento.decrementAndGet();
+            throw e;
+        } catch (RuntimeException e) {
+            ilegivel = CadastroLoteService.LINHA_ILEGIVEL + e.getMessage();
+        }
+        if (requests.isEmpty() && ilegivel == null) {
+            emProcessamento.decrementAndGet();
+            throw new BadRequestException(LOTE_VAZIO);
+        }
+
+        Lote lote = new Lote(UUID.randomUUID().toString(), requests.size() + (ilegivel == null ? 0 : 1), emProcessamento);
+        descartarConcluidos();
+        lotes.put(lote.id, lote);
+        ordemDosLotes.add(lote.id);
+        if (ilegivel != null)
+            lote.rejeitar(requests.size() + 1, null, ilegivel);
+
+        if (compensar) {
+            executor.execute(() -> compensar(lote, requests));
+            log.info("Lote de transferências {} submetido com {} linhas para compensação", lote.id, lote.total);
+            return lote.resultado();
+        }
+        Map<String, CompletableFuture<Void>> ultimaPorConta = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            int numero = i + 1;
+            TransferenciaRequest request = requests.get(i);
+            CompletableFuture<Void> aplicada = CompletableFuture
+                    .allOf(anterior(ultimaPorConta, request.getOrigem()), anterior(ultimaPorConta, request.getDestino()))
+                    .thenRunAsync(() -> executar(lote, numero, request), executor);
+            if (request.getOrigem() != null)
+                ultimaPorConta.put(request.getOrigem(), aplicada);
+            if (request.getDestino() != null)
+                ultimaPorConta.put(request.getDestino(), aplicada);
+        }
+        log.info("Lote de transferências {} submetido com {} linhas", lote.id, lote.total);
+        return lote.resultado();
+    }
+
+    public ResultadoTransferenciaLote consultar(String id) {
+        Lote lote = lotes.get(id);
+        if (lote == null)
+            throw new NotFoundException(LOTE_NAO_ENCONTRADO + id);
+        return lote.resultado();
+    }
+
+    @PreDestroy
+    void parar() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private static CompletableFuture<Void> anterior(Map<String, CompletableFuture<Void>> ultimaPorConta, String conta) {
+        CompletableFuture<Void> anterior = conta == null ? null : ultimaPorConta.get(conta);
+        return anterior == null ? CompletableFuture.completedFuture(null) : anterior;
+    }
+
+    // Retorna assim que o saldo foi aplicado em memória, liberando as linhas seguintes das mesmas contas; o resultado
+    // da linha só é registrado quando a gravação termina.
+    private void executar(Lote lote, int numero, TransferenciaRequest request) {
+        CompletableFuture<Void> gravacao;
+        try {
+            gravacao = operacaoService.transferenciaAssincrona(request);
+        } catch (RuntimeException e) {
+            lote.rejeitar(numero, request.getOrigem(), e.getMessage());
+            return;
+        }
+        gravacao.whenComplete((gravada, erro) -> {
+            if (erro == null) {
+                lote.efetivar();
+            } else {
+                Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+                lote.rejeitar(numero, request.getOrigem(), causa.getMessage());
+            }
+        });
+    }
+
+    private void compensar(Lote lote, List<TransferenciaRequest> requests) {
+        Compensacao compensacao;
+        try {
+            compensacao = operacaoService.transferenciaCompensada(requests);
+        } catch (RuntimeException e) {
+            for (int i = 0; i < requests.size(); i++)
+                lote.rejeitar(i + 1, requests.get(i).getOrigem(), e.getMessage());
+            return;
+        }
+        compensacao.rejeicoes().forEach((indice, motivo) -> lote.rejeitar(indice + 1, requests.get(indice).getOrigem(), motivo));
+        compensacao.gravacao().whenComplete((gravada, erro) -> {
+            if (erro == null) {
+                lote.efetivar(compensacao.aceitas());
+                return;
+            }
+            Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+            for (int i = 0; i < requests.size(); i++) {
+                if (!compensacao.rejeicoes().containsKey(i))
+                    lote.rejeitar(i + 1, requests.get(i).getOrigem(), causa.getMessage());
+            }
+        });
+    }
+
+    private void descartarConcluidos() {
+        Iterator<String> ids = ordemDosLotes.iterator();
+        while (lotes.size() >= lotesRetidos && ids.hasNext()) {
+            String id = ids.next();
+            Lote lote = lotes.get(id);
+            if (lote == null || lote.concluidoEm != null) {
+                lotes.remove(id);
+                ids.remove();
+            }
+        }
+    }
+
+    private static final class Lote {
+        private final String id;
+        private final int total;
+        private final LocalDateTime criadoEm = LocalDateTime.now();
+        private final AtomicInteger efetivadas = new AtomicInteger();
+        private final AtomicInteger rejeitadas = new AtomicInteger();
+        private final AtomicInteger pendentes;
+        private final AtomicInteger emProcessamento;
+        private final Queue<ResultadoLinha> rejeicoes = new ConcurrentLinkedQueue<>();
+        private volatile LocalDateTime concluidoEm;
+
+        private Lote(String id, int total, AtomicInteger emProcessamento) {
+            this.id = id;
+            this.total = total;
+            this.pendentes = new AtomicInteger(total);
+            this.emProcessamento = emProcessamento;
+        }
+
+        private void efetivar() {
+            efetivar(1);
+        }
+
+        private void efetivar(int quantidade) {
+            if (quantidade == 0)
+                return;
+            efetivadas.addAndGet(quantidade);
+            if (pendentes.addAndGet(-quantidade) == 0)
+                concluir();
+        }
+
+        private void rejeitar(int numero, String origem, String erro) {
+            rejeicoes.add(ResultadoLinha.builder()
+                    .linha(numero)
+                    .status(StatusLinhaEnum.REJEITADO)
+                    .identificadorConta(origem)
+                    .erros(List.of(String.valueOf(erro)))
+                    .build());
+            rejeitadas.incrementAndGet();
+            processada();
+        }
+
+        private void processada() {
+            if (pendentes.decrementAndGet() == 0)
+                concluir();
+        }
+
+        // Só a linha que zera os pendentes chega aqui, então a vaga é devolvida uma vez.
+        private void concluir() {
+            concluidoEm = LocalDateTime.now();
+            emProcessamento.decrementAndGet();
+        }
+
+        private ResultadoTransferenciaLote resultado() {
+            LocalDateTime concluido = concluidoEm;
+            int efetivadasAgora = efetivadas.get();
+            int rejeitadasAgora = rejeitadas.get();
+            return ResultadoTransferenciaLote.builder()
+                    .id(id)
+                    .status(concluido == null ? StatusLoteEnum.PROCESSANDO : StatusLoteEnum.CONCLUIDO)
+                    .total(total)
+                    .processadas(efetivadasAgora + rejeitadasAgora)
+                    .efetivadas(efetivadasAgora)
+                    .rejeitadas(rejeitadasAgora)
+                    .criadoEm(criadoEm)
+                    .concluidoEm(concluido)
+                    .rejeicoes(rejeicoes.stream().sorted(Comparator.comparingInt(ResultadoLinha::getLinha)).toList())
+                    .build();
+        }
+    }
+}
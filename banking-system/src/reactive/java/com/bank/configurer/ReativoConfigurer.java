@@ -0,0 +1,36 @@
+package com.bank.configurer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Perfil {@code reactive}: a API é servida pelos controllers WebFlux (Netty) em vez dos controllers MVC, nos mesmos
+ * caminhos, para comparar as duas pilhas sob a mesma carga. Esta classe e os controllers WebFlux ficam em
+ * {@code src/reactive} e só entram no build com {@code mvn -Preactive}; sem ele o WebFlux nem vai para o classpath.
+ *
+ * <p>O acesso a dados continua sendo JPA/JDBC, que bloqueia. Essas chamadas rodam no {@link Scheduler} daqui, com
+ * {@code bank.reativo.threads-jpa} threads (o tamanho do pool do Hikari, já que mais threads só esperariam por
+ * conexão) e uma fila limitada, e nunca nas threads de evento do Netty.</p>
+ */
+@Profile(ReativoConfigurer.PERFIL)
+@Configuration
+public class ReativoConfigurer {
+    public static final String PERFIL = BanckWebMvcConfigurer.PERFIL_REATIVO;
+
+    // Com o Tomcat no classpath (pilha MVC) o Spring Boot serviria o WebFlux no Tomcat; o perfil usa Netty.
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler jpaScheduler(@Value("${bank.reativo.threads-jpa:10}") int threads,
+                                  @Value("${bank.reativo.fila-jpa:10000}") int fila) {
+        return Schedulers.newBoundedElastic(threads, fila, "jpa");
+    }
+}
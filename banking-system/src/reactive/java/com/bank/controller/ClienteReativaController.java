@@ -0,0 +1,97 @@
+package com.bank.controller;
+
+import com.bank.configurer.ReativoConfigurer;
+import com.bank.domain.Cliente;
+import com.bank.domain.Conta;
+import com.bank.request.ClienteLoteRequest;
+import com.bank.request.ClienteRequest;
+import com.bank.request.ClienteRequestUpdate;
+import com.bank.response.ClienteResumo;
+import com.bank.response.ResultadoLote;
+import com.bank.service.CadastroLoteService;
+import com.bank.service.ClienteService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+/**
+ * Versão WebFlux do {@link ClienteController}, ativa no perfil {@code reactive}.
+ */
+@Profile(ReativoConfigurer.PERFIL)
+@RequiredArgsConstructor
+@RequestMapping("clientes")
+@RestController
+public class ClienteReativaController {
+    private final ClienteService service;
+    private final CadastroLoteService cadastroLote;
+    private final Scheduler jpaScheduler;
+
+    @GetMapping("/all")
+    public Flux<ClienteResumo> listAllNoPageable() {
+        return bloqueante(service::listAllNoPageable).flatMapIterable(Function.identity());
+    }
+
+    @GetMapping("/consultar-conta/{id}")
+    public Mono<Conta> getAccountById(@PathVariable long id) {
+        return bloqueante(() -> service.getAccountById(id));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ClienteResumo> findById(@PathVariable long id) {
+        return bloqueante(() -> service.consultar(id));
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Cliente> save(@RequestBody ClienteRequest clienteRequest) {
+        return bloqueante(() -> service.save(clienteRequest));
+    }
+
+    // Array JSON ou NDJSON: o corpo é decodificado sob demanda enquanto o cadastro consome as linhas, em blocos.
+    // Uma linha ilegível chega ao cadastro com a mensagem do parser, como no controller MVC.
+    @PostMapping(value = "/lote", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResultadoLote> saveAll(@RequestBody Flux<ClienteLoteRequest> corpo) {
+        Flux<ClienteLoteRequest> linhas = corpo.onErrorMap(ServerWebInputException.class,
+                e -> new IllegalArgumentException(NestedExceptionUtils.getMostSpecificCause(e).getMessage(), e));
+        return bloqueante(() -> cadastroLote.cadastrarClientes(linhas.toIterable().iterator()));
+    }
+
+    @PutMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> update(@PathVariable long id, @RequestBody @Valid ClienteRequestUpdate request) {
+        return bloqueante(() -> service.update(id, request));
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> delete(@PathVariable long id) {
+        return bloqueante(() -> service.delete(id));
+    }
+
+    private <T> Mono<T> bloqueante(Callable<T> chamada) {
+        return Mono.fromCallable(chamada).subscribeOn(jpaScheduler);
+    }
+
+    private Mono<Void> bloqueante(Runnable chamada) {
+        return Mono.<Void>fromRunnable(chamada).subscribeOn(jpaScheduler);
+    }
+}
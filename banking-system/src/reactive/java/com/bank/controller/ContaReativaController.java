@@ -0,0 +1,91 @@
+package com.bank.controller;
+
+import com.bank.configurer.ReativoConfigurer;
+import com.bank.domain.Conta;
+import com.bank.request.ContaRequest;
+import com.bank.response.ResultadoLote;
+import com.bank.service.CadastroLoteService;
+import com.bank.service.ContaService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+/**
+ * Versão WebFlux do {@link ContaController}, ativa no perfil {@code reactive}.
+ */
+@Profile(ReativoConfigurer.PERFIL)
+@RequiredArgsConstructor
+@RequestMapping("contas")
+@RestController
+public class ContaReativaController {
+    private final ContaService service;
+    private final CadastroLoteService cadastroLote;
+    private final Scheduler jpaScheduler;
+
+    @GetMapping("/all")
+    public Flux<Conta> listAllNoPageable() {
+        return bloqueante(service::listAllNoPageable).flatMapIterable(Function.identity());
+    }
+
+    // Mesmo padrão do BanckWebMvcConfigurer: primeira página com 3 contas.
+    @GetMapping
+    public Mono<Page<Conta>> listAll(@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "3") int size) {
+        return bloqueante(() -> service.list(PageRequest.of(page, size)));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<Conta> findById(@PathVariable long id) {
+        return bloqueante(() -> service.findByIdOrThrowBadRequestException(id));
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Conta> save() {
+        return bloqueante(service::save);
+    }
+
+    @PostMapping("/lote")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<ResultadoLote> saveAll(@RequestParam int quantidade) {
+        return bloqueante(() -> cadastroLote.abrirContas(quantidade));
+    }
+
+    @PutMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> update(@PathVariable long id, @RequestBody @Valid ContaRequest request) {
+        return bloqueante(() -> service.update(id, request));
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> delete(@PathVariable long id) {
+        return bloqueante(() -> service.delete(id));
+    }
+
+    private <T> Mono<T> bloqueante(Callable<T> chamada) {
+        return Mono.fromCallable(chamada).subscribeOn(jpaScheduler);
+    }
+
+    private Mono<Void> bloqueante(Runnable chamada) {
+        return Mono.<Void>fromRunnable(chamada).subscribeOn(jpaScheduler);
+    }
+}
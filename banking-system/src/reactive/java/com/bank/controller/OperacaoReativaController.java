@@ -0,0 +1,159 @@
+package com.bank.controller;
+
+import com.bank.configurer.ReativoConfigurer;
+import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
+import com.bank.domain.Operacao;
+import com.bank.domain.ResumoDiario;
+import com.bank.request.OperacaoRequest;
+import com.bank.request.TransferenciaRequest;
+import com.bank.response.ExtratoLinha;
+import com.bank.response.ExtratoPagina;
+import com.bank.response.ResultadoTransferenciaLote;
+import com.bank.service.IdempotenciaService;
+import com.bank.service.OperacaoService;
+import com.bank.service.TransferenciaLoteService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static com.bank.controller.OperacaoController.IDEMPOTENCY_KEY;
+
+/**
+ * Versão WebFlux do {@link OperacaoController}, ativa no perfil {@code reactive}. Depósito, saque e transferência
+ * validam e aplicam o saldo com as mesmas regras do serviço e não seguram thread enquanto o group commit grava: a
+ * resposta sai quando o future da gravação completa.
+ */
+@Profile(ReativoConfigurer.PERFIL)
+@RequiredArgsConstructor
+@RequestMapping("operacao")
+@RestController
+public class OperacaoReativaController {
+    static final int TAMANHO_PAGINA_STREAM = 200;
+    private final OperacaoService service;
+    private final IdempotenciaService idempotencia;
+    private final TransferenciaLoteService transferenciaLote;
+    private final Scheduler jpaScheduler;
+
+    @GetMapping("/{identificador}")
+    public Flux<Operacao> extrato(@PathVariable String identificador) {
+        return bloqueante(() -> service.extrato(identificador)).flatMapIterable(Function.identity());
+    }
+
+    @GetMapping("/{identificador}/pagina")
+    public Mono<ExtratoPagina> extrato(@PathVariable String identificador,
+                                       @RequestParam(required = false) String cursor,
+                                       @RequestParam(defaultValue = "50") int limite,
+                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate) {
+        return bloqueante(() -> service.extrato(identificador, cursor, limite, de, ate));
+    }
+
+    // Cada página é buscada só quando o cliente consumiu a anterior, então um cliente lento não acumula o extrato em memória.
+    @GetMapping(value = "/{identificador}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ExtratoLinha> extratoStream(@PathVariable String identificador,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate) {
+        Function<String, Mono<ExtratoPagina>> pagina = cursor ->
+                bloqueante(() -> service.extrato(identificador, cursor, TAMANHO_PAGINA_STREAM, de, ate));
+        return pagina.apply(null)
+                .expand(anterior -> anterior.getProximoCursor() == null ? Mono.empty() : pagina.apply(anterior.getProximoCursor()))
+                .concatMapIterable(ExtratoPagina::getOperacoes, 1);
+    }
+
+    @GetMapping("/{identificador}/resumo-diario")
+    public Mono<List<ResumoDiario>> resumoDiario(@PathVariable String identificador,
+                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate) {
+        return bloqueante(() -> service.resumoDiario(identificador, de, ate));
+    }
+
+    @GetMapping("/consulta-saldo/{identificador}")
+    public Mono<Dinheiro> saldo(@PathVariable String identificador) {
+        return bloqueante(() -> service.saldo(identificador));
+    }
+
+    @GetMapping("/consulta-saldo/{identificador}/em")
+    public Mono<BigDecimal> saldoEm(@PathVariable String identificador,
+                                    @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime data) {
+        return bloqueante(() -> service.saldoEm(identificador, data));
+    }
+
+    @PostMapping("/deposito")
+    public Mono<Conta> deposito(@RequestBody OperacaoRequest request,
+                                @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String chave) {
+        if (chave != null)
+            return bloqueante(() -> idempotencia.executar("deposito", chave, request, Conta.class, () -> service.deposito(request)));
+        return gravacao(() -> service.depositoAssincrono(request));
+    }
+
+    @PostMapping("/saque")
+    public Mono<Conta> saque(@RequestBody OperacaoRequest request,
+                             @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String chave) {
+        if (chave != null)
+            return bloqueante(() -> idempotencia.executar("saque", chave, request, Conta.class, () -> service.saque(request)));
+        return gravacao(() -> service.saqueAssincrono(request));
+    }
+
+    @PostMapping("/transferencia")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> transferencia(@RequestBody TransferenciaRequest request,
+                                    @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String chave) {
+        if (chave != null) {
+            return bloqueante(() -> idempotencia.executar("transferencia", chave, request, Void.class, () -> {
+                service.transferencia(request);
+                return null;
+            })).then();
+        }
+        return gravacao(() -> service.transferenciaAssincrona(request)).then();
+    }
+
+    @PostMapping(value = "/transferencia/lote", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public Mono<ResultadoTransferenciaLote> transferenciaLote(@RequestBody Flux<TransferenciaRequest> corpo,
+                                                              @RequestParam(defaultValue = "false") boolean compensar) {
+        Flux<TransferenciaRequest> linhas = corpo.onErrorMap(ServerWebInputException.class,
+                e -> new IllegalArgumentException(NestedExceptionUtils.getMostSpecificCause(e).getMessage(), e));
+        return bloqueante(() -> transferenciaLote.submeter(linhas.toIterable().iterator(), compensar));
+    }
+
+    @GetMapping("/transferencia/lote/{id}")
+    public Mono<ResultadoTransferenciaLote> transferenciaLote(@PathVariable String id) {
+        return Mono.fromCallable(() -> transferenciaLote.consultar(id));
+    }
+
+    private <T> Mono<T> bloqueante(Callable<T> chamada) {
+        return Mono.fromCallable(chamada).subscribeOn(jpaScheduler);
+    }
+
+    // A busca das contas ainda passa pelo JPA; a espera pelo commit não ocupa thread nenhuma. O future completa na
+    // thread do writer, então a resposta é serializada em outra para não atrasar o próximo lote.
+    private <T> Mono<T> gravacao(Callable<CompletableFuture<T>> operacao) {
+        return bloqueante(operacao).flatMap(Mono::fromFuture).publishOn(Schedulers.parallel());
+    }
+}
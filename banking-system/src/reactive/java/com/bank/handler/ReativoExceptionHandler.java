@@ -0,0 +1,133 @@
+package com.bank.handler;
+
+import com.bank.configurer.ReativoConfigurer;
+import com.bank.exception.BadRequestException;
+import com.bank.exception.ConflictException;
+import com.bank.exception.ExceptionDetails;
+import com.bank.exception.NotFoundException;
+import com.bank.exception.ServiceUnavailableException;
+import com.bank.exception.ValidationExceptionDetails;
+import com.bank.service.Metricas;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.bank.handler.GlobalExceptionHandler.BAD_REQUEST_EXCEPTION_CHECK_THE_DOCUMENTATION;
+import static com.bank.handler.GlobalExceptionHandler.BAD_REQUEST_EXCEPTION_INVALID_FIELDS;
+import static com.bank.handler.GlobalExceptionHandler.CHECK_THE_FIELD_S_ERROR;
+import static com.bank.handler.GlobalExceptionHandler.CONFLICT_EXCEPTION_TRY_AGAIN;
+import static com.bank.handler.GlobalExceptionHandler.NOT_FOUND_EXCEPTION_CHECK_THE_IDENTIFIER;
+import static com.bank.handler.GlobalExceptionHandler.SERVICE_UNAVAILABLE_EXCEPTION_TRY_AGAIN_LATER;
+
+/**
+ * Mesmas respostas de erro do {@link GlobalExceptionHandler} para os controllers WebFlux do perfil {@code reactive}.
+ */
+@Profile(ReativoConfigurer.PERFIL)
+@RequiredArgsConstructor
+@RestControllerAdvice
+public class ReativoExceptionHandler {
+    private final Metricas metricas;
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<ExceptionDetails> handleBadRequestException(BadRequestException ex) {
+        metricas.erro(ex, HttpStatus.BAD_REQUEST.value());
+        return new ResponseEntity<>(
+                ExceptionDetails.builder()
+                        .timestamp(LocalDateTime.now())
+                        .status(HttpStatus.BAD_REQUEST.value())
+                        .title(BAD_REQUEST_EXCEPTION_CHECK_THE_DOCUMENTATION)
+                        .details(ex.getMessage())
+                        .developerMessage(ex.getClass().getName())
+                        .build(), HttpStatus.BAD_REQUEST
+        );
+    }
+
+    @ExceptionHandler(NotFoundException.class)
+    public ResponseEntity<ExceptionDetails> handleNotFoundException(NotFoundException ex) {
+        metricas.erro(ex, HttpStatus.NOT_FOUND.value());
+        return new ResponseEntity<>(
+                ExceptionDetails.builder()
+                        .timestamp(LocalDateTime.now())
+                        .status(HttpStatus.NOT_FOUND.value())
+                        .title(NOT_FOUND_EXCEPTION_CHECK_THE_IDENTIFIER)
+                        .details(ex.getMessage())
+                        .developerMessage(ex.getClass().getName())
+                        .build(), HttpStatus.NOT_FOUND
+        );
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ExceptionDetails> handleServiceUnavailableException(ServiceUnavailableException ex) {
+        metricas.erro(ex, HttpStatus.SERVICE_UNAVAILABLE.value());
+        return new ResponseEntity<>(
+                ExceptionDetails.builder()
+                        .timestamp(LocalDateTime.now())
+                        .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                        .title(SERVICE_UNAVAILABLE_EXCEPTION_TRY_AGAIN_LATER)
+                        .details(ex.getMessage())
+                        .developerMessage(ex.getClass().getName())
+                        .build(), HttpStatus.SERVICE_UNAVAILABLE
+        );
+    }
+
+    @ExceptionHandler({ConflictException.class, OptimisticLockingFailureException.class})
+    public ResponseEntity<ExceptionDetails> handleConflictException(RuntimeException ex) {
+        metricas.erro(ex, HttpStatus.CONFLICT.value());
+        return new ResponseEntity<>(
+                ExceptionDetails.builder()
+                        .timestamp(LocalDateTime.now())
+                        .status(HttpStatus.CONFLICT.value())
+                        .title(CONFLICT_EXCEPTION_TRY_AGAIN)
+                        .details(ex.getMessage())
+                        .developerMessage(ex.getClass().getName())
+                        .build(), HttpStatus.CONFLICT
+        );
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ValidationExceptionDetails> handleWebExchangeBindException(WebExchangeBindException ex) {
+        metricas.erro(ex, HttpStatus.BAD_REQUEST.value());
+        List<FieldError> fieldErrors = ex.getBindingResult().getFieldErrors();
+
+        String fieldsError = fieldErrors.stream().map(FieldError::getField).collect(Collectors.joining(", "));
+        String fieldsMessage = fieldErrors.stream().map(FieldError::getDefaultMessage).collect(Collectors.joining(", "));
+
+        return new ResponseEntity<>(
+                ValidationExceptionDetails.builder()
+                        .timestamp(LocalDateTime.now())
+                        .status(HttpStatus.BAD_REQUEST.value())
+                        .title(BAD_REQUEST_EXCEPTION_INVALID_FIELDS)
+                        .details(CHECK_THE_FIELD_S_ERROR)
+                        .developerMessage(ex.getClass().getName())
+                        .fields(fieldsError)
+                        .fieldsMessage(fieldsMessage)
+                        .build(), HttpStatus.BAD_REQUEST
+        );
+    }
+
+    // Equivalente ao handleExceptionInternal do MVC: corpo ilegível, parâmetro inválido, método não suportado etc.
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<ExceptionDetails> handleResponseStatusException(ResponseStatusException ex) {
+        metricas.erro(ex, ex.getStatusCode().value());
+        return new ResponseEntity<>(
+                ExceptionDetails.builder()
+                        .timestamp(LocalDateTime.now())
+                        .status(ex.getStatusCode().value())
+                        .title(ex.getReason())
+                        .details(ex.getMessage())
+                        .developerMessage(ex.getClass().getName())
+                        .build(), ex.getHeaders(), ex.getStatusCode()
+        );
+    }
+}
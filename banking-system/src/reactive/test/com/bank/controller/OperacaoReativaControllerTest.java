@@ -0,0 +1,109 @@
+package com.bank.controller;
+
+import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
+import com.bank.exception.BadRequestException;
+import com.bank.request.OperacaoRequest;
+import com.bank.request.TransferenciaRequest;
+import com.bank.response.ExtratoLinha;
+import com.bank.response.ExtratoPagina;
+import com.bank.service.IdempotenciaService;
+import com.bank.service.OperacaoService;
+import com.bank.service.TransferenciaLoteService;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.bank.controller.OperacaoReativaController.TAMANHO_PAGINA_STREAM;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(MockitoExtension.class)
+class OperacaoReativaControllerTest {
+    private static final String IDENTIFICADOR_CONTA = "12345-6";
+    @Mock
+    private OperacaoService operacaoService;
+    @Mock
+    private IdempotenciaService idempotenciaService;
+    @Mock
+    private TransferenciaLoteService transferenciaLoteService;
+    private OperacaoReativaController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new OperacaoReativaController(operacaoService, idempotenciaService, transferenciaLoteService, Schedulers.immediate());
+    }
+
+    @Test
+    @DisplayName("deposito should emit conta only when the gravacao future completes")
+    void depositoShouldEmitContaOnlyWhenGravacaoFutureCompletes() {
+        OperacaoRequest request = OperacaoRequest.builder().identificador(IDENTIFICADOR_CONTA).valor(BigDecimal.TEN).build();
+        CompletableFuture<Conta> gravacao = new CompletableFuture<>();
+        Mockito.when(operacaoService.depositoAssincrono(request)).thenReturn(gravacao);
+
+        CompletableFuture<Conta> resposta = controller.deposito(request, null).toFuture();
+        Assertions.assertThat(resposta).as("A resposta não deve sair antes do commit").isNotDone();
+
+        Conta conta = Conta.builder().id(1L).identificadorConta(IDENTIFICADOR_CONTA).saldo(Dinheiro.of(BigDecimal.TEN)).build();
+        gravacao.complete(conta);
+
+        assertEquals(conta, resposta.join(), "A resposta deve ser a conta devolvida pela gravação");
+        Mockito.verify(operacaoService, Mockito.never()).deposito(ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("saque should propagate BadRequestException from the service")
+    void saqueShouldPropagateBadRequestExceptionFromService() {
+        OperacaoRequest request = OperacaoRequest.builder().identificador(IDENTIFICADOR_CONTA).valor(BigDecimal.TEN).build();
+        Mockito.when(operacaoService.saqueAssincrono(request)).thenThrow(new BadRequestException("Saldo insuficiente"));
+
+        Assertions.assertThatThrownBy(() -> controller.saque(request, null).block())
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Saldo insuficiente");
+    }
+
+    @Test
+    @DisplayName("transferencia should go through idempotencia when Idempotency-Key is present")
+    void transferenciaShouldGoThroughIdempotenciaWhenIdempotencyKeyIsPresent() {
+        TransferenciaRequest request = TransferenciaRequest.builder().origem("12345-6").destino("12345-7").valor(BigDecimal.TEN).build();
+
+        controller.transferencia(request, "chave-1").block();
+
+        Mockito.verify(idempotenciaService).executar(ArgumentMatchers.eq("transferencia"), ArgumentMatchers.eq("chave-1"),
+                ArgumentMatchers.eq(request), ArgumentMatchers.eq(Void.class), ArgumentMatchers.any());
+        Mockito.verify(operacaoService, Mockito.never()).transferenciaAssincrona(ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("extratoStream should fetch the next page only when requested")
+    void extratoStreamShouldFetchNextPageOnlyWhenRequested() {
+        Mockito.when(operacaoService.extrato(IDENTIFICADOR_CONTA, null, TAMANHO_PAGINA_STREAM, null, null))
+                .thenReturn(new ExtratoPagina(List.of(linha(1L), linha(2L)), "c1"));
+        Mockito.when(operacaoService.extrato(IDENTIFICADOR_CONTA, "c1", TAMANHO_PAGINA_STREAM, null, null))
+                .thenReturn(new ExtratoPagina(List.of(linha(3L)), null));
+
+        List<ExtratoLinha> primeira = controller.extratoStream(IDENTIFICADOR_CONTA, null, null).take(1).collectList().block();
+
+        Assertions.assertThat(primeira).extracting(ExtratoLinha::getId).containsExactly(1L);
+        Mockito.verify(operacaoService, Mockito.never()).extrato(IDENTIFICADOR_CONTA, "c1", TAMANHO_PAGINA_STREAM, null, null);
+
+        List<ExtratoLinha> todas = controller.extratoStream(IDENTIFICADOR_CONTA, null, null).collectList().block();
+
+        Assertions.assertThat(todas).as("O stream deve percorrer todas as páginas em ordem")
+                .extracting(ExtratoLinha::getId).containsExactly(1L, 2L, 3L);
+    }
+
+    private static ExtratoLinha linha(long id) {
+        return ExtratoLinha.builder().id(id).valor(BigDecimal.ONE).saldo(BigDecimal.valueOf(id)).build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.bank.configurer;
+
+import com.bank.service.ConsistenciaLeitura;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+class RoteamentoDataSourceTest {
+    private JdbcTemplate jdbc;
+    private TransactionTemplate escrita;
+    private TransactionTemplate leitura;
+
+    // Cada banco H2 em memória responde com o próprio nome, o que mostra para onde a transação foi.
+    @BeforeEach
+    void setUp() {
+        DataSource primario = banco("primario");
+        DataSource replica = banco("replica");
+        DataSource roteado = new LazyConnectionDataSourceProxy(new RoteamentoDataSource(primario, List.of(replica)));
+        jdbc = new JdbcTemplate(roteado);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(roteado);
+        escrita = new TransactionTemplate(transactionManager);
+        leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+    }
+
+    @Test
+    @DisplayName("read-only transactions should go to the replica and the others to the primary")
+    void readOnlyTransactionsShouldGoToTheReplicaAndTheOthersToThePrimary() {
+        Assertions.assertEquals("REPLICA", leitura.execute(status -> banco()), "Leituras só-leitura devem ir para a réplica");
+        Assertions.assertEquals("PRIMARIO", escrita.execute(status -> banco()), "Transações de escrita devem ir para o primário");
+        Assertions.assertEquals("PRIMARIO", banco(), "Sem transação o destino é o primário");
+    }
+
+    @Test
+    @DisplayName("a read of a key written within the window should go to the primary")
+    void aReadOfAKeyWrittenWithinTheWindowShouldGoToThePrimary() {
+        ConsistenciaLeitura consistencia = new ConsistenciaLeitura(60_000);
+        consistencia.registrarEscrita("12345-6");
+
+        Assertions.assertEquals("PRIMARIO", leitura.execute(status -> consistencia.ler("12345-6", () -> banco())),
+                "A conta recém-escrita deve ser lida do primário");
+        Assertions.assertEquals("REPLICA", leitura.execute(status -> consistencia.ler("12345-7", () -> banco())),
+                "As outras contas continuam na réplica");
+    }
+
+    @Test
+    @DisplayName("reads should alternate between replicas")
+    void readsShouldAlternateBetweenReplicas() {
+        DataSource roteado = new LazyConnectionDataSourceProxy(
+                new RoteamentoDataSource(banco("primario"), List.of(banco("replica"), banco("segunda"))));
+        TransactionTemplate leituraEmDuas = new TransactionTemplate(new DataSourceTransactionManager(roteado));
+        leituraEmDuas.setReadOnly(true);
+        JdbcTemplate jdbcEmDuas = new JdbcTemplate(roteado);
+
+        List<String> destinos = List.of(
+                leituraEmDuas.execute(status -> jdbcEmDuas.queryForObject("SELECT DATABASE()", String.class)),
+                leituraEmDuas.execute(status -> jdbcEmDuas.queryForObject("SELECT DATABASE()", String.class)));
+
+        Assertions.assertEquals(List.of("REPLICA", "SEGUNDA"), destinos, "As réplicas devem ser usadas em rodízio");
+    }
+
+    private String banco() {
+        return jdbc.queryForObject("SELECT DATABASE()", String.class);
+    }
+
+    private static DataSource banco(String nome) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + nome, "sa", "");
+    }
+}
@@ -0,0 +1,62 @@
+package com.bank.configurer;
+
+import com.bank.service.Shards;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+class ShardDataSourceTest {
+    private JdbcTemplate jdbc;
+    private TransactionTemplate transacao;
+    private Shards shards;
+
+    // Cada banco H2 em memória responde com o próprio nome, o que mostra para onde a conexão foi.
+    @BeforeEach
+    void setUp() {
+        DataSource roteado = new LazyConnectionDataSourceProxy(new ShardDataSource(List.of(banco("shard0"), banco("shard1"))));
+        jdbc = new JdbcTemplate(roteado);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(roteado);
+        transacao = new TransactionTemplate(transactionManager);
+        shards = new Shards(List.of("shard0", "shard1"), transactionManager);
+    }
+
+    @Test
+    @DisplayName("connections should go to the shard marked on the thread and to shard 0 without a mark")
+    void connectionsShouldGoToTheShardMarkedOnTheThreadAndToShard0WithoutAMark() {
+        Assertions.assertEquals("SHARD1", shards.executar(1, () -> banco()), "A conexão deve ir ao shard marcado");
+        Assertions.assertEquals("SHARD0", banco(), "Sem marca o destino é o shard 0");
+    }
+
+    @Test
+    @DisplayName("a transaction should stay on the shard of its first statement")
+    void aTransactionShouldStayOnTheShardOfItsFirstStatement() {
+        List<String> destinos = transacao.execute(status -> List.of(
+                shards.executar(1, () -> banco()),
+                shards.executar(0, () -> banco())));
+
+        Assertions.assertEquals(List.of("SHARD1", "SHARD1"), destinos, "A conexão da transação não pode trocar de shard");
+    }
+
+    @Test
+    @DisplayName("emTodos should query every shard")
+    void emTodosShouldQueryEveryShard() {
+        Assertions.assertEquals(List.of("SHARD0", "SHARD1"), shards.emTodos(() -> banco()));
+    }
+
+    private String banco() {
+        return jdbc.queryForObject("SELECT DATABASE()", String.class);
+    }
+
+    private static DataSource banco(String nome) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + nome, "sa", "");
+    }
+}
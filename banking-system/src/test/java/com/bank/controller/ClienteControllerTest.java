@@ -2,9 +2,15 @@ package com.bank.controller;
 
 import com.bank.domain.Cliente;
 import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
+import com.bank.request.ClienteLoteRequest;
 import com.bank.request.ClienteRequest;
 import com.bank.request.ClienteRequestUpdate;
+import com.bank.response.ClienteResumo;
+import com.bank.response.ResultadoLote;
+import com.bank.service.CadastroLoteService;
 import com.bank.service.ClienteService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -14,13 +20,19 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
-import java.math.BigDecimal;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 @ExtendWith(SpringExtension.class)
@@ -28,16 +40,20 @@ class ClienteControllerTest {
     public static final String IDENTIFICADOR_CONTA = "12345-6";
     @Mock
     private ClienteService clienteService;
+    @Mock
+    private CadastroLoteService cadastroLote;
+    @Spy
+    private ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
     @InjectMocks
     private ClienteController clienteController;
 
     @BeforeEach
     void setUp() {
-        Mockito.when(clienteService.listAllNoPageable()).thenReturn(List.of(createCliente()));
+        Mockito.when(clienteService.listAllNoPageable()).thenReturn(List.of(createClienteResumo()));
 
         Mockito.when(clienteService.getAccountById(ArgumentMatchers.anyLong())).thenReturn(createConta());
 
-        Mockito.when(clienteService.findByIdOrThrowBadRequestException(ArgumentMatchers.anyLong())).thenReturn(createCliente());
+        Mockito.when(clienteService.consultar(ArgumentMatchers.anyLong())).thenReturn(createClienteResumo());
 
         Mockito.when(clienteService.save(ArgumentMatchers.any(ClienteRequest.class))).thenReturn(createCliente());
 
@@ -49,7 +65,7 @@ class ClienteControllerTest {
     @Test
     @DisplayName("listAllNonPageable returns list of clientes when successful")
     void listAllNoPageableShouldReturnsClienteOfListWhenSuccessful() {
-        List<Cliente> clienteList = clienteController.listAllNoPageable().getBody();
+        List<ClienteResumo> clienteList = clienteController.listAllNoPageable().getBody();
 
         Assertions.assertThat(clienteList).isNotEmpty().isNotNull().hasSize(1);
     }
@@ -67,13 +83,32 @@ class ClienteControllerTest {
     @Test
     @DisplayName("findById should return cliente find by id when successful")
     void findByIdhouldReturnClienteFindByIdWhenSuccessful() {
-        Cliente cliente = clienteController.findById(1L).getBody();
+        ClienteResumo cliente = clienteController.findById(1L).getBody();
 
-        Assertions.assertThat(cliente).isNotNull().isEqualTo(createCliente());
+        Assertions.assertThat(cliente).isNotNull();
         Assertions.assertThat(cliente.getId()).isNotNull().isEqualTo(createCliente().getId());
         Assertions.assertThat(cliente.getDocumento()).isNotNull().isEqualTo(createCliente().getDocumento());
     }
 
+    @Test
+    @DisplayName("saveAll should read every NDJSON line and return lote result when successful")
+    void saveAllShouldReadEveryNdjsonLineAndReturnLoteResultWhenSuccessful() throws IOException {
+        List<String> documentos = new ArrayList<>();
+        Mockito.when(cadastroLote.cadastrarClientes(ArgumentMatchers.any())).thenAnswer(invocation -> {
+            Iterator<ClienteLoteRequest> linhas = invocation.getArgument(0);
+            linhas.forEachRemaining(linha -> documentos.add(linha.getDocumento()));
+            return ResultadoLote.builder().total(documentos.size()).criados(documentos.size()).linhas(List.of()).build();
+        });
+        String corpo = "{\"nome\":\"Ana\",\"documento\":\"11111111111\"}\n{\"nome\":\"Bia\",\"documento\":\"22222222222\",\"idConta\":1}\n";
+
+        ResponseEntity<ResultadoLote> response = clienteController.saveAll(new ByteArrayInputStream(corpo.getBytes(StandardCharsets.UTF_8)));
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(documentos).containsExactly("11111111111", "22222222222");
+        Assertions.assertThat(response.getBody()).isNotNull();
+        Assertions.assertThat(response.getBody().getCriados()).isEqualTo(2);
+    }
+
     @Test
     @DisplayName("save should return cliente when successful")
     void saveShouldReturnClienteWhenSuccessful() {
@@ -110,8 +145,14 @@ class ClienteControllerTest {
                 .updatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS)).build();
     }
 
+    private static ClienteResumo createClienteResumo() {
+        Cliente cliente = createCliente();
+        return ClienteResumo.builder().id(cliente.getId()).nome(cliente.getNome()).documento(cliente.getDocumento())
+                .createdAt(cliente.getCreatedAt()).updatedAt(cliente.getUpdatedAt()).conta(cliente.getConta()).build();
+    }
+
     private static Conta createConta() {
-        return Conta.builder().id(1L).identificadorConta(IDENTIFICADOR_CONTA).saldo(BigDecimal.ZERO)
+        return Conta.builder().id(1L).identificadorConta(IDENTIFICADOR_CONTA).saldo(Dinheiro.ZERO)
                 .createdAt(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS))
                 .updatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS)).build();
     }
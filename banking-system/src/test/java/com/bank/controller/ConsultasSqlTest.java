@@ -0,0 +1,141 @@
+package com.bank.controller;
+
+import com.bank.domain.Cliente;
+import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
+import com.bank.domain.Operacao;
+import com.bank.enums.NaturezaEnum;
+import com.bank.enums.OperacaoEnum;
+import com.bank.repository.ClienteRepository;
+import com.bank.repository.ContaRepository;
+import com.bank.repository.OperacaoRepository;
+import com.bank.service.ContaCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Conta os comandos SQL e as entidades carregadas por endpoint de consulta, pelas estatísticas do Hibernate. Os
+ * números não dependem da quantidade de linhas: um N+1 ou uma consulta que volte a carregar entidades quebra o build.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:consultas-sql",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ConsultasSqlTest {
+    private static final int CLIENTES = 3;
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ContaRepository contaRepository;
+    @Autowired
+    private ClienteRepository clienteRepository;
+    @Autowired
+    private OperacaoRepository operacaoRepository;
+    @Autowired
+    private ContaCache cache;
+    private Statistics statistics;
+    private final List<Conta> contas = new ArrayList<>();
+    private final List<Cliente> clientes = new ArrayList<>();
+
+    @BeforeAll
+    void popular() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < CLIENTES; i++) {
+                Conta conta = contaRepository.save(Conta.builder().identificadorConta("9900" + i + "-0").saldo(Dinheiro.ofCentavos(1_000)).build());
+                contas.add(conta);
+                clientes.add(clienteRepository.save(Cliente.builder().nome("Cliente " + i).documento("9900000000" + i).conta(conta).build()));
+                for (int j = 0; j < 3; j++)
+                    operacaoRepository.save(Operacao.builder().tipo(OperacaoEnum.DEPOSITO).natureza(NaturezaEnum.CREDITO)
+                            .valor(BigDecimal.valueOf(1_000, 2)).conta(conta).build());
+            }
+        });
+    }
+
+    @BeforeEach
+    void setUp() {
+        contas.forEach(cache::invalidar);
+    }
+
+    @Test
+    @DisplayName("contas listing should run one statement without loading entities")
+    void contasListingShouldRunOneStatementWithoutLoadingEntities() throws Exception {
+        medir(get("/contas/all"));
+        assertConsultas("/contas/all", 1);
+
+        medir(get("/contas").param("size", "2").param("sort", "id,desc"));
+        assertConsultas("/contas paginado", 2);
+    }
+
+    @Test
+    @DisplayName("clientes listing should read the contas in the same statement")
+    void clientesListingShouldReadTheContasInTheSameStatement() throws Exception {
+        medir(get("/clientes/all"));
+        assertConsultas("/clientes/all", 1);
+
+        medir(get("/clientes/" + clientes.get(0).getId()));
+        assertConsultas("/clientes/{id}", 1);
+    }
+
+    @Test
+    @DisplayName("saldo should be served from the cache after the first lookup")
+    void saldoShouldBeServedFromTheCacheAfterTheFirstLookup() throws Exception {
+        String identificador = contas.get(0).getIdentificadorConta();
+
+        medir(get("/operacao/consulta-saldo/" + identificador));
+        assertConsultas("/operacao/consulta-saldo sem cache", 1);
+
+        medir(get("/operacao/consulta-saldo/" + identificador));
+        assertConsultas("/operacao/consulta-saldo com cache", 0);
+    }
+
+    @Test
+    @DisplayName("extrato should read conta and operacoes as projections")
+    void extratoShouldReadContaAndOperacoesAsProjections() throws Exception {
+        String identificador = contas.get(0).getIdentificadorConta();
+
+        medir(get("/operacao/" + identificador));
+        assertConsultas("/operacao/{identificador}", 2);
+
+        // Conta, página, snapshot anterior e soma do movimento antes da página.
+        medir(get("/operacao/" + identificador + "/pagina").param("limite", "2"));
+        assertConsultas("/operacao/{identificador}/pagina", 4);
+    }
+
+    private void medir(MockHttpServletRequestBuilder requisicao) throws Exception {
+        statistics.clear();
+        mvc.perform(requisicao).andExpect(status().isOk());
+    }
+
+    private void assertConsultas(String endpoint, long comandos) {
+        Assertions.assertEquals(comandos, statistics.getPrepareStatementCount(), "Quantidade de comandos SQL de " + endpoint);
+        Assertions.assertEquals(0, statistics.getEntityLoadCount(), "Consultas não devem carregar entidades em " + endpoint);
+        Assertions.assertEquals(0, statistics.getEntityFetchCount(), "Consultas não devem buscar associações em " + endpoint);
+    }
+}
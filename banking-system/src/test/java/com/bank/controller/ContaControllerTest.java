@@ -1,7 +1,10 @@
 package com.bank.controller;
 
 import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
 import com.bank.request.ContaRequest;
+import com.bank.response.ResultadoLote;
+import com.bank.service.CadastroLoteService;
 import com.bank.service.ContaService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -17,7 +20,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
@@ -30,6 +32,8 @@ class ContaControllerTest {
     public static final String IDENTIFICADOR_CONTA = "12345-6";
     @Mock
     private ContaService contaService;
+    @Mock
+    private CadastroLoteService cadastroLote;
 
     @InjectMocks
     private ContaController contaController;
@@ -46,6 +50,8 @@ class ContaControllerTest {
 
         Mockito.when(contaService.save()).thenReturn(createConta());
 
+        Mockito.when(cadastroLote.abrirContas(ArgumentMatchers.anyInt())).thenReturn(ResultadoLote.builder().total(2).criados(2).linhas(List.of()).build());
+
         Mockito.doNothing().when(contaService).update(ArgumentMatchers.anyLong(), ArgumentMatchers.any(ContaRequest.class));
 
         Mockito.doNothing().when(contaService).delete(ArgumentMatchers.anyLong());
@@ -80,6 +86,16 @@ class ContaControllerTest {
         assertThat(actualContaById.getId()).isNotNull().isEqualTo(expectedContaId);
     }
 
+    @Test
+    @DisplayName("saveAll should return lote result with status created when successful")
+    void saveAllShouldReturnLoteResultWithStatusCreatedWhenSuccessful() {
+        ResponseEntity<ResultadoLote> response = contaController.saveAll(2);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getCriados()).isEqualTo(2);
+    }
+
     @Test
     @DisplayName("save should return conta when successful")
     void saveShouldReturnContaWhenSuccessful() {
@@ -109,7 +125,7 @@ class ContaControllerTest {
     }
 
     private static Conta createConta() {
-        return Conta.builder().id(1L).identificadorConta(IDENTIFICADOR_CONTA).saldo(BigDecimal.ZERO)
+        return Conta.builder().id(1L).identificadorConta(IDENTIFICADOR_CONTA).saldo(Dinheiro.ZERO)
                 .createdAt(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS))
                 .updatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS)).build();
     }
@@ -1,10 +1,12 @@
 package com.bank.controller;
 
 import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
 import com.bank.domain.Operacao;
 import com.bank.enums.OperacaoEnum;
 import com.bank.request.OperacaoRequest;
 import com.bank.request.TransferenciaRequest;
+import com.bank.service.IdempotenciaService;
 import com.bank.service.OperacaoService;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -34,6 +36,8 @@ class OperacaoControllerTest {
     public static final String IDENTIFICADOR_CONTA = "12345-6";
     @Mock
     private OperacaoService operacaoService;
+    @Mock
+    private IdempotenciaService idempotenciaService;
     @InjectMocks
     OperacaoController operacaoController;
 
@@ -62,7 +66,7 @@ class OperacaoControllerTest {
     @Test
     @DisplayName("saldo should return saldo when successful")
     void saldoShouldReturnSaldoWhenSuccessful() {
-        BigDecimal saldo = operacaoController.saldo(IDENTIFICADOR_CONTA).getBody();
+        Dinheiro saldo = operacaoController.saldo(IDENTIFICADOR_CONTA).getBody();
         Assertions.assertThat(saldo).isNotNull().isEqualTo(createConta().getSaldo());
         Mockito.verify(operacaoService, Mockito.times(1)).saldo(IDENTIFICADOR_CONTA);
     }
@@ -73,7 +77,7 @@ class OperacaoControllerTest {
         Conta saldoAntesDeposito = createConta();
         OperacaoRequest operacaoRequest = OperacaoRequest.builder().identificador(IDENTIFICADOR_CONTA).valor(BigDecimal.TEN).build();
 
-        Conta contaDepoisDeposito = operacaoController.deposito(operacaoRequest).getBody();
+        Conta contaDepoisDeposito = operacaoController.deposito(operacaoRequest, null).getBody();
 
         Mockito.verify(operacaoService, Mockito.times(1)).deposito(operacaoRequest);
         Assertions.assertThat(contaDepoisDeposito).isNotNull();
@@ -81,22 +85,36 @@ class OperacaoControllerTest {
         assertNotEquals(contaDepoisDeposito.getSaldo(), createConta().getSaldo(),
                 "O saldo da conta após o depósito não deve ser igual ao saldo antes do depósito");
 
-        assertEquals(saldoAntesDeposito.getSaldo().add(BigDecimal.TEN), contaDepoisDeposito.getSaldo(),
+        assertEquals(saldoAntesDeposito.getSaldo().mais(1_000), contaDepoisDeposito.getSaldo(),
                 "O saldo após o depósito deve ser igual ao saldo antes do depósito mais o valor do depósito");
 
         assertTrue(contaDepoisDeposito.getSaldo().compareTo(saldoAntesDeposito.getSaldo()) > 0,
                 "O saldo após o depósito deve ser maior do que o saldo antes do depósito");
     }
 
+    @Test
+    @DisplayName("deposito should go through idempotencia when Idempotency-Key is present")
+    void depositoShouldGoThroughIdempotenciaWhenIdempotencyKeyIsPresent() {
+        OperacaoRequest operacaoRequest = OperacaoRequest.builder().identificador(IDENTIFICADOR_CONTA).valor(BigDecimal.TEN).build();
+        Mockito.when(idempotenciaService.executar(ArgumentMatchers.eq("deposito"), ArgumentMatchers.eq("chave-1"),
+                        ArgumentMatchers.eq(operacaoRequest), ArgumentMatchers.eq(Conta.class), ArgumentMatchers.any()))
+                .thenReturn(createContaDeposito());
+
+        Conta conta = operacaoController.deposito(operacaoRequest, "chave-1").getBody();
+
+        Assertions.assertThat(conta).isNotNull();
+        Mockito.verify(operacaoService, Mockito.never()).deposito(operacaoRequest);
+    }
+
     @Test
     @DisplayName("saque should return conta with saldo lower when successful")
     void saqueShouldReturnContaWithSadoLowerWhenSuccessful() {
         Conta contaAntesSaque = createConta();
-        contaAntesSaque.setSaldo(contaAntesSaque.getSaldo().add(BigDecimal.TEN));
+        contaAntesSaque.setSaldo(contaAntesSaque.getSaldo().mais(1_000));
 
         OperacaoRequest operacaoRequest = OperacaoRequest.builder().identificador(IDENTIFICADOR_CONTA).valor(BigDecimal.valueOf(9)).build();
 
-        Conta contaDepoisSaque = operacaoController.saque(operacaoRequest).getBody();
+        Conta contaDepoisSaque = operacaoController.saque(operacaoRequest, null).getBody();
 
         Mockito.verify(operacaoService, Mockito.times(1)).saque(operacaoRequest);
         Assertions.assertThat(contaDepoisSaque).isNotNull();
@@ -104,7 +122,7 @@ class OperacaoControllerTest {
         assertNotEquals(contaDepoisSaque.getSaldo(), contaAntesSaque.getSaldo(),
                 "O saldo da conta após o saque não deve ser igual ao saldo antes do saque");
 
-        assertEquals(contaAntesSaque.getSaldo().subtract(BigDecimal.valueOf(9)), contaDepoisSaque.getSaldo(),
+        assertEquals(contaAntesSaque.getSaldo().menos(900), contaDepoisSaque.getSaldo(),
                 "O saldo após o saque deve ser igual ao saldo antes do saque menos o valor do saque");
 
         assertTrue(contaDepoisSaque.getSaldo().compareTo(contaAntesSaque.getSaldo()) < 0,
@@ -116,27 +134,27 @@ class OperacaoControllerTest {
     void transferenciaShouldUpdateSaldosCorrectlyWhenSuccessful() {
         TransferenciaRequest transferenciaRequest = TransferenciaRequest.builder().origem("12345-6").destino("12345-7").valor(BigDecimal.TEN).build();
 
-        Assertions.assertThatCode(() -> operacaoController.transferencia(transferenciaRequest).getBody()).doesNotThrowAnyException();
+        Assertions.assertThatCode(() -> operacaoController.transferencia(transferenciaRequest, null).getBody()).doesNotThrowAnyException();
 
-        ResponseEntity<Void> transferencia = operacaoController.transferencia(transferenciaRequest);
+        ResponseEntity<Void> transferencia = operacaoController.transferencia(transferenciaRequest, null);
 
         Assertions.assertThat(transferencia.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
     }
 
     private static Conta createConta() {
-        return Conta.builder().id(1L).identificadorConta(IDENTIFICADOR_CONTA).saldo(BigDecimal.ZERO)
+        return Conta.builder().id(1L).identificadorConta(IDENTIFICADOR_CONTA).saldo(Dinheiro.ZERO)
                 .createdAt(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS))
                 .updatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS)).build();
     }
 
     private static Conta createContaDeposito() {
-        return Conta.builder().id(1L).identificadorConta(IDENTIFICADOR_CONTA).saldo(BigDecimal.TEN)
+        return Conta.builder().id(1L).identificadorConta(IDENTIFICADOR_CONTA).saldo(Dinheiro.of(BigDecimal.TEN))
                 .createdAt(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS))
                 .updatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS)).build();
     }
 
     private static Conta createContaSaque() {
-        return Conta.builder().id(1L).identificadorConta(IDENTIFICADOR_CONTA).saldo(BigDecimal.ONE)
+        return Conta.builder().id(1L).identificadorConta(IDENTIFICADOR_CONTA).saldo(Dinheiro.of(BigDecimal.ONE))
                 .createdAt(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS))
                 .updatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS)).build();
     }
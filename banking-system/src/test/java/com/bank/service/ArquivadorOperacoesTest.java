@@ -0,0 +1,76 @@
+package com.bank.service;
+
+import com.bank.enums.NaturezaEnum;
+import com.bank.enums.OperacaoEnum;
+import com.bank.repository.OperacaoRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.stream.Stream;
+
+@ExtendWith(MockitoExtension.class)
+class ArquivadorOperacoesTest {
+    private static final LocalDateTime JANEIRO = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime FEVEREIRO = LocalDateTime.of(2024, 2, 1, 0, 0);
+    private static final LocalDateTime MARCO = LocalDateTime.of(2024, 3, 1, 0, 0);
+    @Mock
+    private OperacaoRepository operacaoRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @TempDir
+    Path diretorio;
+    private ArquivoOperacoes arquivo;
+    private ArquivadorOperacoes arquivador;
+
+    @BeforeEach
+    void setUp() {
+        arquivo = new ArquivoOperacoes(true, diretorio);
+        arquivo.abrir();
+        arquivador = new ArquivadorOperacoes(operacaoRepository, arquivo, new TransactionTemplate(transactionManager),
+                new Shards(List.of(), transactionManager));
+    }
+
+    @Test
+    @DisplayName("arquivar should move every month before the first hot one to the archive")
+    void arquivarShouldMoveEveryMonthBeforeTheFirstHotOneToTheArchive() {
+        Mockito.when(operacaoRepository.findMinCreatedAt()).thenReturn(JANEIRO.plusDays(14));
+        Mockito.when(operacaoRepository.streamArquivo(JANEIRO, FEVEREIRO)).thenReturn(Stream.of(
+                new OperacaoArquivada(1L, 1L, OperacaoEnum.DEPOSITO, NaturezaEnum.CREDITO, BigDecimal.TEN, JANEIRO.plusDays(14), null)));
+        Mockito.when(operacaoRepository.streamArquivo(FEVEREIRO, MARCO)).thenReturn(Stream.empty());
+        Mockito.when(operacaoRepository.deleteCriadasEntre(JANEIRO, FEVEREIRO)).thenReturn(1);
+
+        arquivador.arquivar(YearMonth.of(2024, 3));
+
+        Assertions.assertTrue(arquivo.contem(YearMonth.of(2024, 1), 0), "Janeiro deve ter virado um segmento");
+        Assertions.assertFalse(arquivo.contem(YearMonth.of(2024, 2), 0), "Um mês sem operações não gera segmento");
+        Mockito.verify(operacaoRepository).deleteCriadasEntre(JANEIRO, FEVEREIRO);
+        Mockito.verify(operacaoRepository).deleteCriadasEntre(FEVEREIRO, MARCO);
+        Mockito.verify(operacaoRepository, Mockito.never()).streamArquivo(Mockito.eq(MARCO), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("concluirArquivamentos should only remove the table rows of months already archived")
+    void concluirArquivamentosShouldOnlyRemoveTheTableRowsOfMonthsAlreadyArchived() {
+        arquivo.gravar(YearMonth.of(2024, 1), 0, List.of(
+                new OperacaoArquivada(1L, 1L, OperacaoEnum.DEPOSITO, NaturezaEnum.CREDITO, BigDecimal.TEN, JANEIRO.plusDays(14), null)).iterator());
+
+        arquivador.concluirArquivamentos();
+
+        Mockito.verify(operacaoRepository).deleteCriadasEntre(JANEIRO, FEVEREIRO);
+        Mockito.verify(operacaoRepository, Mockito.never()).streamArquivo(Mockito.any(), Mockito.any());
+    }
+}
@@ -0,0 +1,94 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
+import com.bank.domain.Operacao;
+import com.bank.enums.NaturezaEnum;
+import com.bank.enums.OperacaoEnum;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+class ArquivoOperacoesTest {
+    private static final YearMonth JANEIRO = YearMonth.of(2024, 1);
+    private static final YearMonth FEVEREIRO = YearMonth.of(2024, 2);
+    @TempDir
+    Path diretorio;
+
+    @Test
+    @DisplayName("gravar should keep the operations of each conta readable after reopening")
+    void gravarShouldKeepTheOperationsOfEachContaReadableAfterReopening() {
+        ArquivoOperacoes arquivo = abrir();
+        arquivo.gravar(JANEIRO, 0, List.of(
+                arquivada(10L, 1L, "2024-01-05T10:00", 1_000, NaturezaEnum.CREDITO, 7L),
+                arquivada(11L, 1L, "2024-01-20T10:00", 250, NaturezaEnum.DEBITO, 9L),
+                arquivada(12L, 2L, "2024-01-06T10:00", 500, NaturezaEnum.CREDITO, 8L)).iterator());
+
+        ArquivoOperacoes reaberto = abrir();
+        List<Operacao> operacoes = reaberto.operacoes(conta(1L), SaldoHistoricoService.INICIO, LocalDateTime.of(2030, 1, 1, 0, 0));
+
+        Assertions.assertEquals(List.of(10L, 11L), operacoes.stream().map(Operacao::getId).toList(), "Só as operações da conta, em ordem");
+        Assertions.assertEquals(new BigDecimal("2.50"), operacoes.get(1).getValor());
+        Assertions.assertEquals(NaturezaEnum.DEBITO, operacoes.get(1).getNatureza());
+        Assertions.assertEquals(LocalDateTime.of(2024, 1, 20, 10, 0), operacoes.get(1).getCreatedAt());
+        Assertions.assertEquals(9L, reaberto.maiorJournalSeq());
+        Assertions.assertTrue(reaberto.contem(JANEIRO, 0));
+        Assertions.assertFalse(reaberto.contem(JANEIRO, 1), "O segmento é de um único shard");
+    }
+
+    @Test
+    @DisplayName("somar and somarAntes should consider only the requested interval across months")
+    void somarAndSomarAntesShouldConsiderOnlyTheRequestedIntervalAcrossMonths() {
+        ArquivoOperacoes arquivo = abrir();
+        arquivo.gravar(JANEIRO, 0, List.of(
+                arquivada(10L, 1L, "2024-01-05T10:00", 1_000, NaturezaEnum.CREDITO, null),
+                arquivada(11L, 1L, "2024-01-20T10:00", 250, NaturezaEnum.DEBITO, null)).iterator());
+        arquivo.gravar(FEVEREIRO, 0, List.of(
+                arquivada(20L, 1L, "2024-02-01T00:00", 300, NaturezaEnum.CREDITO, null),
+                arquivada(21L, 1L, "2024-02-01T00:00", 100, NaturezaEnum.DEBITO, null)).iterator());
+        Conta conta = conta(1L);
+
+        Assertions.assertEquals(new BigDecimal("7.50"), arquivo.somar(conta, SaldoHistoricoService.INICIO, LocalDateTime.of(2024, 2, 1, 0, 0)));
+        Assertions.assertEquals(new BigDecimal("-0.50"), arquivo.somar(conta, LocalDateTime.of(2024, 1, 10, 0, 0), LocalDateTime.of(2024, 3, 1, 0, 0)));
+        Assertions.assertEquals(new BigDecimal("10.50"),
+                arquivo.somarAntes(conta, SaldoHistoricoService.INICIO, LocalDateTime.of(2024, 2, 1, 0, 0), 21L),
+                "Na mesma data, só as operações de id menor vêm antes");
+    }
+
+    @Test
+    @DisplayName("pagina should continue after the cursor position")
+    void paginaShouldContinueAfterTheCursorPosition() {
+        ArquivoOperacoes arquivo = abrir();
+        arquivo.gravar(JANEIRO, 0, List.of(
+                arquivada(10L, 1L, "2024-01-05T10:00", 100, NaturezaEnum.CREDITO, null),
+                arquivada(11L, 1L, "2024-01-05T10:00", 100, NaturezaEnum.CREDITO, null),
+                arquivada(12L, 1L, "2024-01-06T10:00", 100, NaturezaEnum.CREDITO, null)).iterator());
+
+        List<Operacao> pagina = arquivo.pagina(conta(1L), SaldoHistoricoService.INICIO, LocalDateTime.of(2030, 1, 1, 0, 0),
+                LocalDateTime.of(2024, 1, 5, 10, 0), 10L, 1);
+
+        Assertions.assertEquals(List.of(11L), pagina.stream().map(Operacao::getId).toList());
+    }
+
+    private ArquivoOperacoes abrir() {
+        ArquivoOperacoes arquivo = new ArquivoOperacoes(true, diretorio);
+        arquivo.abrir();
+        return arquivo;
+    }
+
+    private static OperacaoArquivada arquivada(long id, long contaId, String createdAt, long centavos, NaturezaEnum natureza, Long journalSeq) {
+        OperacaoEnum tipo = natureza == NaturezaEnum.DEBITO ? OperacaoEnum.SAQUE : OperacaoEnum.DEPOSITO;
+        return new OperacaoArquivada(id, contaId, tipo, natureza, BigDecimal.valueOf(centavos, 2), LocalDateTime.parse(createdAt), journalSeq);
+    }
+
+    private static Conta conta(long id) {
+        return Conta.builder().id(id).identificadorConta("12345-6").saldo(Dinheiro.ZERO).build();
+    }
+}
@@ -0,0 +1,132 @@
+package com.bank.service;
+
+import com.bank.domain.Cliente;
+import com.bank.domain.Conta;
+import com.bank.enums.StatusLinhaEnum;
+import com.bank.exception.BadRequestException;
+import com.bank.repository.ClienteRepository;
+import com.bank.repository.ContaRepository;
+import com.bank.request.ClienteLoteRequest;
+import com.bank.response.ResultadoLinha;
+import com.bank.response.ResultadoLote;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+@ExtendWith(MockitoExtension.class)
+class CadastroLoteServiceTest {
+    private static final int TAMANHO_LOTE = 2;
+    @Mock
+    private ClienteRepository clienteRepository;
+    @Mock
+    private ContaRepository contaRepository;
+    @Mock
+    private IdentificadorContaAllocator allocator;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private final AtomicLong ids = new AtomicLong();
+    private CadastroLoteService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CadastroLoteService(clienteRepository, contaRepository, allocator,
+                new TransactionTemplate(transactionManager), Validation.buildDefaultValidatorFactory().getValidator(),
+                new Shards(List.of(), transactionManager), TAMANHO_LOTE, 5);
+    }
+
+    @Test
+    @DisplayName("cadastrarClientes should create valid rows and reject invalid, repeated and already registered ones")
+    void cadastrarClientesShouldCreateValidRowsAndRejectInvalidRepeatedAndAlreadyRegisteredOnes() {
+        Mockito.when(clienteRepository.findDocumentosExistentes(Mockito.anyCollection())).thenReturn(List.of("33333333333"));
+        Mockito.when(allocator.proximos(Mockito.anyInt()))
+                .thenAnswer(invocation -> IntStream.range(0, invocation.<Integer>getArgument(0)).mapToObj(i -> "12345-6").toList());
+        stubSaveAll();
+
+        ResultadoLote resultado = service.cadastrarClientes(List.of(
+                cliente("Ana", "11111111111"),
+                cliente("", "12"),
+                cliente("Bia", "11111111111"),
+                cliente("Cid", "33333333333"),
+                cliente("Eva", "44444444444")).iterator());
+
+        Assertions.assertEquals(5, resultado.getTotal(), "Todas as linhas devem aparecer no resultado");
+        Assertions.assertEquals(2, resultado.getCriados(), "Só as linhas válidas e inéditas devem ser criadas");
+        Assertions.assertEquals(List.of(StatusLinhaEnum.CRIADO, StatusLinhaEnum.REJEITADO, StatusLinhaEnum.REJEITADO,
+                        StatusLinhaEnum.REJEITADO, StatusLinhaEnum.CRIADO),
+                resultado.getLinhas().stream().map(ResultadoLinha::getStatus).toList(), "O resultado deve seguir a ordem das linhas");
+        Assertions.assertEquals(2, resultado.getLinhas().get(1).getErros().size(), "A linha inválida deve listar todos os erros de validação");
+        Assertions.assertEquals(List.of(CadastroLoteService.DOCUMENTO_REPETIDO_NO_LOTE), resultado.getLinhas().get(2).getErros());
+        Assertions.assertEquals(List.of(CadastroLoteService.DOCUMENTO_JA_CADASTRADO), resultado.getLinhas().get(3).getErros());
+        Assertions.assertEquals("12345-6", resultado.getLinhas().get(0).getIdentificadorConta(), "O cliente deve receber uma conta nova");
+    }
+
+    @Test
+    @DisplayName("cadastrarClientes should retry rows one by one when the batch transaction fails")
+    void cadastrarClientesShouldRetryRowsOneByOneWhenTheBatchTransactionFails() {
+        Conta conta7 = Conta.builder().id(7L).identificadorConta("12345-6").build();
+        Conta conta8 = Conta.builder().id(8L).identificadorConta("65432-1").build();
+        Mockito.when(contaRepository.findAllById(Mockito.anyIterable())).thenReturn(List.of(conta7, conta8));
+        Mockito.when(clienteRepository.saveAll(Mockito.anyIterable())).thenAnswer(invocation -> {
+            List<Cliente> clientes = invocation.getArgument(0);
+            if (clientes.stream().anyMatch(cliente -> cliente.getDocumento().equals("22222222222"))) {
+                throw new DataIntegrityViolationException("documento duplicado");
+            }
+            clientes.forEach(cliente -> cliente.setId(ids.incrementAndGet()));
+            return clientes;
+        });
+
+        ResultadoLote resultado = service.cadastrarClientes(List.of(
+                ClienteLoteRequest.builder().nome("Ana").documento("11111111111").idConta(7L).build(),
+                ClienteLoteRequest.builder().nome("Bia").documento("22222222222").idConta(8L).build()).iterator());
+
+        Assertions.assertEquals(1, resultado.getCriados(), "A linha boa do lote deve ser gravada sozinha");
+        Assertions.assertEquals(StatusLinhaEnum.REJEITADO, resultado.getLinhas().get(1).getStatus());
+        Assertions.assertEquals(List.of("documento duplicado"), resultado.getLinhas().get(1).getErros());
+        Mockito.verify(clienteRepository, Mockito.times(3)).saveAll(Mockito.anyIterable());
+    }
+
+    @Test
+    @DisplayName("abrirContas should persist accounts in chunks of the configured size")
+    void abrirContasShouldPersistAccountsInChunksOfTheConfiguredSize() {
+        Mockito.when(allocator.proximos(Mockito.anyInt()))
+                .thenAnswer(invocation -> IntStream.range(0, invocation.<Integer>getArgument(0)).mapToObj(i -> "12345-6").toList());
+        Mockito.when(contaRepository.saveAll(Mockito.anyIterable())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ResultadoLote resultado = service.abrirContas(5);
+
+        Assertions.assertEquals(5, resultado.getCriados(), "Todas as contas devem ser criadas");
+        Mockito.verify(contaRepository, Mockito.times(3)).saveAll(Mockito.anyIterable());
+    }
+
+    @Test
+    @DisplayName("abrirContas should throw BadRequestException when quantidade is out of range")
+    void abrirContasShouldThrowBadRequestExceptionWhenQuantidadeIsOutOfRange() {
+        Assertions.assertThrows(BadRequestException.class, () -> service.abrirContas(0));
+        Assertions.assertThrows(BadRequestException.class, () -> service.abrirContas(6));
+    }
+
+    private void stubSaveAll() {
+        Mockito.when(clienteRepository.saveAll(Mockito.anyIterable())).thenAnswer(invocation -> {
+            List<Cliente> clientes = invocation.getArgument(0);
+            clientes.forEach(cliente -> cliente.setId(ids.incrementAndGet()));
+            return clientes;
+        });
+    }
+
+    private static ClienteLoteRequest cliente(String nome, String documento) {
+        return ClienteLoteRequest.builder().nome(nome).documento(documento).build();
+    }
+}
@@ -2,10 +2,12 @@ package com.bank.service;
 
 import com.bank.domain.Cliente;
 import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
 import com.bank.exception.BadRequestException;
 import com.bank.repository.ClienteRepository;
 import com.bank.request.ClienteRequest;
 import com.bank.request.ClienteRequestUpdate;
+import com.bank.response.ClienteResumo;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,10 +15,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -27,23 +30,27 @@ class ClienteServiceTest {
     private ClienteRepository repository;
     @Mock
     private ContaService contaService;
+    @Spy
+    private ConsistenciaLeitura consistencia = new ConsistenciaLeitura(0);
+    @Spy
+    private Shards shards = new Shards(List.of(), Mockito.mock(PlatformTransactionManager.class));
     @InjectMocks
     private ClienteService clienteService;
 
     @Test
     @DisplayName("listAllNonPageable returns list of clientes when successful")
     void listAllNoPageableShouldReturnsClienteOfListWhenSuccessful() {
-        Conta conta = Conta.builder().id(1L).identificadorConta("12345-6").saldo(BigDecimal.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
-        Conta conta1 = Conta.builder().id(2L).identificadorConta("12345-6").saldo(BigDecimal.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+        Conta conta = Conta.builder().id(1L).identificadorConta("12345-6").saldo(Dinheiro.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+        Conta conta1 = Conta.builder().id(2L).identificadorConta("12345-6").saldo(Dinheiro.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
 
-        Cliente cliente = Cliente.builder().id(1L).nome("Joao").documento("12345678901").createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).conta(conta).build();
-        Cliente cliente1 = Cliente.builder().id(2L).nome("Jose").documento("12345678902").createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).conta(conta1).build();
+        ClienteResumo cliente = ClienteResumo.builder().id(1L).nome("Joao").documento("12345678901").createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).conta(conta).build();
+        ClienteResumo cliente1 = ClienteResumo.builder().id(2L).nome("Jose").documento("12345678902").createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).conta(conta1).build();
 
-        List<Cliente> clientesExpected = List.of(cliente, cliente1);
+        List<ClienteResumo> clientesExpected = List.of(cliente, cliente1);
 
-        Mockito.when(repository.findAll()).thenReturn(clientesExpected);
+        Mockito.when(repository.findAllResumos()).thenReturn(clientesExpected);
 
-        List<Cliente> resultActual = clienteService.listAllNoPageable();
+        List<ClienteResumo> resultActual = clienteService.listAllNoPageable();
 
         Assertions.assertFalse(resultActual.isEmpty(), "A lista de clientes retornada não deve estar vazia");
         Assertions.assertEquals(clientesExpected.size(), resultActual.size(), "O tamanho da lista de clientes retornada deve ser igual ao tamanho da lista preparada");
@@ -53,7 +60,7 @@ class ClienteServiceTest {
     @Test
     @DisplayName("getAccountById should returns conta when successful")
     void getAccountByIdShouldReturnsContaWhenSuccessful() {
-        Conta contaExpected = Conta.builder().id(1L).identificadorConta("12345-6").saldo(BigDecimal.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+        Conta contaExpected = Conta.builder().id(1L).identificadorConta("12345-6").saldo(Dinheiro.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
 
         Mockito.when(contaService.findByIdOrThrowBadRequestException(1L)).thenReturn(contaExpected);
 
@@ -80,7 +87,7 @@ class ClienteServiceTest {
     @Test
     @DisplayName("findByIdOrThrowBadRequestException should returns cliente when successful")
     void findByIdOrThrowBadRequestExceptionShouldReturnClienteWhenSuccessful() {
-        Conta conta = Conta.builder().id(1L).identificadorConta("12345-6").saldo(BigDecimal.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+        Conta conta = Conta.builder().id(1L).identificadorConta("12345-6").saldo(Dinheiro.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
         Cliente clienteExpected = Cliente.builder().id(1L).nome("Joao").documento("12345678901").createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).conta(conta).build();
 
         Mockito.when(repository.findById(1L)).thenReturn(Optional.of(clienteExpected));
@@ -98,10 +105,22 @@ class ClienteServiceTest {
         Assertions.assertThrows(BadRequestException.class, () -> clienteService.findByIdOrThrowBadRequestException(2L), "Deve lançar BadRequestException quando o cliente não é encontrado");
     }
 
+    @Test
+    @DisplayName("consultar should return the projection without loading the Cliente entity")
+    void consultarShouldReturnTheProjectionWithoutLoadingTheClienteEntity() {
+        Conta conta = Conta.builder().id(1L).identificadorConta("12345-6").saldo(Dinheiro.ZERO).build();
+        ClienteResumo esperado = ClienteResumo.builder().id(1L).nome("Joao").documento("12345678901").conta(conta).build();
+        Mockito.when(repository.findResumoById(1L)).thenReturn(Optional.of(esperado));
+
+        Assertions.assertSame(esperado, clienteService.consultar(1L));
+        Assertions.assertThrows(BadRequestException.class, () -> clienteService.consultar(2L), "Deve lançar BadRequestException quando o cliente não é encontrado");
+        Mockito.verify(repository, Mockito.never()).findById(Mockito.anyLong());
+    }
+
     @Test
     @DisplayName("save should return the saved Cliente when successful")
     void saveShouldReturnSavedClienteWhenSuccessful() {
-        Conta conta = Conta.builder().id(1L).identificadorConta("12345-6").saldo(BigDecimal.ZERO)
+        Conta conta = Conta.builder().id(1L).identificadorConta("12345-6").saldo(Dinheiro.ZERO)
                 .createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
 
         ClienteRequest clienteRequest = ClienteRequest.builder()
@@ -147,7 +166,7 @@ class ClienteServiceTest {
     @Test
     @DisplayName("update should update existing cliente when successful")
     void updateShouldUpdatedClienteWhenSuccessful() {
-        Conta conta = Conta.builder().id(1L).identificadorConta("12345-6").saldo(BigDecimal.ZERO)
+        Conta conta = Conta.builder().id(1L).identificadorConta("12345-6").saldo(Dinheiro.ZERO)
                 .createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
 
         ClienteRequestUpdate clienteRequest = ClienteRequestUpdate.builder()
@@ -201,7 +220,7 @@ class ClienteServiceTest {
         Mockito.when(repository.findById(0L)).thenReturn(Optional.empty());
 
         Assertions.assertThrows(BadRequestException.class, () -> clienteService.update(nonExistingId,
-                        Mockito.any(ClienteRequestUpdate.class)),
+                        ClienteRequestUpdate.builder().build()),
                 "Deve lançar BadRequestException quando o cliente não é encontrado");
     }
 
@@ -210,7 +229,7 @@ class ClienteServiceTest {
     void deleteShouldDeleteExistingClienteWhenSuccessful() {
         long existingId = 1L;
 
-        Conta conta = Conta.builder().id(1L).identificadorConta("12345-6").saldo(BigDecimal.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+        Conta conta = Conta.builder().id(1L).identificadorConta("12345-6").saldo(Dinheiro.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
         Cliente clienteExpected = Cliente.builder().id(1L).nome("Joao").documento("12345678901").createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).conta(conta).build();
 
         Mockito.when(repository.findById(existingId)).thenReturn(Optional.of(clienteExpected));
@@ -0,0 +1,158 @@
+package com.bank.service;
+
+import com.bank.domain.JournalRejeitado;
+import com.bank.enums.OperacaoEnum;
+import com.bank.exception.BadRequestException;
+import com.bank.repository.JournalRejeitadoRepository;
+import com.bank.repository.OperacaoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+@ExtendWith(MockitoExtension.class)
+class ConfirmacaoJournalTest {
+    private static final Instant INSTANTE = Instant.parse("2026-01-02T03:04:05Z");
+    @Mock
+    private OperacaoJournal journal;
+    @Mock
+    private OperacaoRepository operacaoRepository;
+    @Mock
+    private JournalRejeitadoRepository journalRejeitadoRepository;
+    @Mock
+    private ArquivoOperacoes arquivo;
+    @Mock
+    private SaldoHistoricoService historico;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<Pedido> enfileirados = new ArrayList<>();
+    private ConfirmacaoJournal confirmacao;
+
+    @BeforeEach
+    void setUp() {
+        confirmacao = new ConfirmacaoJournal(journal, operacaoRepository, journalRejeitadoRepository, arquivo, historico,
+                new TransactionTemplate(transactionManager), new Metricas(registry));
+    }
+
+    @Test
+    @DisplayName("gravados should confirm the journal only up to the lowest sequence still unwritten")
+    void gravadosShouldConfirmTheJournalOnlyUpToTheLowestSequenceStillUnwritten() {
+        registrar(3);
+
+        confirmacao.gravados(List.of(enfileirados.get(1), enfileirados.get(2)));
+        confirmacao.gravados(List.of(enfileirados.get(0)));
+
+        Mockito.verify(journal).confirmar(0L);
+        Mockito.verify(journal).confirmar(3L);
+    }
+
+    @Test
+    @DisplayName("falhou should send a pedido the database refuses for good to reconciliation and release its sequence")
+    @SuppressWarnings("unchecked")
+    void falhouShouldSendAPedidoTheDatabaseRefusesForGoodToReconciliationAndReleaseItsSequence() {
+        registrar(2);
+        confirmacao.gravados(List.of(enfileirados.get(1)));
+
+        confirmacao.falhou(enfileirados.get(0), new BadRequestException("Not Found id 1"));
+
+        ArgumentCaptor<List<JournalRejeitado>> rejeitados = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(journalRejeitadoRepository).saveAll(rejeitados.capture());
+        Assertions.assertEquals(1L, rejeitados.getValue().get(0).getJournalSeq());
+        Assertions.assertEquals("BadRequestException: Not Found id 1", rejeitados.getValue().get(0).getMotivo());
+        Mockito.verify(journal).confirmar(2L);
+        Assertions.assertTrue(confirmacao.aRegravar().isEmpty(), "O pedido recusado não deve voltar para a regravação");
+        Assertions.assertEquals(1.0, registry.counter(Metricas.WRITER_JOURNAL_REJEITADOS).count());
+    }
+
+    @Test
+    @DisplayName("falhou should hold the journal and rewrite a pedido the database could not reach once per interval")
+    void falhouShouldHoldTheJournalAndRewriteAPedidoTheDatabaseCouldNotReachOncePerInterval() {
+        registrar(1);
+        Pedido pedido = enfileirados.get(0);
+
+        confirmacao.falhou(pedido, new DataAccessResourceFailureException("banco indisponível"));
+        List<Pedido> primeira = confirmacao.aRegravar();
+        confirmacao.falhou(pedido, new DataAccessResourceFailureException("banco indisponível"));
+
+        Assertions.assertEquals(List.of(pedido), primeira);
+        Assertions.assertTrue(confirmacao.aRegravar().isEmpty(), "A nova tentativa deve esperar o intervalo de regravação");
+        Assertions.assertEquals(1, confirmacao.pendentes());
+        Mockito.verifyNoInteractions(journalRejeitadoRepository);
+        Mockito.verify(journal, Mockito.never()).confirmar(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("falhou should keep a refused pedido for rewriting when it cannot reach reconciliation")
+    void falhouShouldKeepARefusedPedidoForRewritingWhenItCannotReachReconciliation() {
+        registrar(1);
+        Mockito.when(journalRejeitadoRepository.saveAll(Mockito.anyIterable()))
+                .thenThrow(new DataAccessResourceFailureException("banco indisponível"));
+
+        confirmacao.falhou(enfileirados.get(0), new SaldoRecusado(Set.of(1L)));
+
+        Assertions.assertEquals(List.of(enfileirados.get(0)), confirmacao.aRegravar());
+        Assertions.assertEquals(0.0, registry.counter(Metricas.WRITER_JOURNAL_REJEITADOS).count());
+        Mockito.verify(journal, Mockito.never()).confirmar(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("recuperar should hand over only the records missing from both the table and reconciliation")
+    void recuperarShouldHandOverOnlyTheRecordsMissingFromBothTheTableAndReconciliation() {
+        Mockito.when(operacaoRepository.findMaxJournalSeq()).thenReturn(9L);
+        Mockito.when(journal.recuperar(0L)).thenReturn(List.of(registro(4L), registro(5L), registro(9L), registro(10L)));
+        Mockito.when(operacaoRepository.findJournalSeqsIn(List.of(4L, 5L, 9L))).thenReturn(List.of(9L));
+        Mockito.when(journalRejeitadoRepository.findJournalSeqsIn(List.of(4L, 5L, 9L))).thenReturn(List.of(4L));
+        List<List<Pedido>> lotes = new ArrayList<>();
+
+        confirmacao.recuperar(10, lote -> {
+            lotes.add(lote);
+            confirmacao.gravados(lote);
+        });
+
+        Assertions.assertEquals(1, lotes.size());
+        Assertions.assertEquals(List.of(5L, 10L), lotes.get(0).stream().map(Pedido::journalSeq).toList(),
+                "Só os registros ausentes da tabela e da conciliação devem ser regravados");
+        Assertions.assertEquals(LocalDateTime.ofInstant(INSTANTE, ZoneId.systemDefault()), lotes.get(0).get(0).instante(),
+                "O pedido recuperado deve manter o instante do registro no journal");
+        Mockito.verify(historico).invalidarSnapshots(Set.of(1L), LocalDateTime.ofInstant(INSTANTE, ZoneId.systemDefault()));
+        Mockito.verify(journal, Mockito.atLeastOnce()).confirmar(10L);
+    }
+
+    private void registrar(int quantidade) {
+        AtomicLong sequencias = new AtomicLong();
+        Mockito.when(journal.registrar(Mockito.anyList(), Mockito.any())).thenAnswer(invocation -> {
+            invocation.<LongConsumer>getArgument(1).accept(sequencias.incrementAndGet());
+            return CompletableFuture.completedFuture(null);
+        });
+        for (int i = 0; i < quantidade; i++)
+            confirmacao.registrar(List.of(deposito(1L, 100)), enfileirados::add);
+    }
+
+    private static OperacaoJournal.Registro registro(long sequencia) {
+        return new OperacaoJournal.Registro(sequencia, INSTANTE.toEpochMilli(), List.of(deposito(1L, 100)));
+    }
+
+    private static Lancamento deposito(long contaId, long valor) {
+        return Lancamento.builder().contaId(contaId).tipo(OperacaoEnum.DEPOSITO).valor(valor).delta(valor).build();
+    }
+}
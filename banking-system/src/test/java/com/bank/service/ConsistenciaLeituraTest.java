@@ -0,0 +1,42 @@
+package com.bank.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ConsistenciaLeituraTest {
+
+    @Test
+    @DisplayName("ler should require the primary only for keys written within the window")
+    void lerShouldRequireThePrimaryOnlyForKeysWrittenWithinTheWindow() {
+        ConsistenciaLeitura consistencia = new ConsistenciaLeitura(60_000);
+        consistencia.registrarEscrita("12345-6");
+
+        Assertions.assertTrue(consistencia.ler("12345-6", ConsistenciaLeitura::primarioObrigatorio),
+                "A conta recém-escrita deve ser lida do primário");
+        Assertions.assertFalse(consistencia.ler("12345-7", ConsistenciaLeitura::primarioObrigatorio),
+                "Uma conta sem escrita recente pode ir para a réplica");
+        Assertions.assertFalse(ConsistenciaLeitura.primarioObrigatorio(), "A marca deve ser removida ao fim da leitura");
+    }
+
+    @Test
+    @DisplayName("ler should go back to the replica once the window has passed")
+    void lerShouldGoBackToTheReplicaOnceTheWindowHasPassed() throws InterruptedException {
+        ConsistenciaLeitura consistencia = new ConsistenciaLeitura(20);
+        consistencia.registrarEscrita("12345-6");
+        Thread.sleep(40);
+        consistencia.limpar();
+
+        Assertions.assertFalse(consistencia.ler("12345-6", ConsistenciaLeitura::primarioObrigatorio),
+                "Depois da janela a escrita já está nas réplicas");
+    }
+
+    @Test
+    @DisplayName("registrarEscrita should record nothing when the window is zero")
+    void registrarEscritaShouldRecordNothingWhenTheWindowIsZero() {
+        ConsistenciaLeitura consistencia = new ConsistenciaLeitura(0);
+        consistencia.registrarEscrita("12345-6");
+
+        Assertions.assertFalse(consistencia.ler("12345-6", ConsistenciaLeitura::primarioObrigatorio));
+    }
+}
@@ -0,0 +1,57 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+class ContaCacheTest {
+    private final ContaCache cache = new ContaCache(100, 60, new SimpleMeterRegistry());
+
+    @Test
+    @DisplayName("porId should run the loader outside the cache map so it can use the cache itself")
+    void porIdShouldRunTheLoaderOutsideTheCacheMapSoItCanUseTheCacheItself() {
+        Conta conta = createConta(1L, 1L, 100);
+
+        // Dentro de ConcurrentHashMap.compute, voltar ao cache pela mesma chave lançaria "Recursive update".
+        Optional<Conta> carregada = cache.porId(1L, id -> {
+            cache.porId(id, outro -> Optional.of(conta));
+            return Optional.of(conta);
+        });
+
+        Assertions.assertEquals(Optional.of(conta), carregada);
+    }
+
+    @Test
+    @DisplayName("porId should keep the newer conta when a slower load finishes after the writer update")
+    void porIdShouldKeepTheNewerContaWhenASlowerLoadFinishesAfterTheWriterUpdate() {
+        Conta lida = createConta(1L, 1L, 100);
+        Conta gravada = createConta(1L, 2L, 150);
+
+        Optional<Conta> resultado = cache.porId(1L, id -> {
+            cache.atualizar(gravada);
+            return Optional.of(lida);
+        });
+
+        Assertions.assertEquals(Optional.of(gravada), resultado, "A leitura antiga não deve sobrescrever o commit mais novo");
+        Assertions.assertEquals(Optional.of(gravada), cache.porIdentificador("12345-6", identificador -> Optional.empty()));
+    }
+
+    @Test
+    @DisplayName("porIdentificador should not cache a missing conta")
+    void porIdentificadorShouldNotCacheAMissingConta() {
+        Assertions.assertEquals(Optional.empty(), cache.porIdentificador("12345-6", identificador -> Optional.empty()));
+
+        Conta conta = createConta(1L, 1L, 100);
+        Assertions.assertEquals(Optional.of(conta), cache.porIdentificador("12345-6", identificador -> Optional.of(conta)),
+                "Uma conta criada depois da falta deve ser encontrada");
+    }
+
+    private static Conta createConta(long id, long version, long centavos) {
+        return Conta.builder().id(id).identificadorConta("12345-6").saldo(Dinheiro.ofCentavos(centavos)).version(version).build();
+    }
+}
@@ -1,9 +1,11 @@
 package com.bank.service;
 
 import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
 import com.bank.exception.BadRequestException;
 import com.bank.repository.ContaRepository;
 import com.bank.request.ContaRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,36 +14,48 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
-import static java.math.BigDecimal.ZERO;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @ExtendWith(MockitoExtension.class)
 class ContaServiceTest {
     @Mock
     private ContaRepository repository;
+    @Mock
+    private SaldoEngine engine;
+    @Spy
+    private OptimisticRetry retry = new OptimisticRetry(3, 0, new SimpleMeterRegistry());
+    @Spy
+    private ContaCache cache = new ContaCache(100, 60, new SimpleMeterRegistry());
+    @Spy
+    private Metricas metricas = new Metricas(new SimpleMeterRegistry());
+    @Mock
+    private IdentificadorContaAllocator allocator;
+    @Spy
+    private Shards shards = new Shards(List.of(), Mockito.mock(PlatformTransactionManager.class));
     @InjectMocks
     private ContaService contaService;
 
     @Test
     @DisplayName("listAllNonPageable returns list of clientes when successful")
     void listAllNoPageableShouldReturnsContaOfListWhenSuccessful() {
-        Conta conta0 = Conta.builder().id(1L).identificadorConta("12345-6").saldo(BigDecimal.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
-        Conta conta1 = Conta.builder().id(2L).identificadorConta("12345-7").saldo(BigDecimal.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+        Conta conta0 = Conta.builder().id(1L).identificadorConta("12345-6").saldo(Dinheiro.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+        Conta conta1 = Conta.builder().id(2L).identificadorConta("12345-7").saldo(Dinheiro.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
 
         List<Conta> expectedContaList = List.of(conta0, conta1);
 
-        Mockito.when(repository.findAll()).thenReturn(expectedContaList);
+        Mockito.when(repository.findAllCopias()).thenReturn(expectedContaList);
 
         List<Conta> actualContaList = contaService.listAllNoPageable();
 
@@ -53,14 +67,14 @@ class ContaServiceTest {
     @Test
     @DisplayName("list should returns conta of list inside page object when successful")
     void listShouldReturnsContaOfListInsidePageObjectWhenSuccessful() {
-        Conta conta0 = Conta.builder().id(1L).identificadorConta("12345-6").saldo(BigDecimal.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
-        Conta conta1 = Conta.builder().id(2L).identificadorConta("12345-7").saldo(BigDecimal.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+        Conta conta0 = Conta.builder().id(1L).identificadorConta("12345-6").saldo(Dinheiro.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+        Conta conta1 = Conta.builder().id(2L).identificadorConta("12345-7").saldo(Dinheiro.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
         List<Conta> expectedContaList = List.of(conta0, conta1);
 
 
         Pageable pageable = PageRequest.of(0, 2);
         PageImpl<Conta> contaPage = new PageImpl<>(expectedContaList, pageable, expectedContaList.size());
-        Mockito.when(repository.findAll(pageable)).thenReturn(contaPage);
+        Mockito.when(repository.findAllCopias(pageable)).thenReturn(contaPage);
 
         Page<Conta> listed = contaService.list(pageable);
 
@@ -75,7 +89,7 @@ class ContaServiceTest {
     @Test
     @DisplayName("findByIdOrThrowBadRequestException should throw BadRequestException when conta is not found")
     void findByIdOrThrowBadRequestExceptionShouldThrowBadRequestExceptionWhenContaIsNotFound() {
-        Mockito.when(repository.findById(0L)).thenReturn(Optional.empty());
+        Mockito.when(repository.findCopiaById(0L)).thenReturn(Optional.empty());
 
         Assertions.assertThrows(BadRequestException.class, () -> contaService.findByIdOrThrowBadRequestException(0L), "Deve lançar BadRequestException quando a conta não é encontrada");
     }
@@ -83,9 +97,9 @@ class ContaServiceTest {
     @Test
     @DisplayName("findByIdOrThrowBadRequestException should returns conta when successful")
     void findByIdOrThrowBadRequestExceptionShouldReturnsContaWhenSuccessful() {
-        Conta expectedConta = Conta.builder().id(1L).identificadorConta("12345-6").saldo(ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+        Conta expectedConta = Conta.builder().id(1L).identificadorConta("12345-6").saldo(Dinheiro.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
 
-        Mockito.when(repository.findById(1L)).thenReturn(Optional.of(expectedConta));
+        Mockito.when(repository.findCopiaById(1L)).thenReturn(Optional.of(expectedConta));
 
         Conta actualConta = contaService.findByIdOrThrowBadRequestException(1L);
 
@@ -96,13 +110,16 @@ class ContaServiceTest {
     @Test
     @DisplayName("save should return the saved conta when successful")
     void saveShouldReturnSavedContaWhenSuccessful() {
-        Conta expectedConta = Conta.builder().id(1L).identificadorConta("12345-6").saldo(ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+        Conta expectedConta = Conta.builder().id(1L).identificadorConta("12345-6").saldo(Dinheiro.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
 
+        Mockito.when(allocator.proximo()).thenReturn("12345-6");
         Mockito.when(repository.save(Mockito.any(Conta.class))).thenReturn(expectedConta);
 
         Conta actualConta = contaService.save();
 
-        Mockito.verify(repository, Mockito.times(1)).save(Mockito.any(Conta.class));
+        ArgumentCaptor<Conta> contaArgumentCaptor = ArgumentCaptor.forClass(Conta.class);
+        Mockito.verify(repository, Mockito.times(1)).save(contaArgumentCaptor.capture());
+        Assertions.assertEquals("12345-6", contaArgumentCaptor.getValue().getIdentificadorConta(), "A conta deve ser salva com o identificador gerado pelo allocator");
 
         assertThat(actualConta)
                 .isNotNull()
@@ -114,7 +131,7 @@ class ContaServiceTest {
     @Test
     @DisplayName("update should update existing conta when successful")
     void updateShouldUpdatedContaWhenSuccessful() {
-        Conta contaSaved = Conta.builder().id(1L).identificadorConta("12345-6").saldo(ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+        Conta contaSaved = Conta.builder().id(1L).identificadorConta("12345-6").saldo(Dinheiro.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
         ContaRequest contaRequest = ContaRequest.builder().identificadorConta("12345-7").build();
 
         Conta contaUpdate = Conta.builder().id(contaSaved.getId()).identificadorConta(contaRequest.getIdentificadorConta()).saldo(contaSaved.getSaldo()).createdAt(contaSaved.getCreatedAt())
@@ -133,6 +150,7 @@ class ContaServiceTest {
         Conta contaArgumentCaptorValue = contaArgumentCaptor.getValue();
 
         Assertions.assertNotSame(contaSaved, contaArgumentCaptorValue, "A conta atualizado não deve ser o mesmo que a conta salvo");
+        Mockito.verify(engine).renomear(contaSaved, "12345-7");
     }
 
     @Test
@@ -140,13 +158,13 @@ class ContaServiceTest {
     void updateShouldThrowBadRequestExceptionWhenContaIsNotFound() {
         Mockito.when(repository.findById(0L)).thenReturn(Optional.empty());
 
-        Assertions.assertThrows(BadRequestException.class, () -> contaService.update(0L, Mockito.any(ContaRequest.class)), "Deve lançar BadRequestException quando a conta não é encontrada");
+        Assertions.assertThrows(BadRequestException.class, () -> contaService.update(0L, ContaRequest.builder().build()), "Deve lançar BadRequestException quando a conta não é encontrada");
     }
 
     @Test
     @DisplayName("delete should delete existing conta when successful")
     void deleteShouldDeleteExistingContaWhenSuccessful() {
-        Conta contaSaved = Conta.builder().id(1L).identificadorConta("12345-6").saldo(ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+        Conta contaSaved = Conta.builder().id(1L).identificadorConta("12345-6").saldo(Dinheiro.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
 
         Mockito.when(repository.findById(1L)).thenReturn(Optional.of(contaSaved));
 
@@ -166,9 +184,9 @@ class ContaServiceTest {
     @Test
     @DisplayName("findByIdentificadorContaOrThrowBadRequestException should return identificador when successful")
     void findByIdentificadorContaOrThrowBadRequestExceptionShouldReturnIdentificadorWhenSuccessful() {
-        Conta expectedConta = Conta.builder().id(1L).identificadorConta("12345-6").saldo(ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+        Conta expectedConta = Conta.builder().id(1L).identificadorConta("12345-6").saldo(Dinheiro.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
 
-        Mockito.when(repository.findByIdentificadorConta("12345-6")).thenReturn(Optional.of(expectedConta));
+        Mockito.when(repository.findCopiaByIdentificadorConta("12345-6")).thenReturn(Optional.of(expectedConta));
 
         Conta actualConta = contaService.findByIdentificadorContaOrThrowBadRequestException("12345-6");
 
@@ -179,9 +197,54 @@ class ContaServiceTest {
     @Test
     @DisplayName("findByIdentificadorContaOrThrowBadRequestException should throw BadRequestException when identificador is not found")
     void findByIdentificadorContaOrThrowBadRequestExceptionShouldThrowBadRequestExceptionWhenIdentificadorIsNotFound() {
-        Mockito.when(repository.findByIdentificadorConta("12345-6")).thenReturn(Optional.empty());
+        Mockito.when(repository.findCopiaByIdentificadorConta("12345-6")).thenReturn(Optional.empty());
 
         Assertions.assertThrows(BadRequestException.class, () ->
                 contaService.findByIdentificadorContaOrThrowBadRequestException("12345-6"), "Deve lançar BadRequestException quando o identificador não é encontrado");
     }
+
+    @Test
+    @DisplayName("findByIdentificadorContaOrThrowBadRequestException should read conta from cache after first lookup")
+    void findByIdentificadorContaOrThrowBadRequestExceptionShouldReadContaFromCacheAfterFirstLookup() {
+        Conta expectedConta = Conta.builder().id(1L).identificadorConta("12345-6").saldo(Dinheiro.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+
+        Mockito.when(repository.findCopiaByIdentificadorConta("12345-6")).thenReturn(Optional.of(expectedConta));
+
+        Conta primeira = contaService.findByIdentificadorContaOrThrowBadRequestException("12345-6");
+        primeira.setSaldo(Dinheiro.ofCentavos(1_000));
+        Conta segunda = contaService.findByIdentificadorContaOrThrowBadRequestException("12345-6");
+
+        Mockito.verify(repository, Mockito.times(1)).findCopiaByIdentificadorConta("12345-6");
+        Assertions.assertEquals(Dinheiro.ZERO, segunda.getSaldo(), "Alterar uma conta devolvida pelo cache não deve alterar a entrada em cache");
+    }
+
+    @Test
+    @DisplayName("update should reject an identificador that belongs to another shard")
+    void updateShouldRejectAnIdentificadorThatBelongsToAnotherShard() {
+        Conta contaSaved = Conta.builder().id(1L).identificadorConta("12345-6").saldo(Dinheiro.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+        Mockito.doReturn(true).when(shards).ativo();
+        Mockito.doReturn(Optional.of(contaSaved)).when(shards).primeiro(Mockito.any());
+        Mockito.doReturn(0).when(shards).de("12345-6");
+        Mockito.doReturn(1).when(shards).de("54321-0");
+
+        BadRequestException erro = Assertions.assertThrows(BadRequestException.class,
+                () -> contaService.update(1L, ContaRequest.builder().identificadorConta("54321-0").build()));
+
+        Assertions.assertEquals(ContaService.IDENTIFICADOR_EM_OUTRO_SHARD, erro.getMessage());
+        Mockito.verify(repository, Mockito.never()).save(Mockito.any(Conta.class));
+    }
+
+    @Test
+    @DisplayName("delete should invalidate cached conta when successful")
+    void deleteShouldInvalidateCachedContaWhenSuccessful() {
+        Conta contaSaved = Conta.builder().id(1L).identificadorConta("12345-6").saldo(Dinheiro.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+
+        Mockito.when(repository.findCopiaById(1L)).thenReturn(Optional.of(contaSaved)).thenReturn(Optional.empty());
+        Mockito.when(repository.findById(1L)).thenReturn(Optional.of(contaSaved));
+
+        contaService.findByIdOrThrowBadRequestException(1L);
+        contaService.delete(1L);
+
+        Assertions.assertThrows(BadRequestException.class, () -> contaService.findByIdOrThrowBadRequestException(1L), "Uma conta removida não deve continuar no cache");
+    }
 }
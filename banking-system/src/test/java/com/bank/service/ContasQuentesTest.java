@@ -0,0 +1,136 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
+import com.bank.enums.OperacaoEnum;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+class ContasQuentesTest {
+    private static final Function<Conta, Lancamento> MUTACAO =
+            conta -> Lancamento.builder().contaId(conta.getId()).tipo(OperacaoEnum.DEPOSITO).valor(1).delta(1).build();
+    private SimpleMeterRegistry registry;
+    private ContasQuentes contasQuentes;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        contasQuentes = new ContasQuentes(true, 10, 1024, 4, 3, 2, registry);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        contasQuentes.parar();
+    }
+
+    @Test
+    @DisplayName("registrar should mark only the account that crossed the threshold as hot")
+    void registrarShouldMarkOnlyTheAccountThatCrossedTheThresholdAsHot() {
+        Conta lojista = conta(1L, "00001-1");
+        Conta cliente = conta(2L, "00002-2");
+        for (int i = 0; i < 9; i++) {
+            Assertions.assertFalse(contasQuentes.registrar(lojista), "A conta não deve ficar quente antes do limiar");
+            contasQuentes.registrar(cliente);
+        }
+
+        Assertions.assertTrue(contasQuentes.registrar(lojista), "A conta deve ficar quente ao alcançar o limiar");
+        Assertions.assertFalse(contasQuentes.quente(cliente.getIdentificadorConta()), "As outras contas devem seguir frias");
+        Assertions.assertEquals(1.0, registry.get(ContasQuentes.CONTAS).gauge().value(), "O gauge deve mostrar uma conta quente");
+        Assertions.assertEquals(1.0, registry.get(ContasQuentes.PROMOCOES).counter().count());
+    }
+
+    @Test
+    @DisplayName("envelhecer should halve the counters and return a cooled account to the direct path")
+    void envelhecerShouldHalveTheCountersAndReturnACooledAccountToTheDirectPath() {
+        Conta lojista = conta(1L, "00001-1");
+        for (int i = 0; i < 10; i++)
+            contasQuentes.registrar(lojista);
+
+        contasQuentes.envelhecer();
+        Assertions.assertTrue(contasQuentes.quente(lojista.getIdentificadorConta()), "Com metade do limiar a conta segue quente");
+
+        contasQuentes.envelhecer();
+        Assertions.assertFalse(contasQuentes.quente(lojista.getIdentificadorConta()), "Abaixo da metade do limiar a conta esfria");
+        Assertions.assertEquals(0.0, registry.get(ContasQuentes.CONTAS).gauge().value(), "A conta fria deve sair do gauge de contas quentes");
+        Assertions.assertFalse(contasQuentes.registrar(lojista), "A conta fria deve voltar ao caminho direto");
+    }
+
+    @Test
+    @DisplayName("enfileirar should drain each account with a single writer, batching what queued during the previous batch")
+    void enfileirarShouldDrainEachAccountWithASingleWriterBatchingWhatQueuedDuringThePreviousBatch() throws Exception {
+        Conta lojista = conta(1L, "00001-1");
+        CountDownLatch primeiroLote = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        List<Integer> lotes = Collections.synchronizedList(new ArrayList<>());
+        Consumer<List<MutacaoPendente>> aplicador = lote -> {
+            lotes.add(lote.size());
+            if (lotes.size() == 1) {
+                primeiroLote.countDown();
+                aguardar(liberar);
+            }
+            lote.forEach(pendente -> pendente.gravacao().complete(null));
+        };
+
+        List<CompletableFuture<Void>> gravacoes = new ArrayList<>();
+        gravacoes.add(contasQuentes.enfileirar(lojista, MUTACAO, aplicador));
+        Assertions.assertTrue(primeiroLote.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 4; i++)
+            gravacoes.add(contasQuentes.enfileirar(lojista, MUTACAO, aplicador));
+
+        Assertions.assertEquals(4.0, registry.get(ContasQuentes.FILA).gauge().value(), "A profundidade da fila deve ser exposta");
+        Assertions.assertEquals(4.0, registry.get(ContasQuentes.FILA_MAXIMA).gauge().value(), "A maior fila deve ser exposta");
+        Assertions.assertTrue(registry.get(ContasQuentes.FILA_MAXIMA).gauge().getId().getTags().isEmpty(),
+                "Os gauges não devem levar a conta como tag");
+        liberar.countDown();
+        CompletableFuture.allOf(gravacoes.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(List.of(1, 3, 1), lotes,
+                "Um lote por vez, limitado a bank.hotspot.lote-maximo, com o que entrou enquanto o anterior era aplicado");
+        Assertions.assertEquals(0.0, registry.get(ContasQuentes.FILA).gauge().value(), "A fila deve terminar vazia");
+    }
+
+    @Test
+    @DisplayName("enfileirar should fail the whole batch when the aplicador throws")
+    void enfileirarShouldFailTheWholeBatchWhenTheAplicadorThrows() {
+        Conta lojista = conta(1L, "00001-1");
+
+        CompletableFuture<Void> gravacao = contasQuentes.enfileirar(lojista, MUTACAO, lote -> {
+            throw new IllegalStateException("Writer parado");
+        });
+
+        IllegalStateException erro = Assertions.assertThrows(IllegalStateException.class, () -> {
+            try {
+                gravacao.get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                throw e.getCause();
+            }
+        });
+        Assertions.assertEquals("Writer parado", erro.getMessage());
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Conta conta(Long id, String identificador) {
+        return Conta.builder().id(id).identificadorConta(identificador).saldo(Dinheiro.ZERO).build();
+    }
+}
@@ -0,0 +1,165 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import com.bank.domain.CreditoAplicado;
+import com.bank.domain.CreditoPendente;
+import com.bank.domain.CreditoRejeitado;
+import com.bank.domain.Dinheiro;
+import com.bank.enums.OperacaoEnum;
+import com.bank.exception.BadRequestException;
+import com.bank.repository.ContaRepository;
+import com.bank.repository.CreditoAplicadoRepository;
+import com.bank.repository.CreditoPendenteRepository;
+import com.bank.repository.CreditoRejeitadoRepository;
+import com.bank.repository.OperacaoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+@ExtendWith(MockitoExtension.class)
+class CreditosEntreShardsTest {
+    @Mock
+    private ContaRepository contaRepository;
+    @Mock
+    private OperacaoRepository operacaoRepository;
+    @Mock
+    private CreditoPendenteRepository creditoPendenteRepository;
+    @Mock
+    private CreditoAplicadoRepository creditoAplicadoRepository;
+    @Mock
+    private CreditoRejeitadoRepository creditoRejeitadoRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<Remessa> remessas = new ArrayList<>();
+    private final List<Remessa> aplicadas = new ArrayList<>();
+
+    @Test
+    @DisplayName("aplicar should credit the destination, mark the credit applied and delete the pending credit on the origin")
+    @SuppressWarnings("unchecked")
+    void aplicarShouldCreditTheDestinationMarkTheCreditAppliedAndDeleteThePendingCreditOnTheOrigin() {
+        CreditosEntreShards creditos = novosCreditos(60);
+        Conta destino = createConta(2L, Dinheiro.ZERO);
+        Mockito.when(contaRepository.findAllById(Mockito.anyIterable())).thenReturn(List.of(destino));
+        Remessa remessa = creditos.remessa(null, 0, credito(2L, 100), 1L);
+        remessas.add(remessa);
+
+        creditos.aplicar(1, remessas, aplicadas);
+
+        Assertions.assertTrue(remessa.aplicacao().isDone() && !remessa.aplicacao().isCompletedExceptionally());
+        Assertions.assertEquals(Dinheiro.ofCentavos(100), destino.getSaldo());
+        ArgumentCaptor<List<CreditoAplicado>> marcas = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(creditoAplicadoRepository).saveAll(marcas.capture());
+        Assertions.assertEquals(remessa.credito().getId(), marcas.getValue().get(0).getId(), "O destino deve marcar o crédito como aplicado");
+        Mockito.verify(creditoPendenteRepository).deleteAllByIdInBatch(List.of(remessa.credito().getId()));
+        Assertions.assertTrue(remessas.isEmpty() && aplicadas.isEmpty(), "O crédito aplicado e apagado na origem sai das listas do escritor");
+    }
+
+    @Test
+    @DisplayName("aplicar should not credit again a pending credit already marked as applied")
+    void aplicarShouldNotCreditAgainAPendingCreditAlreadyMarkedAsApplied() {
+        CreditosEntreShards creditos = novosCreditos(60);
+        Remessa remessa = creditos.remessa(null, 0, credito(2L, 100), 1L);
+        Mockito.when(creditoAplicadoRepository.findAllById(Mockito.anyIterable()))
+                .thenReturn(List.of(CreditoAplicado.builder().id(remessa.credito().getId()).build()));
+        remessas.add(remessa);
+
+        creditos.aplicar(1, remessas, aplicadas);
+
+        Mockito.verify(contaRepository).findAllById(List.of());
+        Mockito.verify(creditoPendenteRepository).deleteAllByIdInBatch(List.of(remessa.credito().getId()));
+        Assertions.assertTrue(remessa.aplicacao().isDone());
+    }
+
+    @Test
+    @DisplayName("aplicar should reverse a credit the destination refuses on the origin and fail it with the refusal")
+    void aplicarShouldReverseACreditTheDestinationRefusesOnTheOriginAndFailItWithTheRefusal() {
+        CreditosEntreShards creditos = novosCreditos(60);
+        Conta origem = createConta(1L, Dinheiro.ofCentavos(800));
+        Mockito.when(contaRepository.findAllById(Mockito.anyIterable())).thenAnswer(invocation -> {
+            List<Conta> encontradas = new ArrayList<>();
+            invocation.<Iterable<Long>>getArgument(0).forEach(id -> {
+                if (id == 1L)
+                    encontradas.add(origem);
+            });
+            return encontradas;
+        });
+        Remessa remessa = creditos.remessa(null, 0, credito(3L, 200), 1L);
+        remessas.add(remessa);
+
+        creditos.aplicar(1, remessas, aplicadas);
+
+        CompletionException erro = Assertions.assertThrows(CompletionException.class, remessa.aplicacao()::join);
+        Assertions.assertInstanceOf(BadRequestException.class, erro.getCause());
+        Assertions.assertEquals("Not Found id 3", erro.getCause().getMessage());
+        Assertions.assertEquals(Dinheiro.ofCentavos(1_000), origem.getSaldo(), "O débito deve ser estornado na origem");
+        ArgumentCaptor<CreditoRejeitado> rejeitado = ArgumentCaptor.forClass(CreditoRejeitado.class);
+        Mockito.verify(creditoRejeitadoRepository).save(rejeitado.capture());
+        Assertions.assertEquals(1L, rejeitado.getValue().getContaOrigemId());
+        Mockito.verify(creditoPendenteRepository).deleteAllByIdInBatch(List.of(remessa.credito().getId()));
+        Assertions.assertTrue(remessas.isEmpty(), "O crédito estornado não deve ser refeito");
+        Assertions.assertEquals(1.0, registry.counter(Metricas.WRITER_CREDITOS_REJEITADOS).count());
+    }
+
+    @Test
+    @DisplayName("aplicar should keep a credit the destination cannot reach and release its transfer after the deadline")
+    void aplicarShouldKeepACreditTheDestinationCannotReachAndReleaseItsTransferAfterTheDeadline() {
+        CreditosEntreShards creditos = novosCreditos(0);
+        Mockito.when(creditoAplicadoRepository.findAllById(Mockito.anyIterable()))
+                .thenThrow(new DataAccessResourceFailureException("shard 1 indisponível"));
+        Remessa remessa = creditos.remessa(null, 0, credito(2L, 100), 1L);
+        remessas.add(remessa);
+
+        creditos.aplicar(1, remessas, aplicadas);
+
+        Assertions.assertEquals(List.of(remessa), remessas, "O crédito deve ser refeito na próxima volta do escritor");
+        Assertions.assertTrue(remessa.aplicacao().isDone() && !remessa.aplicacao().isCompletedExceptionally(),
+                "Depois do prazo a transferência é liberada, porque o pendente garante o crédito");
+        Mockito.verifyNoInteractions(creditoRejeitadoRepository);
+        Mockito.verify(creditoPendenteRepository, Mockito.never()).deleteAllByIdInBatch(Mockito.anyIterable());
+    }
+
+    @Test
+    @DisplayName("limparCreditosAplicados should delete only old marks whose pending credit is gone from every shard")
+    void limparCreditosAplicadosShouldDeleteOnlyOldMarksWhosePendingCreditIsGoneFromEveryShard() {
+        CreditosEntreShards creditos = novosCreditos(60);
+        Mockito.when(creditoAplicadoRepository.findIdsCriadosAntesDe(Mockito.any(), Mockito.any()))
+                .thenReturn(List.of("aplicado", "reaplicavel"))
+                .thenReturn(List.of());
+        Mockito.when(creditoPendenteRepository.findAllById(Mockito.anyIterable()))
+                .thenReturn(List.of(CreditoPendente.builder().id("reaplicavel").build()));
+
+        creditos.limparCreditosAplicados();
+
+        Mockito.verify(creditoAplicadoRepository).deleteAllByIdInBatch(List.of("aplicado"));
+    }
+
+    private CreditosEntreShards novosCreditos(long prazoCreditoSegundos) {
+        return new CreditosEntreShards(contaRepository, operacaoRepository, creditoPendenteRepository, creditoAplicadoRepository,
+                creditoRejeitadoRepository, new TransactionTemplate(transactionManager), new OptimisticRetry(1, 0, registry),
+                new ContaCache(100, 60, registry), new MovimentacaoSaldos(contaRepository, null, false), new Metricas(registry),
+                new Shards(List.of("shard-0", "shard-1"), transactionManager), prazoCreditoSegundos, 24);
+    }
+
+    private static Lancamento credito(long contaId, long valor) {
+        return Lancamento.builder().contaId(contaId).tipo(OperacaoEnum.TRANSFERENCIA).valor(valor).delta(valor).shard(1).build();
+    }
+
+    private static Conta createConta(long id, Dinheiro saldo) {
+        return Conta.builder().id(id).identificadorConta("12345-6").saldo(saldo).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+    }
+}
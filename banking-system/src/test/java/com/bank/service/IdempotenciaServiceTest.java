@@ -0,0 +1,180 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
+import com.bank.domain.Idempotencia;
+import com.bank.exception.BadRequestException;
+import com.bank.exception.ConflictException;
+import com.bank.repository.IdempotenciaRepository;
+import com.bank.request.OperacaoRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotenciaServiceTest {
+    private static final String CHAVE = "6f1c2a9e-chave";
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    @Mock
+    private IdempotenciaRepository repository;
+
+    @Test
+    @DisplayName("executar should return the original response without executing again when the key is repeated")
+    void executarShouldReturnTheOriginalResponseWithoutExecutingAgainWhenTheKeyIsRepeated() {
+        IdempotenciaService service = new IdempotenciaService(repository, objectMapper, 60, false);
+        AtomicInteger execucoes = new AtomicInteger();
+
+        Conta primeira = service.executar("deposito", CHAVE, deposito(BigDecimal.TEN), Conta.class, () -> conta(execucoes.incrementAndGet()));
+        Conta repetida = service.executar("deposito", CHAVE, deposito(BigDecimal.TEN), Conta.class, () -> conta(execucoes.incrementAndGet()));
+
+        Assertions.assertEquals(1, execucoes.get(), "A operação só pode ser executada uma vez por chave");
+        Assertions.assertEquals(primeira.getSaldo(), repetida.getSaldo(), "A repetição deve receber a resposta original");
+        Assertions.assertEquals(primeira.getIdentificadorConta(), repetida.getIdentificadorConta());
+        Mockito.verifyNoInteractions(repository);
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("executar should make concurrent duplicates wait for the in-flight result")
+    void executarShouldMakeConcurrentDuplicatesWaitForTheInFlightResult() throws Exception {
+        IdempotenciaService service = new IdempotenciaService(repository, objectMapper, 60, false);
+        AtomicInteger execucoes = new AtomicInteger();
+        CountDownLatch emExecucao = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        CompletableFuture<Conta> original = CompletableFuture.supplyAsync(() ->
+                service.executar("deposito", CHAVE, deposito(BigDecimal.TEN), Conta.class, () -> {
+                    emExecucao.countDown();
+                    aguardar(liberar);
+                    return conta(execucoes.incrementAndGet());
+                }));
+        emExecucao.await();
+        CompletableFuture<Conta> duplicata = CompletableFuture.supplyAsync(() ->
+                service.executar("deposito", CHAVE, deposito(BigDecimal.TEN), Conta.class, () -> conta(execucoes.incrementAndGet())));
+
+        Thread.sleep(100);
+        Assertions.assertFalse(duplicata.isDone(), "A duplicata deve esperar a execução em andamento");
+        liberar.countDown();
+
+        Assertions.assertEquals(original.get().getSaldo(), duplicata.get().getSaldo());
+        Assertions.assertEquals(1, execucoes.get(), "Duplicatas concorrentes não podem executar a operação de novo");
+    }
+
+    @Test
+    @DisplayName("executar should throw BadRequestException when the key is reused with a different request")
+    void executarShouldThrowBadRequestExceptionWhenTheKeyIsReusedWithADifferentRequest() {
+        IdempotenciaService service = new IdempotenciaService(repository, objectMapper, 60, false);
+        service.executar("deposito", CHAVE, deposito(BigDecimal.TEN), Conta.class, () -> conta(1));
+
+        BadRequestException exception = Assertions.assertThrows(BadRequestException.class,
+                () -> service.executar("deposito", CHAVE, deposito(BigDecimal.ONE), Conta.class, () -> conta(2)));
+
+        Assertions.assertEquals(IdempotenciaService.CHAVE_REUTILIZADA, exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("executar should not keep failures so the key can be retried")
+    void executarShouldNotKeepFailuresSoTheKeyCanBeRetried() {
+        IdempotenciaService service = new IdempotenciaService(repository, objectMapper, 60, false);
+
+        Assertions.assertThrows(BadRequestException.class, () -> service.executar("saque", CHAVE, deposito(BigDecimal.TEN), Conta.class, () -> {
+            throw new BadRequestException("Saldo insuficiente");
+        }));
+        Conta conta = service.executar("saque", CHAVE, deposito(BigDecimal.TEN), Conta.class, () -> conta(1));
+
+        Assertions.assertNotNull(conta, "Depois de uma falha a mesma chave deve executar a operação");
+    }
+
+    @Test
+    @DisplayName("executar should execute again once the key has expired")
+    void executarShouldExecuteAgainOnceTheKeyHasExpired() {
+        IdempotenciaService service = new IdempotenciaService(repository, objectMapper, 0, false);
+        AtomicInteger execucoes = new AtomicInteger();
+
+        service.executar("deposito", CHAVE, deposito(BigDecimal.TEN), Conta.class, () -> conta(execucoes.incrementAndGet()));
+        service.executar("deposito", CHAVE, deposito(BigDecimal.TEN), Conta.class, () -> conta(execucoes.incrementAndGet()));
+
+        Assertions.assertEquals(2, execucoes.get(), "Uma chave expirada não deve mais deduplicar");
+    }
+
+    @Test
+    @DisplayName("executar should answer from the persisted table after a restart")
+    void executarShouldAnswerFromThePersistedTableAfterARestart() {
+        ArgumentCaptor<Idempotencia> registro = ArgumentCaptor.forClass(Idempotencia.class);
+        Mockito.when(repository.saveAndFlush(registro.capture()))
+                .thenAnswer(invocation -> invocation.getArgument(0))
+                .thenThrow(new DataIntegrityViolationException("chave duplicada"));
+        Mockito.when(repository.findById("deposito:" + CHAVE)).thenAnswer(invocation -> Optional.of(registro.getAllValues().get(0)));
+        AtomicInteger execucoes = new AtomicInteger();
+
+        new IdempotenciaService(repository, objectMapper, 60, true)
+                .executar("deposito", CHAVE, deposito(BigDecimal.TEN), Conta.class, () -> conta(execucoes.incrementAndGet()));
+        Conta aposReinicio = new IdempotenciaService(repository, objectMapper, 60, true)
+                .executar("deposito", CHAVE, deposito(BigDecimal.TEN), Conta.class, () -> conta(execucoes.incrementAndGet()));
+
+        Assertions.assertEquals(1, execucoes.get(), "A resposta gravada deve sobreviver ao reinício");
+        Assertions.assertEquals(Dinheiro.ofCentavos(100), aposReinicio.getSaldo());
+    }
+
+    @Test
+    @DisplayName("executar should throw ConflictException when another node is still executing the key")
+    void executarShouldThrowConflictExceptionWhenAnotherNodeIsStillExecutingTheKey() {
+        ArgumentCaptor<Idempotencia> registro = ArgumentCaptor.forClass(Idempotencia.class);
+        Mockito.when(repository.saveAndFlush(registro.capture()))
+                .thenAnswer(invocation -> invocation.getArgument(0))
+                .thenThrow(new DataIntegrityViolationException("chave duplicada"));
+        Mockito.when(repository.findById("deposito:" + CHAVE)).thenAnswer(invocation -> Optional.of(registro.getAllValues().get(0)));
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        CompletableFuture<Conta> outroNo = CompletableFuture.supplyAsync(() -> new IdempotenciaService(repository, objectMapper, 60, true)
+                .executar("deposito", CHAVE, deposito(BigDecimal.TEN), Conta.class, () -> {
+                    aguardar(liberar);
+                    return conta(1);
+                }));
+        Mockito.verify(repository, Mockito.timeout(5_000)).saveAndFlush(Mockito.any());
+
+        Assertions.assertThrows(ConflictException.class, () -> new IdempotenciaService(repository, objectMapper, 60, true)
+                .executar("deposito", CHAVE, deposito(BigDecimal.TEN), Conta.class, () -> conta(2)));
+        liberar.countDown();
+        outroNo.join();
+    }
+
+    private static OperacaoRequest deposito(BigDecimal valor) {
+        return OperacaoRequest.builder().identificador("12345-6").valor(valor).build();
+    }
+
+    private static Conta conta(int execucao) {
+        return Conta.builder()
+                .id(1L)
+                .identificadorConta("12345-6")
+                .saldo(Dinheiro.ofCentavos(execucao * 100L))
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
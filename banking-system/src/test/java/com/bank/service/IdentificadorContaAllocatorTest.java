@@ -0,0 +1,109 @@
+package com.bank.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+@ExtendWith(MockitoExtension.class)
+class IdentificadorContaAllocatorTest {
+    private static final String FORMATO_CURTO = "\\d{5}-\\d";
+    private static final String FORMATO_LONGO = "\\d{9}-\\d";
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private IdentificadorContaAllocator allocator(long tamanhoBloco) {
+        Mockito.when(jdbcTemplate.queryForObject(Mockito.anyString(), Mockito.eq(Long.class)))
+                .thenAnswer(invocation -> sequence.getAndIncrement() * tamanhoBloco);
+        return new IdentificadorContaAllocator(jdbcTemplate, tamanhoBloco);
+    }
+
+    @Test
+    @DisplayName("proximo should hand out every short identificador once before switching to the wide format")
+    void proximoShouldHandOutEveryShortIdentificadorOnceBeforeSwitchingToTheWideFormat() {
+        IdentificadorContaAllocator allocator = allocator(1000);
+        Set<String> identificadores = new HashSet<>();
+
+        for (long i = 0; i < IdentificadorContaAllocator.ESPACO_CURTO; i++) {
+            String identificador = allocator.proximo();
+            Assertions.assertTrue(identificador.matches(FORMATO_CURTO), "Identificador fora do formato NNNNN-N: " + identificador);
+            Assertions.assertTrue(identificadores.add(identificador), "Identificador repetido: " + identificador);
+            assertDigitoVerificadorValido(identificador);
+        }
+
+        String largo = allocator.proximo();
+        Assertions.assertTrue(largo.matches(FORMATO_LONGO), "Esgotado o espaço curto o identificador deve usar o formato largo: " + largo);
+        assertDigitoVerificadorValido(largo);
+        Assertions.assertEquals(101, sequence.get(), "Cada bloco de 1000 identificadores deve custar uma única ida à sequence");
+    }
+
+    @Test
+    @DisplayName("proximo should not repeat identificadores nor discard blocks under concurrency")
+    void proximoShouldNotRepeatIdentificadoresNorDiscardBlocksUnderConcurrency() throws Exception {
+        int threads = 8;
+        int porThread = 20_000;
+        long tamanhoBloco = 50;
+        IdentificadorContaAllocator allocator = allocator(tamanhoBloco);
+        Set<String> identificadores = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                tarefas.add(executor.submit(() -> {
+                    for (int i = 0; i < porThread; i++) {
+                        identificadores.add(allocator.proximo());
+                    }
+                }));
+            }
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long necessarios = (long) threads * porThread / tamanhoBloco;
+        Assertions.assertEquals(threads * porThread, identificadores.size(), "Nenhum identificador pode ser entregue duas vezes");
+        Assertions.assertTrue(sequence.get() <= necessarios + threads,
+                "Blocos reservados por threads que perderam a corrida devem ser reaproveitados, reservados: " + sequence.get());
+    }
+
+    @Test
+    @DisplayName("criarSequence should refuse a sequence that reserves blocks of another size")
+    void criarSequenceShouldRefuseASequenceThatReservesBlocksOfAnotherSize() {
+        Mockito.when(jdbcTemplate.queryForObject(Mockito.anyString(), Mockito.eq(Long.class), Mockito.<Object>any()))
+                .thenReturn(100L);
+        IdentificadorContaAllocator allocator = new IdentificadorContaAllocator(jdbcTemplate, 1000);
+
+        Assertions.assertThrows(IllegalStateException.class, allocator::criarSequence,
+                "Blocos de 1000 a partir de inícios de 100 em 100 repetiriam identificadores");
+    }
+
+    @Test
+    @DisplayName("digitoVerificador should compute modulo 11 with weights 2 to 9 from the right")
+    void digitoVerificadorShouldComputeModulo11WithWeights2To9FromTheRight() {
+        Assertions.assertEquals(5, IdentificadorContaAllocator.digitoVerificador("12345"), "Soma 50, resto 6, dígito 11 - 6");
+        Assertions.assertEquals(0, IdentificadorContaAllocator.digitoVerificador("00000"), "Resto 0 resulta em dígito 0");
+    }
+
+    private static void assertDigitoVerificadorValido(String identificador) {
+        String[] partes = identificador.split("-");
+        Assertions.assertEquals(IdentificadorContaAllocator.digitoVerificador(partes[0]), Integer.parseInt(partes[1]),
+                "Dígito verificador inválido: " + identificador);
+    }
+}
@@ -0,0 +1,190 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
+import com.bank.domain.Operacao;
+import com.bank.domain.ProjecaoLedger;
+import com.bank.domain.ResumoDiario;
+import com.bank.enums.NaturezaEnum;
+import com.bank.enums.OperacaoEnum;
+import com.bank.repository.ContaRepository;
+import com.bank.repository.OperacaoRepository;
+import com.bank.repository.ProjecaoLedgerRepository;
+import com.bank.repository.ResumoDiarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerProjetorTest {
+    private static final LocalDateTime HOJE = LocalDateTime.of(2024, 3, 10, 9, 30);
+    @Mock
+    private OperacaoRepository operacaoRepository;
+    @Mock
+    private ContaRepository contaRepository;
+    @Mock
+    private ResumoDiarioRepository resumoRepository;
+    @Mock
+    private ProjecaoLedgerRepository projecaoRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private final SaldoEngine engine = new SaldoEngine(16);
+    private final ContaCache cache = new ContaCache(100, 60, new SimpleMeterRegistry());
+
+    @Test
+    @DisplayName("projetar should apply published events to saldo, daily summaries and position in one transaction")
+    @SuppressWarnings("unchecked")
+    void projetarShouldApplyPublishedEventsToSaldoDailySummariesAndPositionInOneTransaction() {
+        LedgerProjetor projetor = projetor(true, 2);
+        Mockito.when(contaRepository.getReferenceById(Mockito.anyLong())).thenAnswer(invocation -> conta(invocation.getArgument(0), Dinheiro.ZERO));
+        Mockito.when(contaRepository.findAllById(Mockito.anyIterable())).thenReturn(List.of(conta(1L, Dinheiro.of(new BigDecimal("7.00")))));
+
+        projetor.publicar(List.of(
+                operacao(11L, 1L, NaturezaEnum.CREDITO, "10.00", HOJE),
+                operacao(12L, 1L, NaturezaEnum.DEBITO, "3.00", HOJE),
+                operacao(13L, 2L, NaturezaEnum.CREDITO, "5.00", HOJE.plusDays(1))));
+        projetor.projetar();
+
+        Mockito.verify(contaRepository).somarSaldo(1L, new BigDecimal("7.00"));
+        Mockito.verify(contaRepository).somarSaldo(2L, new BigDecimal("5.00"));
+        Mockito.verify(transactionManager, Mockito.times(1)).commit(Mockito.any());
+        ArgumentCaptor<List<ResumoDiario>> resumos = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(resumoRepository).saveAll(resumos.capture());
+        ResumoDiario resumo = resumos.getValue().stream().filter(r -> r.getConta().getId() == 1L).findFirst().orElseThrow();
+        Assertions.assertEquals(new BigDecimal("10.00"), resumo.getCreditos());
+        Assertions.assertEquals(new BigDecimal("3.00"), resumo.getDebitos());
+        Assertions.assertEquals(2, resumo.getQuantidade(), "O resumo deve contar as operações do dia");
+        Assertions.assertEquals(13L, posicaoGravada().getUltimaOperacao(), "A posição deve avançar até o último evento aplicado");
+        Assertions.assertEquals(Dinheiro.of(new BigDecimal("7.00")), cache.porId(1L, id -> Optional.empty()).map(Conta::getSaldo).orElse(null),
+                "O cache deve receber o saldo projetado");
+    }
+
+    @Test
+    @DisplayName("saldo should add committed events that were not projected yet")
+    void saldoShouldAddCommittedEventsThatWereNotProjectedYet() {
+        LedgerProjetor projetor = projetor(true, 2);
+        Mockito.when(contaRepository.findById(1L)).thenReturn(Optional.of(conta(1L, Dinheiro.of(new BigDecimal("50.00")))));
+
+        projetor.publicar(List.of(
+                operacao(1L, 1L, NaturezaEnum.CREDITO, "20.00", HOJE),
+                operacao(2L, 1L, NaturezaEnum.DEBITO, "5.00", HOJE)));
+
+        Assertions.assertEquals(Dinheiro.of(new BigDecimal("65.00")), projetor.saldo(conta(1L, Dinheiro.ZERO)),
+                "O saldo do ledger é o projetado mais os eventos pendentes");
+    }
+
+    @Test
+    @DisplayName("projetar should keep events and retry them when the projection transaction fails")
+    void projetarShouldKeepEventsAndRetryThemWhenTheProjectionTransactionFails() {
+        LedgerProjetor projetor = projetor(true, 2);
+        Mockito.when(contaRepository.somarSaldo(1L, new BigDecimal("10.00")))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(1);
+
+        projetor.publicar(List.of(operacao(1L, 1L, NaturezaEnum.CREDITO, "10.00", HOJE)));
+        projetor.projetar();
+        projetor.projetar();
+
+        Mockito.verify(contaRepository, Mockito.times(2)).somarSaldo(1L, new BigDecimal("10.00"));
+        Assertions.assertEquals(1L, posicaoGravada().getUltimaOperacao(), "O evento deve ser aplicado na nova tentativa");
+    }
+
+    @Test
+    @DisplayName("reconstruir should rebuild projections from scratch replaying every partition when there is no position")
+    void reconstruirShouldRebuildProjectionsFromScratchReplayingEveryPartitionWhenThereIsNoPosition() {
+        LedgerProjetor projetor = projetor(true, 2);
+        Mockito.when(projecaoRepository.findById(LedgerProjetor.PROJECAO)).thenReturn(Optional.empty());
+        Mockito.when(contaRepository.getReferenceById(Mockito.anyLong())).thenAnswer(invocation -> conta(invocation.getArgument(0), Dinheiro.ZERO));
+        Mockito.when(operacaoRepository.streamLedger(0L, 2L, 0L)).thenAnswer(invocation -> Stream.of(
+                evento(2L, 2L, NaturezaEnum.CREDITO, "8.00"),
+                evento(5L, 2L, NaturezaEnum.DEBITO, "1.00")));
+        Mockito.when(operacaoRepository.streamLedger(0L, 2L, 1L)).thenAnswer(invocation -> Stream.of(
+                evento(1L, 1L, NaturezaEnum.CREDITO, "4.00"),
+                evento(3L, 3L, NaturezaEnum.CREDITO, "6.00")));
+
+        projetor.reconstruir();
+
+        Mockito.verify(contaRepository).zerarSaldos();
+        Mockito.verify(resumoRepository).deleteAllInBatch();
+        Mockito.verify(contaRepository).somarSaldo(1L, new BigDecimal("4.00"));
+        Mockito.verify(contaRepository).somarSaldo(2L, new BigDecimal("7.00"));
+        Mockito.verify(contaRepository).somarSaldo(3L, new BigDecimal("6.00"));
+        Assertions.assertEquals(5L, posicaoGravada().getUltimaOperacao(), "A posição deve ser o maior id entre as partições");
+    }
+
+    @Test
+    @DisplayName("reconstruir should replay only events after the stored position and feed the engine from the ledger")
+    void reconstruirShouldReplayOnlyEventsAfterTheStoredPositionAndFeedTheEngineFromTheLedger() {
+        LedgerProjetor projetor = projetor(true, 1);
+        Mockito.when(projecaoRepository.findById(LedgerProjetor.PROJECAO))
+                .thenReturn(Optional.of(ProjecaoLedger.builder().nome(LedgerProjetor.PROJECAO).ultimaOperacao(40L).build()));
+        Mockito.when(operacaoRepository.streamLedger(40L, 1L, 0L)).thenAnswer(invocation -> Stream.empty());
+        Mockito.when(contaRepository.findById(1L)).thenReturn(Optional.of(conta(1L, Dinheiro.of(new BigDecimal("30.00")))));
+
+        projetor.reconstruir();
+        Conta desatualizada = conta(1L, Dinheiro.ZERO);
+        engine.executar(desatualizada, () -> null);
+
+        Mockito.verify(contaRepository, Mockito.never()).zerarSaldos();
+        Assertions.assertEquals(40L, posicaoGravada().getUltimaOperacao());
+        Assertions.assertEquals(Dinheiro.of(new BigDecimal("30.00")), desatualizada.getSaldo(), "O engine deve partir do saldo do ledger");
+    }
+
+    @Test
+    @DisplayName("reconstruir and projetar should do nothing when the ledger is not event-sourced")
+    void reconstruirAndProjetarShouldDoNothingWhenTheLedgerIsNotEventSourced() {
+        LedgerProjetor projetor = projetor(false, 2);
+
+        projetor.reconstruir();
+        projetor.publicar(List.of(operacao(1L, 1L, NaturezaEnum.CREDITO, "10.00", HOJE)));
+        projetor.projetar();
+
+        Mockito.verifyNoInteractions(operacaoRepository, contaRepository, resumoRepository, projecaoRepository);
+    }
+
+    private LedgerProjetor projetor(boolean ativo, int particoes) {
+        return new LedgerProjetor(operacaoRepository, contaRepository, resumoRepository, projecaoRepository,
+                new TransactionTemplate(transactionManager), engine, cache, ativo, particoes);
+    }
+
+    private ProjecaoLedger posicaoGravada() {
+        ArgumentCaptor<ProjecaoLedger> posicao = ArgumentCaptor.forClass(ProjecaoLedger.class);
+        Mockito.verify(projecaoRepository, Mockito.atLeastOnce()).save(posicao.capture());
+        return posicao.getAllValues().stream().max(Comparator.comparing(ProjecaoLedger::getUltimaOperacao)).orElseThrow();
+    }
+
+    private static EventoLedger evento(long id, long contaId, NaturezaEnum natureza, String valor) {
+        return new EventoLedger(id, contaId, natureza, new BigDecimal(valor), HOJE);
+    }
+
+    private static Operacao operacao(long id, long contaId, NaturezaEnum natureza, String valor, LocalDateTime createdAt) {
+        return Operacao.builder()
+                .id(id)
+                .tipo(natureza == NaturezaEnum.DEBITO ? OperacaoEnum.SAQUE : OperacaoEnum.DEPOSITO)
+                .natureza(natureza)
+                .valor(new BigDecimal(valor))
+                .createdAt(createdAt)
+                .conta(conta(contaId, Dinheiro.ZERO))
+                .build();
+    }
+
+    private static Conta conta(long id, Dinheiro saldo) {
+        return Conta.builder().id(id).identificadorConta(String.valueOf(id)).saldo(saldo).build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.bank.service;
+
+import com.bank.exception.BadRequestException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static com.bank.enums.OperacaoEnum.DEPOSITO;
+import static com.bank.enums.OperacaoEnum.SAQUE;
+
+class MetricasTest {
+    private SimpleMeterRegistry registry;
+    private Metricas metricas;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metricas = new Metricas(registry);
+    }
+
+    @Test
+    @DisplayName("medir should record the call under its tipo and resultado, including validation failures")
+    void medirShouldRecordTheCallUnderItsTipoAndResultadoIncludingValidationFailures() {
+        metricas.medir("saque", SAQUE, () -> "ok");
+        metricas.medir("saque", SAQUE, () -> "ok");
+        Assertions.assertThrows(BadRequestException.class,
+                () -> metricas.medir("saque", SAQUE, () -> {
+                    throw new BadRequestException("Saldo insuficiente");
+                }));
+
+        Assertions.assertEquals(2, registry.get(Metricas.OPERACAO).tags("tipo", "SAQUE", "resultado", Metricas.SUCESSO).timer().count(),
+                "As chamadas com sucesso devem ser contadas no timer de sucesso");
+        Assertions.assertEquals(1, registry.get(Metricas.OPERACAO)
+                        .tags("tipo", "SAQUE", "resultado", Metricas.VALIDACAO, "excecao", "BadRequestException").timer().count(),
+                "A falha de validação deve ser contada com a exceção");
+    }
+
+    @Test
+    @DisplayName("medirAssincrono should record only when the gravacao completes, with its outcome")
+    void medirAssincronoShouldRecordOnlyWhenTheGravacaoCompletesWithItsOutcome() {
+        CompletableFuture<Void> gravacao = new CompletableFuture<>();
+        CompletableFuture<Void> medida = metricas.medirAssincrono("deposito", DEPOSITO, () -> gravacao);
+
+        Assertions.assertNull(registry.find(Metricas.OPERACAO).timer(), "Nada deve ser registrado antes do commit");
+
+        gravacao.completeExceptionally(new IllegalStateException("Falha na gravação"));
+
+        Assertions.assertTrue(medida.isCompletedExceptionally());
+        Assertions.assertEquals(1, registry.get(Metricas.OPERACAO)
+                .tags("tipo", "DEPOSITO", "resultado", Metricas.ERRO, "excecao", "IllegalStateException").timer().count());
+    }
+
+    @Test
+    @DisplayName("valor and erro should feed the amount histogram and the error counter")
+    void valorAndErroShouldFeedTheAmountHistogramAndTheErrorCounter() {
+        metricas.valor(DEPOSITO, 1_050);
+        metricas.valor(DEPOSITO, 250);
+        metricas.erro(new BadRequestException("x"), 400);
+
+        Assertions.assertEquals(13.0, registry.get(Metricas.VALOR).tag("tipo", "DEPOSITO").summary().totalAmount(), 0.0001,
+                "Os valores devem ser registrados em reais");
+        Assertions.assertEquals(1.0, registry.get(Metricas.ERROS).tags("excecao", "BadRequestException", "status", "400").counter().count());
+    }
+}
@@ -0,0 +1,132 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
+import com.bank.enums.OperacaoEnum;
+import com.bank.exception.BadRequestException;
+import com.bank.repository.ContaRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@ExtendWith(MockitoExtension.class)
+class MovimentacaoSaldosTest {
+    @Mock
+    private ContaRepository contaRepository;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("movimentar should split the conditional update so no command lists more than the capped number of contas")
+    void movimentarShouldSplitTheConditionalUpdateSoNoCommandListsMoreThanTheCappedNumberOfContas() {
+        MovimentacaoSaldos movimentacao = new MovimentacaoSaldos(contaRepository, jdbcTemplate, true);
+        banco("H2");
+        List<Integer> contasPorComando = new ArrayList<>();
+        Mockito.when(jdbcTemplate.query(Mockito.anyString(), Mockito.<RowMapper<Conta>>any(), Mockito.any(Object[].class))).thenAnswer(invocation -> {
+            int contas = (invocation.getArguments().length - 3) / 5;
+            contasPorComando.add(contas);
+            List<Conta> gravadas = new ArrayList<>();
+            for (int i = 0; i < contas; i++)
+                gravadas.add(createConta((Long) invocation.getArguments()[2 + 2 * i], Dinheiro.ofCentavos(100)));
+            return gravadas;
+        });
+        List<Lancamento> lancamentos = new ArrayList<>();
+        for (long id = 1; id <= MovimentacaoSaldos.CONTAS_POR_UPDATE + 50; id++)
+            lancamentos.add(deposito(id, 100));
+
+        Map<Long, Conta> contas = movimentacao.movimentar(lancamentos);
+        movimentacao.movimentar(List.of(deposito(1L, 100)));
+
+        Assertions.assertEquals(MovimentacaoSaldos.CONTAS_POR_UPDATE + 50, contas.size());
+        Assertions.assertEquals(List.of(MovimentacaoSaldos.CONTAS_POR_UPDATE, 50, 1), contasPorComando,
+                "Cada UPDATE deve listar no máximo CONTAS_POR_UPDATE contas");
+        Mockito.verify(jdbcTemplate, Mockito.times(1)).execute(Mockito.<ConnectionCallback<String>>any());
+    }
+
+    @Test
+    @DisplayName("movimentar should refuse the contas the FINAL TABLE update did not return")
+    void movimentarShouldRefuseTheContasTheFinalTableUpdateDidNotReturn() {
+        MovimentacaoSaldos movimentacao = new MovimentacaoSaldos(contaRepository, jdbcTemplate, true);
+        banco("H2");
+        Mockito.when(jdbcTemplate.query(Mockito.anyString(), Mockito.<RowMapper<Conta>>any(), Mockito.any(Object[].class)))
+                .thenReturn(List.of(createConta(1L, Dinheiro.ofCentavos(300))));
+
+        SaldoRecusado recusa = Assertions.assertThrows(SaldoRecusado.class,
+                () -> movimentacao.movimentar(List.of(deposito(1L, 300), saque(2L, 50))));
+
+        Assertions.assertEquals(Set.of(2L), recusa.contas(), "Só a conta que o UPDATE não devolveu deve ser recusada");
+    }
+
+    @Test
+    @DisplayName("movimentar should batch one conditional update per conta and read the written rows outside H2")
+    @SuppressWarnings("unchecked")
+    void movimentarShouldBatchOneConditionalUpdatePerContaAndReadTheWrittenRowsOutsideH2() {
+        MovimentacaoSaldos movimentacao = new MovimentacaoSaldos(contaRepository, jdbcTemplate, true);
+        banco("PostgreSQL");
+        // A conta 2 não cobre o saque: o batch conta zero linhas para ela.
+        Mockito.when(jdbcTemplate.batchUpdate(Mockito.anyString(), Mockito.<List<Object[]>>any())).thenAnswer(invocation ->
+                invocation.<List<Object[]>>getArgument(1).stream().mapToInt(parametros -> parametros[1].equals(2L) ? 0 : 1).toArray());
+        Mockito.when(jdbcTemplate.query(Mockito.anyString(), Mockito.<RowMapper<Conta>>any(), Mockito.any(Object[].class)))
+                .thenReturn(List.of(createConta(1L, Dinheiro.ofCentavos(300))));
+
+        SaldoRecusado recusa = Assertions.assertThrows(SaldoRecusado.class,
+                () -> movimentacao.movimentar(List.of(deposito(1L, 300), saque(2L, 50))));
+
+        Assertions.assertEquals(Set.of(2L), recusa.contas(), "A conta com contagem zero deve ser recusada");
+        ArgumentCaptor<List<Object[]>> comandos = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(jdbcTemplate).batchUpdate(Mockito.anyString(), comandos.capture());
+        Assertions.assertArrayEquals(new Object[]{new BigDecimal("3.00"), 1L, new BigDecimal("3.00"), BigDecimal.valueOf(Dinheiro.LIMITE_CENTAVOS, 2)},
+                comandos.getValue().get(0), "Cada conta deve ter o seu UPDATE com o movimento só em parâmetros");
+        ArgumentCaptor<Object[]> lidas = ArgumentCaptor.forClass(Object[].class);
+        Mockito.verify(jdbcTemplate).query(Mockito.anyString(), Mockito.<RowMapper<Conta>>any(), lidas.capture());
+        Assertions.assertArrayEquals(new Object[]{1L}, lidas.getValue(), "Só as contas gravadas devem ser lidas depois do batch");
+    }
+
+    @Test
+    @DisplayName("movimentar should read and change the contas without the conditional update and refuse a missing conta")
+    void movimentarShouldReadAndChangeTheContasWithoutTheConditionalUpdateAndRefuseAMissingConta() {
+        MovimentacaoSaldos movimentacao = new MovimentacaoSaldos(contaRepository, jdbcTemplate, false);
+        Conta conta = createConta(1L, Dinheiro.ofCentavos(100));
+        Mockito.when(contaRepository.findAllById(Mockito.anyIterable())).thenReturn(List.of(conta));
+
+        Map<Long, Conta> contas = movimentacao.movimentar(List.of(deposito(1L, 300), saque(1L, 50)));
+        BadRequestException erro = Assertions.assertThrows(BadRequestException.class,
+                () -> movimentacao.movimentar(List.of(deposito(2L, 100))));
+
+        Assertions.assertSame(conta, movimentacao.referencia(contas, deposito(1L, 300)), "A Operacao deve apontar para a conta lida");
+        Assertions.assertEquals(Dinheiro.ofCentavos(350), conta.getSaldo());
+        Assertions.assertEquals("Not Found id 2", erro.getMessage());
+        Mockito.verifyNoInteractions(jdbcTemplate);
+    }
+
+    private void banco(String produto) {
+        Mockito.when(jdbcTemplate.execute(Mockito.<ConnectionCallback<String>>any())).thenReturn(produto);
+    }
+
+    private static Lancamento saque(long contaId, long valor) {
+        return Lancamento.builder().contaId(contaId).tipo(OperacaoEnum.SAQUE).valor(valor).delta(-valor).build();
+    }
+
+    private static Lancamento deposito(long contaId, long valor) {
+        return Lancamento.builder().contaId(contaId).tipo(OperacaoEnum.DEPOSITO).valor(valor).delta(valor).build();
+    }
+
+    private static Conta createConta(long id, Dinheiro saldo) {
+        return Conta.builder().id(id).identificadorConta("12345-6").saldo(saldo).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+    }
+}
@@ -0,0 +1,130 @@
+package com.bank.service;
+
+import com.bank.enums.OperacaoEnum;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+class OperacaoJournalTest {
+    private static final int SEGMENTO_PEQUENO = 256;
+    @TempDir
+    Path diretorio;
+    private final List<OperacaoJournal> abertos = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        for (OperacaoJournal journal : abertos)
+            journal.fechar();
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("registrar should complete once durable and the records should be recovered after reopening")
+    void registrarShouldCompleteOnceDurableAndTheRecordsShouldBeRecoveredAfterReopening() {
+        OperacaoJournal journal = abrir(1024 * 1024);
+        List<Long> sequencias = new CopyOnWriteArrayList<>();
+
+        journal.registrar(List.of(lancamento(1L, OperacaoEnum.DEPOSITO, 1_050)), sequencias::add).join();
+        journal.registrar(List.of(
+                lancamento(1L, OperacaoEnum.TRANSFERENCIA, -325),
+                lancamento(2L, OperacaoEnum.TRANSFERENCIA, 325)), sequencias::add).join();
+
+        List<OperacaoJournal.Registro> recuperados = abrir(1024 * 1024).recuperar(0);
+
+        Assertions.assertEquals(List.of(1L, 2L), sequencias, "As sequências devem ser entregues em ordem");
+        Assertions.assertEquals(List.of(1L, 2L), recuperados.stream().map(OperacaoJournal.Registro::sequencia).toList());
+        Lancamento debito = recuperados.get(1).lancamentos().get(0);
+        Assertions.assertEquals(OperacaoEnum.TRANSFERENCIA, debito.getTipo());
+        Assertions.assertEquals(325, debito.getValor());
+        Assertions.assertEquals(-325, debito.getDelta(), "A natureza do lançamento deve sobreviver ao journal");
+        Assertions.assertEquals(1_050, recuperados.get(0).lancamentos().get(0).getDelta());
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("recuperar should return only records after the confirmed sequence and the sequence should continue")
+    void recuperarShouldReturnOnlyRecordsAfterTheConfirmedSequenceAndTheSequenceShouldContinue() {
+        OperacaoJournal journal = abrir(1024 * 1024);
+        for (int i = 0; i < 5; i++)
+            journal.registrar(List.of(lancamento(1L, OperacaoEnum.DEPOSITO, 100)), sequencia -> {}).join();
+
+        OperacaoJournal reaberto = abrir(1024 * 1024);
+        List<OperacaoJournal.Registro> pendentes = reaberto.recuperar(3);
+        long[] proxima = new long[1];
+        reaberto.registrar(List.of(lancamento(1L, OperacaoEnum.DEPOSITO, 100)), sequencia -> proxima[0] = sequencia).join();
+
+        Assertions.assertEquals(List.of(4L, 5L), pendentes.stream().map(OperacaoJournal.Registro::sequencia).toList());
+        Assertions.assertEquals(6L, proxima[0], "A sequência deve continuar depois da maior já registrada");
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("abrir should ignore a torn record at the end of a segment")
+    void abrirShouldIgnoreATornRecordAtTheEndOfASegment() throws IOException {
+        OperacaoJournal journal = abrir(1024 * 1024);
+        journal.registrar(List.of(lancamento(1L, OperacaoEnum.DEPOSITO, 100)), sequencia -> {}).join();
+        journal.registrar(List.of(lancamento(1L, OperacaoEnum.SAQUE, -100)), sequencia -> {}).join();
+
+        // Corrompe o último byte do valor do segundo registro, simulando uma escrita interrompida.
+        Path segmento = segmentos().get(0);
+        try (RandomAccessFile arquivo = new RandomAccessFile(segmento.toFile(), "rw")) {
+            long posicao = 16 + 2L * (4 + 8 + 8 + 2 + 18 + 4) - 5;
+            arquivo.seek(posicao);
+            arquivo.write(arquivo.read() ^ 0xFF);
+        }
+
+        List<OperacaoJournal.Registro> recuperados = abrir(1024 * 1024).recuperar(0);
+
+        Assertions.assertEquals(List.of(1L), recuperados.stream().map(OperacaoJournal.Registro::sequencia).toList(),
+                "Um registro com CRC inválido encerra a leitura do segmento");
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("confirmar should delete full segments whose records were all written to the tables")
+    void confirmarShouldDeleteFullSegmentsWhoseRecordsWereAllWrittenToTheTables() throws IOException {
+        OperacaoJournal journal = abrir(SEGMENTO_PEQUENO);
+        List<CompletableFuture<Void>> registros = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+            registros.add(journal.registrar(List.of(lancamento(1L, OperacaoEnum.DEPOSITO, 100)), sequencia -> {}));
+        registros.forEach(CompletableFuture::join);
+        int antes = segmentos().size();
+
+        journal.confirmar(20);
+
+        Assertions.assertTrue(antes > 2, "Segmentos pequenos devem ter rotacionado");
+        Assertions.assertEquals(1, segmentos().size(), "Só o segmento atual deve restar");
+        Assertions.assertEquals(16L, abrir(SEGMENTO_PEQUENO).recuperar(0).get(0).sequencia(),
+                "Registros dos segmentos apagados não devem voltar na recuperação");
+    }
+
+    private OperacaoJournal abrir(int tamanhoSegmento) {
+        OperacaoJournal journal = new OperacaoJournal(true, diretorio, tamanhoSegmento, 100);
+        journal.abrir();
+        abertos.add(journal);
+        return journal;
+    }
+
+    private List<Path> segmentos() throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos.filter(arquivo -> arquivo.toString().endsWith(OperacaoJournal.EXTENSAO)).sorted().toList();
+        }
+    }
+
+    private static Lancamento lancamento(long contaId, OperacaoEnum tipo, long delta) {
+        return Lancamento.builder().contaId(contaId).tipo(tipo).valor(Math.abs(delta)).delta(delta).build();
+    }
+}
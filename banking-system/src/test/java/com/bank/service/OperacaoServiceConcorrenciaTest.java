@@ -0,0 +1,114 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
+import com.bank.exception.BadRequestException;
+import com.bank.request.OperacaoRequest;
+import com.bank.request.TransferenciaRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Transferências concorrentes pelo caminho inteiro, OperacaoService, SaldoEngine e OperacaoWriter, contra um H2 de
+ * verdade: o que o teste de carga do SaldoEngine verifica em memória tem de valer também para o que foi commitado.
+ * Poucas contas para muitas threads, para que as mesmas contas se cruzem nos dois sentidos dentro de um lote.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:operacao-concorrencia")
+class OperacaoServiceConcorrenciaTest {
+    private static final int CONTAS = 10;
+    private static final int THREADS = 8;
+    private static final int TRANSFERENCIAS_POR_THREAD = 250;
+    private static final long SALDO_INICIAL = 10_000;
+    @Autowired
+    private OperacaoService operacaoService;
+    @Autowired
+    private ContaService contaService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @Timeout(120)
+    @DisplayName("concurrent transferencias through the writer should conserve the persisted saldos and operacoes")
+    void concurrentTransferenciasThroughTheWriterShouldConserveThePersistedSaldosAndOperacoes() throws Exception {
+        List<Conta> contas = new ArrayList<>();
+        for (int i = 0; i < CONTAS; i++) {
+            Conta conta = contaService.save();
+            operacaoService.deposito(OperacaoRequest.builder()
+                    .identificador(conta.getIdentificadorConta())
+                    .valor(BigDecimal.valueOf(SALDO_INICIAL, 2))
+                    .build());
+            contas.add(conta);
+        }
+        AtomicInteger aceitas = new AtomicInteger();
+        AtomicInteger recusadas = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERENCIAS_POR_THREAD; i++) {
+                    int origem = random.nextInt(CONTAS);
+                    int destino = (origem + random.nextInt(1, CONTAS)) % CONTAS;
+                    try {
+                        operacaoService.transferencia(TransferenciaRequest.builder()
+                                .origem(contas.get(origem).getIdentificadorConta())
+                                .destino(contas.get(destino).getIdentificadorConta())
+                                .valor(BigDecimal.valueOf(random.nextLong(1, 5_000), 2))
+                                .build());
+                        aceitas.incrementAndGet();
+                    } catch (BadRequestException e) {
+                        // Saldo insuficiente: a transferência não pode deixar rastro nem no saldo nem nas operações.
+                        recusadas.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures)
+            future.get();
+        executor.shutdown();
+
+        String ids = contas.stream().map(conta -> conta.getId().toString()).collect(Collectors.joining(", "));
+        Map<Long, BigDecimal> saldos = jdbcTemplate.query("select id, saldo from conta where id in (" + ids + ")",
+                        (resultado, linha) -> Map.entry(resultado.getLong("id"), resultado.getBigDecimal("saldo"))).stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        Map<Long, BigDecimal> movimentos = jdbcTemplate.query("select id_conta, sum(case when natureza = 'DEBITO' then -valor else valor end) " +
+                                "as movimento from operacao where id_conta in (" + ids + ") group by id_conta",
+                        (resultado, linha) -> Map.entry(resultado.getLong("id_conta"), resultado.getBigDecimal("movimento"))).stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        Integer transferencias = jdbcTemplate.queryForObject("select count(*) from operacao where tipo = 'TRANSFERENCIA' and id_conta in (" + ids + ")",
+                Integer.class);
+
+        Assertions.assertEquals(THREADS * TRANSFERENCIAS_POR_THREAD, aceitas.get() + recusadas.get());
+        Assertions.assertTrue(aceitas.get() > 0, "A maioria das transferências deve ser aceita");
+        Assertions.assertEquals(BigDecimal.valueOf(SALDO_INICIAL * CONTAS, 2),
+                saldos.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add),
+                "A soma dos saldos gravados deve ser a mesma depois das transferências");
+        Assertions.assertEquals(2 * aceitas.get(), transferencias,
+                "Cada transferência aceita deve gravar exatamente duas operações, e as recusadas nenhuma");
+        for (Conta conta : contas) {
+            BigDecimal saldo = saldos.get(conta.getId());
+            Assertions.assertTrue(saldo.signum() >= 0, "Nenhuma conta deve ficar com saldo negativo");
+            Assertions.assertEquals(0, saldo.compareTo(movimentos.get(conta.getId())),
+                    "O saldo gravado da conta deve ser a soma das suas operações");
+            Assertions.assertEquals(Dinheiro.of(saldo), operacaoService.saldo(conta.getIdentificadorConta()),
+                    "O saldo em memória deve ser o que foi commitado");
+        }
+    }
+}
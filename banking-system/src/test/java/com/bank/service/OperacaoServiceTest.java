@@ -1,23 +1,36 @@
 package com.bank.service;
 
 import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
 import com.bank.domain.Operacao;
+import com.bank.enums.NaturezaEnum;
 import com.bank.enums.OperacaoEnum;
 import com.bank.exception.BadRequestException;
 import com.bank.repository.OperacaoRepository;
+import com.bank.repository.ResumoDiarioRepository;
 import com.bank.request.OperacaoRequest;
 import com.bank.request.TransferenciaRequest;
+import com.bank.response.ExtratoLinha;
+import com.bank.response.ExtratoPagina;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.data.domain.PageRequest;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @ExtendWith(MockitoExtension.class)
 class OperacaoServiceTest {
@@ -27,6 +40,26 @@ class OperacaoServiceTest {
     private OperacaoRepository repository;
     @Mock
     private ContaService service;
+    @Spy
+    private SaldoEngine engine = new SaldoEngine(16);
+    @Mock
+    private OperacaoWriter writer;
+    @Mock
+    private SaldoHistoricoService historico;
+    @Mock
+    private LedgerProjetor projetor;
+    @Mock
+    private ResumoDiarioRepository resumoDiarioRepository;
+    @Spy
+    private Metricas metricas = new Metricas(new SimpleMeterRegistry());
+    @Spy
+    private ContasQuentes contasQuentes = new ContasQuentes(true, Long.MAX_VALUE, 64, 4, 16, 1, new SimpleMeterRegistry());
+    @Spy
+    private ConsistenciaLeitura consistencia = new ConsistenciaLeitura(0);
+    @Spy
+    private Shards shards = new Shards(List.of(), Mockito.mock(PlatformTransactionManager.class));
+    @Spy
+    private ArquivoOperacoes arquivo = new ArquivoOperacoes(false, Path.of("arquivo"));
     @InjectMocks
     private OperacaoService operacaoService;
 
@@ -38,7 +71,7 @@ class OperacaoServiceTest {
         Mockito.when(service.findByIdentificadorContaOrThrowBadRequestException(EXISTING_IDENTIFICADOR))
                 .thenReturn(expectedConta);
 
-        BigDecimal actualSaldo = operacaoService.saldo(EXISTING_IDENTIFICADOR);
+        Dinheiro actualSaldo = operacaoService.saldo(EXISTING_IDENTIFICADOR);
 
         Mockito.verify(service, Mockito.times(1)).findByIdentificadorContaOrThrowBadRequestException(EXISTING_IDENTIFICADOR);
         Mockito.verifyNoMoreInteractions(service);
@@ -71,10 +104,11 @@ class OperacaoServiceTest {
         OperacaoRequest operacaoRequest = OperacaoRequest.builder().identificador(EXISTING_IDENTIFICADOR).valor(valorDeposito).build();
 
         Mockito.when(service.findByIdentificadorContaOrThrowBadRequestException(EXISTING_IDENTIFICADOR)).thenReturn(conta);
+        Mockito.when(writer.gravar(Mockito.anyList())).thenReturn(CompletableFuture.completedFuture(null));
 
         Conta actualSaldo = operacaoService.deposito(operacaoRequest);
 
-        Assertions.assertEquals(valorDeposito, actualSaldo.getSaldo(), "O saldo da conta após o depósito deve ser igual ao saldo anterior mais o valor do depósito");
+        Assertions.assertEquals(Dinheiro.of(valorDeposito), actualSaldo.getSaldo(), "O saldo da conta após o depósito deve ser igual ao saldo anterior mais o valor do depósito");
     }
 
     @Test
@@ -101,6 +135,33 @@ class OperacaoServiceTest {
         Assertions.assertThrows(IllegalArgumentException.class, () -> operacaoService.deposito(operacaoRequest), "O valor do depósito deve ser maior que zero");
     }
 
+    @Test
+    @DisplayName("deposito should throw BadRequestException when valor has more than two decimal places")
+    void depositoShouldThrowBadRequestExceptionWhenValorHasMoreThanTwoDecimalPlaces() {
+        OperacaoRequest operacaoRequest = OperacaoRequest.builder().identificador(EXISTING_IDENTIFICADOR).valor(new BigDecimal("10.005")).build();
+
+        Mockito.when(service.findByIdentificadorContaOrThrowBadRequestException(EXISTING_IDENTIFICADOR)).thenReturn(createConta());
+
+        BadRequestException exception = Assertions.assertThrows(BadRequestException.class, () -> operacaoService.deposito(operacaoRequest));
+        Assertions.assertEquals(Dinheiro.CASAS_DECIMAIS_EXCEDIDAS, exception.getMessage());
+        Mockito.verifyNoInteractions(writer);
+    }
+
+    @Test
+    @DisplayName("deposito should throw BadRequestException and keep saldo when the new saldo would exceed the limit")
+    void depositoShouldThrowBadRequestExceptionAndKeepSaldoWhenTheNewSaldoWouldExceedTheLimit() {
+        Conta conta = createConta();
+        conta.setSaldo(Dinheiro.ofCentavos(Dinheiro.LIMITE_CENTAVOS));
+        OperacaoRequest operacaoRequest = OperacaoRequest.builder().identificador(EXISTING_IDENTIFICADOR).valor(new BigDecimal("0.01")).build();
+
+        Mockito.when(service.findByIdentificadorContaOrThrowBadRequestException(EXISTING_IDENTIFICADOR)).thenReturn(conta);
+
+        BadRequestException exception = Assertions.assertThrows(BadRequestException.class, () -> operacaoService.deposito(operacaoRequest));
+        Assertions.assertEquals(Dinheiro.LIMITE_EXCEDIDO, exception.getMessage());
+        Assertions.assertEquals(Dinheiro.ofCentavos(Dinheiro.LIMITE_CENTAVOS), conta.getSaldo(), "O saldo não deve mudar quando o depósito estoura o limite");
+        Mockito.verifyNoInteractions(writer);
+    }
+
     @Test
     @DisplayName("saque should throw IllegalArgumentException when saque value less than zero")
     void saqueShouldThrowIllegalArgumentExceptionWhenSaqueValueIsLessThanZero() {
@@ -136,15 +197,37 @@ class OperacaoServiceTest {
     @DisplayName("saque should return an conta with a lower saldo when successful")
     void saqueShouldReturnContaWithLowerSaldoWheSuccessful(){
         Conta conta = createConta();
-        conta.setSaldo(conta.getSaldo().add(BigDecimal.valueOf(10.0)));
+        conta.setSaldo(conta.getSaldo().mais(1_000));
         BigDecimal valorSaque = BigDecimal.valueOf(5.0);
         OperacaoRequest operacaoRequest = OperacaoRequest.builder().identificador(EXISTING_IDENTIFICADOR).valor(valorSaque).build();
 
         Mockito.when(service.findByIdentificadorContaOrThrowBadRequestException(EXISTING_IDENTIFICADOR)).thenReturn(conta);
+        Mockito.when(writer.gravar(Mockito.anyList())).thenReturn(CompletableFuture.completedFuture(null));
 
         Conta actualSaldo = operacaoService.saque(operacaoRequest);
 
-        Assertions.assertEquals(valorSaque, actualSaldo.getSaldo(), "O saldo da conta após o depósito deve ser igual ao saldo anterior mais o valor do depósito");
+        Assertions.assertEquals(Dinheiro.of(valorSaque), actualSaldo.getSaldo(), "O saldo da conta após o depósito deve ser igual ao saldo anterior mais o valor do depósito");
+    }
+
+    @Test
+    @DisplayName("saque and deposito on a hot account should go through the single-writer queue with the same validations")
+    void saqueAndDepositoOnHotAccountShouldGoThroughSingleWriterQueueWithSameValidations() {
+        Conta conta = createConta();
+        conta.setSaldo(Dinheiro.ofCentavos(1_000));
+        Mockito.doReturn(true).when(contasQuentes).registrar(conta);
+        Mockito.when(service.findByIdentificadorContaOrThrowBadRequestException(EXISTING_IDENTIFICADOR)).thenReturn(conta);
+        Mockito.when(writer.gravar(Mockito.anyList())).thenReturn(CompletableFuture.completedFuture(null));
+
+        operacaoService.saque(OperacaoRequest.builder().identificador(EXISTING_IDENTIFICADOR).valor(BigDecimal.valueOf(6)).build());
+        BadRequestException erro = Assertions.assertThrows(BadRequestException.class, () -> operacaoService.saque(
+                OperacaoRequest.builder().identificador(EXISTING_IDENTIFICADOR).valor(BigDecimal.valueOf(6)).build()));
+        Conta depositada = operacaoService.deposito(OperacaoRequest.builder().identificador(EXISTING_IDENTIFICADOR).valor(BigDecimal.valueOf(5)).build());
+
+        Assertions.assertEquals(OperacaoService.VALOR_SAQUE_EXCEDIDO + "4.00", erro.getMessage(),
+                "O saque acima do saldo deve ser rejeitado com a mesma mensagem do caminho direto");
+        Assertions.assertEquals(Dinheiro.ofCentavos(900), depositada.getSaldo(), "O depósito deve partir do saldo deixado pelo saque");
+        Mockito.verify(contasQuentes, Mockito.times(3)).enfileirar(Mockito.eq(conta), Mockito.any(), Mockito.any());
+        Mockito.verify(writer, Mockito.times(2)).gravar(Mockito.anyList());
     }
 
     @Test
@@ -154,12 +237,13 @@ class OperacaoServiceTest {
         String identificadorConta = "12345-6";
         Conta conta = createConta();
         List<Operacao> operacoesEsperadas = createOperacoes();
+        operacoesEsperadas.forEach(operacao -> operacao.setConta(conta));
 
         Mockito.when(service.findByIdentificadorContaOrThrowBadRequestException(identificadorConta))
                 .thenReturn(conta);
 
-        Mockito.when(repository.findAllByConta(conta))
-                .thenReturn(operacoesEsperadas);
+        Mockito.when(repository.findExtrato(conta))
+                .thenReturn(projecoes(operacoesEsperadas));
 
         List<Operacao> operacoesRetornadas = operacaoService.extrato(identificadorConta);
 
@@ -167,7 +251,7 @@ class OperacaoServiceTest {
                 .findByIdentificadorContaOrThrowBadRequestException(identificadorConta);
 
         Mockito.verify(repository, Mockito.times(1))
-                .findAllByConta(conta);
+                .findExtrato(conta);
 
         Assertions.assertEquals(operacoesEsperadas, operacoesRetornadas);
 
@@ -182,26 +266,113 @@ class OperacaoServiceTest {
         Assertions.assertThrows(BadRequestException.class, () -> operacaoService.extrato(NON_EXISTING_IDENTIFICADOR), "Deve lançar BadRequestException quando o identificador não é encontrado");
     }
 
+    @Test
+    @DisplayName("extrato with limite should return next cursor when page is full")
+    void extratoWithLimiteShouldReturnNextCursorWhenPageIsFull() {
+        Conta conta = createConta();
+        List<Operacao> operacoes = createOperacoes();
+        operacoes.forEach(operacao -> operacao.setConta(conta));
+
+        Mockito.when(service.findByIdentificadorContaOrThrowBadRequestException(EXISTING_IDENTIFICADOR)).thenReturn(conta);
+        Mockito.when(repository.findPaginaExtrato(Mockito.eq(conta), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyLong(), Mockito.eq(PageRequest.of(0, 2))))
+                .thenReturn(projecoes(operacoes));
+        Mockito.when(historico.saldoAntes(conta, operacoes.get(0))).thenReturn(BigDecimal.ZERO);
+
+        ExtratoPagina pagina = operacaoService.extrato(EXISTING_IDENTIFICADOR, null, 2, null, null);
+
+        Assertions.assertEquals(operacoes.size(), pagina.getOperacoes().size());
+        Assertions.assertEquals(BigDecimal.valueOf(10.0), pagina.getOperacoes().get(0).getSaldo(), "Cada linha deve trazer o saldo após a operação");
+        Assertions.assertEquals(BigDecimal.valueOf(7.0), pagina.getOperacoes().get(1).getSaldo(), "Cada linha deve trazer o saldo após a operação");
+        Assertions.assertNotNull(pagina.getProximoCursor(), "Uma página cheia deve indicar o cursor da próxima página");
+
+        Operacao ultima = operacoes.get(1);
+        ExtratoCursor cursor = ExtratoCursor.decodificar(pagina.getProximoCursor());
+        Assertions.assertEquals(ultima.getCreatedAt(), cursor.createdAt());
+        Assertions.assertEquals(ultima.getId(), cursor.id());
+    }
+
+    @Test
+    @DisplayName("extrato with limite should not return next cursor when page is not full")
+    void extratoWithLimiteShouldNotReturnNextCursorWhenPageIsNotFull() {
+        Conta conta = createConta();
+
+        Mockito.when(service.findByIdentificadorContaOrThrowBadRequestException(EXISTING_IDENTIFICADOR)).thenReturn(conta);
+        Mockito.when(repository.findPaginaExtrato(Mockito.eq(conta), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyLong(), Mockito.any()))
+                .thenReturn(projecoes(createOperacoes()));
+        Mockito.when(historico.saldoAntes(Mockito.eq(conta), Mockito.any())).thenReturn(BigDecimal.ZERO);
+
+        ExtratoPagina pagina = operacaoService.extrato(EXISTING_IDENTIFICADOR, null, 10, null, null);
+
+        Assertions.assertNull(pagina.getProximoCursor(), "A última página não deve ter próximo cursor");
+    }
+
+    @Test
+    @DisplayName("extrato with limite should start with archived operations and complete the page from the table")
+    void extratoWithLimiteShouldStartWithArchivedOperationsAndCompleteThePageFromTheTable() {
+        Conta conta = createConta();
+        List<Operacao> operacoes = createOperacoes();
+        Operacao arquivada = operacoes.get(0);
+
+        Mockito.when(service.findByIdentificadorContaOrThrowBadRequestException(EXISTING_IDENTIFICADOR)).thenReturn(conta);
+        Mockito.doReturn(List.of(arquivada)).when(arquivo).pagina(Mockito.eq(conta), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyLong(), Mockito.eq(2));
+        Mockito.when(repository.findPaginaExtrato(Mockito.eq(conta), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyLong(), Mockito.eq(PageRequest.of(0, 1))))
+                .thenReturn(projecoes(List.of(operacoes.get(1))));
+        Mockito.when(historico.saldoAntes(conta, arquivada)).thenReturn(BigDecimal.ZERO);
+
+        ExtratoPagina pagina = operacaoService.extrato(EXISTING_IDENTIFICADOR, null, 2, null, null);
+
+        Assertions.assertEquals(List.of(1L, 2L), pagina.getOperacoes().stream().map(ExtratoLinha::getId).toList(),
+                "As operações arquivadas devem vir antes das da tabela");
+        Assertions.assertEquals(BigDecimal.valueOf(7.0), pagina.getOperacoes().get(1).getSaldo());
+    }
+
+    @Test
+    @DisplayName("extrato with limite should throw BadRequestException when cursor is invalid")
+    void extratoWithLimiteShouldThrowBadRequestExceptionWhenCursorIsInvalid() {
+        Mockito.when(service.findByIdentificadorContaOrThrowBadRequestException(EXISTING_IDENTIFICADOR)).thenReturn(createConta());
+
+        Assertions.assertThrows(BadRequestException.class, () -> operacaoService.extrato(EXISTING_IDENTIFICADOR, "invalido", 10, null, null));
+    }
+
     @Test
     @DisplayName("transferencia should update saldos correctly when successful")
     void transferenciaShouldUpdateSaldosCorrectlyWhenSuccessful() {
-        Conta origemConta = Conta.builder().id(1L).identificadorConta("12345-6").saldo(BigDecimal.valueOf(100.0)).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
-        Conta destinoConta = Conta.builder().id(2L).identificadorConta("12345-7").saldo(BigDecimal.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+        Conta origemConta = Conta.builder().id(1L).identificadorConta("12345-6").saldo(Dinheiro.of(BigDecimal.valueOf(100.0))).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+        Conta destinoConta = Conta.builder().id(2L).identificadorConta("12345-7").saldo(Dinheiro.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
         BigDecimal valor = BigDecimal.valueOf(10.0);
 
         Mockito.when(service.findByIdentificadorContaOrThrowBadRequestException(origemConta.getIdentificadorConta())).thenReturn(origemConta);
         Mockito.when(service.findByIdentificadorContaOrThrowBadRequestException(destinoConta.getIdentificadorConta())).thenReturn(destinoConta);
+        Mockito.when(writer.gravar(Mockito.anyList())).thenReturn(CompletableFuture.completedFuture(null));
 
         TransferenciaRequest transferenciaRequest = TransferenciaRequest.builder()
                 .origem(origemConta.getIdentificadorConta()).destino(destinoConta.getIdentificadorConta()).valor(valor).build();
 
-        BigDecimal saldoOrigemEsperado = origemConta.getSaldo().subtract(valor);
-        BigDecimal saldoDestinoEsperado = destinoConta.getSaldo().add(valor);
+        Dinheiro saldoOrigemEsperado = origemConta.getSaldo().menos(Dinheiro.centavos(valor));
+        Dinheiro saldoDestinoEsperado = destinoConta.getSaldo().mais(Dinheiro.centavos(valor));
         operacaoService.transferencia(transferenciaRequest);
 
         Assertions.assertEquals(saldoOrigemEsperado, origemConta.getSaldo(), "O saldo da conta de origem após a transferência deve ser igual ao saldo anterior menos o valor transferido");
         Assertions.assertEquals(saldoDestinoEsperado, destinoConta.getSaldo(), "O saldo da conta de destino após a transferência deve ser igual ao saldo anterior mais o valor transferido");
     }
+    @Test
+    @DisplayName("transferencia should undo only its own deltas when the write fails and keep the writes still queued")
+    void transferenciaShouldUndoOnlyItsOwnDeltasWhenTheWriteFailsAndKeepTheWritesStillQueued() {
+        Conta origem = createConta(1L, "12345-6", 10_000);
+        Conta destino = createConta(2L, "12345-7", 0);
+        stubContas(origem, destino);
+        Mockito.when(writer.gravar(Mockito.anyList()))
+                .thenReturn(new CompletableFuture<>())
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("banco indisponível")));
+
+        // O depósito continua na fila do writer quando a transferência falha.
+        operacaoService.depositoAssincrono(OperacaoRequest.builder().identificador(origem.getIdentificadorConta()).valor(new BigDecimal("5.00")).build());
+        Assertions.assertThrows(IllegalStateException.class, () -> operacaoService.transferencia(transferencia(origem, destino, 1_000)));
+
+        Assertions.assertEquals(Dinheiro.ofCentavos(10_500), engine.saldo(origem), "O depósito ainda não gravado deve continuar no saldo em memória");
+        Assertions.assertEquals(Dinheiro.ZERO, engine.saldo(destino), "O crédito que falhou deve ser desfeito");
+    }
+
     @Test
     @DisplayName("transferencia should throw BadRequestException when contas are equal")
     void transferenciaShouldThrowBadRequestExceptionWhenAccountsAreEqual() {
@@ -224,12 +395,16 @@ class OperacaoServiceTest {
     void transferenciaShouldThrowBadRequestExceptionWhenTransferAmountExceedsBalance() {
         Conta conta = createConta();
 
+        Conta destino = Conta.builder().id(2L).identificadorConta("12345-7").saldo(Dinheiro.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+
         Mockito.when(service.findByIdentificadorContaOrThrowBadRequestException(conta.getIdentificadorConta()))
                 .thenReturn(conta);
+        Mockito.when(service.findByIdentificadorContaOrThrowBadRequestException(destino.getIdentificadorConta()))
+                .thenReturn(destino);
 
         TransferenciaRequest transferenciaRequest = TransferenciaRequest.builder()
                 .origem(conta.getIdentificadorConta())
-                .destino("12345-7")
+                .destino(destino.getIdentificadorConta())
                 .valor(BigDecimal.valueOf(1.0))
                 .build();
 
@@ -241,32 +416,140 @@ class OperacaoServiceTest {
     void transferenciaShouldThrowIllegalArgumentExceptionWhenTransferAmountIsZeroOrNegative() {
         Conta conta = createConta();
 
+        Conta destino = Conta.builder().id(2L).identificadorConta("12345-7").saldo(Dinheiro.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+
         Mockito.when(service.findByIdentificadorContaOrThrowBadRequestException(conta.getIdentificadorConta()))
                 .thenReturn(conta);
+        Mockito.when(service.findByIdentificadorContaOrThrowBadRequestException(destino.getIdentificadorConta()))
+                .thenReturn(destino);
 
         TransferenciaRequest transferenciaRequest = TransferenciaRequest.builder()
                 .origem(conta.getIdentificadorConta())
-                .destino("12345-7")
+                .destino(destino.getIdentificadorConta())
                 .valor(BigDecimal.ZERO)
                 .build();
 
         Assertions.assertThrows(IllegalArgumentException.class, () -> operacaoService.transferencia(transferenciaRequest));
     }
 
+    @Test
+    @DisplayName("transferenciaCompensada should accept transfers whose net position fits the saldo and write all legs at once")
+    @SuppressWarnings("unchecked")
+    void transferenciaCompensadaShouldAcceptTransfersWhoseNetPositionFitsTheSaldoAndWriteAllLegsAtOnce() {
+        Conta contaA = createConta(1L, "12345-6", 1_000);
+        Conta contaB = createConta(2L, "12345-7", 0);
+        stubContas(contaA, contaB);
+        Mockito.when(writer.gravar(Mockito.anyList())).thenReturn(CompletableFuture.completedFuture(null));
+
+        // Sozinha, a primeira linha seria recusada: B ainda não recebeu nada.
+        Compensacao compensacao = operacaoService.transferenciaCompensada(List.of(
+                transferencia(contaB, contaA, 500),
+                transferencia(contaA, contaB, 500),
+                transferencia(contaA, contaB, 300)));
+        compensacao.gravacao().join();
+
+        Assertions.assertTrue(compensacao.rejeicoes().isEmpty(), "Nenhuma linha deveria ser rejeitada");
+        Assertions.assertEquals(3, compensacao.aceitas());
+        Assertions.assertEquals(Dinheiro.ofCentavos(700), contaA.getSaldo(), "Só o líquido do lote deve sair da conta A");
+        Assertions.assertEquals(Dinheiro.ofCentavos(300), contaB.getSaldo(), "Só o líquido do lote deve entrar na conta B");
+
+        ArgumentCaptor<List<Lancamento>> lancamentos = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(writer, Mockito.times(1)).gravar(lancamentos.capture());
+        Assertions.assertEquals(6, lancamentos.getValue().size(), "Todas as pernas devem ser gravadas para auditoria");
+    }
+
+    @Test
+    @DisplayName("transferenciaCompensada should reject only the last debits needed for the origem to fit its saldo")
+    void transferenciaCompensadaShouldRejectOnlyTheLastDebitsNeededForTheOrigemToFitItsSaldo() {
+        Conta contaA = createConta(1L, "12345-6", 1_000);
+        Conta contaB = createConta(2L, "12345-7", 0);
+        stubContas(contaA, contaB);
+        Mockito.when(writer.gravar(Mockito.anyList())).thenReturn(CompletableFuture.completedFuture(null));
+
+        Compensacao compensacao = operacaoService.transferenciaCompensada(List.of(
+                transferencia(contaB, contaA, 5_000),
+                transferencia(contaA, contaB, 5_000),
+                transferencia(contaA, contaB, 2_000)));
+        compensacao.gravacao().join();
+
+        Assertions.assertEquals(Map.of(2, OperacaoService.VALOR_TRANSFERENCIA_EXCEDIDO + "10.00"), compensacao.rejeicoes(),
+                "Só a última transferência de A deve ser rejeitada");
+        Assertions.assertEquals(Dinheiro.ofCentavos(1_000), contaA.getSaldo());
+        Assertions.assertEquals(Dinheiro.ZERO, contaB.getSaldo());
+    }
+
+    @Test
+    @DisplayName("transferenciaCompensada should reject transfers that leave the origem negative and recompute the other positions")
+    void transferenciaCompensadaShouldRejectTransfersThatLeaveTheOrigemNegativeAndRecomputeTheOtherPositions() {
+        Conta contaA = createConta(1L, "12345-6", 10_000);
+        Conta contaB = createConta(2L, "12345-7", 0);
+        Conta contaC = createConta(3L, "12345-8", 0);
+        stubContas(contaA, contaB, contaC);
+        Mockito.when(writer.gravar(Mockito.anyList())).thenReturn(CompletableFuture.completedFuture(null));
+
+        // B termina negativa (-80 + 50); sem a linha 0, C fica negativa (-30) e sua linha também cai.
+        Compensacao compensacao = operacaoService.transferenciaCompensada(List.of(
+                transferencia(contaB, contaC, 8_000),
+                transferencia(contaA, contaB, 5_000),
+                transferencia(contaC, contaA, 3_000),
+                transferencia(contaA, contaA, 100)));
+        compensacao.gravacao().join();
+
+        Assertions.assertEquals(Map.of(
+                0, OperacaoService.VALOR_TRANSFERENCIA_EXCEDIDO + "0.00",
+                2, OperacaoService.VALOR_TRANSFERENCIA_EXCEDIDO + "0.00",
+                3, OperacaoService.CONTAS_IGUAIS), compensacao.rejeicoes());
+        Assertions.assertEquals(1, compensacao.aceitas());
+        Assertions.assertEquals(Dinheiro.ofCentavos(5_000), contaA.getSaldo());
+        Assertions.assertEquals(Dinheiro.ofCentavos(5_000), contaB.getSaldo());
+        Assertions.assertEquals(Dinheiro.ZERO, contaC.getSaldo());
+    }
+
+    @Test
+    @DisplayName("resumoDiario should throw BadRequestException when the ledger is not event-sourced")
+    void resumoDiarioShouldThrowBadRequestExceptionWhenTheLedgerIsNotEventSourced() {
+        BadRequestException exception = Assertions.assertThrows(BadRequestException.class,
+                () -> operacaoService.resumoDiario(EXISTING_IDENTIFICADOR, null, null));
+
+        Assertions.assertEquals(OperacaoService.RESUMO_DIARIO_INDISPONIVEL, exception.getMessage());
+        Mockito.verifyNoInteractions(resumoDiarioRepository);
+    }
+
     private static List<Operacao> createOperacoes() {
 
         List<Operacao> operacoes = new ArrayList<>();
 
         operacoes.add(
-                Operacao.builder().id(1L).tipo(OperacaoEnum.DEPOSITO).valor(BigDecimal.valueOf(10.0)).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).conta(createConta()).build()
+                Operacao.builder().id(1L).tipo(OperacaoEnum.DEPOSITO).natureza(NaturezaEnum.CREDITO).valor(BigDecimal.valueOf(10.0)).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).conta(createConta()).build()
         );
         operacoes.add(
-                Operacao.builder().id(1L).tipo(OperacaoEnum.SAQUE).valor(BigDecimal.valueOf(3.0)).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).conta(createConta()).build()
+                Operacao.builder().id(2L).tipo(OperacaoEnum.SAQUE).natureza(NaturezaEnum.DEBITO).valor(BigDecimal.valueOf(3.0)).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).conta(createConta()).build()
         );
         return operacoes;
     }
 
+    private static List<OperacaoExtrato> projecoes(List<Operacao> operacoes) {
+        return operacoes.stream()
+                .map(operacao -> new OperacaoExtrato(operacao.getId(), operacao.getTipo(), operacao.getNatureza(),
+                        operacao.getValor(), operacao.getCreatedAt(), operacao.getUpdatedAt()))
+                .toList();
+    }
+
+    private void stubContas(Conta... contas) {
+        for (Conta conta : contas)
+            Mockito.when(service.findByIdentificadorContaOrThrowBadRequestException(conta.getIdentificadorConta())).thenReturn(conta);
+    }
+
+    private static TransferenciaRequest transferencia(Conta origem, Conta destino, long centavos) {
+        return TransferenciaRequest.builder().origem(origem.getIdentificadorConta()).destino(destino.getIdentificadorConta())
+                .valor(BigDecimal.valueOf(centavos, 2)).build();
+    }
+
+    private static Conta createConta(long id, String identificador, long centavos) {
+        return Conta.builder().id(id).identificadorConta(identificador).saldo(Dinheiro.ofCentavos(centavos)).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+    }
+
     private static Conta createConta() {
-        return Conta.builder().id(1L).identificadorConta("12345-6").saldo(BigDecimal.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+        return Conta.builder().id(1L).identificadorConta("12345-6").saldo(Dinheiro.ZERO).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
     }
 }
@@ -0,0 +1,232 @@
+package com.bank.service;
+
+import com.bank.configurer.ShardsConfigurer;
+import com.bank.domain.Conta;
+import com.bank.domain.CreditoPendente;
+import com.bank.domain.Dinheiro;
+import com.bank.enums.OperacaoEnum;
+import com.bank.exception.BadRequestException;
+import com.bank.repository.ContaRepository;
+import com.bank.repository.CreditoAplicadoRepository;
+import com.bank.repository.CreditoPendenteRepository;
+import com.bank.repository.CreditoRejeitadoRepository;
+import com.bank.repository.OperacaoRepository;
+import com.bank.request.OperacaoRequest;
+import com.bank.request.TransferenciaRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Transferências entre shards contra dois bancos H2 de verdade, com o perfil shards: o débito e o CreditoPendente
+ * gravados juntos na origem, o crédito aplicado uma única vez no destino e a reaplicação, na inicialização, dos
+ * pendentes que uma queda deixa para trás. Os writers de cada teste são criados aqui, sobre os beans do contexto,
+ * para que uma queda possa ser simulada entre as duas fases.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:writer-shard0",
+        "bank.shards.urls=jdbc:h2:mem:writer-shard0,jdbc:h2:mem:writer-shard1"
+})
+@ActiveProfiles(ShardsConfigurer.PERFIL)
+class OperacaoWriterShardsTest {
+    @Autowired
+    private OperacaoService operacaoService;
+    @Autowired
+    private ContaService contaService;
+    @Autowired
+    private Shards shards;
+    @Autowired
+    private ContaRepository contaRepository;
+    @Autowired
+    private OperacaoRepository operacaoRepository;
+    @Autowired
+    private CreditoPendenteRepository creditoPendenteRepository;
+    @Autowired
+    private CreditoAplicadoRepository creditoAplicadoRepository;
+    @Autowired
+    private CreditoRejeitadoRepository creditoRejeitadoRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private OptimisticRetry retry;
+    @Autowired
+    private ContaCache cache;
+    @Autowired
+    private LedgerProjetor projetor;
+    @Autowired
+    private ConfirmacaoJournal confirmacao;
+    @Autowired
+    private MovimentacaoSaldos movimentacao;
+    @Autowired
+    private Metricas metricas;
+    @Autowired
+    private ApplicationContext contexto;
+    private Conta origem;
+    private Conta destino;
+
+    @BeforeEach
+    void setUp() {
+        origem = contaNoShard(0);
+        destino = contaNoShard(1);
+        operacaoService.deposito(OperacaoRequest.builder()
+                .identificador(origem.getIdentificadorConta())
+                .valor(new BigDecimal("10.00"))
+                .build());
+    }
+
+    @Test
+    @DisplayName("a transfer between shards should debit the origin database and credit the destination database once")
+    void aTransferBetweenShardsShouldDebitTheOriginDatabaseAndCreditTheDestinationDatabaseOnce() {
+        long aplicados = shards.executar(1, () -> creditoAplicadoRepository.count());
+
+        operacaoService.transferencia(TransferenciaRequest.builder()
+                .origem(origem.getIdentificadorConta())
+                .destino(destino.getIdentificadorConta())
+                .valor(new BigDecimal("3.00"))
+                .build());
+
+        Assertions.assertEquals(Dinheiro.ofCentavos(700), saldo(origem, 0));
+        Assertions.assertEquals(Dinheiro.ofCentavos(300), saldo(destino, 1));
+        Assertions.assertEquals(2, operacoes(origem, 0), "Depósito e débito no banco da origem");
+        Assertions.assertEquals(1, operacoes(destino, 1), "Só o crédito no banco do destino");
+        Assertions.assertEquals(aplicados + 1, shards.executar(1, () -> creditoAplicadoRepository.count()),
+                "O destino deve marcar o crédito como aplicado");
+        Assertions.assertEquals(0, shards.executar(0, () -> creditoPendenteRepository.count()),
+                "O pendente deve ser apagado na origem depois do crédito");
+    }
+
+    @Test
+    @DisplayName("a pending credit left by a crash should be applied once at startup even if it is replayed again")
+    void aPendingCreditLeftByACrashShouldBeAppliedOnceAtStartupEvenIfItIsReplayedAgain() throws Exception {
+        CreditoAplicadoRepository destinoFora = Mockito.mock(CreditoAplicadoRepository.class, AdditionalAnswers.delegatesTo(creditoAplicadoRepository));
+        Mockito.doThrow(new DataAccessResourceFailureException("shard 1 indisponível")).when(destinoFora).findAllById(Mockito.anyIterable());
+        OperacaoWriter antesDaQueda = novoWriter(destinoFora);
+        antesDaQueda.iniciar();
+
+        CompletableFuture<Void> gravacao = antesDaQueda.gravar(List.of(
+                Lancamento.builder().contaId(origem.getId()).tipo(OperacaoEnum.TRANSFERENCIA).valor(300).delta(-300).shard(0).build(),
+                Lancamento.builder().contaId(destino.getId()).tipo(OperacaoEnum.TRANSFERENCIA).valor(300).delta(300).shard(1).build()));
+        aguardar(() -> shards.executar(0, () -> creditoPendenteRepository.count()) == 1);
+        CreditoPendente pendente = shards.executar(0, () -> creditoPendenteRepository.findAll()).get(0);
+        Assertions.assertEquals(Dinheiro.ofCentavos(700), saldo(origem, 0), "O débito é gravado com o pendente");
+        Assertions.assertEquals(Dinheiro.ZERO, saldo(destino, 1), "O crédito ainda não chegou ao destino");
+        Assertions.assertEquals(destino.getId(), pendente.getContaId());
+        antesDaQueda.encerrar();
+        Assertions.assertTrue(gravacao.isCompletedExceptionally(), "Quem esperava pelo crédito deve ser liberado no encerramento");
+
+        reiniciar();
+        Assertions.assertEquals(Dinheiro.ofCentavos(300), saldo(destino, 1), "O pendente deve ser aplicado na inicialização");
+        Assertions.assertEquals(0, shards.executar(0, () -> creditoPendenteRepository.count()));
+        Assertions.assertTrue(shards.executar(1, () -> creditoAplicadoRepository.existsById(pendente.getId())));
+
+        // Uma queda entre o crédito e a remoção do pendente: o mesmo pendente volta na próxima inicialização.
+        shards.executar(0, () -> transactionTemplate.executeWithoutResult(status -> creditoPendenteRepository.save(CreditoPendente.builder()
+                .id(pendente.getId())
+                .contaId(pendente.getContaId())
+                .shard(pendente.getShard())
+                .tipo(pendente.getTipo())
+                .valor(pendente.getValor())
+                .createdAt(pendente.getCreatedAt())
+                .build())));
+        reiniciar();
+        Assertions.assertEquals(Dinheiro.ofCentavos(300), saldo(destino, 1), "O CreditoAplicado deve impedir o segundo crédito");
+        Assertions.assertEquals(1, operacoes(destino, 1));
+        Assertions.assertEquals(0, shards.executar(0, () -> creditoPendenteRepository.count()), "O pendente repetido deve ser só apagado");
+    }
+
+    @Test
+    @DisplayName("a credit the destination database refuses should be reversed on the origin database and fail the transfer")
+    void aCreditTheDestinationDatabaseRefusesShouldBeReversedOnTheOriginDatabaseAndFailTheTransfer() {
+        // O destino chega ao limite por fora do motor de saldos, que ainda o vê zerado e aceita a transferência.
+        Assertions.assertEquals(Dinheiro.ZERO, operacaoService.saldo(destino.getIdentificadorConta()));
+        shards.executar(1, () -> jdbcTemplate.update("update conta set saldo = ? where id = ?",
+                BigDecimal.valueOf(Dinheiro.LIMITE_CENTAVOS, 2), destino.getId()));
+        long rejeitados = shards.executar(0, () -> creditoRejeitadoRepository.count());
+
+        BadRequestException erro = Assertions.assertThrows(BadRequestException.class, () -> operacaoService.transferencia(TransferenciaRequest.builder()
+                .origem(origem.getIdentificadorConta())
+                .destino(destino.getIdentificadorConta())
+                .valor(new BigDecimal("3.00"))
+                .build()));
+
+        Assertions.assertEquals(Dinheiro.LIMITE_EXCEDIDO, erro.getMessage());
+        Assertions.assertEquals(Dinheiro.ofCentavos(1_000), saldo(origem, 0), "O débito deve ser estornado no banco da origem");
+        Assertions.assertEquals(3, operacoes(origem, 0), "Depósito, débito e estorno no banco da origem");
+        Assertions.assertEquals(rejeitados + 1, shards.executar(0, () -> creditoRejeitadoRepository.count()));
+        Assertions.assertEquals(0, shards.executar(0, () -> creditoPendenteRepository.count()));
+        Assertions.assertEquals(Dinheiro.ofCentavos(1_000), operacaoService.saldo(origem.getIdentificadorConta()));
+    }
+
+    @Test
+    @DisplayName("creating the shard schemas again should keep the rows and not rewind the id sequences")
+    void creatingTheShardSchemasAgainShouldKeepTheRowsAndNotRewindTheIdSequences() {
+        String proximoId = "SELECT NEXT VALUE FOR operacao_seq";
+        long antes = shards.executar(1, () -> jdbcTemplate.queryForObject(proximoId, Long.class));
+
+        // O mesmo passo de uma nova inicialização sobre um banco de shard persistente.
+        contexto.getBean("esquemaDosShards", BeanPostProcessor.class).postProcessAfterInitialization(shards, "shards");
+
+        Assertions.assertTrue(shards.executar(1, () -> jdbcTemplate.queryForObject(proximoId, Long.class)) > antes,
+                "A sequência não pode voltar ao início do shard");
+        Assertions.assertEquals(Dinheiro.ZERO, saldo(destino, 1), "As contas do shard devem continuar lá");
+    }
+
+    // Uma nova inicialização do writer: a recuperação dos pendentes roda dentro de iniciar.
+    private void reiniciar() throws InterruptedException {
+        OperacaoWriter depoisDaQueda = novoWriter(creditoAplicadoRepository);
+        depoisDaQueda.iniciar();
+        depoisDaQueda.encerrar();
+    }
+
+    private OperacaoWriter novoWriter(CreditoAplicadoRepository aplicados) {
+        CreditosEntreShards creditos = new CreditosEntreShards(contaRepository, operacaoRepository, creditoPendenteRepository, aplicados,
+                creditoRejeitadoRepository, transactionTemplate, retry, cache, movimentacao, metricas, shards, 60, 24);
+        return new OperacaoWriter(contaRepository, operacaoRepository, transactionTemplate, retry, cache, projetor, confirmacao,
+                creditos, movimentacao, metricas, shards, 500, 256);
+    }
+
+    private Conta contaNoShard(int shard) {
+        for (int tentativa = 0; tentativa < 100; tentativa++) {
+            Conta conta = contaService.save();
+            if (shards.de(conta.getIdentificadorConta()) == shard)
+                return conta;
+        }
+        throw new IllegalStateException("Nenhuma conta criada no shard " + shard);
+    }
+
+    private Dinheiro saldo(Conta conta, int shard) {
+        return shards.executar(shard, () -> contaRepository.findCopiaById(conta.getId())).orElseThrow().getSaldo();
+    }
+
+    private int operacoes(Conta conta, int shard) {
+        return shards.executar(shard, () -> jdbcTemplate.queryForObject("select count(*) from operacao where id_conta = ?", Integer.class, conta.getId()));
+    }
+
+    private static void aguardar(BooleanSupplier condicao) throws InterruptedException {
+        long prazo = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condicao.getAsBoolean()) {
+            if (System.nanoTime() > prazo)
+                Assertions.fail("A condição não foi atingida em 5 segundos");
+            Thread.sleep(10);
+        }
+    }
+}
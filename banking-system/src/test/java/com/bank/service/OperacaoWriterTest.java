@@ -0,0 +1,530 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import com.bank.domain.CreditoAplicado;
+import com.bank.domain.CreditoPendente;
+import com.bank.domain.CreditoRejeitado;
+import com.bank.domain.Dinheiro;
+import com.bank.domain.JournalRejeitado;
+import com.bank.domain.Operacao;
+import com.bank.enums.OperacaoEnum;
+import com.bank.exception.BadRequestException;
+import com.bank.repository.ContaRepository;
+import com.bank.repository.CreditoAplicadoRepository;
+import com.bank.repository.CreditoPendenteRepository;
+import com.bank.repository.CreditoRejeitadoRepository;
+import com.bank.repository.JournalRejeitadoRepository;
+import com.bank.repository.OperacaoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+@ExtendWith(MockitoExtension.class)
+class OperacaoWriterTest {
+    private static final int MAX_LOTE = 10;
+    private static final Instant INSTANTE = Instant.parse("2026-01-02T03:04:05Z");
+    @Mock
+    private ContaRepository contaRepository;
+    @Mock
+    private OperacaoRepository operacaoRepository;
+    @Mock
+    private CreditoPendenteRepository creditoPendenteRepository;
+    @Mock
+    private CreditoAplicadoRepository creditoAplicadoRepository;
+    @Mock
+    private CreditoRejeitadoRepository creditoRejeitadoRepository;
+    @Mock
+    private JournalRejeitadoRepository journalRejeitadoRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private LedgerProjetor projetor;
+    @Mock
+    private OperacaoJournal journal;
+    @Mock
+    private ArquivoOperacoes arquivo;
+    @Mock
+    private SaldoHistoricoService historico;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    private final ContaCache cache = new ContaCache(100, 60, new SimpleMeterRegistry());
+    private final Map<Long, String> threadDaLeitura = new ConcurrentHashMap<>();
+    private OperacaoWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        writer = novoWriter(new Shards(List.of(), transactionManager));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writer.encerrar();
+    }
+
+    @Test
+    @DisplayName("gravar should write queued pedidos in a single batch and transaction")
+    @SuppressWarnings("unchecked")
+    void gravarShouldWriteQueuedPedidosInASingleBatchAndTransaction() {
+        Conta conta = createConta(1L);
+        Mockito.when(contaRepository.findAllById(Mockito.anyIterable())).thenReturn(List.of(conta));
+
+        List<CompletableFuture<Void>> gravacoes = new ArrayList<>();
+        for (int i = 0; i < MAX_LOTE; i++) {
+            gravacoes.add(writer.gravar(List.of(deposito(1L, 100))));
+        }
+        writer.iniciar();
+        gravacoes.forEach(CompletableFuture::join);
+
+        ArgumentCaptor<Collection<Operacao>> operacoes = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(operacaoRepository, Mockito.times(1)).saveAll(operacoes.capture());
+        Mockito.verify(transactionManager, Mockito.times(1)).commit(Mockito.any());
+        Assertions.assertEquals(MAX_LOTE, operacoes.getValue().size(), "Todas as operações do lote devem ser gravadas juntas");
+        Assertions.assertEquals(Dinheiro.ofCentavos(MAX_LOTE * 100L), conta.getSaldo(), "O saldo deve receber todos os lançamentos do lote");
+        Assertions.assertEquals(Dinheiro.ofCentavos(MAX_LOTE * 100L), cache.porId(1L, id -> Optional.empty()).map(Conta::getSaldo).orElse(null),
+                "O cache deve receber a conta gravada após o commit");
+    }
+
+    @Test
+    @DisplayName("gravar should fail only the invalid pedido when a batch cannot be committed")
+    void gravarShouldFailOnlyTheInvalidPedidoWhenABatchCannotBeCommitted() {
+        Conta conta = createConta(1L);
+        Mockito.when(contaRepository.findAllById(Mockito.anyIterable())).thenAnswer(invocation -> {
+            List<Conta> encontradas = new ArrayList<>();
+            invocation.<Iterable<Long>>getArgument(0).forEach(id -> {
+                if (id == 1L)
+                    encontradas.add(conta);
+            });
+            return encontradas;
+        });
+
+        CompletableFuture<Void> valido = writer.gravar(List.of(deposito(1L, 100)));
+        CompletableFuture<Void> invalido = writer.gravar(List.of(deposito(2L, 100)));
+        writer.iniciar();
+
+        Assertions.assertDoesNotThrow(valido::join, "O pedido válido deve ser gravado");
+        CompletionException erro = Assertions.assertThrows(CompletionException.class, invalido::join);
+        Assertions.assertInstanceOf(BadRequestException.class, erro.getCause());
+    }
+
+    @Test
+    @DisplayName("gravar should apply the net delta of each conta with one conditional update that returns the saldo")
+    void gravarShouldApplyTheNetDeltaOfEachContaWithOneConditionalUpdateThatReturnsTheSaldo() throws InterruptedException {
+        writer.encerrar();
+        writer = novoWriter(new Shards(List.of(), transactionManager), true);
+        banco("H2");
+        Conta gravada = createConta(1L, Dinheiro.ofCentavos(250));
+        Mockito.when(jdbcTemplate.query(Mockito.anyString(), Mockito.<RowMapper<Conta>>any(), Mockito.any(Object[].class)))
+                .thenReturn(List.of(gravada));
+
+        CompletableFuture<Void> deposito = writer.gravar(List.of(deposito(1L, 300)));
+        CompletableFuture<Void> saque = writer.gravar(List.of(saque(1L, 50)));
+        writer.iniciar();
+        deposito.join();
+        saque.join();
+
+        ArgumentCaptor<Object[]> parametros = ArgumentCaptor.forClass(Object[].class);
+        Mockito.verify(jdbcTemplate, Mockito.times(1)).query(Mockito.anyString(), Mockito.<RowMapper<Conta>>any(), parametros.capture());
+        Mockito.verify(contaRepository, Mockito.never()).findAllById(Mockito.anyIterable());
+        Assertions.assertEquals(List.of(1L, new BigDecimal("2.50"), 1L, 1L, new BigDecimal("2.50")),
+                List.of(parametros.getValue()).subList(0, 5), "Os lançamentos da mesma conta devem virar um único movimento líquido");
+        Assertions.assertEquals(Dinheiro.ofCentavos(250), cache.porId(1L, id -> Optional.empty()).map(Conta::getSaldo).orElse(null),
+                "O cache deve receber a conta devolvida pelo UPDATE");
+    }
+
+    @Test
+    @DisplayName("gravar should rewrite only the pedidos of a conta the conditional update refused")
+    void gravarShouldRewriteOnlyThePedidosOfAContaTheConditionalUpdateRefused() throws InterruptedException {
+        writer.encerrar();
+        writer = novoWriter(new Shards(List.of(), transactionManager), true);
+        banco("H2");
+        Mockito.when(contaRepository.findCopiaById(1L)).thenReturn(Optional.of(createConta(1L, Dinheiro.ofCentavos(100))));
+        // Simula o banco: a conta 1 tem R$ 1,00 e recusa movimentos que a deixariam negativa.
+        List<Map<Long, BigDecimal>> comandos = new ArrayList<>();
+        Mockito.when(jdbcTemplate.query(Mockito.anyString(), Mockito.<RowMapper<Conta>>any(), Mockito.any(Object[].class))).thenAnswer(invocation -> {
+            Object[] parametros = invocation.getArguments();
+            Map<Long, BigDecimal> deltas = new LinkedHashMap<>();
+            for (int i = 2; i < parametros.length && parametros[i + 1] instanceof BigDecimal; i += 2)
+                deltas.put((Long) parametros[i], (BigDecimal) parametros[i + 1]);
+            comandos.add(deltas);
+            return deltas.entrySet().stream()
+                    .filter(delta -> delta.getKey() != 1L || delta.getValue().compareTo(new BigDecimal("-1.00")) >= 0)
+                    .map(delta -> createConta(delta.getKey(), Dinheiro.of(delta.getValue().max(BigDecimal.ZERO))))
+                    .toList();
+        });
+
+        CompletableFuture<Void> outraConta = writer.gravar(List.of(deposito(2L, 100)));
+        CompletableFuture<Void> valido = writer.gravar(List.of(saque(1L, 50)));
+        CompletableFuture<Void> invalido = writer.gravar(List.of(saque(1L, 500)));
+        writer.iniciar();
+
+        Assertions.assertDoesNotThrow(outraConta::join, "O pedido de outra conta deve ser gravado");
+        Assertions.assertDoesNotThrow(valido::join, "O pedido coberto pelo saldo deve ser gravado");
+        CompletionException erro = Assertions.assertThrows(CompletionException.class, invalido::join);
+        Assertions.assertInstanceOf(BadRequestException.class, erro.getCause());
+        Assertions.assertEquals(OperacaoService.VALOR_SAQUE_EXCEDIDO + "1.00", erro.getCause().getMessage(),
+                "A recusa deve ter a mesma mensagem da validação do saque");
+        Assertions.assertEquals(List.of(Map.of(2L, new BigDecimal("1.00"), 1L, new BigDecimal("-5.50")), Map.of(2L, new BigDecimal("1.00")),
+                        Map.of(1L, new BigDecimal("-0.50")), Map.of(1L, new BigDecimal("-5.00"))), comandos,
+                "Só os pedidos da conta recusada devem ser regravados um a um");
+    }
+
+    @Test
+    @DisplayName("gravar should only append operacoes and publish them to the projector in event-sourced mode")
+    @SuppressWarnings("unchecked")
+    void gravarShouldOnlyAppendOperacoesAndPublishThemToTheProjectorInEventSourcedMode() {
+        Conta conta = createConta(1L);
+        Mockito.when(projetor.isAtivo()).thenReturn(true);
+        Mockito.when(contaRepository.getReferenceById(1L)).thenReturn(conta);
+
+        writer.gravar(List.of(deposito(1L, 1_000)));
+        writer.gravar(List.of(deposito(1L, 100)));
+        writer.iniciar();
+        writer.gravar(List.of(deposito(1L, 100))).join();
+
+        ArgumentCaptor<List<Operacao>> publicadas = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(projetor, Mockito.atLeastOnce()).publicar(publicadas.capture());
+        Mockito.verify(contaRepository, Mockito.never()).findAllById(Mockito.anyIterable());
+        Assertions.assertEquals(3, publicadas.getAllValues().stream().mapToInt(List::size).sum(), "Todas as operações commitadas devem ser publicadas");
+        Assertions.assertEquals(Dinheiro.ZERO, conta.getSaldo(), "No modo event-sourced o writer não altera Conta.saldo");
+        Assertions.assertTrue(cache.porId(1L, id -> Optional.empty()).isEmpty(), "O cache só é atualizado pela projeção");
+    }
+
+    @Test
+    @DisplayName("gravar should acknowledge on the journal and write operacoes with their journal sequence afterwards")
+    @SuppressWarnings("unchecked")
+    void gravarShouldAcknowledgeOnTheJournalAndWriteOperacoesWithTheirJournalSequenceAfterwards() {
+        Conta conta = createConta(1L);
+        CompletableFuture<Void> duravel = new CompletableFuture<>();
+        Mockito.when(journal.isAtivo()).thenReturn(true);
+        Mockito.when(contaRepository.findAllById(Mockito.anyIterable())).thenReturn(List.of(conta));
+        Mockito.when(journal.registrar(Mockito.anyList(), Mockito.any())).thenAnswer(invocation -> {
+            invocation.<LongConsumer>getArgument(1).accept(42L);
+            return duravel;
+        });
+
+        CompletableFuture<Void> gravacao = writer.gravar(List.of(deposito(1L, 100)));
+        writer.iniciar();
+
+        Assertions.assertSame(duravel, gravacao, "O chamador deve ser liberado pela durabilidade no journal");
+        ArgumentCaptor<Collection<Operacao>> operacoes = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(operacaoRepository, Mockito.timeout(5_000)).saveAll(operacoes.capture());
+        Mockito.verify(journal, Mockito.timeout(5_000)).confirmar(42L);
+        Assertions.assertEquals(42L, operacoes.getValue().iterator().next().getJournalSeq());
+    }
+
+    @Test
+    @DisplayName("iniciar should rewrite journal records that are newer than the last written sequence")
+    @SuppressWarnings("unchecked")
+    void iniciarShouldRewriteJournalRecordsThatAreNewerThanTheLastWrittenSequence() {
+        Conta conta = createConta(1L);
+        Mockito.when(journal.isAtivo()).thenReturn(true);
+        Mockito.when(operacaoRepository.findMaxJournalSeq()).thenReturn(7L);
+        Mockito.when(journal.recuperar(0L)).thenReturn(List.of(
+                new OperacaoJournal.Registro(8L, INSTANTE.toEpochMilli(), List.of(deposito(1L, 1_000))),
+                new OperacaoJournal.Registro(9L, INSTANTE.toEpochMilli(), List.of(deposito(1L, 100)))));
+        Mockito.when(contaRepository.findAllById(Mockito.anyIterable())).thenReturn(List.of(conta));
+
+        writer.iniciar();
+
+        ArgumentCaptor<Collection<Operacao>> operacoes = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(operacaoRepository).saveAll(operacoes.capture());
+        Assertions.assertEquals(List.of(8L, 9L), operacoes.getValue().stream().map(Operacao::getJournalSeq).toList(),
+                "Os registros pendentes devem ser regravados antes do writer começar");
+        Assertions.assertEquals(Dinheiro.ofCentavos(1_100), conta.getSaldo());
+        Assertions.assertEquals(LocalDateTime.ofInstant(INSTANTE, ZoneId.systemDefault()), operacoes.getValue().iterator().next().getCreatedAt(),
+                "A operação regravada deve manter o instante do registro no journal");
+        Mockito.verify(journal, Mockito.atLeastOnce()).confirmar(9L);
+    }
+
+    @Test
+    @DisplayName("iniciar should rewrite a journal record missing from the table even below the last written sequence")
+    @SuppressWarnings("unchecked")
+    void iniciarShouldRewriteAJournalRecordMissingFromTheTableEvenBelowTheLastWrittenSequence() {
+        Conta conta = createConta(1L);
+        Mockito.when(journal.isAtivo()).thenReturn(true);
+        Mockito.when(operacaoRepository.findMaxJournalSeq()).thenReturn(9L);
+        Mockito.when(journal.recuperar(0L)).thenReturn(List.of(
+                new OperacaoJournal.Registro(5L, INSTANTE.toEpochMilli(), List.of(deposito(1L, 1_000))),
+                new OperacaoJournal.Registro(9L, INSTANTE.toEpochMilli(), List.of(deposito(1L, 100)))));
+        Mockito.when(operacaoRepository.findJournalSeqsIn(List.of(5L, 9L))).thenReturn(List.of(9L));
+        Mockito.when(contaRepository.findAllById(Mockito.anyIterable())).thenReturn(List.of(conta));
+
+        writer.iniciar();
+
+        ArgumentCaptor<Collection<Operacao>> operacoes = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(operacaoRepository).saveAll(operacoes.capture());
+        Assertions.assertEquals(List.of(5L), operacoes.getValue().stream().map(Operacao::getJournalSeq).toList(),
+                "Só o registro que não chegou à tabela deve ser regravado");
+        Mockito.verify(journal, Mockito.atLeastOnce()).confirmar(9L);
+    }
+
+    @Test
+    @DisplayName("gravar should hold the journal before a journaled pedido that failed and rewrite it later")
+    @SuppressWarnings("unchecked")
+    void gravarShouldHoldTheJournalBeforeAJournaledPedidoThatFailedAndRewriteItLater() {
+        Conta conta = createConta(1L);
+        AtomicLong sequencias = new AtomicLong();
+        AtomicInteger falhas = new AtomicInteger();
+        List<Long> gravadas = new CopyOnWriteArrayList<>();
+        Mockito.when(journal.isAtivo()).thenReturn(true);
+        Mockito.when(contaRepository.findAllById(Mockito.anyIterable())).thenReturn(List.of(conta));
+        Mockito.when(journal.registrar(Mockito.anyList(), Mockito.any())).thenAnswer(invocation -> {
+            invocation.<LongConsumer>getArgument(1).accept(sequencias.incrementAndGet());
+            return CompletableFuture.completedFuture(null);
+        });
+        // O lote com as sequências 1 e 2 falha, e a 1 falha de novo sozinha: só a 2 é gravada na primeira volta.
+        Mockito.when(operacaoRepository.saveAll(Mockito.anyCollection())).thenAnswer(invocation -> {
+            Collection<Operacao> operacoes = invocation.getArgument(0);
+            if (operacoes.stream().anyMatch(operacao -> operacao.getJournalSeq() == 1L) && falhas.getAndIncrement() < 2)
+                throw new DataAccessResourceFailureException("banco indisponível");
+            operacoes.forEach(operacao -> gravadas.add(operacao.getJournalSeq()));
+            return List.copyOf(operacoes);
+        });
+
+        writer.gravar(List.of(deposito(1L, 100)));
+        writer.gravar(List.of(deposito(1L, 200)));
+        writer.iniciar();
+
+        Mockito.verify(journal, Mockito.timeout(5_000)).confirmar(2L);
+        Assertions.assertEquals(List.of(2L, 1L), gravadas, "A sequência 1 deve ser regravada depois da falha");
+        ArgumentCaptor<Long> confirmadas = ArgumentCaptor.forClass(Long.class);
+        Mockito.verify(journal, Mockito.atLeastOnce()).confirmar(confirmadas.capture());
+        Assertions.assertEquals(List.of(2L), confirmadas.getAllValues().stream().filter(sequencia -> sequencia > 0).toList(),
+                "O journal não pode ser confirmado além da sequência que falhou antes de ela ser gravada");
+    }
+
+    @Test
+    @DisplayName("gravar should send a journaled pedido the database refuses for good to reconciliation and still confirm the journal")
+    @SuppressWarnings("unchecked")
+    void gravarShouldSendAJournaledPedidoTheDatabaseRefusesForGoodToReconciliationAndStillConfirmTheJournal() {
+        Conta conta = createConta(1L);
+        AtomicLong sequencias = new AtomicLong();
+        Mockito.when(journal.isAtivo()).thenReturn(true);
+        // A conta 2 foi excluída depois de o depósito ser confirmado pelo journal.
+        Mockito.when(contaRepository.findAllById(Mockito.anyIterable())).thenReturn(List.of(conta));
+        Mockito.when(journal.registrar(Mockito.anyList(), Mockito.any())).thenAnswer(invocation -> {
+            invocation.<LongConsumer>getArgument(1).accept(sequencias.incrementAndGet());
+            return CompletableFuture.completedFuture(null);
+        });
+
+        writer.gravar(List.of(deposito(2L, 100)));
+        writer.gravar(List.of(deposito(1L, 200)));
+        writer.iniciar();
+
+        Mockito.verify(journal, Mockito.timeout(5_000)).confirmar(2L);
+        ArgumentCaptor<List<JournalRejeitado>> rejeitados = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(journalRejeitadoRepository).saveAll(rejeitados.capture());
+        JournalRejeitado rejeitado = rejeitados.getValue().get(0);
+        Assertions.assertEquals(1L, rejeitado.getJournalSeq());
+        Assertions.assertEquals(2L, rejeitado.getContaId());
+        Assertions.assertEquals(100L, rejeitado.getDelta());
+        Assertions.assertEquals("BadRequestException: Not Found id 2", rejeitado.getMotivo());
+        Assertions.assertEquals(Dinheiro.ofCentavos(200), conta.getSaldo(), "O outro pedido do lote deve ser gravado");
+    }
+
+    @Test
+    @DisplayName("a transfer between shards should debit on the origin, credit on the destination and clear the pending credit")
+    @SuppressWarnings("unchecked")
+    void aTransferBetweenShardsShouldDebitOnTheOriginCreditOnTheDestinationAndClearThePendingCredit() throws Exception {
+        Conta origem = createConta(1L, Dinheiro.ofCentavos(1_000));
+        Conta destino = createConta(2L, Dinheiro.ZERO);
+        Map<Long, Integer> shardDaLeitura = contasPorShard(origem, destino);
+        writer = novoWriter(new Shards(List.of("shard-0", "shard-1"), transactionManager));
+
+        CompletableFuture<Void> gravacao = writer.gravar(transferencia(1L, 0, 2L, 1, 100));
+        writer.iniciar();
+        gravacao.get(5, TimeUnit.SECONDS);
+
+        ArgumentCaptor<List<CreditoPendente>> pendentes = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(creditoPendenteRepository).saveAll(pendentes.capture());
+        CreditoPendente pendente = pendentes.getValue().get(0);
+        ArgumentCaptor<List<CreditoAplicado>> aplicados = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(creditoAplicadoRepository).saveAll(aplicados.capture());
+        Mockito.verify(creditoPendenteRepository).deleteAllByIdInBatch(List.of(pendente.getId()));
+
+        Assertions.assertEquals(Map.of(1L, 0, 2L, 1), shardDaLeitura, "Cada perna deve ser gravada no shard da sua conta");
+        Assertions.assertEquals(Map.of(1L, "operacao-writer-0", 2L, "operacao-writer-1"), threadDaLeitura,
+                "Cada shard deve ser gravado pela sua própria thread");
+        Assertions.assertEquals(2L, pendente.getContaId(), "O crédito pendente deve apontar para a conta de destino");
+        Assertions.assertEquals(pendente.getId(), aplicados.getValue().get(0).getId(), "O destino deve marcar o crédito como aplicado");
+        Assertions.assertEquals(Dinheiro.ofCentavos(900), origem.getSaldo());
+        Assertions.assertEquals(Dinheiro.ofCentavos(100), destino.getSaldo());
+    }
+
+    @Test
+    @DisplayName("a credit that fails on the destination shard should be retried without repeating the debit")
+    void aCreditThatFailsOnTheDestinationShardShouldBeRetriedWithoutRepeatingTheDebit() throws Exception {
+        Conta origem = createConta(1L, Dinheiro.ofCentavos(1_000));
+        Conta destino = createConta(2L, Dinheiro.ZERO);
+        contasPorShard(origem, destino);
+        Mockito.when(creditoAplicadoRepository.findAllById(Mockito.anyIterable()))
+                .thenThrow(new DataAccessResourceFailureException("shard 1 indisponível"))
+                .thenReturn(List.of());
+        writer = novoWriter(new Shards(List.of("shard-0", "shard-1"), transactionManager));
+
+        CompletableFuture<Void> gravacao = writer.gravar(transferencia(1L, 0, 2L, 1, 100));
+        writer.iniciar();
+        gravacao.get(5, TimeUnit.SECONDS);
+
+        Mockito.verify(creditoPendenteRepository, Mockito.times(1)).saveAll(Mockito.anyIterable());
+        Assertions.assertEquals(Dinheiro.ofCentavos(900), origem.getSaldo(), "O débito deve ser gravado uma única vez");
+        Assertions.assertEquals(Dinheiro.ofCentavos(100), destino.getSaldo(), "O crédito deve ser aplicado na nova tentativa");
+    }
+
+    @Test
+    @DisplayName("a credit the destination refuses should be reversed on the origin without holding back the other credits")
+    void aCreditTheDestinationRefusesShouldBeReversedOnTheOriginWithoutHoldingBackTheOtherCredits() throws Exception {
+        Conta origem = createConta(1L, Dinheiro.ofCentavos(1_000));
+        Conta destino = createConta(2L, Dinheiro.ZERO);
+        contasPorShard(origem, destino);
+        writer = novoWriter(new Shards(List.of("shard-0", "shard-1"), transactionManager));
+
+        // A recusa vem primeiro: a conta do mock não volta atrás com a transação, como a entidade descartada no rollback.
+        CompletableFuture<Void> semDestino = writer.gravar(transferencia(1L, 0, 3L, 1, 200));
+        CompletableFuture<Void> valida = writer.gravar(transferencia(1L, 0, 2L, 1, 100));
+        writer.iniciar();
+        valida.get(5, TimeUnit.SECONDS);
+        ExecutionException erro = Assertions.assertThrows(ExecutionException.class, () -> semDestino.get(5, TimeUnit.SECONDS));
+
+        Assertions.assertInstanceOf(BadRequestException.class, erro.getCause(), "O cliente deve receber a recusa do destino");
+        Assertions.assertEquals("Not Found id 3", erro.getCause().getMessage());
+        ArgumentCaptor<CreditoRejeitado> rejeitado = ArgumentCaptor.forClass(CreditoRejeitado.class);
+        Mockito.verify(creditoRejeitadoRepository).save(rejeitado.capture());
+        Assertions.assertEquals(3L, rejeitado.getValue().getContaId());
+        Assertions.assertEquals(1L, rejeitado.getValue().getContaOrigemId());
+        Assertions.assertEquals(200L, rejeitado.getValue().getValor());
+        Mockito.verify(creditoPendenteRepository).deleteAllByIdInBatch(List.of(rejeitado.getValue().getId()));
+        Assertions.assertEquals(Dinheiro.ofCentavos(900), origem.getSaldo(), "O débito recusado deve ser estornado na origem");
+        Assertions.assertEquals(Dinheiro.ofCentavos(100), destino.getSaldo(), "O crédito válido deve ser aplicado");
+    }
+
+    @Test
+    @DisplayName("a credit that keeps failing past the deadline should release the transfer and keep being retried")
+    void aCreditThatKeepsFailingPastTheDeadlineShouldReleaseTheTransferAndKeepBeingRetried() throws Exception {
+        Conta origem = createConta(1L, Dinheiro.ofCentavos(1_000));
+        contasPorShard(origem);
+        Mockito.when(creditoAplicadoRepository.findAllById(Mockito.anyIterable()))
+                .thenThrow(new DataAccessResourceFailureException("shard 1 indisponível"));
+        writer = novoWriter(new Shards(List.of("shard-0", "shard-1"), transactionManager), false, 0);
+
+        CompletableFuture<Void> gravacao = writer.gravar(transferencia(1L, 0, 2L, 1, 100));
+        writer.iniciar();
+        gravacao.get(5, TimeUnit.SECONDS);
+
+        Mockito.verify(creditoAplicadoRepository, Mockito.timeout(5_000).atLeast(2)).findAllById(Mockito.anyIterable());
+        Mockito.verify(creditoRejeitadoRepository, Mockito.never()).save(Mockito.any(CreditoRejeitado.class));
+        Assertions.assertEquals(Dinheiro.ofCentavos(900), origem.getSaldo(), "O débito continua gravado, com o crédito pendente");
+    }
+
+    @Test
+    @DisplayName("gravar should reject a pedido whose debits span more than one shard")
+    void gravarShouldRejectAPedidoWhoseDebitsSpanMoreThanOneShard() {
+        writer = novoWriter(new Shards(List.of("shard-0", "shard-1"), transactionManager));
+
+        CompletableFuture<Void> gravacao = writer.gravar(List.of(
+                Lancamento.builder().contaId(1L).tipo(OperacaoEnum.SAQUE).valor(100).delta(-100).shard(0).build(),
+                Lancamento.builder().contaId(2L).tipo(OperacaoEnum.SAQUE).valor(100).delta(-100).shard(1).build()));
+
+        CompletionException erro = Assertions.assertThrows(CompletionException.class, gravacao::join);
+        Assertions.assertInstanceOf(IllegalArgumentException.class, erro.getCause());
+    }
+
+    private void banco(String produto) {
+        Mockito.when(jdbcTemplate.execute(Mockito.<ConnectionCallback<String>>any())).thenReturn(produto);
+    }
+
+    private OperacaoWriter novoWriter(Shards shards) {
+        return novoWriter(shards, false);
+    }
+
+    private OperacaoWriter novoWriter(Shards shards, boolean updateCondicional) {
+        return novoWriter(shards, updateCondicional, 60);
+    }
+
+    private OperacaoWriter novoWriter(Shards shards, boolean updateCondicional, long prazoCreditoSegundos) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        OptimisticRetry retry = new OptimisticRetry(1, 0, new SimpleMeterRegistry());
+        Metricas metricas = new Metricas(new SimpleMeterRegistry());
+        MovimentacaoSaldos movimentacao = new MovimentacaoSaldos(contaRepository, jdbcTemplate, updateCondicional);
+        return new OperacaoWriter(contaRepository, operacaoRepository, transactionTemplate, retry, cache, projetor,
+                new ConfirmacaoJournal(journal, operacaoRepository, journalRejeitadoRepository, arquivo, historico, transactionTemplate, metricas),
+                new CreditosEntreShards(contaRepository, operacaoRepository, creditoPendenteRepository, creditoAplicadoRepository,
+                        creditoRejeitadoRepository, transactionTemplate, retry, cache, movimentacao, metricas, shards, prazoCreditoSegundos, 24),
+                movimentacao, metricas, shards, 200_000, MAX_LOTE);
+    }
+
+    // Devolve as contas pedidas e anota em que shard, e por qual thread, cada uma foi lida.
+    private Map<Long, Integer> contasPorShard(Conta... contas) {
+        Map<Long, Integer> shardDaLeitura = new ConcurrentHashMap<>();
+        Mockito.when(contaRepository.findAllById(Mockito.anyIterable())).thenAnswer(invocation -> {
+            List<Conta> encontradas = new ArrayList<>();
+            invocation.<Iterable<Long>>getArgument(0).forEach(id -> {
+                for (Conta conta : contas) {
+                    if (conta.getId().equals(id)) {
+                        encontradas.add(conta);
+                        shardDaLeitura.put(id, Shards.atual());
+                        threadDaLeitura.put(id, Thread.currentThread().getName());
+                    }
+                }
+            });
+            return encontradas;
+        });
+        return shardDaLeitura;
+    }
+
+    private static List<Lancamento> transferencia(long origem, int shardOrigem, long destino, int shardDestino, long valor) {
+        return List.of(
+                Lancamento.builder().contaId(origem).tipo(OperacaoEnum.TRANSFERENCIA).valor(valor).delta(-valor).shard(shardOrigem).build(),
+                Lancamento.builder().contaId(destino).tipo(OperacaoEnum.TRANSFERENCIA).valor(valor).delta(valor).shard(shardDestino).build());
+    }
+
+    private static Lancamento saque(long contaId, long valor) {
+        return Lancamento.builder().contaId(contaId).tipo(OperacaoEnum.SAQUE).valor(valor).delta(-valor).build();
+    }
+
+    private static Lancamento deposito(long contaId, long valor) {
+        return Lancamento.builder().contaId(contaId).tipo(OperacaoEnum.DEPOSITO).valor(valor).delta(valor).build();
+    }
+
+    private static Conta createConta(long id) {
+        return createConta(id, Dinheiro.ZERO);
+    }
+
+    private static Conta createConta(long id, Dinheiro saldo) {
+        return Conta.builder().id(id).identificadorConta("12345-6").saldo(saldo).createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
+    }
+}
@@ -0,0 +1,61 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import com.bank.exception.ConflictException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+class OptimisticRetryTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final OptimisticRetry retry = new OptimisticRetry(3, 0, registry);
+
+    @Test
+    @DisplayName("executar should retry transparently when conflict is transient")
+    void executarShouldRetryTransparentlyWhenConflictIsTransient() {
+        AtomicInteger chamadas = new AtomicInteger();
+
+        String resultado = retry.executar(() -> {
+            if (chamadas.incrementAndGet() < 3)
+                throw new ObjectOptimisticLockingFailureException(Conta.class, 1L);
+            return "ok";
+        });
+
+        Assertions.assertEquals("ok", resultado);
+        Assertions.assertEquals(3, chamadas.get(), "A operação deve ser repetida até não haver conflito");
+        Assertions.assertEquals(2.0, registry.counter("bank.optimistic.conflitos").count());
+        Assertions.assertEquals(2.0, registry.counter("bank.optimistic.repeticoes").count());
+        Assertions.assertEquals(0.0, registry.counter("bank.optimistic.esgotadas").count());
+    }
+
+    @Test
+    @DisplayName("executar should throw ConflictException when tentativas are exhausted")
+    void executarShouldThrowConflictExceptionWhenTentativasAreExhausted() {
+        AtomicInteger chamadas = new AtomicInteger();
+
+        Assertions.assertThrows(ConflictException.class, () -> retry.executar(() -> {
+            chamadas.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException(Conta.class, 1L);
+        }));
+
+        Assertions.assertEquals(3, chamadas.get(), "A operação não deve ser repetida além do limite");
+        Assertions.assertEquals(1.0, registry.counter("bank.optimistic.esgotadas").count());
+    }
+
+    @Test
+    @DisplayName("executar should not retry when exception is not a conflict")
+    void executarShouldNotRetryWhenExceptionIsNotAConflict() {
+        AtomicInteger chamadas = new AtomicInteger();
+
+        Assertions.assertThrows(IllegalStateException.class, () -> retry.executar(() -> {
+            chamadas.incrementAndGet();
+            throw new IllegalStateException();
+        }));
+
+        Assertions.assertEquals(1, chamadas.get());
+    }
+}
@@ -0,0 +1,220 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+class SaldoEngineTest {
+    private final SaldoEngine engine = new SaldoEngine(64);
+
+    @Test
+    @DisplayName("executar should not lose updates when many threads deposit on the same conta")
+    void executarShouldNotLoseUpdatesWhenManyThreadsDepositOnTheSameConta() throws Exception {
+        int threads = 8;
+        int depositosPorThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < depositosPorThread; i++) {
+                    Conta conta = createConta(Dinheiro.ZERO);
+                    engine.executar(conta, () -> {
+                        conta.setSaldo(conta.getSaldo().mais(1));
+                        return null;
+                    });
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Assertions.assertEquals(Dinheiro.ofCentavos((long) threads * depositosPorThread), engine.saldo(createConta(Dinheiro.ZERO)),
+                "Nenhum depósito concorrente deve ser perdido");
+    }
+
+    @Test
+    @Timeout(120)
+    @DisplayName("executar with two contas should preserve total money under millions of crossing transferencias")
+    void executarWithTwoContasShouldPreserveTotalMoneyUnderMillionsOfCrossingTransferencias() throws Exception {
+        int totalContas = 2_000;
+        int threads = 8;
+        int transferenciasPorThread = 250_000;
+        Dinheiro saldoInicial = Dinheiro.ofCentavos(1_000);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < transferenciasPorThread; i++) {
+                    int origemId = random.nextInt(totalContas);
+                    int destinoId = random.nextInt(totalContas - 1);
+                    if (destinoId >= origemId)
+                        destinoId++;
+                    Conta origem = createConta(origemId, saldoInicial);
+                    Conta destino = createConta(destinoId, saldoInicial);
+                    long valor = random.nextInt(1, 200);
+
+                    engine.executar(origem, destino, () -> {
+                        if (valor <= origem.getSaldo().centavos()) {
+                            origem.setSaldo(origem.getSaldo().menos(valor));
+                            destino.setSaldo(destino.getSaldo().mais(valor));
+                        }
+                        return null;
+                    });
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        long total = 0;
+        for (int id = 0; id < totalContas; id++) {
+            Dinheiro saldo = engine.saldo(createConta(id, saldoInicial));
+            Assertions.assertTrue(saldo.centavos() >= 0, "Nenhuma conta deve ficar com saldo negativo");
+            total += saldo.centavos();
+        }
+        Assertions.assertEquals(saldoInicial.centavos() * totalContas, total,
+                "O total de dinheiro no sistema deve permanecer o mesmo após as transferências");
+    }
+
+    @Test
+    @DisplayName("executar should keep saldo in memory when operacao throws")
+    void executarShouldKeepSaldoInMemoryWhenOperacaoThrows() {
+        Conta conta = createConta(Dinheiro.ofCentavos(10));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> engine.executar(conta, () -> {
+            throw new IllegalArgumentException();
+        }));
+
+        Assertions.assertEquals(Dinheiro.ofCentavos(10), engine.saldo(createConta(Dinheiro.ZERO)), "O saldo em memória não deve mudar quando a operação falha");
+    }
+
+    @Test
+    @DisplayName("invalidar should reload saldo from conta on next operacao")
+    void invalidarShouldReloadSaldoFromContaOnNextOperacao() {
+        Conta conta = createConta(Dinheiro.ofCentavos(10));
+        engine.executar(conta, () -> {
+            conta.setSaldo(conta.getSaldo().mais(1));
+            return null;
+        });
+
+        engine.invalidar(conta.getIdentificadorConta());
+
+        Assertions.assertEquals(Dinheiro.ofCentavos(1), engine.saldo(createConta(Dinheiro.ofCentavos(1))), "Após invalidar, o saldo deve vir da conta");
+    }
+
+    @Test
+    @DisplayName("acompanhar should revert only the failed deltas before failing and keep the other in-memory changes")
+    void acompanharShouldRevertOnlyTheFailedDeltasBeforeFailingAndKeepTheOtherInMemoryChanges() {
+        Conta conta = createConta(Dinheiro.ofCentavos(10));
+        CompletableFuture<Void> falha = new CompletableFuture<>();
+        CompletableFuture<Void> acompanhada = engine.executar(conta, () -> {
+            conta.setSaldo(conta.getSaldo().mais(5));
+            return engine.acompanhar(falha, List.of(lancamento(conta, 5)), conta);
+        });
+        // Outra mutação da conta, ainda na fila do writer quando a primeira falha.
+        engine.executar(conta, () -> {
+            conta.setSaldo(conta.getSaldo().mais(3));
+            return engine.acompanhar(new CompletableFuture<>(), List.of(lancamento(conta, 3)), conta);
+        });
+
+        falha.completeExceptionally(new IllegalStateException("banco indisponível"));
+        Dinheiro saldoNaFalha = acompanhada.handle((gravada, erro) -> engine.saldo(createConta(Dinheiro.ZERO))).join();
+
+        Assertions.assertEquals(Dinheiro.ofCentavos(13), saldoNaFalha, "O chamador só deve ver a falha depois de o delta ser desfeito");
+        Assertions.assertThrows(CompletionException.class, acompanhada::join);
+    }
+
+    @Test
+    @DisplayName("liberarOciosas should drop idle contas but keep those with a write in progress")
+    void liberarOciosasShouldDropIdleContasButKeepThoseWithAWriteInProgress() {
+        Conta ociosa = createConta(1L, Dinheiro.ofCentavos(10));
+        Conta gravando = createConta(2L, Dinheiro.ofCentavos(20));
+        engine.executar(ociosa, () -> null);
+        engine.executar(gravando, () -> {
+            gravando.setSaldo(gravando.getSaldo().mais(5));
+            return engine.acompanhar(new CompletableFuture<>(), List.of(lancamento(gravando, 5)), gravando);
+        });
+
+        // A primeira janela só fecha o uso recente; a segunda, sem uso, libera.
+        engine.liberarOciosas();
+        engine.liberarOciosas();
+
+        Assertions.assertEquals(1, engine.emMemoria(), "Só a conta com gravação em andamento deve continuar em memória");
+        Assertions.assertEquals(Dinheiro.ofCentavos(25), engine.saldo(createConta(2L, Dinheiro.ZERO)),
+                "O saldo da conta com gravação em andamento não pode ser recarregado da fonte");
+    }
+
+    @Test
+    @DisplayName("renomear should keep the in-memory saldo under the new identificador")
+    void renomearShouldKeepTheInMemorySaldoUnderTheNewIdentificador() {
+        Conta conta = createConta(Dinheiro.ofCentavos(10));
+        engine.executar(conta, () -> {
+            conta.setSaldo(conta.getSaldo().mais(5));
+            return null;
+        });
+
+        engine.renomear(conta, "12345-7");
+
+        Conta renomeada = Conta.builder().id(1L).identificadorConta("12345-7").saldo(Dinheiro.ZERO).build();
+        Assertions.assertEquals(Dinheiro.ofCentavos(15), engine.saldo(renomeada), "O saldo em memória não deve ser recarregado da conta");
+    }
+
+    @Test
+    @DisplayName("executar should load saldo from the configured source when conta is not in memory")
+    void executarShouldLoadSaldoFromTheConfiguredSourceWhenContaIsNotInMemory() {
+        engine.definirSaldoInicial(conta -> Dinheiro.ofCentavos(100));
+        Conta conta = createConta(Dinheiro.ofCentavos(10));
+
+        engine.executar(conta, () -> {
+            conta.setSaldo(conta.getSaldo().mais(1));
+            return null;
+        });
+
+        Assertions.assertEquals(Dinheiro.ofCentavos(101), engine.saldo(createConta(Dinheiro.ZERO)),
+                "O saldo inicial deve vir da fonte configurada e não de Conta.saldo");
+    }
+
+    @Test
+    @DisplayName("saldo should load from the configured source when conta is not in memory")
+    void saldoShouldLoadFromTheConfiguredSourceWhenContaIsNotInMemory() {
+        engine.definirSaldoInicial(conta -> Dinheiro.ofCentavos(100));
+
+        Assertions.assertEquals(Dinheiro.ofCentavos(100), engine.saldo(createConta(Dinheiro.ofCentavos(10))),
+                "A consulta deve usar a mesma fonte que a primeira operação sobre a conta");
+
+        engine.definirSaldoInicial(conta -> Dinheiro.ofCentavos(200));
+        Assertions.assertEquals(Dinheiro.ofCentavos(100), engine.saldo(createConta(Dinheiro.ofCentavos(10))),
+                "Depois de carregada, a conta deve ficar em memória");
+    }
+
+    private static Conta createConta(Dinheiro saldo) {
+        return Conta.builder().id(1L).identificadorConta("12345-6").saldo(saldo).build();
+    }
+
+    private static Lancamento lancamento(Conta conta, long delta) {
+        return Lancamento.builder().contaId(conta.getId()).valor(Math.abs(delta)).delta(delta).build();
+    }
+
+    private static Conta createConta(long id, Dinheiro saldo) {
+        return Conta.builder().id(id).identificadorConta(String.valueOf(id)).saldo(saldo).build();
+    }
+}
@@ -0,0 +1,117 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import com.bank.domain.Dinheiro;
+import com.bank.domain.SaldoSnapshot;
+import com.bank.repository.ContaRepository;
+import com.bank.repository.OperacaoRepository;
+import com.bank.repository.SaldoSnapshotRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@ExtendWith(MockitoExtension.class)
+class SaldoHistoricoServiceTest {
+    @Mock
+    private SaldoSnapshotRepository snapshotRepository;
+    @Mock
+    private OperacaoRepository operacaoRepository;
+    @Mock
+    private ContaRepository contaRepository;
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class));
+    @Spy
+    private Shards shards = new Shards(List.of(), Mockito.mock(PlatformTransactionManager.class));
+    @Spy
+    private ArquivoOperacoes arquivo = new ArquivoOperacoes(false, Path.of("arquivo"));
+    @InjectMocks
+    private SaldoHistoricoService historico;
+
+    @Test
+    @DisplayName("saldoEm should apply only operacoes after the nearest snapshot")
+    void saldoEmShouldApplyOnlyOperacoesAfterTheNearestSnapshot() {
+        Conta conta = createConta();
+        LocalDateTime referencia = LocalDateTime.of(2024, 1, 31, 0, 0);
+        LocalDateTime instante = LocalDateTime.of(2024, 2, 10, 0, 0);
+        SaldoSnapshot snapshot = SaldoSnapshot.builder().conta(conta).saldo(BigDecimal.valueOf(100)).referencia(referencia).build();
+
+        Mockito.when(snapshotRepository.findFirstByContaAndReferenciaLessThanEqualOrderByReferenciaDesc(conta, instante)).thenReturn(Optional.of(snapshot));
+        Mockito.when(operacaoRepository.somarMovimento(conta, referencia, instante)).thenReturn(BigDecimal.valueOf(-30));
+
+        BigDecimal saldo = historico.saldoEm(conta, instante);
+
+        Assertions.assertEquals(BigDecimal.valueOf(70), saldo, "O saldo deve ser o do snapshot mais o movimento posterior a ele");
+    }
+
+    @Test
+    @DisplayName("saldoEm should replay from the beginning when there is no snapshot")
+    void saldoEmShouldReplayFromTheBeginningWhenThereIsNoSnapshot() {
+        Conta conta = createConta();
+        LocalDateTime instante = LocalDateTime.of(2024, 2, 10, 0, 0);
+
+        Mockito.when(snapshotRepository.findFirstByContaAndReferenciaLessThanEqualOrderByReferenciaDesc(conta, instante)).thenReturn(Optional.empty());
+        Mockito.when(operacaoRepository.somarMovimento(conta, SaldoHistoricoService.INICIO, instante)).thenReturn(BigDecimal.TEN);
+
+        Assertions.assertEquals(BigDecimal.TEN, historico.saldoEm(conta, instante));
+    }
+
+    @Test
+    @DisplayName("registrarSnapshots should compute each page with grouped queries and save it with a single saveAll")
+    @SuppressWarnings("unchecked")
+    void registrarSnapshotsShouldComputeEachPageWithGroupedQueriesAndSaveItWithASingleSaveAll() {
+        Conta conta = createConta();
+        Conta outra = Conta.builder().id(2L).identificadorConta("65432-1").saldo(Dinheiro.ZERO).build();
+        LocalDateTime anterior = LocalDateTime.of(2024, 1, 31, 0, 0);
+        Mockito.when(contaRepository.findAll(Mockito.any(Pageable.class))).thenReturn(new PageImpl<>(List.of(conta, outra)));
+        Mockito.when(snapshotRepository.findUltimosDasContas(Mockito.eq(List.of(1L, 2L)), Mockito.any())).thenReturn(List.of(
+                SaldoSnapshot.builder().conta(conta).saldo(BigDecimal.valueOf(100)).referencia(anterior).build()));
+        Mockito.when(operacaoRepository.somarMovimentoDasContas(Mockito.eq(List.of(1L)), Mockito.eq(anterior), Mockito.any()))
+                .thenReturn(List.of(new MovimentoConta(1L, BigDecimal.valueOf(-30))));
+        Mockito.when(operacaoRepository.somarMovimentoDasContas(Mockito.eq(List.of(2L)), Mockito.eq(SaldoHistoricoService.INICIO), Mockito.any()))
+                .thenReturn(List.of(new MovimentoConta(2L, BigDecimal.TEN)));
+
+        historico.registrarSnapshots();
+
+        ArgumentCaptor<List<SaldoSnapshot>> snapshots = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(snapshotRepository, Mockito.times(1)).saveAll(snapshots.capture());
+        Mockito.verify(snapshotRepository, Mockito.never()).save(Mockito.any());
+        Mockito.verify(snapshotRepository, Mockito.never()).findFirstByContaAndReferenciaLessThanEqualOrderByReferenciaDesc(Mockito.any(), Mockito.any());
+        Mockito.verify(operacaoRepository, Mockito.never()).somarMovimento(Mockito.any(), Mockito.any(), Mockito.any());
+        Assertions.assertEquals(List.of(conta, outra), snapshots.getValue().stream().map(SaldoSnapshot::getConta).toList(),
+                "A página inteira deve ser gravada de uma vez");
+        Assertions.assertEquals(List.of(BigDecimal.valueOf(70), BigDecimal.TEN), snapshots.getValue().stream().map(SaldoSnapshot::getSaldo).toList(),
+                "Cada saldo deve partir do snapshot anterior da conta, ou do início sem ele");
+    }
+
+    @Test
+    @DisplayName("invalidarSnapshots should delete the snapshots of the contas taken after the given instant")
+    void invalidarSnapshotsShouldDeleteTheSnapshotsOfTheContasTakenAfterTheGivenInstant() {
+        LocalDateTime registro = LocalDateTime.of(2024, 2, 10, 0, 0);
+        Mockito.when(snapshotRepository.deleteDasContasPosteriores(List.of(1L), registro)).thenReturn(1);
+
+        historico.invalidarSnapshots(List.of(1L), registro);
+
+        Mockito.verify(snapshotRepository).deleteDasContasPosteriores(List.of(1L), registro);
+    }
+
+    private static Conta createConta() {
+        return Conta.builder().id(1L).identificadorConta("12345-6").saldo(Dinheiro.ZERO).build();
+    }
+}
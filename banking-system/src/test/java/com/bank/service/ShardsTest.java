@@ -0,0 +1,80 @@
+package com.bank.service;
+
+import com.bank.domain.Conta;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+class ShardsTest {
+    private static final Comparator<Conta> POR_ID = Comparator.comparing(Conta::getId);
+    private final PlatformTransactionManager transactionManager = Mockito.mock(PlatformTransactionManager.class);
+
+    @Test
+    @DisplayName("de should spread sequential identifiers over every shard and always give the same shard")
+    void deShouldSpreadSequentialIdentifiersOverEveryShardAndAlwaysGiveTheSameShard() {
+        Shards shards = new Shards(List.of("a", "b", "c", "d"), transactionManager);
+
+        Map<Integer, Long> porShard = LongStream.range(0, 10_000)
+                .mapToObj(IdentificadorContaAllocator::formatar)
+                .collect(Collectors.groupingBy(shards::de, Collectors.counting()));
+
+        Assertions.assertEquals(4, porShard.size(), "Todos os shards devem receber contas");
+        porShard.values().forEach(quantidade -> Assertions.assertTrue(quantidade > 2_000 && quantidade < 3_000,
+                "A distribuição deve ser próxima de uniforme: " + porShard));
+        Assertions.assertEquals(shards.de("12345-6"), shards.de("12345-6"), "O shard de uma conta não pode mudar");
+    }
+
+    @Test
+    @DisplayName("paginar should merge the shards in the requested order and sum their totals")
+    void paginarShouldMergeTheShardsInTheRequestedOrderAndSumTheirTotals() {
+        Shards shards = new Shards(List.of("a", "b"), transactionManager);
+        Map<Integer, List<Conta>> dados = Map.of(0, contas(1, 4, 5), 1, contas(2, 3, 6));
+        Function<Pageable, Page<Conta>> consulta = pageable -> pagina(dados.get(Shards.atual()), pageable);
+
+        Page<Conta> crescente = shards.paginar(PageRequest.of(1, 2, Sort.by("id")), consulta, POR_ID);
+        Page<Conta> decrescente = shards.paginar(PageRequest.of(0, 4, Sort.by(Sort.Direction.DESC, "id")), consulta, POR_ID);
+
+        Assertions.assertEquals(List.of(3L, 4L), crescente.map(Conta::getId).getContent(), "A segunda página deve vir da junção dos shards");
+        Assertions.assertEquals(6, crescente.getTotalElements(), "O total deve somar os shards");
+        Assertions.assertEquals(3, crescente.getTotalPages());
+        Assertions.assertEquals(List.of(6L, 5L, 4L, 3L), decrescente.map(Conta::getId).getContent(), "A ordem pedida deve valer entre shards");
+    }
+
+    @Test
+    @DisplayName("with a single shard every call should run directly without marking a shard")
+    void withASingleShardEveryCallShouldRunDirectlyWithoutMarkingAShard() {
+        Shards shards = new Shards(List.of(), transactionManager);
+
+        Assertions.assertFalse(shards.ativo());
+        Assertions.assertEquals(0, shards.de("12345-6"));
+        Assertions.assertNull(shards.executar(0, Shards::atual), "Sem shards o DataSource não deve ver marca nenhuma");
+        Assertions.assertEquals(List.of("único"), shards.emTodos(() -> "único"));
+        Mockito.verifyNoInteractions(transactionManager);
+    }
+
+    private static List<Conta> contas(long... ids) {
+        return Arrays.stream(ids).mapToObj(id -> Conta.builder().id(id).build()).toList();
+    }
+
+    private static Page<Conta> pagina(List<Conta> contas, Pageable pageable) {
+        Comparator<Conta> ordem = pageable.getSort().getOrderFor("id").isAscending() ? POR_ID : POR_ID.reversed();
+        List<Conta> ordenadas = contas.stream().sorted(ordem).toList();
+        int fim = (int) Math.min(ordenadas.size(), pageable.getOffset() + pageable.getPageSize());
+        return new PageImpl<>(ordenadas.subList((int) pageable.getOffset(), fim), pageable, ordenadas.size());
+    }
+}
@@ -0,0 +1,204 @@
+package com.bank.service;
+
+import com.bank.enums.StatusLoteEnum;
+import com.bank.exception.BadRequestException;
+import com.bank.exception.NotFoundException;
+import com.bank.exception.ServiceUnavailableException;
+import com.bank.request.TransferenciaRequest;
+import com.bank.response.ResultadoLinha;
+import com.bank.response.ResultadoTransferenciaLote;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(MockitoExtension.class)
+class TransferenciaLoteServiceTest {
+    @Mock
+    private OperacaoService operacaoService;
+    private TransferenciaLoteService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TransferenciaLoteService(operacaoService, 4, 3, 10);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        service.parar();
+    }
+
+    @Test
+    @DisplayName("submeter should apply transfers sharing an account in batch order")
+    void submeterShouldApplyTransfersSharingAnAccountInBatchOrder() {
+        List<String> aplicadas = Collections.synchronizedList(new ArrayList<>());
+        Mockito.when(operacaoService.transferenciaAssincrona(ArgumentMatchers.any())).thenAnswer(invocation -> {
+            TransferenciaRequest request = invocation.getArgument(0);
+            // A primeira linha demora: se a ordem não fosse respeitada, as seguintes passariam na frente.
+            if (request.getValor().intValue() == 1)
+                Thread.sleep(50);
+            aplicadas.add(request.getOrigem() + ">" + request.getDestino());
+            return CompletableFuture.completedFuture(null);
+        });
+
+        ResultadoTransferenciaLote resultado = aguardarConclusao(service.submeter(List.of(
+                transferencia("A", "B", 1),
+                transferencia("B", "C", 2),
+                transferencia("C", "A", 3)).iterator(), false));
+
+        Assertions.assertEquals(List.of("A>B", "B>C", "C>A"), aplicadas,
+                "Transferências que compartilham conta devem ser aplicadas na ordem do lote");
+        Assertions.assertEquals(3, resultado.getEfetivadas(), "Todas as transferências devem ser efetivadas");
+    }
+
+    @Test
+    @DisplayName("submeter should run transfers on disjoint accounts in parallel")
+    void submeterShouldRunTransfersOnDisjointAccountsInParallel() {
+        CountDownLatch segundaAplicada = new CountDownLatch(1);
+        Mockito.when(operacaoService.transferenciaAssincrona(ArgumentMatchers.any())).thenAnswer(invocation -> {
+            TransferenciaRequest request = invocation.getArgument(0);
+            if (request.getOrigem().equals("A")) {
+                Assertions.assertTrue(segundaAplicada.await(5, TimeUnit.SECONDS),
+                        "A transferência entre C e D não deve esperar a transferência entre A e B");
+            } else {
+                segundaAplicada.countDown();
+            }
+            return CompletableFuture.completedFuture(null);
+        });
+
+        ResultadoTransferenciaLote resultado = aguardarConclusao(service.submeter(List.of(
+                transferencia("A", "B", 1),
+                transferencia("C", "D", 2)).iterator(), false));
+
+        Assertions.assertEquals(2, resultado.getEfetivadas(), "As duas transferências devem ser efetivadas");
+    }
+
+    @Test
+    @DisplayName("submeter should report rejected lines with the service message and keep processing the rest")
+    void submeterShouldReportRejectedLinesWithServiceMessageAndKeepProcessingTheRest() {
+        String saldoInsuficiente = OperacaoService.VALOR_TRANSFERENCIA_EXCEDIDO + "0.00";
+        Mockito.when(operacaoService.transferenciaAssincrona(ArgumentMatchers.any())).thenAnswer(invocation -> {
+            TransferenciaRequest request = invocation.getArgument(0);
+            return switch (request.getValor().intValue()) {
+                case 1 -> throw new BadRequestException(saldoInsuficiente);
+                case 2 -> CompletableFuture.failedFuture(new IllegalStateException("Falha na gravação"));
+                default -> CompletableFuture.completedFuture(null);
+            };
+        });
+
+        ResultadoTransferenciaLote resultado = aguardarConclusao(service.submeter(List.of(
+                transferencia("A", "B", 1),
+                transferencia("A", "C", 2),
+                transferencia("A", "D", 3)).iterator(), false));
+
+        Assertions.assertEquals(3, resultado.getProcessadas(), "Todas as linhas devem ser processadas");
+        Assertions.assertEquals(1, resultado.getEfetivadas(), "Só a terceira transferência deve ser efetivada");
+        Assertions.assertEquals(List.of(1, 2), resultado.getRejeicoes().stream().map(ResultadoLinha::getLinha).toList(),
+                "As linhas rejeitadas devem ser listadas em ordem");
+        Assertions.assertEquals(List.of(saldoInsuficiente), resultado.getRejeicoes().get(0).getErros(),
+                "A rejeição deve trazer a mensagem de saldo insuficiente do serviço");
+        Assertions.assertEquals(List.of("Falha na gravação"), resultado.getRejeicoes().get(1).getErros(),
+                "A rejeição deve trazer o erro da gravação");
+    }
+
+    @Test
+    @DisplayName("submeter should reject an unreadable line and process the lines read before it")
+    void submeterShouldRejectUnreadableLineAndProcessLinesReadBeforeIt() {
+        Mockito.when(operacaoService.transferenciaAssincrona(ArgumentMatchers.any())).thenReturn(CompletableFuture.completedFuture(null));
+        Iterator<TransferenciaRequest> linhas = new Iterator<>() {
+            private boolean lida;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public TransferenciaRequest next() {
+                if (lida)
+                    throw new IllegalArgumentException("Unexpected end-of-input");
+                lida = true;
+                return transferencia("A", "B", 1);
+            }
+        };
+
+        ResultadoTransferenciaLote resultado = aguardarConclusao(service.submeter(linhas, false));
+
+        Assertions.assertEquals(2, resultado.getTotal(), "A linha ilegível deve contar no total");
+        Assertions.assertEquals(1, resultado.getEfetivadas(), "A linha lida antes do erro deve ser efetivada");
+        Assertions.assertEquals(List.of(CadastroLoteService.LINHA_ILEGIVEL + "Unexpected end-of-input"),
+                resultado.getRejeicoes().get(0).getErros(), "A linha ilegível deve ser rejeitada com a mensagem do parser");
+    }
+
+    @Test
+    @DisplayName("submeter should throw BadRequestException when the batch is empty or too large")
+    void submeterShouldThrowBadRequestExceptionWhenBatchIsEmptyOrTooLarge() {
+        BadRequestException vazio = Assertions.assertThrows(BadRequestException.class,
+                () -> service.submeter(Collections.emptyIterator(), false));
+        Assertions.assertEquals(TransferenciaLoteService.LOTE_VAZIO, vazio.getMessage());
+
+        Assertions.assertThrows(BadRequestException.class, () -> service.submeter(List.of(
+                transferencia("A", "B", 1), transferencia("A", "B", 1),
+                transferencia("A", "B", 1), transferencia("A", "B", 1)).iterator(), false));
+        Mockito.verifyNoInteractions(operacaoService);
+    }
+
+    @Test
+    @DisplayName("consultar should throw NotFoundException when the batch does not exist")
+    void consultarShouldThrowNotFoundExceptionWhenBatchDoesNotExist() {
+        NotFoundException erro = Assertions.assertThrows(NotFoundException.class, () -> service.consultar("inexistente"));
+        Assertions.assertEquals(TransferenciaLoteService.LOTE_NAO_ENCONTRADO + "inexistente", erro.getMessage());
+    }
+
+    @Test
+    @DisplayName("submeter should refuse a new batch without reading it while the batches in processing are at the cap")
+    @SuppressWarnings("unchecked")
+    void submeterShouldRefuseANewBatchWithoutReadingItWhileTheBatchesInProcessingAreAtTheCap() throws InterruptedException {
+        service.parar();
+        service = new TransferenciaLoteService(operacaoService, 4, 3, 1);
+        CompletableFuture<Void> gravacao = new CompletableFuture<>();
+        Mockito.when(operacaoService.transferenciaAssincrona(ArgumentMatchers.any())).thenReturn(gravacao);
+
+        Assertions.assertThrows(BadRequestException.class, () -> service.submeter(Collections.emptyIterator(), false));
+        ResultadoTransferenciaLote emProcessamento = service.submeter(List.of(transferencia("A", "B", 1)).iterator(), false);
+        Iterator<TransferenciaRequest> naoLido = Mockito.mock(Iterator.class);
+        ServiceUnavailableException erro = Assertions.assertThrows(ServiceUnavailableException.class, () -> service.submeter(naoLido, false));
+        gravacao.complete(null);
+        aguardarConclusao(emProcessamento);
+
+        Assertions.assertEquals(TransferenciaLoteService.LOTES_EM_PROCESSAMENTO + 1, erro.getMessage());
+        Mockito.verifyNoInteractions(naoLido);
+        Assertions.assertEquals(StatusLoteEnum.CONCLUIDO, aguardarConclusao(service.submeter(List.of(transferencia("A", "B", 1)).iterator(), false)).getStatus(),
+                "O lote concluído deve devolver a vaga, e o recusado não deve ocupá-la");
+    }
+
+    private ResultadoTransferenciaLote aguardarConclusao(ResultadoTransferenciaLote submetido) {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        ResultadoTransferenciaLote resultado = service.consultar(submetido.getId());
+        while (resultado.getStatus() != StatusLoteEnum.CONCLUIDO) {
+            Assertions.assertTrue(System.nanoTime() < limite, "O lote deveria ter sido concluído");
+            Thread.onSpinWait();
+            resultado = service.consultar(submetido.getId());
+        }
+        return resultado;
+    }
+
+    private static TransferenciaRequest transferencia(String origem, String destino, int valor) {
+        return TransferenciaRequest.builder().origem(origem).destino(destino).valor(BigDecimal.valueOf(valor)).build();
+    }
+}